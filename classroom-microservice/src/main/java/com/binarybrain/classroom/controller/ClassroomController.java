@@ -1,30 +1,44 @@
 package com.binarybrain.classroom.controller;
 
+import com.binarybrain.classroom.dto.BulkEnrolmentRequest;
 import com.binarybrain.classroom.dto.ClassroomDto;
+import com.binarybrain.classroom.dto.ClassroomOverview;
+import com.binarybrain.classroom.dto.ClassroomSummary;
 import com.binarybrain.classroom.dto.CourseDto;
+import com.binarybrain.classroom.dto.EnrolmentResult;
+import com.binarybrain.classroom.dto.StudentTimeline;
 import com.binarybrain.classroom.model.Classroom;
 import com.binarybrain.classroom.service.ClassroomService;
 import com.binarybrain.exception.ErrorDetails;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.util.List;
 
 @RestController
 @RequestMapping("/api/v1/private/classroom")
 public class ClassroomController {
+    private static final String NDJSON = "application/x-ndjson";
 
     private final ClassroomService classroomService;
+    private final ObjectMapper objectMapper;
 
-    public ClassroomController(ClassroomService classroomService) {
+    public ClassroomController(ClassroomService classroomService, ObjectMapper objectMapper) {
         this.classroomService = classroomService;
+        this.objectMapper = objectMapper;
     }
 
     @Operation(
@@ -78,10 +92,10 @@ public class ClassroomController {
     @Operation(
             summary = "Search all classroom  by Author id",
             tags = {"02 - Search Classroom"},
-            description = "Returns a list of classrooms assigned to a specific teacher, filtered by teacher ID and username in the request header. One Teacher can't search for another teacher classroom!",
+            description = "Returns a summary of the classrooms assigned to a specific teacher, filtered by teacher ID and username in the request header, ordered by id one page at a time. Pass the X-Next-Cursor response header as 'after' to get the next page. One Teacher can't search for another teacher classroom!",
             responses = {
                     @ApiResponse(responseCode = "200", description = "Successfully retrieved classroom list",
-                            content = @Content(mediaType = "application/json", schema = @Schema(implementation = Classroom.class))),
+                            content = @Content(mediaType = "application/json", array = @ArraySchema(schema = @Schema(implementation = ClassroomSummary.class)))),
                     @ApiResponse(responseCode = "401", description = "Unauthorized: Invalid or Expired JWT token.",
                             content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorDetails.class))),
                     @ApiResponse(responseCode = "403", description = "You don't have permission to search classroom! User with role ADMIN, TEACHER can have permission to search Classroom.",
@@ -92,21 +106,52 @@ public class ClassroomController {
             security = @SecurityRequirement(name = "bearerToken")
     )
     @GetMapping("/teacher/{id}")
-    public ResponseEntity<List<Classroom>> getAllClassroomByTeacherId(@PathVariable Long id,
-                                                                      @Parameter(hidden = true) @RequestHeader("X-User-Username") String username){
+    public ResponseEntity<List<ClassroomSummary>> getAllClassroomByTeacherId(@PathVariable Long id,
+                                                                             @Parameter(description = "Id of the last classroom of the previous page") @RequestParam(required = false) Long after,
+                                                                             @Parameter(description = "Page size, capped by the server") @RequestParam(required = false) Integer size,
+                                                                             @Parameter(hidden = true) @RequestHeader("X-User-Username") String username){
 
-        List<Classroom> classroomList = classroomService.getAllClassroomByTeacherId(id, username);
+        return classroomService.getAllClassroomByTeacherId(id, after, size, username).toResponseEntity();
+    }
 
-        return new ResponseEntity<>(classroomList, HttpStatus.OK);
+    @Operation(
+            summary = "Export all classrooms",
+            tags = {"02 - Search Classroom"},
+            description = "Streams every classroom as newline-delimited JSON, one classroom per line. Only ADMIN have permission to do this.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Successfully exported classrooms",
+                            content = @Content(mediaType = NDJSON, schema = @Schema(implementation = Classroom.class))),
+                    @ApiResponse(responseCode = "401", description = "Unauthorized: Invalid or Expired JWT token.",
+                            content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorDetails.class))),
+                    @ApiResponse(responseCode = "403", description = "Only ADMIN have the permission to export classrooms.",
+                            content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorDetails.class)))
+            },
+            security = @SecurityRequirement(name = "bearerToken")
+    )
+    @GetMapping("/export")
+    public void exportAllClassroom(@Parameter(hidden = true) @RequestHeader("X-User-Username") String username,
+                                   HttpServletResponse response) throws IOException {
+        // checked before the response is touched, so a refusal still gets its status and error body
+        classroomService.validateExportPermission(username);
+        response.setContentType(NDJSON);
+        OutputStream out = response.getOutputStream();
+        classroomService.exportAllClassroom(username, classroom -> {
+            try {
+                out.write(objectMapper.writeValueAsBytes(classroom));
+                out.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
     }
 
     @Operation(
             summary = "Search all classroom  by Student id",
             tags = {"02 - Search Classroom"},
-            description = "Returns a list of classrooms in which the student is added.",
+            description = "Returns a summary of the classrooms in which the student is added, ordered by id one page at a time. Pass the X-Next-Cursor response header as 'after' to get the next page.",
             responses = {
                     @ApiResponse(responseCode = "200", description = "Successfully retrieved classroom list",
-                            content = @Content(mediaType = "application/json", schema = @Schema(implementation = Classroom.class))),
+                            content = @Content(mediaType = "application/json", array = @ArraySchema(schema = @Schema(implementation = ClassroomSummary.class)))),
                     @ApiResponse(responseCode = "401", description = "Unauthorized: Invalid or Expired JWT token.",
                             content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorDetails.class))),
                     @ApiResponse(responseCode = "404", description = "Student not found with given id.",
@@ -115,9 +160,50 @@ public class ClassroomController {
             security = @SecurityRequirement(name = "bearerToken")
     )
     @GetMapping("/by-student/{studentId}")
-    public ResponseEntity<List<Classroom>> getClassroomsByStudentId(@PathVariable Long studentId){
-        List<Classroom> classroomList = classroomService.getClassroomsByStudentId(studentId);
-        return new ResponseEntity<>(classroomList, HttpStatus.OK);
+    public ResponseEntity<List<ClassroomSummary>> getClassroomsByStudentId(@PathVariable Long studentId,
+                                                                           @Parameter(description = "Id of the last classroom of the previous page") @RequestParam(required = false) Long after,
+                                                                           @Parameter(description = "Page size, capped by the server") @RequestParam(required = false) Integer size){
+        return classroomService.getClassroomsByStudentId(studentId, after, size).toResponseEntity();
+    }
+
+    @Operation(
+            summary = "Check whether a student is in a classroom",
+            tags = {"02 - Search Classroom"},
+            description = "Returns true if the student is added in the classroom. Only Admin, the classroom's teacher or the student can check.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Successfully checked the membership",
+                            content = @Content(mediaType = "application/json", schema = @Schema(implementation = Boolean.class))),
+                    @ApiResponse(responseCode = "401", description = "Unauthorized: Invalid or Expired JWT token.",
+                            content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorDetails.class))),
+                    @ApiResponse(responseCode = "403", description = "Only Admin, the classroom's teacher or the student can check this membership.",
+                            content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorDetails.class))),
+            },
+            security = @SecurityRequirement(name = "bearerToken")
+    )
+    @GetMapping("/{classroomId}/students/{studentId}")
+    public ResponseEntity<Boolean> isStudentInClassroom(@PathVariable Long classroomId, @PathVariable Long studentId,
+                                                        @Parameter(hidden = true) @RequestHeader("X-User-Username") String username){
+        return new ResponseEntity<>(classroomService.isStudentInClassroom(classroomId, studentId, username), HttpStatus.OK);
+    }
+
+    @Operation(
+            summary = "Search students common to classrooms",
+            tags = {"02 - Search Classroom"},
+            description = "Returns the ids of the students added in every one of the given classrooms. Only Admin or the teacher of every classroom can list them.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Successfully retrieved student id list",
+                            content = @Content(mediaType = "application/json", array = @ArraySchema(schema = @Schema(implementation = Long.class)))),
+                    @ApiResponse(responseCode = "401", description = "Unauthorized: Invalid or Expired JWT token.",
+                            content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorDetails.class))),
+                    @ApiResponse(responseCode = "403", description = "Only Admin or the teacher of every classroom can list their common students.",
+                            content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorDetails.class))),
+            },
+            security = @SecurityRequirement(name = "bearerToken")
+    )
+    @GetMapping("/common-students")
+    public ResponseEntity<List<Long>> getCommonStudentIds(@RequestParam List<Long> classroomIds,
+                                                          @Parameter(hidden = true) @RequestHeader("X-User-Username") String username){
+        return new ResponseEntity<>(classroomService.getCommonStudentIds(classroomIds, username), HttpStatus.OK);
     }
 
     @Operation(
@@ -146,6 +232,31 @@ public class ClassroomController {
         return new ResponseEntity<>(classroom, HttpStatus.OK);
     }
 
+    @Operation(
+            summary = "Add many students in a classroom",
+            tags = {"03 - Manage students"},
+            description = "Teacher can add students in their classroom by id or username at once. Returns whether each student was added, already present, not a student or not found.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Outcome of every requested student.",
+                            content = @Content(mediaType = "application/json", array = @ArraySchema(schema = @Schema(implementation = EnrolmentResult.class)))),
+                    @ApiResponse(responseCode = "401", description = "Unauthorized: Invalid or Expired JWT token.",
+                            content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorDetails.class))),
+                    @ApiResponse(responseCode = "403", description = "You don't have permission to add student in another teacher's classroom!",
+                            content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorDetails.class))),
+                    @ApiResponse(responseCode = "404", description = "Classroom not found with given id.",
+                            content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorDetails.class)))
+            },
+            security = @SecurityRequirement(name = "bearerToken")
+    )
+    @PostMapping("/{classroomId}/students")
+    public ResponseEntity<List<EnrolmentResult>> addStudentsInClassroom(@PathVariable Long classroomId,
+                                                                        @RequestBody BulkEnrolmentRequest request,
+                                                                        @Parameter(hidden = true) @RequestHeader("X-User-Username") String username){
+
+        List<EnrolmentResult> results = classroomService.addStudentsInClassroom(classroomId, request, username);
+        return new ResponseEntity<>(results, HttpStatus.OK);
+    }
+
     @Operation(
             summary = "Remove student from a classroom",
             tags = {"03 - Manage students"},
@@ -259,4 +370,43 @@ public class ClassroomController {
         return new ResponseEntity<>(courseDtoList, HttpStatus.OK);
     }
 
-}
\ No newline at end of file
+    @Operation(
+            summary = "Retrieve the overview of a classroom",
+            tags = {"02 - Search Classroom"},
+            description = "Returns the classroom with its courses, the tasks of every course and the number of submissions of every task in one response. Parts that a service didn't return in time are left null and listed in 'unavailable'.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Successfully retrieved classroom overview",
+                            content = @Content(mediaType = "application/json", schema = @Schema(implementation = ClassroomOverview.class))),
+                    @ApiResponse(responseCode = "401", description = "Unauthorized: Invalid or Expired JWT token.",
+                            content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorDetails.class))),
+                    @ApiResponse(responseCode = "404", description = "Classroom not found with given id.",
+                            content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorDetails.class)))
+            },
+            security = @SecurityRequirement(name = "bearerToken")
+    )
+    @GetMapping("/{classroomId}/overview")
+    public ResponseEntity<ClassroomOverview> getClassroomOverview(@PathVariable Long classroomId,
+                                                                  @Parameter(hidden = true) @RequestHeader("X-User-Username") String username) {
+        ClassroomOverview overview = classroomService.getClassroomOverview(classroomId, username);
+        return new ResponseEntity<>(overview, HttpStatus.OK);
+    }
+
+
+    @Operation(
+            summary = "Retrieve the tasks due for the student",
+            tags = {"02 - Search Classroom"},
+            description = "Returns the tasks of the courses of every classroom the requesting student is in that are due in the next 'days' days, and the ones not submitted whose deadline has recently passed, each with the state of the student's submission and ordered by deadline.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Successfully retrieved the due tasks",
+                            content = @Content(mediaType = "application/json", schema = @Schema(implementation = StudentTimeline.class))),
+                    @ApiResponse(responseCode = "401", description = "Unauthorized: Invalid or Expired JWT token.",
+                            content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorDetails.class)))
+            },
+            security = @SecurityRequirement(name = "bearerToken")
+    )
+    @GetMapping("/due")
+    public ResponseEntity<StudentTimeline> getDueTasks(@Parameter(description = "Number of days ahead to list upcoming tasks for, capped by the server") @RequestParam(required = false) Integer days,
+                                                       @Parameter(hidden = true) @RequestHeader("X-User-Username") String username) {
+        return new ResponseEntity<>(classroomService.getDueTasks(days, username), HttpStatus.OK);
+    }
+}
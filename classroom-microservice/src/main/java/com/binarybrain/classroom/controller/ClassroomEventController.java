@@ -0,0 +1,76 @@
+package com.binarybrain.classroom.controller;
+
+import com.binarybrain.classroom.dto.TaskDto;
+import com.binarybrain.classroom.dto.TaskSubmissionState;
+import com.binarybrain.classroom.service.ClassroomService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * Changes the course, task and submission services report so that the student timelines follow
+ * them. These are called service to service, and are kept out of {@code /api/v1/private} so that
+ * the gateway doesn't route them and clients can't post events of their own.
+ */
+@RestController
+@RequestMapping("/api/v1/internal/classroom/events")
+public class ClassroomEventController {
+
+    private final ClassroomService classroomService;
+
+    public ClassroomEventController(ClassroomService classroomService) {
+        this.classroomService = classroomService;
+    }
+
+    @Operation(
+            summary = "Record a changed task",
+            tags = {"06 - Student timeline events"},
+            description = "Called by the task service when a task is updated or closed, to update the student timelines it is on.",
+            responses = @ApiResponse(responseCode = "202", description = "The change will be applied")
+    )
+    @PostMapping("/task")
+    public ResponseEntity<Void> taskChanged(@RequestBody TaskDto taskDto) {
+        classroomService.taskChanged(taskDto);
+        return new ResponseEntity<>(HttpStatus.ACCEPTED);
+    }
+
+    @Operation(
+            summary = "Record a deleted task",
+            tags = {"06 - Student timeline events"},
+            description = "Called by the task service when a task is deleted, to remove it from the student timelines.",
+            responses = @ApiResponse(responseCode = "202", description = "The change will be applied")
+    )
+    @DeleteMapping("/task/{taskId}")
+    public ResponseEntity<Void> taskDeleted(@PathVariable Long taskId) {
+        classroomService.taskDeleted(taskId);
+        return new ResponseEntity<>(HttpStatus.ACCEPTED);
+    }
+
+    @Operation(
+            summary = "Record changed tasks of a course",
+            tags = {"06 - Student timeline events"},
+            description = "Called by the course service when tasks are added to or removed from a course, or the course is deleted, to rebuild the student timelines of the classrooms it is assigned to.",
+            responses = @ApiResponse(responseCode = "202", description = "The change will be applied")
+    )
+    @PostMapping("/course/{courseId}/tasks")
+    public ResponseEntity<Void> courseTasksChanged(@PathVariable Long courseId,
+                                                   @Parameter(hidden = true) @RequestHeader("X-User-Username") String username) {
+        classroomService.courseTasksChanged(courseId, username);
+        return new ResponseEntity<>(HttpStatus.ACCEPTED);
+    }
+
+    @Operation(
+            summary = "Record a changed submission",
+            tags = {"06 - Student timeline events"},
+            description = "Called by the submission service when a task is submitted or a submission reviewed, to update the timeline of the student.",
+            responses = @ApiResponse(responseCode = "202", description = "The change will be applied")
+    )
+    @PostMapping("/submission")
+    public ResponseEntity<Void> submissionChanged(@RequestBody TaskSubmissionState submission) {
+        classroomService.submissionChanged(submission);
+        return new ResponseEntity<>(HttpStatus.ACCEPTED);
+    }
+}
@@ -0,0 +1,19 @@
+package com.binarybrain.classroom.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The students to enrol into a classroom at once, by id, by username or both.
+ */
+@Data
+public class BulkEnrolmentRequest {
+    @Schema(example = "[\"Long\"]")
+    private List<Long> studentIds = new ArrayList<>();
+
+    @Schema(example = "[\"String\"]")
+    private List<String> usernames = new ArrayList<>();
+}
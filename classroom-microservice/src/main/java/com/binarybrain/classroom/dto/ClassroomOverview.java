@@ -0,0 +1,13 @@
+package com.binarybrain.classroom.dto;
+
+import com.binarybrain.classroom.model.Classroom;
+
+import java.util.List;
+
+/**
+ * A classroom with its courses, their tasks and the number of submissions of each task.
+ * {@code unavailable} names the parts that are missing because a service failed or was too slow,
+ * and is empty for a complete overview.
+ */
+public record ClassroomOverview(Classroom classroom, List<CourseOverview> courses, List<String> unavailable) {
+}
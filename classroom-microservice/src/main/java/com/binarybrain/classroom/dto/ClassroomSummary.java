@@ -0,0 +1,12 @@
+package com.binarybrain.classroom.dto;
+
+import java.time.LocalDate;
+
+/**
+ * A classroom as listed, with the number of its students, courses and resources instead of their
+ * ids. Read with one query per page; the full {@link com.binarybrain.classroom.model.Classroom}
+ * is returned by the detail endpoint.
+ */
+public record ClassroomSummary(Long id, String title, Long teacherId, LocalDate startDate,
+                               Long studentCount, Long courseCount, Long resourceCount) {
+}
@@ -0,0 +1,12 @@
+package com.binarybrain.classroom.dto;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One course of a {@link ClassroomOverview}. {@code course} is null when the course service didn't
+ * answer in time, {@code tasks} when the tasks of the course couldn't be fetched, and
+ * {@code submissionCounts}, keyed by task id, when the submissions couldn't be counted.
+ */
+public record CourseOverview(Long courseId, CourseDto course, List<TaskDto> tasks, Map<Long, Long> submissionCounts) {
+}
@@ -0,0 +1,11 @@
+package com.binarybrain.classroom.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * A task on a student's deadline timeline, with the classroom and course it was given through and
+ * the state of the student's submission of it.
+ */
+public record DueTask(Long classroomId, Long courseId, Long taskId, String title, LocalDateTime deadline,
+                      TaskStatus taskStatus, SubmissionState submissionState, LocalDateTime submittedAt) {
+}
@@ -0,0 +1,18 @@
+package com.binarybrain.classroom.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * The outcome of one student of a bulk enrolment. {@code studentId} is null for a username that
+ * doesn't exist, {@code username} for an id given without one.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EnrolmentResult {
+    private Long studentId;
+    private String username;
+    private EnrolmentStatus status;
+}
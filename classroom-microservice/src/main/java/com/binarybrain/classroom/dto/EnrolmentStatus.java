@@ -0,0 +1,9 @@
+package com.binarybrain.classroom.dto;
+
+public enum EnrolmentStatus {
+
+    ADDED,
+    ALREADY_PRESENT,
+    NOT_A_STUDENT,
+    NOT_FOUND
+}
@@ -0,0 +1,10 @@
+package com.binarybrain.classroom.dto;
+
+import java.util.List;
+
+/**
+ * The tasks a student hasn't submitted whose deadline has passed, and the tasks due next, each
+ * ordered by deadline.
+ */
+public record StudentTimeline(List<DueTask> overdue, List<DueTask> upcoming) {
+}
@@ -0,0 +1,8 @@
+package com.binarybrain.classroom.dto;
+
+public enum SubmissionState {
+    NOT_SUBMITTED,
+    PENDING,
+    ACCEPTED,
+    REJECTED
+}
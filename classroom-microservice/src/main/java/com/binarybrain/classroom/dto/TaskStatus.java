@@ -0,0 +1,7 @@
+package com.binarybrain.classroom.dto;
+
+public enum TaskStatus {
+    OPEN,
+    CLOSED,
+    DONE
+}
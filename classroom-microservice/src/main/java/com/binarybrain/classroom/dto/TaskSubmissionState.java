@@ -0,0 +1,9 @@
+package com.binarybrain.classroom.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * The state of a student's submission of a task, as returned and posted by the submission service.
+ */
+public record TaskSubmissionState(Long taskId, Long studentId, SubmissionState state, LocalDateTime submittedAt) {
+}
@@ -3,6 +3,7 @@ package com.binarybrain.classroom.model;
 import io.swagger.v3.oas.annotations.media.Schema;
 import jakarta.persistence.*;
 import lombok.Data;
+import org.hibernate.annotations.BatchSize;
 
 import java.time.LocalDate;
 import java.util.HashSet;
@@ -10,6 +11,7 @@ import java.util.Set;
 
 @Data
 @Entity
+@Table(indexes = @Index(name = "idx_classroom_teacher_id", columnList = "teacher_id, id"))
 public class Classroom {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -30,16 +32,23 @@ public class Classroom {
 
     @Schema(example = "[\"Long\"]")
     @ElementCollection
-    @CollectionTable(name = "classroom_students", joinColumns = @JoinColumn(name = "classroom_id"))
+    @CollectionTable(name = "classroom_students", joinColumns = @JoinColumn(name = "classroom_id"),
+            uniqueConstraints = @UniqueConstraint(name = "uk_classroom_students", columnNames = {"classroom_id", "student_ids"}),
+            indexes = @Index(name = "idx_classroom_students_student", columnList = "student_ids"))
+    @Column(name = "student_ids", nullable = false)
+    @BatchSize(size = 100)
     private Set<Long> studentIds = new HashSet<>();
 
     @Schema(example = "[\"Long\"]")
     @ElementCollection
-    @CollectionTable(name = "classroom_courses", joinColumns = @JoinColumn(name = "classroom_id"))
+    @CollectionTable(name = "classroom_courses", joinColumns = @JoinColumn(name = "classroom_id"),
+            indexes = @Index(name = "idx_classroom_courses_course", columnList = "course_ids"))
+    @BatchSize(size = 100)
     private Set<Long> courseIds = new HashSet<>();
 
     @Schema(example = "[\"Long\"]")
     @ElementCollection
     @CollectionTable(name = "classroom_resources", joinColumns = @JoinColumn(name = "classroom_id"))
+    @BatchSize(size = 100)
     private Set<Long> resourceIds = new HashSet<>();
 }
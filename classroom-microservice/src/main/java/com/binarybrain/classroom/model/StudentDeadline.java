@@ -0,0 +1,49 @@
+package com.binarybrain.classroom.model;
+
+import com.binarybrain.classroom.dto.SubmissionState;
+import com.binarybrain.classroom.dto.TaskStatus;
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * A task of a course of a classroom a student is in, copied from the course, task and submission
+ * services so a student's timeline is read from one table.
+ */
+@Data
+@Entity
+@Table(indexes = {
+        @Index(name = "idx_student_deadline_timeline", columnList = "student_id, deadline"),
+        @Index(name = "idx_student_deadline_task", columnList = "task_id, student_id"),
+        @Index(name = "idx_student_deadline_classroom", columnList = "classroom_id, course_id, student_id")})
+public class StudentDeadline {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long studentId;
+
+    @Column(nullable = false)
+    private Long classroomId;
+
+    @Column(nullable = false)
+    private Long courseId;
+
+    @Column(nullable = false)
+    private Long taskId;
+
+    private String title;
+
+    private LocalDateTime deadline;
+
+    @Enumerated(EnumType.STRING)
+    private TaskStatus taskStatus;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private SubmissionState submissionState;
+
+    private LocalDateTime submittedAt;
+}
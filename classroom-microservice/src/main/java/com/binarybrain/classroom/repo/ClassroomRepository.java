@@ -1,13 +1,105 @@
 package com.binarybrain.classroom.repo;
 
+import com.binarybrain.classroom.dto.ClassroomSummary;
 import com.binarybrain.classroom.model.Classroom;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
 
 @Repository
 public interface ClassroomRepository extends JpaRepository<Classroom, Long> {
-    List<Classroom> findByTeacherId(Long teacherId);
-    List<Classroom> findByStudentIdsContaining(Long id);
+    String SELECT_SUMMARY = "select new com.binarybrain.classroom.dto.ClassroomSummary(c.id, c.title, c.teacherId, c.startDate, " +
+            "(select count(s) from Classroom cs join cs.studentIds s where cs.id = c.id), " +
+            "(select count(co) from Classroom cc join cc.courseIds co where cc.id = c.id), " +
+            "(select count(r) from Classroom cr join cr.resourceIds r where cr.id = c.id)) from Classroom c ";
+
+    /**
+     * Keyset page of a teacher's classrooms as summaries, counted in the same statement instead of
+     * initialising the collections of every classroom.
+     */
+    @Query(SELECT_SUMMARY + "where c.teacherId = :teacherId and c.id > :afterId order by c.id")
+    List<ClassroomSummary> findSummariesByTeacherIdAfter(@Param("teacherId") Long teacherId, @Param("afterId") Long afterId, Limit limit);
+
+    /**
+     * The summaries of the given classrooms in id order, in one statement.
+     */
+    @Query(SELECT_SUMMARY + "where c.id in :ids order by c.id")
+    List<ClassroomSummary> findSummariesByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Every classroom in id order, read from the database as the stream is consumed. Has to be
+     * consumed and closed inside a transaction.
+     */
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    Stream<Classroom> streamAllByOrderByIdAsc();
+
+    /**
+     * @return the ids of the courses assigned to the classroom.
+     */
+    @Query("select co from Classroom c join c.courseIds co where c.id = :classroomId")
+    List<Long> findCourseIds(@Param("classroomId") Long classroomId);
+
+    /**
+     * @return the ids of the classrooms the course is assigned to, from the
+     *         {@code classroom_courses} course index.
+     */
+    @Query("select c.id from Classroom c join c.courseIds co where co = :courseId")
+    List<Long> findIdsByCourseId(@Param("courseId") Long courseId);
+
+    boolean existsByIdAndTeacherId(Long id, Long teacherId);
+
+    long countByIdInAndTeacherId(Collection<Long> ids, Long teacherId);
+
+    /**
+     * A student's membership of a classroom, as read to build the membership index.
+     */
+    interface MembershipRow {
+        Long getClassroomId();
+        Long getStudentId();
+    }
+
+    /**
+     * Keyset page of the memberships after the given one, ordered by classroom and student.
+     */
+    @Query("select c.id as classroomId, s as studentId from Classroom c join c.studentIds s " +
+            "where c.id > :classroomId or (c.id = :classroomId and s > :studentId) order by c.id, s")
+    List<MembershipRow> findMembershipRowsAfter(@Param("classroomId") long classroomId, @Param("studentId") long studentId, Limit limit);
+
+    /**
+     * Enrols a student with a single row insert. A second enrolment of the same student violates
+     * {@code uk_classroom_students} and fails with a
+     * {@link org.springframework.dao.DataIntegrityViolationException}.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Transactional
+    @Query(value = "insert into classroom_students (classroom_id, student_ids) values (:classroomId, :studentId)", nativeQuery = true)
+    int addStudent(@Param("classroomId") Long classroomId, @Param("studentId") Long studentId);
+
+    /**
+     * @return those of {@code studentIds} that are in the classroom.
+     */
+    @Query(value = "select student_ids from classroom_students where classroom_id = :classroomId and student_ids in (:studentIds)", nativeQuery = true)
+    List<Long> findStudentIdsIn(@Param("classroomId") Long classroomId, @Param("studentIds") Collection<Long> studentIds);
+
+    /**
+     * Removes a student with a single row delete.
+     *
+     * @return the number of deleted rows, 0 if the student wasn't in the classroom.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Transactional
+    @Query(value = "delete from classroom_students where classroom_id = :classroomId and student_ids = :studentId", nativeQuery = true)
+    int removeStudent(@Param("classroomId") Long classroomId, @Param("studentId") Long studentId);
 }
@@ -0,0 +1,60 @@
+package com.binarybrain.classroom.repo;
+
+import com.binarybrain.classroom.dto.DueTask;
+import com.binarybrain.classroom.dto.SubmissionState;
+import com.binarybrain.classroom.dto.TaskStatus;
+import com.binarybrain.classroom.model.StudentDeadline;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface StudentDeadlineRepository extends JpaRepository<StudentDeadline, Long> {
+
+    /**
+     * A student's tasks due between {@code from} and {@code to}, leaving out those due before
+     * {@code now} the student has submitted, ordered by deadline. Read from the
+     * {@code student_id, deadline} index in one statement.
+     */
+    @Query("select new com.binarybrain.classroom.dto.DueTask(d.classroomId, d.courseId, d.taskId, d.title, d.deadline, " +
+            "d.taskStatus, d.submissionState, d.submittedAt) from StudentDeadline d " +
+            "where d.studentId = :studentId and d.deadline >= :from and d.deadline < :to " +
+            "and (d.deadline >= :now or d.submissionState = com.binarybrain.classroom.dto.SubmissionState.NOT_SUBMITTED) " +
+            "order by d.deadline, d.taskId, d.classroomId")
+    List<DueTask> findTimeline(@Param("studentId") Long studentId, @Param("from") LocalDateTime from,
+                               @Param("now") LocalDateTime now, @Param("to") LocalDateTime to);
+
+    /**
+     * Copies a changed task into the timelines it is on.
+     *
+     * @return the number of updated rows.
+     */
+    @Modifying
+    @Transactional
+    @Query("update StudentDeadline d set d.title = :title, d.deadline = :deadline, d.taskStatus = :status where d.taskId = :taskId")
+    int updateTask(@Param("taskId") Long taskId, @Param("title") String title,
+                   @Param("deadline") LocalDateTime deadline, @Param("status") TaskStatus status);
+
+    @Modifying
+    @Transactional
+    @Query("delete from StudentDeadline d where d.taskId = :taskId")
+    int deleteByTaskId(@Param("taskId") Long taskId);
+
+    /**
+     * Copies the state of a student's submission of a task into the student's timeline.
+     *
+     * @return the number of updated rows.
+     */
+    @Modifying
+    @Transactional
+    @Query("update StudentDeadline d set d.submissionState = :state, d.submittedAt = :submittedAt " +
+            "where d.taskId = :taskId and d.studentId = :studentId")
+    int updateSubmission(@Param("taskId") Long taskId, @Param("studentId") Long studentId,
+                         @Param("state") SubmissionState state, @Param("submittedAt") LocalDateTime submittedAt);
+}
@@ -1,11 +1,20 @@
 package com.binarybrain.classroom.service;
 
+import com.binarybrain.classroom.dto.BulkEnrolmentRequest;
 import com.binarybrain.classroom.dto.ClassroomDto;
+import com.binarybrain.classroom.dto.ClassroomOverview;
+import com.binarybrain.classroom.dto.ClassroomSummary;
 import com.binarybrain.classroom.dto.CourseDto;
+import com.binarybrain.classroom.dto.EnrolmentResult;
+import com.binarybrain.classroom.dto.StudentTimeline;
+import com.binarybrain.classroom.dto.TaskDto;
+import com.binarybrain.classroom.dto.TaskSubmissionState;
 import com.binarybrain.classroom.model.Classroom;
+import com.binarybrain.support.lookup.CursorPage;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 @Service
 public interface ClassroomService {
@@ -13,12 +22,23 @@ public interface ClassroomService {
     Classroom createClassroom(ClassroomDto classroomDto, String username);
 
     Classroom getClassroomById(Long id, String username);
-    List<Classroom> getAllClassroomByTeacherId(Long id, String username);
+    CursorPage<ClassroomSummary> getAllClassroomByTeacherId(Long id, Long after, Integer size, String username);
+    void validateExportPermission(String username);
+    void exportAllClassroom(String username, Consumer<Classroom> sink);
     void deleteClassroom(Long id, String username);
     Classroom addStudentInClassroom(Long classroomId, Long studentId, String username);
+    List<EnrolmentResult> addStudentsInClassroom(Long classroomId, BulkEnrolmentRequest request, String username);
     Classroom removeStudentFromClassroomById(Long classroomId, Long studentId, String username);
-    List<Classroom> getClassroomsByStudentId(Long studentId);
+    CursorPage<ClassroomSummary> getClassroomsByStudentId(Long studentId, Long after, Integer size);
+    boolean isStudentInClassroom(Long classroomId, Long studentId, String username);
+    List<Long> getCommonStudentIds(List<Long> classroomIds, String username);
     Classroom addCourseToClassroom(Long classroomId, Long courseId, String username);
     Classroom removeCourseFromClassroomById(Long classroomId, Long courseId, String username);
     List<CourseDto> getAllCourseInClassroom(Long classroomId, String username);
+    ClassroomOverview getClassroomOverview(Long classroomId, String username);
+    StudentTimeline getDueTasks(Integer days, String username);
+    void taskChanged(TaskDto taskDto);
+    void taskDeleted(Long taskId);
+    void courseTasksChanged(Long courseId, String username);
+    void submissionChanged(TaskSubmissionState submission);
 }
@@ -1,6 +1,8 @@
 package com.binarybrain.classroom.service;
 
 import com.binarybrain.classroom.dto.CourseDto;
+import com.binarybrain.classroom.dto.TaskDto;
+import com.binarybrain.support.lookup.BatchLookup;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.*;
 
@@ -12,8 +14,11 @@ public interface CourseService {
     CourseDto getCourseById(@PathVariable Long id,
                             @RequestHeader("X-User-Username") String username);
 
-    @GetMapping("/api/v1/private/course/by-ids")
-    List<CourseDto> getCoursesByIds(@RequestParam List<Long> courseIds,
-                                    @RequestHeader("X-User-Username") String username);
+    @PostMapping("/api/v1/private/course/batch")
+    BatchLookup<CourseDto> getCoursesByIds(@RequestBody List<Long> courseIds,
+                                           @RequestHeader("X-User-Username") String username);
 
+    @GetMapping("/api/v1/private/course/{courseId}/tasks")
+    List<TaskDto> getAllTasksFromCourse(@PathVariable Long courseId,
+                                        @RequestHeader("X-User-Username") String username);
 }
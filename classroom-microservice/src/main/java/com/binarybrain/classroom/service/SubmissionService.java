@@ -0,0 +1,21 @@
+package com.binarybrain.classroom.service;
+
+import com.binarybrain.classroom.dto.TaskSubmissionState;
+import org.springframework.cloud.openfeign.FeignClient;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+
+import java.util.List;
+import java.util.Map;
+
+@FeignClient(name = "TASK-SUBMISSION-MICROSERVICE")
+public interface SubmissionService {
+    @PostMapping("/api/v1/private/submission/counts")
+    Map<Long, Long> countSubmissionsByTaskIds(@RequestBody List<Long> taskIds,
+                                             @RequestHeader("X-User-Username") String username);
+
+    @PostMapping("/api/v1/private/submission/states")
+    List<TaskSubmissionState> getSubmissionStatesByTaskIds(@RequestBody List<Long> taskIds,
+                                                          @RequestHeader("X-User-Username") String username);
+}
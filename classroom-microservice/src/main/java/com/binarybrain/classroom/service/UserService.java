@@ -4,9 +4,14 @@ import com.binarybrain.classroom.dto.UserDto;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestHeader;
 
-@FeignClient(name = "USER-MICROSERVICE")
+import java.util.Collection;
+import java.util.List;
+
+@FeignClient(name = "USER-MICROSERVICE", qualifiers = "userServiceClient", primary = false)
 public interface UserService {
     @GetMapping("/api/user/profile")
     UserDto getUserProfile(@RequestHeader("X-User-Username") String username);
@@ -14,4 +19,12 @@ public interface UserService {
     @GetMapping("/api/user/profile/{id}")
     UserDto getUserProfileById(@PathVariable Long id,
                                       @RequestHeader("X-User-Username") String username);
+
+    @PostMapping("/api/user/profiles")
+    List<UserDto> getUserProfilesByIds(@RequestBody Collection<Long> ids,
+                                       @RequestHeader("X-User-Username") String username);
+
+    @PostMapping("/api/user/profiles/by-username")
+    List<UserDto> getUserProfilesByUsernames(@RequestBody Collection<String> usernames,
+                                             @RequestHeader("X-User-Username") String username);
 }
@@ -0,0 +1,197 @@
+package com.binarybrain.classroom.service.impl;
+
+import org.roaringbitmap.longlong.Roaring64Bitmap;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * An in-memory index of which students are in which classroom: a compressed bitmap of student ids
+ * per classroom, and the inverted bitmap of classroom ids per student.
+ *
+ * <p>Roaring bitmaps keep runs of close ids in a few bytes each and intersect them a container at
+ * a time, so a roster of thousands of students costs kilobytes and the students shared by several
+ * classrooms are found without looking at the ones they don't share. Reads run concurrently;
+ * writes take an exclusive lock.</p>
+ */
+public class ClassroomMembershipIndex {
+    private static final long[] NONE = new long[0];
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Roaring64Bitmap> studentsByClassroom = new HashMap<>();
+    private final Map<Long, Roaring64Bitmap> classroomsByStudent = new HashMap<>();
+    private long memberships;
+
+    /**
+     * @return whether the student wasn't in the classroom yet.
+     */
+    public boolean add(long classroomId, long studentId) {
+        lock.writeLock().lock();
+        try {
+            Roaring64Bitmap students = studentsByClassroom.computeIfAbsent(classroomId, id -> new Roaring64Bitmap());
+            if (students.contains(studentId)) {
+                return false;
+            }
+            students.addLong(studentId);
+            classroomsByStudent.computeIfAbsent(studentId, id -> new Roaring64Bitmap()).addLong(classroomId);
+            memberships++;
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return whether the student was in the classroom.
+     */
+    public boolean remove(long classroomId, long studentId) {
+        lock.writeLock().lock();
+        try {
+            Roaring64Bitmap students = studentsByClassroom.get(classroomId);
+            if (students == null || !students.contains(studentId)) {
+                return false;
+            }
+            students.removeLong(studentId);
+            if (students.isEmpty()) {
+                studentsByClassroom.remove(classroomId);
+            }
+            removeFrom(classroomsByStudent, studentId, classroomId);
+            memberships--;
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void removeClassroom(long classroomId) {
+        lock.writeLock().lock();
+        try {
+            Roaring64Bitmap students = studentsByClassroom.remove(classroomId);
+            if (students != null) {
+                students.forEach(studentId -> removeFrom(classroomsByStudent, studentId, classroomId));
+                memberships -= students.getLongCardinality();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean contains(long classroomId, long studentId) {
+        lock.readLock().lock();
+        try {
+            Roaring64Bitmap students = studentsByClassroom.get(classroomId);
+            return students != null && students.contains(studentId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return the ids of the classrooms of a student, in ascending order.
+     */
+    public long[] classroomsOf(long studentId) {
+        return toArray(classroomsByStudent, studentId);
+    }
+
+    /**
+     * @return the ids of the students of a classroom, in ascending order.
+     */
+    public long[] studentsOf(long classroomId) {
+        return toArray(studentsByClassroom, classroomId);
+    }
+
+    /**
+     * Intersects the rosters of the classrooms, starting from the smallest so every step works on
+     * the fewest students.
+     *
+     * @return the ids of the students in every one of the classrooms, in ascending order.
+     */
+    public long[] commonStudents(Collection<Long> classroomIds) {
+        if (classroomIds.isEmpty()) {
+            return NONE;
+        }
+        lock.readLock().lock();
+        try {
+            List<Roaring64Bitmap> rosters = new ArrayList<>(classroomIds.size());
+            for (Long classroomId : classroomIds) {
+                Roaring64Bitmap students = studentsByClassroom.get(classroomId);
+                if (students == null) {
+                    return NONE;
+                }
+                rosters.add(students);
+            }
+            rosters.sort(Comparator.comparingLong(Roaring64Bitmap::getLongCardinality));
+            Roaring64Bitmap common = rosters.getFirst().clone();
+            for (int i = 1; i < rosters.size() && !common.isEmpty(); i++) {
+                common.and(rosters.get(i));
+            }
+            return common.toArray();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Re-encodes the bitmaps to use run containers where they are smaller, which pays off after a
+     * bulk load of consecutive ids.
+     */
+    public void optimize() {
+        lock.writeLock().lock();
+        try {
+            studentsByClassroom.values().forEach(Roaring64Bitmap::runOptimize);
+            classroomsByStudent.values().forEach(Roaring64Bitmap::runOptimize);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int classrooms() {
+        lock.readLock().lock();
+        try {
+            return studentsByClassroom.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int students() {
+        lock.readLock().lock();
+        try {
+            return classroomsByStudent.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long memberships() {
+        lock.readLock().lock();
+        try {
+            return memberships;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private long[] toArray(Map<Long, Roaring64Bitmap> bitmaps, long key) {
+        lock.readLock().lock();
+        try {
+            Roaring64Bitmap bitmap = bitmaps.get(key);
+            return bitmap == null ? NONE : bitmap.toArray();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static void removeFrom(Map<Long, Roaring64Bitmap> bitmaps, long key, long value) {
+        Roaring64Bitmap bitmap = bitmaps.get(key);
+        bitmap.removeLong(value);
+        if (bitmap.isEmpty()) {
+            bitmaps.remove(key);
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package com.binarybrain.classroom.service.impl;
+
+import com.binarybrain.classroom.repo.ClassroomRepository;
+import com.binarybrain.classroom.repo.ClassroomRepository.MembershipRow;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Answers which classrooms a student is in, whether a student is in a classroom and which students
+ * classrooms share from a {@link ClassroomMembershipIndex}, without a database round trip. The
+ * index is loaded from {@code classroom_students} at startup and updated by the enrolments and
+ * removals made through this service.
+ *
+ * <p>It is also reloaded every {@code classroom-membership.resync-interval}, which picks up the
+ * enrolments and removals made through other instances of the service; changes made while it
+ * reloads are replayed onto the reloaded index before it replaces the old one.</p>
+ *
+ * <p>Published to Micrometer: {@code classroom.membership.classrooms},
+ * {@code classroom.membership.students} and {@code classroom.membership.memberships}.</p>
+ */
+@Service
+public class ClassroomMembershipService implements MeterBinder {
+    private static final Logger log = LoggerFactory.getLogger(ClassroomMembershipService.class);
+    private static final int LOAD_PAGE_SIZE = 5000;
+
+    @Value("${classroom-membership.resync-interval:5m}")
+    private Duration resyncInterval = Duration.ofMinutes(5);
+
+    private final ClassroomRepository classroomRepository;
+    private volatile ClassroomMembershipIndex index = new ClassroomMembershipIndex();
+    private List<Consumer<ClassroomMembershipIndex>> changesDuringLoad;
+    private ScheduledExecutorService resyncExecutor;
+
+    public ClassroomMembershipService(ClassroomRepository classroomRepository) {
+        this.classroomRepository = classroomRepository;
+    }
+
+    @PostConstruct
+    void start() {
+        load();
+        resyncExecutor = Executors.newSingleThreadScheduledExecutor();
+        resyncExecutor.scheduleWithFixedDelay(this::loadOrWarn,
+                resyncInterval.toMillis(), resyncInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        resyncExecutor.shutdownNow();
+    }
+
+    /**
+     * Reads every membership from the database into a new index and swaps it in.
+     */
+    void load() {
+        synchronized (this) {
+            changesDuringLoad = new ArrayList<>();
+        }
+
+        ClassroomMembershipIndex loaded = new ClassroomMembershipIndex();
+        boolean read = false;
+        try {
+            List<MembershipRow> page;
+            long afterClassroomId = 0;
+            long afterStudentId = 0;
+            do {
+                page = classroomRepository.findMembershipRowsAfter(afterClassroomId, afterStudentId, Limit.of(LOAD_PAGE_SIZE));
+                for (MembershipRow row : page) {
+                    loaded.add(row.getClassroomId(), row.getStudentId());
+                }
+                if (!page.isEmpty()) {
+                    afterClassroomId = page.getLast().getClassroomId();
+                    afterStudentId = page.getLast().getStudentId();
+                }
+            } while (page.size() == LOAD_PAGE_SIZE);
+            read = true;
+        } finally {
+            synchronized (this) {
+                if (read) {
+                    changesDuringLoad.forEach(change -> change.accept(loaded));
+                    loaded.optimize();
+                    index = loaded;
+                }
+                changesDuringLoad = null;
+            }
+        }
+    }
+
+    private void loadOrWarn() {
+        try {
+            load();
+        } catch (RuntimeException e) {
+            log.warn("Failed to reload the classroom membership index: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Records committed enrolments. Inside a transaction they are recorded once it commits.
+     */
+    public void enrolled(Long classroomId, Collection<Long> studentIds) {
+        change(current -> studentIds.forEach(studentId -> current.add(classroomId, studentId)));
+    }
+
+    public void removed(Long classroomId, Long studentId) {
+        change(current -> current.remove(classroomId, studentId));
+    }
+
+    public void classroomDeleted(Long classroomId) {
+        change(current -> current.removeClassroom(classroomId));
+    }
+
+    public List<Long> getClassroomIdsOfStudent(Long studentId) {
+        return boxed(index.classroomsOf(studentId));
+    }
+
+    public boolean isStudentInClassroom(Long classroomId, Long studentId) {
+        return index.contains(classroomId, studentId);
+    }
+
+    /**
+     * @return the ids of the students in every one of the classrooms, in ascending order.
+     */
+    public List<Long> getCommonStudentIds(Collection<Long> classroomIds) {
+        return boxed(index.commonStudents(classroomIds));
+    }
+
+    private void change(Consumer<ClassroomMembershipIndex> change) {
+        afterCommit(() -> {
+            synchronized (this) {
+                change.accept(index);
+                if (changesDuringLoad != null) {
+                    changesDuringLoad.add(change);
+                }
+            }
+        });
+    }
+
+    private static void afterCommit(Runnable update) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    update.run();
+                }
+            });
+        } else {
+            update.run();
+        }
+    }
+
+    private static List<Long> boxed(long[] ids) {
+        return Arrays.stream(ids).boxed().toList();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("classroom.membership.classrooms", this, service -> service.index.classrooms()).register(registry);
+        Gauge.builder("classroom.membership.students", this, service -> service.index.students()).register(registry);
+        Gauge.builder("classroom.membership.memberships", this, service -> service.index.memberships()).register(registry);
+    }
+}
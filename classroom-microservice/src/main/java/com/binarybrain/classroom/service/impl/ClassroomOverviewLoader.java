@@ -0,0 +1,115 @@
+package com.binarybrain.classroom.service.impl;
+
+import com.binarybrain.classroom.dto.ClassroomOverview;
+import com.binarybrain.classroom.dto.CourseDto;
+import com.binarybrain.classroom.dto.CourseOverview;
+import com.binarybrain.classroom.dto.TaskDto;
+import com.binarybrain.classroom.model.Classroom;
+import com.binarybrain.classroom.service.CourseService;
+import com.binarybrain.classroom.service.SubmissionService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Builds a {@link ClassroomOverview} in one parallel wave instead of a chain of round trips: the
+ * courses are fetched in one batch while the tasks of every course are fetched at the same time,
+ * each followed by one call counting the submissions of its tasks. Calls run on virtual threads.
+ *
+ * <p>Every call is given {@code classroom-overview.timeout}. A call that fails or runs out of time
+ * leaves its part of the overview null and is named in {@link ClassroomOverview#unavailable()},
+ * so a slow service costs one part of the page instead of the whole of it.</p>
+ */
+@Component
+public class ClassroomOverviewLoader {
+
+    @Value("${classroom-overview.timeout:2s}")
+    private Duration timeout = Duration.ofSeconds(2);
+
+    private final CourseService courseService;
+    private final SubmissionService submissionService;
+    private ExecutorService fanOutExecutor;
+
+    public ClassroomOverviewLoader(CourseService courseService, SubmissionService submissionService) {
+        this.courseService = courseService;
+        this.submissionService = submissionService;
+    }
+
+    @PostConstruct
+    void init() {
+        fanOutExecutor = Executors.newVirtualThreadPerTaskExecutor();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        fanOutExecutor.shutdownNow();
+    }
+
+    public ClassroomOverview load(Classroom classroom, String username) {
+        List<Long> courseIds = classroom.getCourseIds().stream().sorted().toList();
+        if (courseIds.isEmpty()) {
+            return new ClassroomOverview(classroom, List.of(), List.of());
+        }
+
+        CompletableFuture<List<CourseDto>> courses = call(() -> courseService.getCoursesByIds(courseIds, username).items());
+        Map<Long, CompletableFuture<List<TaskDto>>> tasks = new LinkedHashMap<>();
+        Map<Long, CompletableFuture<Map<Long, Long>>> submissionCounts = new LinkedHashMap<>();
+        for (Long courseId : courseIds) {
+            CompletableFuture<List<TaskDto>> courseTasks = call(() -> courseService.getAllTasksFromCourse(courseId, username));
+            tasks.put(courseId, courseTasks);
+            submissionCounts.put(courseId, courseTasks.thenCompose(taskList -> countSubmissions(taskList, username)));
+        }
+
+        List<String> unavailable = new ArrayList<>();
+        List<CourseDto> courseList = join(courses, "courses", unavailable);
+        Map<Long, CourseDto> courseById = courseList == null ? Map.of() : courseList.stream()
+                .collect(Collectors.toMap(CourseDto::getId, Function.identity(), (first, second) -> first));
+
+        List<CourseOverview> overviews = new ArrayList<>(courseIds.size());
+        for (Long courseId : courseIds) {
+            List<TaskDto> taskList = join(tasks.get(courseId), "tasks of course " + courseId, unavailable);
+            Map<Long, Long> counts = taskList == null ? null
+                    : join(submissionCounts.get(courseId), "submission counts of course " + courseId, unavailable);
+            overviews.add(new CourseOverview(courseId, courseById.get(courseId), taskList, counts));
+        }
+        return new ClassroomOverview(classroom, overviews, unavailable);
+    }
+
+    private CompletableFuture<Map<Long, Long>> countSubmissions(List<TaskDto> taskList, String username) {
+        List<Long> taskIds = taskList.stream().map(TaskDto::getId).toList();
+        if (taskIds.isEmpty()) {
+            return CompletableFuture.completedFuture(Map.of());
+        }
+        return call(() -> submissionService.countSubmissionsByTaskIds(taskIds, username));
+    }
+
+    private <T> CompletableFuture<T> call(Supplier<T> call) {
+        return CompletableFuture.supplyAsync(call, fanOutExecutor)
+                .orTimeout(timeout.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    private static <T> T join(CompletableFuture<T> future, String part, List<String> unavailable) {
+        try {
+            return future.join();
+        } catch (CompletionException | CancellationException e) {
+            unavailable.add(part);
+            return null;
+        }
+    }
+}
@@ -3,28 +3,66 @@ package com.binarybrain.classroom.service.impl;
 import com.binarybrain.classroom.dto.*;
 import com.binarybrain.classroom.model.Classroom;
 import com.binarybrain.classroom.repo.ClassroomRepository;
+import com.binarybrain.classroom.repo.StudentDeadlineRepository;
 import com.binarybrain.classroom.service.*;
 import com.binarybrain.exception.*;
 import com.binarybrain.exception.global.GlobalExceptionHandler;
+import com.binarybrain.support.lookup.CursorPage;
 import feign.FeignException;
+import jakarta.persistence.EntityManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
 public class ClassroomserviceImpl implements ClassroomService {
     private static final String ADMIN = "ADMIN";
     private static final String TEACHER = "TEACHER";
+
+    @Value("${pagination.max-page-size:1000}")
+    private int maxPageSize = 1000;
+
+    @Value("${student-timeline.default-days:7}")
+    private int defaultTimelineDays = 7;
+
+    @Value("${student-timeline.max-days:90}")
+    private int maxTimelineDays = 90;
+
+    @Value("${student-timeline.overdue-window:30d}")
+    private Duration overdueWindow = Duration.ofDays(30);
+
     private final ClassroomRepository classroomRepository;
     private final UserService userService;
     private final CourseService courseService;
-
-    public ClassroomserviceImpl(ClassroomRepository classroomRepository, UserService userService, CourseService courseService) {
+    private final ClassroomStudentWriter classroomStudentWriter;
+    private final ClassroomMembershipService classroomMembershipService;
+    private final ClassroomOverviewLoader classroomOverviewLoader;
+    private final StudentTimelineProjector studentTimelineProjector;
+    private final StudentDeadlineRepository studentDeadlineRepository;
+    private final EntityManager entityManager;
+
+    public ClassroomserviceImpl(ClassroomRepository classroomRepository, UserService userService, CourseService courseService,
+                                ClassroomStudentWriter classroomStudentWriter, ClassroomMembershipService classroomMembershipService,
+                                ClassroomOverviewLoader classroomOverviewLoader, StudentTimelineProjector studentTimelineProjector,
+                                StudentDeadlineRepository studentDeadlineRepository, EntityManager entityManager) {
         this.classroomRepository = classroomRepository;
         this.userService = userService;
         this.courseService = courseService;
+        this.classroomStudentWriter = classroomStudentWriter;
+        this.classroomMembershipService = classroomMembershipService;
+        this.classroomOverviewLoader = classroomOverviewLoader;
+        this.studentTimelineProjector = studentTimelineProjector;
+        this.studentDeadlineRepository = studentDeadlineRepository;
+        this.entityManager = entityManager;
     }
     boolean validateRole(UserDto userDto, List<String> targetRoles){
         return userDto.getRoles()
@@ -57,14 +95,49 @@ public class ClassroomserviceImpl implements ClassroomService {
     }
 
     @Override
-    public List<Classroom> getAllClassroomByTeacherId(Long id, String username) {
+    public CursorPage<ClassroomSummary> getAllClassroomByTeacherId(Long id, Long after, Integer size, String username) {
         UserDto userDto = userService.getUserProfile(username);
         boolean isAdmin = validateRole(userDto, List.of(ADMIN));
         GlobalExceptionHandler.Thrower.throwIf(
                 (!isAdmin && !userDto.getId().equals(id)),
                 new UserHasNotPermissionException("Only Admin or corresponding Teacher can get classroom list."));
 
-        return classroomRepository.findByTeacherId(id);
+        int pageSize = pageSize(size);
+        List<ClassroomSummary> classroomList = classroomRepository.findSummariesByTeacherIdAfter(id, afterId(after), Limit.of(pageSize + 1));
+        return CursorPage.of(classroomList, pageSize, ClassroomSummary::id, classroom -> classroom);
+    }
+
+    @Override
+    public void validateExportPermission(String username) {
+        UserDto userDto = userService.getUserProfile(username);
+        GlobalExceptionHandler.Thrower.throwIf(
+                !validateRole(userDto, List.of(ADMIN)),
+                new UserHasNotPermissionException("Only Admin can export all classrooms."));
+    }
+
+    /**
+     * Each classroom is handed over while its transaction is open, so its collections can still be
+     * read, and detached afterwards so memory use doesn't grow with the number of classrooms.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public void exportAllClassroom(String username, Consumer<Classroom> sink) {
+        validateExportPermission(username);
+
+        try (Stream<Classroom> classrooms = classroomRepository.streamAllByOrderByIdAsc()) {
+            classrooms.forEach(classroom -> {
+                sink.accept(classroom);
+                entityManager.detach(classroom);
+            });
+        }
+    }
+
+    private int pageSize(Integer size) {
+        return size == null ? maxPageSize : Math.clamp(size, 1, maxPageSize);
+    }
+
+    private static long afterId(Long after) {
+        return after == null ? 0L : after;
     }
 
     @Override
@@ -73,8 +146,15 @@ public class ClassroomserviceImpl implements ClassroomService {
         validateClassroomModificationPermission(existingClassroom, username);
 
         classroomRepository.deleteById(id);
+        classroomMembershipService.classroomDeleted(id);
+        studentTimelineProjector.classroomDeleted(id);
     }
 
+    /**
+     * Enrols a student with a single row insert into {@code classroom_students}, so the cost doesn't
+     * grow with the classroom and concurrent enrolments don't overwrite each other; a duplicate
+     * enrolment is rejected by the unique constraint.
+     */
     @Override
     public Classroom addStudentInClassroom(Long classroomId, Long studentId, String username) {
 
@@ -87,20 +167,97 @@ public class ClassroomserviceImpl implements ClassroomService {
             GlobalExceptionHandler.Thrower.throwIf(
                     !isStudent,
                     new UserHasNotPermissionException("Only students can be added to the classroom!"));
-            GlobalExceptionHandler.Thrower.throwIf(
-                    classroom.getStudentIds().contains(studentId),
-                    new AlreadyExistsException("Student is already in the classroom!"));
-
-            Set<Long> studentIds = new HashSet<>(Set.copyOf(classroom.getStudentIds()));
-            studentIds.add(studentId);
-            classroom.setStudentIds(studentIds);
-            return classroomRepository.save(classroom);
+            try {
+                classroomRepository.addStudent(classroomId, studentId);
+            } catch (DataIntegrityViolationException e) {
+                throw new AlreadyExistsException("Student is already in the classroom!");
+            }
+            classroomMembershipService.enrolled(classroomId, List.of(studentId));
+            studentTimelineProjector.studentsEnrolled(classroomId, List.of(studentId), username);
+            return getClassroomById(classroomId, username);
 
         }catch (FeignException.BadRequest e){
             throw new ResourceNotFoundException("User not found with id: " + studentId);
         }
     }
 
+    /**
+     * Enrols many students at once. The permission is checked once, the students are looked up
+     * with one batch call per kind of key and the new memberships are inserted with a single JDBC
+     * batch. A student named twice, by id and by username, is reported as already present the
+     * second time. If a concurrent enrolment makes the batch fail, the students are enrolled one by
+     * one instead.
+     *
+     * @return the outcome of every requested student, ids first, in request order.
+     */
+    @Override
+    public List<EnrolmentResult> addStudentsInClassroom(Long classroomId, BulkEnrolmentRequest request, String username) {
+        Classroom classroom = getClassroomById(classroomId, username);
+        validateClassroomModificationPermission(classroom, username);
+
+        List<Long> studentIds = Optional.ofNullable(request.getStudentIds()).orElse(List.of());
+        List<String> usernames = Optional.ofNullable(request.getUsernames()).orElse(List.of());
+        Map<Long, UserDto> usersById = new HashMap<>();
+        Map<String, UserDto> usersByUsername = new HashMap<>();
+        List<Long> distinctIds = studentIds.stream().filter(Objects::nonNull).distinct().toList();
+        if (!distinctIds.isEmpty()) {
+            userService.getUserProfilesByIds(distinctIds, username)
+                    .forEach(user -> usersById.put(user.getId(), user));
+        }
+        List<String> distinctUsernames = usernames.stream().filter(Objects::nonNull).distinct().toList();
+        if (!distinctUsernames.isEmpty()) {
+            userService.getUserProfilesByUsernames(distinctUsernames, username)
+                    .forEach(user -> usersByUsername.put(user.getUsername().toLowerCase(Locale.ROOT), user));
+        }
+
+        List<EnrolmentResult> results = new ArrayList<>(studentIds.size() + usernames.size());
+        Map<Long, EnrolmentResult> toAdd = new LinkedHashMap<>();
+        studentIds.forEach(id -> results.add(classify(id, null, usersById.get(id), toAdd)));
+        usernames.forEach(name -> results.add(classify(null, name,
+                name == null ? null : usersByUsername.get(name.toLowerCase(Locale.ROOT)), toAdd)));
+        if (toAdd.isEmpty()) {
+            return results;
+        }
+
+        classroomRepository.findStudentIdsIn(classroomId, toAdd.keySet())
+                .forEach(id -> toAdd.remove(id).setStatus(EnrolmentStatus.ALREADY_PRESENT));
+        if (toAdd.isEmpty()) {
+            return results;
+        }
+        List<Long> added = new ArrayList<>(toAdd.keySet());
+        try {
+            classroomStudentWriter.insertAll(classroomId, List.copyOf(added));
+        } catch (DataIntegrityViolationException e) {
+            toAdd.forEach((id, result) -> {
+                try {
+                    classroomRepository.addStudent(classroomId, id);
+                } catch (DataIntegrityViolationException alreadyPresent) {
+                    result.setStatus(EnrolmentStatus.ALREADY_PRESENT);
+                    added.remove(id);
+                }
+            });
+        }
+        classroomMembershipService.enrolled(classroomId, added);
+        studentTimelineProjector.studentsEnrolled(classroomId, added, username);
+        return results;
+    }
+
+    private EnrolmentResult classify(Long studentId, String studentUsername, UserDto student, Map<Long, EnrolmentResult> toAdd) {
+        if (student == null) {
+            return new EnrolmentResult(studentId, studentUsername, EnrolmentStatus.NOT_FOUND);
+        }
+        EnrolmentResult result = new EnrolmentResult(student.getId(), student.getUsername(), EnrolmentStatus.ADDED);
+        if (!validateRole(student, List.of("STUDENT"))) {
+            result.setStatus(EnrolmentStatus.NOT_A_STUDENT);
+        } else if (toAdd.putIfAbsent(student.getId(), result) != null) {
+            result.setStatus(EnrolmentStatus.ALREADY_PRESENT);
+        }
+        return result;
+    }
+
+    /**
+     * Removes a student with a single row delete from {@code classroom_students}.
+     */
     @Override
     public Classroom removeStudentFromClassroomById(Long classroomId, Long studentId, String username) {
         try {
@@ -108,22 +265,60 @@ public class ClassroomserviceImpl implements ClassroomService {
             validateClassroomModificationPermission(classroom, username);
 
             GlobalExceptionHandler.Thrower.throwIf(
-                    !classroom.getStudentIds().contains(studentId),
+                    classroomRepository.removeStudent(classroomId, studentId) == 0,
                     new ResourceNotFoundException("Student not found in the classroom!"));
-
-            Set<Long> studentIds = new HashSet<>(Set.copyOf(classroom.getStudentIds()));
-            studentIds.remove(studentId);
-            classroom.setStudentIds(studentIds);
-            return classroomRepository.save(classroom);
+            classroomMembershipService.removed(classroomId, studentId);
+            studentTimelineProjector.studentRemoved(classroomId, studentId);
+            return getClassroomById(classroomId, username);
 
         }catch (FeignException.BadRequest e){
             throw new ResourceNotFoundException("Student not found with id: " + studentId);
         }
     }
 
+    /**
+     * Looks the classrooms up by primary key from the membership index, instead of scanning
+     * {@code classroom_students} for the student. The index keeps the ids in ascending order, so a
+     * page is a slice of them and its cursor doesn't depend on which rows the lookup finds.
+     */
+    @Override
+    public CursorPage<ClassroomSummary> getClassroomsByStudentId(Long studentId, Long after, Integer size) {
+        int pageSize = pageSize(size);
+        long afterId = afterId(after);
+        List<Long> classroomIds = classroomMembershipService.getClassroomIdsOfStudent(studentId).stream()
+                .filter(classroomId -> classroomId > afterId)
+                .limit(pageSize + 1L)
+                .toList();
+        if (classroomIds.isEmpty()) {
+            return new CursorPage<>(List.of(), null);
+        }
+        boolean hasNext = classroomIds.size() > pageSize;
+        List<Long> pageIds = hasNext ? classroomIds.subList(0, pageSize) : classroomIds;
+        List<ClassroomSummary> classroomList = classroomRepository.findSummariesByIdIn(pageIds);
+        return new CursorPage<>(classroomList, hasNext ? pageIds.getLast() : null);
+    }
+
+    @Override
+    public boolean isStudentInClassroom(Long classroomId, Long studentId, String username) {
+        UserDto userDto = userService.getUserProfile(username);
+        boolean isAdmin = validateRole(userDto, List.of(ADMIN));
+        GlobalExceptionHandler.Thrower.throwIf(
+                !isAdmin && !userDto.getId().equals(studentId) && !classroomRepository.existsByIdAndTeacherId(classroomId, userDto.getId()),
+                new UserHasNotPermissionException("Only Admin, the classroom's teacher or the student can check this membership."));
+
+        return classroomMembershipService.isStudentInClassroom(classroomId, studentId);
+    }
+
     @Override
-    public List<Classroom> getClassroomsByStudentId(Long studentId) {
-        return classroomRepository.findByStudentIdsContaining(studentId);
+    public List<Long> getCommonStudentIds(List<Long> classroomIds, String username) {
+        UserDto userDto = userService.getUserProfile(username);
+        boolean isAdmin = validateRole(userDto, List.of(ADMIN));
+        Set<Long> distinctIds = new HashSet<>(classroomIds);
+        GlobalExceptionHandler.Thrower.throwIf(
+                !isAdmin && classroomRepository.countByIdInAndTeacherId(distinctIds, userDto.getId()) != distinctIds.size(),
+                new UserHasNotPermissionException("Only Admin or the teacher of every classroom can list their common students."));
+
+        return classroomMembershipService.getCommonStudentIds(classroomIds);
     }
 
     @Override
@@ -138,7 +333,9 @@ public class ClassroomserviceImpl implements ClassroomService {
 
         classroom.getCourseIds().add(courseId);
 
-        return classroomRepository.save(classroom);
+        Classroom savedClassroom = classroomRepository.save(classroom);
+        studentTimelineProjector.courseAdded(classroomId, courseId, username);
+        return savedClassroom;
     }
 
     @Override
@@ -154,7 +351,9 @@ public class ClassroomserviceImpl implements ClassroomService {
             Set<Long> courseIds = new HashSet<>(Set.copyOf(classroom.getCourseIds()));
             courseIds.remove(courseId);
             classroom.setCourseIds(courseIds);
-            return classroomRepository.save(classroom);
+            Classroom savedClassroom = classroomRepository.save(classroom);
+            studentTimelineProjector.courseRemoved(classroomId, courseId);
+            return savedClassroom;
 
         }catch (FeignException.BadRequest e){
             throw new ResourceNotFoundException("Course not found with id: " + courseId);
@@ -167,7 +366,57 @@ public class ClassroomserviceImpl implements ClassroomService {
 
         List<Long> courseIds = new ArrayList<>(classroom.getCourseIds());
 
-        return courseService.getCoursesByIds(courseIds, username);
+        return courseService.getCoursesByIds(courseIds, username).items();
+    }
+
+    @Override
+    public ClassroomOverview getClassroomOverview(Long classroomId, String username) {
+        Classroom classroom = getClassroomById(classroomId, username);
+
+        return classroomOverviewLoader.load(classroom, username);
+    }
+
+    /**
+     * Reads the caller's timeline in one query from the rows kept by the
+     * {@link StudentTimelineProjector}: the tasks due in the next {@code days} days and the ones
+     * not submitted that were due within {@code student-timeline.overdue-window}. A task given
+     * through several classrooms is listed once.
+     */
+    @Override
+    public StudentTimeline getDueTasks(Integer days, String username) {
+        UserDto userDto = userService.getUserProfile(username);
+        int horizon = days == null ? defaultTimelineDays : Math.clamp(days, 1, maxTimelineDays);
+        LocalDateTime now = LocalDateTime.now();
+
+        List<DueTask> overdue = new ArrayList<>();
+        List<DueTask> upcoming = new ArrayList<>();
+        Set<Long> listedTaskIds = new HashSet<>();
+        for (DueTask task : studentDeadlineRepository.findTimeline(userDto.getId(), now.minus(overdueWindow), now, now.plusDays(horizon))) {
+            if (listedTaskIds.add(task.taskId())) {
+                (task.deadline().isBefore(now) ? overdue : upcoming).add(task);
+            }
+        }
+        return new StudentTimeline(overdue, upcoming);
+    }
+
+    @Override
+    public void taskChanged(TaskDto taskDto) {
+        studentTimelineProjector.taskChanged(taskDto);
+    }
+
+    @Override
+    public void taskDeleted(Long taskId) {
+        studentTimelineProjector.taskDeleted(taskId);
+    }
+
+    @Override
+    public void courseTasksChanged(Long courseId, String username) {
+        studentTimelineProjector.courseTasksChanged(courseId, username);
+    }
+
+    @Override
+    public void submissionChanged(TaskSubmissionState submission) {
+        studentTimelineProjector.submissionChanged(submission);
     }
 
     private void validateClassroomModificationPermission(Classroom classroom, String jwt) {
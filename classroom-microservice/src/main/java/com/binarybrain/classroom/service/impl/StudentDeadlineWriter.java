@@ -0,0 +1,68 @@
+package com.binarybrain.classroom.service.impl;
+
+import com.binarybrain.classroom.model.StudentDeadline;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Replaces the timeline rows of a classroom, or of a course or some students of it, with one
+ * delete and one JDBC batch of inserts in a single transaction.
+ */
+@Component
+public class StudentDeadlineWriter {
+    private static final String INSERT_DEADLINE = "insert into student_deadline (student_id, classroom_id, course_id, task_id, " +
+            "title, deadline, task_status, submission_state, submitted_at) values (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    public StudentDeadlineWriter(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Deletes the rows of the classroom, only those of {@code courseId} and of {@code studentIds}
+     * unless they are {@code null}, and inserts {@code deadlines} in their place.
+     */
+    public void replace(Long classroomId, Long courseId, Collection<Long> studentIds, List<StudentDeadline> deadlines) {
+        List<Object> arguments = new ArrayList<>(List.of(classroomId));
+        String delete = "delete from student_deadline where classroom_id = ?";
+        if (courseId != null) {
+            delete += " and course_id = ?";
+            arguments.add(courseId);
+        }
+        String deleteScope = delete;
+        transactionTemplate.executeWithoutResult(status -> {
+            if (studentIds == null) {
+                jdbcTemplate.update(deleteScope, arguments.toArray());
+            } else if (!studentIds.isEmpty()) {
+                jdbcTemplate.batchUpdate(deleteScope + " and student_id = ?", studentIds.stream().map(studentId -> {
+                    List<Object> studentArguments = new ArrayList<>(arguments);
+                    studentArguments.add(studentId);
+                    return studentArguments.toArray();
+                }).toList());
+            }
+            if (deadlines.isEmpty()) {
+                return;
+            }
+            jdbcTemplate.batchUpdate(INSERT_DEADLINE, deadlines, deadlines.size(), (statement, deadline) -> {
+                statement.setLong(1, deadline.getStudentId());
+                statement.setLong(2, deadline.getClassroomId());
+                statement.setLong(3, deadline.getCourseId());
+                statement.setLong(4, deadline.getTaskId());
+                statement.setString(5, deadline.getTitle());
+                statement.setObject(6, deadline.getDeadline());
+                statement.setString(7, deadline.getTaskStatus() == null ? null : deadline.getTaskStatus().name());
+                statement.setString(8, deadline.getSubmissionState().name());
+                statement.setObject(9, deadline.getSubmittedAt());
+            });
+        });
+    }
+}
@@ -0,0 +1,215 @@
+package com.binarybrain.classroom.service.impl;
+
+import com.binarybrain.classroom.dto.SubmissionState;
+import com.binarybrain.classroom.dto.TaskDto;
+import com.binarybrain.classroom.dto.TaskSubmissionState;
+import com.binarybrain.classroom.model.StudentDeadline;
+import com.binarybrain.classroom.repo.ClassroomRepository;
+import com.binarybrain.classroom.repo.StudentDeadlineRepository;
+import com.binarybrain.classroom.service.CourseService;
+import com.binarybrain.classroom.service.SubmissionService;
+import feign.FeignException;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Keeps {@code student_deadline}, the deadline timeline of every student, current. It holds a row
+ * for every task of every course of every classroom a student is in, with the deadline and status
+ * of the task and the state of the student's submission, so the tasks due for a student are read
+ * with one query over the {@code student_id, deadline} index instead of walking classrooms,
+ * courses, tasks and submissions across four services.
+ *
+ * <p>Enrolments, removals and course changes made through this service, and changes to the tasks
+ * of a course posted by the course service, rebuild the rows of the classroom they touch from the
+ * tasks the course service and the submissions the submission service return. Changes to a task
+ * or a submission posted by the task and submission services update the rows of that task in
+ * place. Changes are applied one at a time, in the order they arrived, off the request thread. A
+ * change that fails is logged and dropped, leaving the rows as they were until the next change to
+ * the classroom.</p>
+ *
+ * <p>Published to Micrometer: {@code classroom.timeline.pending} and
+ * {@code classroom.timeline.failed}.</p>
+ */
+@Component
+public class StudentTimelineProjector implements MeterBinder {
+    private static final Logger log = LoggerFactory.getLogger(StudentTimelineProjector.class);
+
+    @Value("${student-timeline.queue-capacity:10000}")
+    private int queueCapacity = 10000;
+
+    private final StudentDeadlineRepository studentDeadlineRepository;
+    private final StudentDeadlineWriter studentDeadlineWriter;
+    private final ClassroomRepository classroomRepository;
+    private final ClassroomMembershipService classroomMembershipService;
+    private final CourseService courseService;
+    private final SubmissionService submissionService;
+    private final LongAdder failedChanges = new LongAdder();
+    private ThreadPoolExecutor projectionExecutor;
+
+    public StudentTimelineProjector(StudentDeadlineRepository studentDeadlineRepository, StudentDeadlineWriter studentDeadlineWriter,
+                                    ClassroomRepository classroomRepository, ClassroomMembershipService classroomMembershipService,
+                                    CourseService courseService, SubmissionService submissionService) {
+        this.studentDeadlineRepository = studentDeadlineRepository;
+        this.studentDeadlineWriter = studentDeadlineWriter;
+        this.classroomRepository = classroomRepository;
+        this.classroomMembershipService = classroomMembershipService;
+        this.courseService = courseService;
+        this.submissionService = submissionService;
+    }
+
+    @PostConstruct
+    void start() {
+        projectionExecutor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(queueCapacity));
+    }
+
+    @PreDestroy
+    void shutdown() {
+        projectionExecutor.shutdown();
+    }
+
+    public void studentsEnrolled(Long classroomId, Collection<Long> studentIds, String username) {
+        if (!studentIds.isEmpty()) {
+            List<Long> enrolled = List.copyOf(studentIds);
+            apply("enrolment in classroom " + classroomId, () -> refresh(classroomId, null, enrolled, username));
+        }
+    }
+
+    public void studentRemoved(Long classroomId, Long studentId) {
+        apply("removal from classroom " + classroomId, () -> refresh(classroomId, null, List.of(studentId), null));
+    }
+
+    public void courseAdded(Long classroomId, Long courseId, String username) {
+        apply("course " + courseId + " added to classroom " + classroomId, () -> refresh(classroomId, courseId, null, username));
+    }
+
+    public void courseRemoved(Long classroomId, Long courseId) {
+        apply("course " + courseId + " removed from classroom " + classroomId, () -> refresh(classroomId, courseId, null, null));
+    }
+
+    public void classroomDeleted(Long classroomId) {
+        apply("deletion of classroom " + classroomId, () -> refresh(classroomId, null, null, null));
+    }
+
+    /**
+     * Rebuilds the rows of the course in every classroom it is assigned to, after tasks were added
+     * to or removed from it, or it was deleted.
+     */
+    public void courseTasksChanged(Long courseId, String username) {
+        apply("tasks of course " + courseId, () -> classroomRepository.findIdsByCourseId(courseId)
+                .forEach(classroomId -> refresh(classroomId, courseId, null, username)));
+    }
+
+    public void taskChanged(TaskDto task) {
+        apply("task " + task.getId(), () -> studentDeadlineRepository.updateTask(task.getId(), task.getTitle(), task.getDeadline(), task.getStatus()));
+    }
+
+    public void taskDeleted(Long taskId) {
+        apply("deletion of task " + taskId, () -> studentDeadlineRepository.deleteByTaskId(taskId));
+    }
+
+    public void submissionChanged(TaskSubmissionState submission) {
+        apply("submission of task " + submission.taskId(), () -> studentDeadlineRepository.updateSubmission(
+                submission.taskId(), submission.studentId(), submission.state(), submission.submittedAt()));
+    }
+
+    public int pending() {
+        return projectionExecutor.getQueue().size();
+    }
+
+    private void apply(String change, Runnable projection) {
+        try {
+            projectionExecutor.execute(() -> {
+                try {
+                    projection.run();
+                } catch (RuntimeException e) {
+                    failedChanges.increment();
+                    log.warn("Failed to update the student timelines for the {}: {}", change, e.getMessage());
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            failedChanges.increment();
+            log.warn("Dropped the {} from the student timelines, {} changes are pending", change, pending());
+        }
+    }
+
+    /**
+     * Replaces the rows of the classroom, only those of {@code courseId} and of {@code studentIds}
+     * unless they are {@code null}, with rows for the courses and students the classroom has now.
+     * No other service is called if none of them are left.
+     */
+    void refresh(Long classroomId, Long courseId, List<Long> studentIds, String username) {
+        Set<Long> scope = studentIds == null ? null : new HashSet<>(studentIds);
+        List<Long> students = classroomMembershipService.getCommonStudentIds(List.of(classroomId)).stream()
+                .filter(student -> scope == null || scope.contains(student))
+                .toList();
+        List<Long> courses = classroomRepository.findCourseIds(classroomId).stream()
+                .filter(course -> courseId == null || course.equals(courseId))
+                .toList();
+
+        List<StudentDeadline> deadlines = new ArrayList<>();
+        if (!students.isEmpty() && !courses.isEmpty()) {
+            Map<Long, List<TaskDto>> tasksByCourse = new LinkedHashMap<>();
+            courses.forEach(course -> tasksByCourse.put(course, tasksOf(course, username)));
+            Map<Long, Map<Long, TaskSubmissionState>> submissions = submissionsOf(tasksByCourse.values().stream()
+                    .flatMap(List::stream).map(TaskDto::getId).distinct().toList(), username);
+            tasksByCourse.forEach((course, tasks) -> tasks.forEach(task -> students.forEach(student -> {
+                TaskSubmissionState submission = submissions.getOrDefault(task.getId(), Map.of()).get(student);
+                deadlines.add(deadline(classroomId, course, task, student, submission));
+            })));
+        }
+        studentDeadlineWriter.replace(classroomId, courseId, studentIds, deadlines);
+    }
+
+    private List<TaskDto> tasksOf(Long courseId, String username) {
+        try {
+            return courseService.getAllTasksFromCourse(courseId, username);
+        } catch (FeignException.NotFound e) {
+            // the course was deleted, its tasks leave the timelines
+            return List.of();
+        }
+    }
+
+    private Map<Long, Map<Long, TaskSubmissionState>> submissionsOf(List<Long> taskIds, String username) {
+        Map<Long, Map<Long, TaskSubmissionState>> submissions = new HashMap<>();
+        if (!taskIds.isEmpty()) {
+            submissionService.getSubmissionStatesByTaskIds(taskIds, username).forEach(submission ->
+                    submissions.computeIfAbsent(submission.taskId(), taskId -> new HashMap<>()).put(submission.studentId(), submission));
+        }
+        return submissions;
+    }
+
+    private static StudentDeadline deadline(Long classroomId, Long courseId, TaskDto task, Long studentId, TaskSubmissionState submission) {
+        StudentDeadline deadline = new StudentDeadline();
+        deadline.setStudentId(studentId);
+        deadline.setClassroomId(classroomId);
+        deadline.setCourseId(courseId);
+        deadline.setTaskId(task.getId());
+        deadline.setTitle(task.getTitle());
+        deadline.setDeadline(task.getDeadline());
+        deadline.setTaskStatus(task.getStatus());
+        deadline.setSubmissionState(submission == null ? SubmissionState.NOT_SUBMITTED : submission.state());
+        deadline.setSubmittedAt(submission == null ? null : submission.submittedAt());
+        return deadline;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("classroom.timeline.pending", this, StudentTimelineProjector::pending).register(registry);
+        FunctionCounter.builder("classroom.timeline.failed", failedChanges, LongAdder::sum).register(registry);
+    }
+}
@@ -1,12 +1,24 @@
 package com.binarybrain.classroom.controller;
 
+import com.binarybrain.classroom.dto.ClassroomSummary;
 import com.binarybrain.classroom.dto.CourseDto;
+import com.binarybrain.classroom.dto.DueTask;
 import com.binarybrain.classroom.dto.RoleDto;
+import com.binarybrain.classroom.dto.SubmissionState;
+import com.binarybrain.classroom.dto.TaskDto;
+import com.binarybrain.classroom.dto.TaskStatus;
+import com.binarybrain.classroom.dto.TaskSubmissionState;
 import com.binarybrain.classroom.dto.UserDto;
 import com.binarybrain.classroom.model.Classroom;
 import com.binarybrain.classroom.repo.ClassroomRepository;
+import com.binarybrain.classroom.repo.StudentDeadlineRepository;
 import com.binarybrain.classroom.service.CourseService;
+import com.binarybrain.classroom.service.SubmissionService;
 import com.binarybrain.classroom.service.UserService;
+import com.binarybrain.classroom.service.impl.ClassroomMembershipService;
+import com.binarybrain.classroom.service.impl.StudentDeadlineWriter;
+import com.binarybrain.support.lookup.BatchLookup;
+import com.binarybrain.support.lookup.CursorPage;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -18,9 +30,13 @@ import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.time.LocalDateTime;
 import java.util.*;
+import java.util.stream.Stream;
 
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -55,6 +71,18 @@ class ClassroomControllerTest {
     @MockitoBean
     private CourseService courseService;
 
+    @MockitoBean
+    private ClassroomMembershipService classroomMembershipService;
+
+    @MockitoBean
+    private SubmissionService submissionService;
+
+    @MockitoBean
+    private StudentDeadlineRepository studentDeadlineRepository;
+
+    @MockitoBean
+    private StudentDeadlineWriter studentDeadlineWriter;
+
     private UserDto teacher;
     private UserDto student;
     private UserDto newStudent;
@@ -109,6 +137,11 @@ class ClassroomControllerTest {
         return classroom;
     }
 
+    private ClassroomSummary summary(Classroom classroom) {
+        return new ClassroomSummary(classroom.getId(), classroom.getTitle(), classroom.getTeacherId(), classroom.getStartDate(),
+                (long) classroom.getStudentIds().size(), (long) classroom.getCourseIds().size(), (long) classroom.getResourceIds().size());
+    }
+
     private CourseDto createCourseDto(Long id) {
         CourseDto courseDto = new CourseDto();
         courseDto.setId(id);
@@ -127,19 +160,20 @@ class ClassroomControllerTest {
         when(classroomRepository.findById(CLASSROOM_ID_2)).thenReturn(Optional.of(classroom2));
         when(classroomRepository.findById(CLASSROOM_ID_3)).thenReturn(Optional.of(classroom3));
         when(classroomRepository.findById(CLASSROOM_ID_4)).thenReturn(Optional.of(classroom4));
-        when(classroomRepository.findByTeacherId(TEACHER_ID)).thenReturn(List.of(classroom1));
-        when(classroomRepository.findByStudentIdsContaining(STUDENT_ID)).thenReturn(List.of(classroom1));
+        when(classroomRepository.findSummariesByTeacherIdAfter(eq(TEACHER_ID), eq(0L), any())).thenReturn(List.of(summary(classroom1)));
+        when(classroomRepository.findSummariesByIdIn(List.of(CLASSROOM_ID_1))).thenReturn(List.of(summary(classroom1)));
         when(classroomRepository.save(any(Classroom.class))).thenAnswer(invocation -> invocation.getArgument(0));
     }
 
     private void setupCourseMocks() {
         CourseDto course = createCourseDto(COURSE_ID);
         when(courseService.getCourseById(COURSE_ID, TEACHER_USERNAME)).thenReturn(course);
-        when(courseService.getCoursesByIds(List.of(COURSE_ID), TEACHER_USERNAME)).thenReturn(List.of(course));
+        when(courseService.getCoursesByIds(List.of(COURSE_ID), TEACHER_USERNAME)).thenReturn(new BatchLookup<>(List.of(course), List.of()));
     }
 
     private void resetMocks() {
-        reset(userService, classroomRepository, courseService);
+        reset(userService, classroomRepository, courseService, classroomMembershipService);
+        when(classroomMembershipService.getClassroomIdsOfStudent(STUDENT_ID)).thenReturn(List.of(CLASSROOM_ID_1));
         setupUserMocks();
         setupClassroomMocks();
         setupCourseMocks();
@@ -174,20 +208,104 @@ class ClassroomControllerTest {
         mockMvc.perform(get("/api/v1/private/classroom/teacher/" + TEACHER_ID)
                         .header("X-User-Username", TEACHER_USERNAME))
                 .andExpect(status().isOk())
-                .andExpect(content().json(asJsonString(List.of(classroom1))));
+                .andExpect(content().json(asJsonString(List.of(summary(classroom1)))));
+    }
+
+    @Test
+    void getAllClassroomByTeacherIdWithPageSize() throws Exception {
+        when(classroomRepository.findSummariesByTeacherIdAfter(eq(TEACHER_ID), eq(0L), any())).thenReturn(List.of(summary(classroom1), summary(classroom2)));
+
+        mockMvc.perform(get("/api/v1/private/classroom/teacher/" + TEACHER_ID)
+                        .param("size", "1")
+                        .header("X-User-Username", TEACHER_USERNAME))
+                .andExpect(status().isOk())
+                .andExpect(header().string(CursorPage.NEXT_CURSOR_HEADER, CLASSROOM_ID_1.toString()))
+                .andExpect(content().json(asJsonString(List.of(summary(classroom1)))));
+    }
+
+    @Test
+    void exportAllClassroom() throws Exception {
+        when(classroomRepository.streamAllByOrderByIdAsc()).thenAnswer(invocation -> Stream.of(classroom1, classroom2));
+
+        mockMvc.perform(get("/api/v1/private/classroom/export")
+                        .header("X-User-Username", TEACHER_USERNAME))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andExpect(content().string(asJsonString(classroom1) + "\n" + asJsonString(classroom2) + "\n"));
+    }
+
+    @Test
+    void exportAllClassroom_ForbiddenBeforeTheResponseIsStarted() throws Exception {
+        when(userService.getUserProfile("student")).thenReturn(student);
+
+        mockMvc.perform(get("/api/v1/private/classroom/export")
+                        .header("X-User-Username", "student"))
+                .andExpect(status().isForbidden())
+                .andExpect(result -> assertNull(result.getResponse().getContentType()));
+        verify(classroomRepository, never()).streamAllByOrderByIdAsc();
     }
 
     @Test
     void getClassroomsByStudentId() throws Exception {
         mockMvc.perform(get("/api/v1/private/classroom/by-student/" + STUDENT_ID))
                 .andExpect(status().isOk())
-                .andExpect(content().json(asJsonString(List.of(classroom1))));
+                .andExpect(content().json(asJsonString(List.of(summary(classroom1)))));
+    }
+
+    @Test
+    void isStudentInClassroom() throws Exception {
+        when(classroomMembershipService.isStudentInClassroom(CLASSROOM_ID_3, NEW_STUDENT_ID)).thenReturn(true);
+
+        mockMvc.perform(get("/api/v1/private/classroom/" + CLASSROOM_ID_3 + "/students/" + NEW_STUDENT_ID)
+                        .header("X-User-Username", TEACHER_USERNAME))
+                .andExpect(status().isOk())
+                .andExpect(content().string("true"));
+        mockMvc.perform(get("/api/v1/private/classroom/" + CLASSROOM_ID_1 + "/students/" + NEW_STUDENT_ID)
+                        .header("X-User-Username", TEACHER_USERNAME))
+                .andExpect(status().isOk())
+                .andExpect(content().string("false"));
+    }
+
+    @Test
+    void isStudentInClassroom_StudentCanCheckOnlyThemselves() throws Exception {
+        when(userService.getUserProfile("student")).thenReturn(student);
+        when(classroomMembershipService.isStudentInClassroom(CLASSROOM_ID_3, STUDENT_ID)).thenReturn(true);
+
+        mockMvc.perform(get("/api/v1/private/classroom/" + CLASSROOM_ID_3 + "/students/" + STUDENT_ID)
+                        .header("X-User-Username", "student"))
+                .andExpect(status().isOk())
+                .andExpect(content().string("true"));
+        mockMvc.perform(get("/api/v1/private/classroom/" + CLASSROOM_ID_3 + "/students/" + NEW_STUDENT_ID)
+                        .header("X-User-Username", "student"))
+                .andExpect(status().isForbidden());
+        verify(classroomMembershipService, never()).isStudentInClassroom(CLASSROOM_ID_3, NEW_STUDENT_ID);
+    }
+
+    @Test
+    void getCommonStudentIds() throws Exception {
+        when(classroomMembershipService.getCommonStudentIds(List.of(CLASSROOM_ID_3, CLASSROOM_ID_4))).thenReturn(List.of(STUDENT_ID, NEW_STUDENT_ID));
+
+        mockMvc.perform(get("/api/v1/private/classroom/common-students").param("classroomIds", "3,4")
+                        .header("X-User-Username", TEACHER_USERNAME))
+                .andExpect(status().isOk())
+                .andExpect(content().json(asJsonString(List.of(STUDENT_ID, NEW_STUDENT_ID))));
+    }
+
+    @Test
+    void getCommonStudentIds_ForbiddenToStudents() throws Exception {
+        when(userService.getUserProfile("student")).thenReturn(student);
+
+        mockMvc.perform(get("/api/v1/private/classroom/common-students").param("classroomIds", "3,4")
+                        .header("X-User-Username", "student"))
+                .andExpect(status().isForbidden());
+        verify(classroomMembershipService, never()).getCommonStudentIds(any());
     }
 
     @Test
     void addStudentInClassroom() throws Exception {
         Classroom updatedClassroom = createClassroom(CLASSROOM_ID_2, "Classroom 2", TEACHER_ID, Set.of(STUDENT_ID, NEW_STUDENT_ID), null);
-        when(classroomRepository.save(classroom2)).thenReturn(updatedClassroom);
+        when(classroomRepository.addStudent(CLASSROOM_ID_2, NEW_STUDENT_ID)).thenReturn(1);
+        when(classroomRepository.findById(CLASSROOM_ID_2)).thenReturn(Optional.of(classroom2), Optional.of(updatedClassroom));
 
         mockMvc.perform(put("/api/v1/private/classroom/" + CLASSROOM_ID_2 + "/add-student/" + NEW_STUDENT_ID)
                         .header("X-User-Username", TEACHER_USERNAME))
@@ -198,7 +316,8 @@ class ClassroomControllerTest {
     @Test
     void removeStudentFromClassroomById() throws Exception {
         Classroom updatedClassroom = createClassroom(CLASSROOM_ID_3, "Classroom 3", TEACHER_ID, Set.of(STUDENT_ID), null);
-        when(classroomRepository.save(classroom3)).thenReturn(updatedClassroom);
+        when(classroomRepository.removeStudent(CLASSROOM_ID_3, NEW_STUDENT_ID)).thenReturn(1);
+        when(classroomRepository.findById(CLASSROOM_ID_3)).thenReturn(Optional.of(classroom3), Optional.of(updatedClassroom));
 
         mockMvc.perform(delete("/api/v1/private/classroom/" + CLASSROOM_ID_3 + "/remove-student/" + NEW_STUDENT_ID)
                         .header("X-User-Username", TEACHER_USERNAME))
@@ -241,11 +360,74 @@ class ClassroomControllerTest {
         when(classroomRepository.findById(CLASSROOM_ID_3)).thenReturn(Optional.of(classroomWithCourse));
 
         CourseDto course = createCourseDto(COURSE_ID);
-        when(courseService.getCoursesByIds(List.of(COURSE_ID), TEACHER_USERNAME)).thenReturn(List.of(course));
+        when(courseService.getCoursesByIds(List.of(COURSE_ID), TEACHER_USERNAME)).thenReturn(new BatchLookup<>(List.of(course), List.of()));
 
         mockMvc.perform(get("/api/v1/private/classroom/" + CLASSROOM_ID_3 + "/courses")
                         .header("X-User-Username", TEACHER_USERNAME))
                 .andExpect(status().isOk())
                 .andExpect(content().json(asJsonString(List.of(course))));
     }
-}
\ No newline at end of file
+
+    @Test
+    void getClassroomOverview() throws Exception {
+        Classroom classroomWithCourse = createClassroom(CLASSROOM_ID_3, "Classroom 3", TEACHER_ID, Set.of(STUDENT_ID, NEW_STUDENT_ID), Set.of(COURSE_ID));
+        when(classroomRepository.findById(CLASSROOM_ID_3)).thenReturn(Optional.of(classroomWithCourse));
+
+        TaskDto task = new TaskDto();
+        task.setId(5L);
+        when(courseService.getAllTasksFromCourse(COURSE_ID, TEACHER_USERNAME)).thenReturn(List.of(task));
+        when(submissionService.countSubmissionsByTaskIds(List.of(5L), TEACHER_USERNAME)).thenReturn(Map.of(5L, 2L));
+
+        mockMvc.perform(get("/api/v1/private/classroom/" + CLASSROOM_ID_3 + "/overview")
+                        .header("X-User-Username", TEACHER_USERNAME))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.classroom.id").value(CLASSROOM_ID_3))
+                .andExpect(jsonPath("$.courses[0].course.id").value(COURSE_ID))
+                .andExpect(jsonPath("$.courses[0].tasks[0].id").value(5))
+                .andExpect(jsonPath("$.courses[0].submissionCounts.5").value(2))
+                .andExpect(jsonPath("$.unavailable").isEmpty());
+    }
+
+    @Test
+    void getDueTasks() throws Exception {
+        LocalDateTime now = LocalDateTime.now();
+        DueTask overdue = new DueTask(CLASSROOM_ID_4, COURSE_ID, 5L, "Report", now.minusDays(1), TaskStatus.CLOSED, SubmissionState.NOT_SUBMITTED, null);
+        DueTask upcoming = new DueTask(CLASSROOM_ID_4, COURSE_ID, 6L, "Essay", now.plusDays(2), TaskStatus.OPEN, SubmissionState.PENDING, now.minusHours(1));
+        when(userService.getUserProfile("student")).thenReturn(student);
+        when(studentDeadlineRepository.findTimeline(eq(STUDENT_ID), any(), any(), any())).thenReturn(List.of(overdue, upcoming));
+
+        mockMvc.perform(get("/api/v1/private/classroom/due")
+                        .param("days", "7")
+                        .header("X-User-Username", "student"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.overdue[0].taskId").value(5))
+                .andExpect(jsonPath("$.overdue[0].submissionState").value("NOT_SUBMITTED"))
+                .andExpect(jsonPath("$.upcoming[0].taskId").value(6))
+                .andExpect(jsonPath("$.upcoming[0].classroomId").value(CLASSROOM_ID_4))
+                .andExpect(jsonPath("$.upcoming[0].submissionState").value("PENDING"));
+    }
+
+    @Test
+    void submissionChanged() throws Exception {
+        TaskSubmissionState submission = new TaskSubmissionState(5L, STUDENT_ID, SubmissionState.ACCEPTED, LocalDateTime.of(2025, 12, 30, 12, 0));
+
+        mockMvc.perform(post("/api/v1/internal/classroom/events/submission")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(asJsonString(submission)))
+                .andExpect(status().isAccepted());
+
+        verify(studentDeadlineRepository, timeout(1000)).updateSubmission(5L, STUDENT_ID, SubmissionState.ACCEPTED, submission.submittedAt());
+    }
+
+    @Test
+    void submissionChanged_IsNotUnderTheGatewayPath() throws Exception {
+        TaskSubmissionState submission = new TaskSubmissionState(5L, STUDENT_ID, SubmissionState.ACCEPTED, LocalDateTime.of(2025, 12, 30, 12, 0));
+
+        mockMvc.perform(post("/api/v1/private/classroom/events/submission")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(asJsonString(submission)))
+                .andExpect(status().isNotFound());
+
+        verify(studentDeadlineRepository, never()).updateSubmission(any(), any(), any(), any());
+    }
+}
@@ -0,0 +1,115 @@
+package com.binarybrain.classroom.repo;
+
+import com.binarybrain.classroom.dto.ClassroomSummary;
+import com.binarybrain.classroom.model.Classroom;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Counts the SQL statements the classroom list queries issue against an in-memory H2 database, to
+ * check that a page of summaries costs one statement however many classrooms and members it has,
+ * and that full classrooms load their collections in batches rather than one query per classroom.
+ */
+@DataJpaTest
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ClassroomSummaryQueryTest {
+    private static final int CLASSROOMS = 40;
+    private static final long TEACHER_ID = 1L;
+
+    @Configuration
+    @EntityScan(basePackageClasses = Classroom.class)
+    @EnableJpaRepositories(basePackageClasses = ClassroomRepository.class)
+    static class JpaConfig {
+    }
+
+    @Autowired
+    private ClassroomRepository classroomRepository;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Statistics statistics;
+    private final List<Long> classroomIds = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        for (int i = 0; i < CLASSROOMS; i++) {
+            Classroom classroom = new Classroom();
+            classroom.setTitle("Classroom " + i);
+            classroom.setStartDate(LocalDate.now());
+            classroom.setTeacherId(TEACHER_ID);
+            for (long student = 0; student < i % 5; student++) {
+                classroom.getStudentIds().add(100 + student);
+            }
+            classroom.getCourseIds().add(10L);
+            classroomIds.add(classroomRepository.save(classroom).getId());
+        }
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        classroomRepository.deleteAll();
+    }
+
+    @Test
+    void summariesByTeacherIssueOneStatement() {
+        List<ClassroomSummary> page = classroomRepository.findSummariesByTeacherIdAfter(TEACHER_ID, 0L, Limit.of(CLASSROOMS));
+
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(CLASSROOMS, page.size());
+        assertEquals(classroomIds, page.stream().map(ClassroomSummary::id).toList());
+        assertEquals(4L, page.get(4).studentCount());
+        assertEquals(1L, page.get(4).courseCount());
+        assertEquals(0L, page.get(4).resourceCount());
+    }
+
+    @Test
+    void summariesByIdIssueOneStatement() {
+        List<ClassroomSummary> page = classroomRepository.findSummariesByIdIn(classroomIds.subList(0, 10));
+
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(classroomIds.subList(0, 10), page.stream().map(ClassroomSummary::id).toList());
+        assertEquals(3L, page.get(3).studentCount());
+    }
+
+    @Test
+    void fullClassroomsLoadCollectionsInBatches() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            List<Classroom> classrooms = classroomRepository.findAllById(classroomIds);
+            classrooms.forEach(classroom -> {
+                classroom.getStudentIds().size();
+                classroom.getCourseIds().size();
+                classroom.getResourceIds().size();
+            });
+        });
+
+        assertEquals(4, statistics.getPrepareStatementCount());
+    }
+}
@@ -0,0 +1,166 @@
+package com.binarybrain.classroom.repo;
+
+import com.binarybrain.classroom.dto.DueTask;
+import com.binarybrain.classroom.dto.SubmissionState;
+import com.binarybrain.classroom.dto.TaskStatus;
+import com.binarybrain.classroom.model.Classroom;
+import com.binarybrain.classroom.model.StudentDeadline;
+import com.binarybrain.classroom.service.impl.StudentDeadlineWriter;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the student timeline queries and the row writer against an in-memory H2 database, to check
+ * that a student's timeline is read with one statement and that a rebuild only replaces the rows
+ * it covers.
+ */
+@DataJpaTest
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class StudentDeadlineQueryTest {
+    private static final long STUDENT_ID = 2L;
+    private static final long OTHER_STUDENT_ID = 3L;
+    private static final LocalDateTime NOW = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+
+    @Configuration
+    @EntityScan(basePackageClasses = Classroom.class)
+    @EnableJpaRepositories(basePackageClasses = ClassroomRepository.class)
+    static class JpaConfig {
+    }
+
+    @Autowired
+    private StudentDeadlineRepository studentDeadlineRepository;
+    @Autowired
+    private ClassroomRepository classroomRepository;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private DataSource dataSource;
+
+    private StudentDeadlineWriter writer;
+
+    @BeforeEach
+    void setUp() {
+        writer = new StudentDeadlineWriter(new JdbcTemplate(dataSource), transactionManager);
+    }
+
+    @AfterEach
+    void tearDown() {
+        studentDeadlineRepository.deleteAll();
+        classroomRepository.deleteAll();
+    }
+
+    private static StudentDeadline deadline(long studentId, long courseId, long taskId, LocalDateTime deadline, SubmissionState state) {
+        StudentDeadline row = new StudentDeadline();
+        row.setStudentId(studentId);
+        row.setClassroomId(1L);
+        row.setCourseId(courseId);
+        row.setTaskId(taskId);
+        row.setTitle("Task " + taskId);
+        row.setDeadline(deadline);
+        row.setTaskStatus(TaskStatus.OPEN);
+        row.setSubmissionState(state);
+        row.setSubmittedAt(state == SubmissionState.NOT_SUBMITTED ? null : NOW.minusHours(1));
+        return row;
+    }
+
+    private List<Long> timeline(long studentId) {
+        return studentDeadlineRepository.findTimeline(studentId, NOW.minusDays(30), NOW, NOW.plusDays(7)).stream()
+                .map(DueTask::taskId).toList();
+    }
+
+    @Test
+    void timelineListsUpcomingAndUnsubmittedOverdueTasksInOneStatement() {
+        writer.replace(1L, null, null, List.of(
+                deadline(STUDENT_ID, 10L, 100L, NOW.plusDays(2), SubmissionState.NOT_SUBMITTED),
+                deadline(STUDENT_ID, 10L, 101L, NOW.minusDays(2), SubmissionState.NOT_SUBMITTED),
+                deadline(STUDENT_ID, 10L, 102L, NOW.minusDays(1), SubmissionState.ACCEPTED),
+                deadline(STUDENT_ID, 10L, 103L, NOW.plusDays(1), SubmissionState.PENDING),
+                deadline(STUDENT_ID, 10L, 104L, NOW.plusDays(10), SubmissionState.NOT_SUBMITTED),
+                deadline(STUDENT_ID, 10L, 105L, NOW.minusDays(40), SubmissionState.NOT_SUBMITTED),
+                deadline(OTHER_STUDENT_ID, 10L, 100L, NOW.plusDays(2), SubmissionState.NOT_SUBMITTED)));
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        List<DueTask> tasks = studentDeadlineRepository.findTimeline(STUDENT_ID, NOW.minusDays(30), NOW, NOW.plusDays(7));
+
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(List.of(101L, 103L, 100L), tasks.stream().map(DueTask::taskId).toList());
+        assertEquals(SubmissionState.PENDING, tasks.get(1).submissionState());
+        assertEquals(NOW.plusDays(1), tasks.get(1).deadline());
+    }
+
+    @Test
+    void replaceOnlyTouchesTheGivenCourseOrStudents() {
+        writer.replace(1L, null, null, List.of(
+                deadline(STUDENT_ID, 10L, 100L, NOW.plusDays(1), SubmissionState.NOT_SUBMITTED),
+                deadline(STUDENT_ID, 20L, 200L, NOW.plusDays(2), SubmissionState.NOT_SUBMITTED),
+                deadline(OTHER_STUDENT_ID, 10L, 100L, NOW.plusDays(1), SubmissionState.NOT_SUBMITTED)));
+
+        writer.replace(1L, 20L, null, List.of(deadline(STUDENT_ID, 20L, 201L, NOW.plusDays(3), SubmissionState.NOT_SUBMITTED)));
+        writer.replace(1L, null, List.of(OTHER_STUDENT_ID), List.of());
+
+        assertEquals(List.of(100L, 201L), timeline(STUDENT_ID));
+        assertEquals(List.of(), timeline(OTHER_STUDENT_ID));
+    }
+
+    @Test
+    void taskAndSubmissionChangesUpdateRowsInPlace() {
+        writer.replace(1L, null, null, List.of(
+                deadline(STUDENT_ID, 10L, 100L, NOW.plusDays(1), SubmissionState.NOT_SUBMITTED),
+                deadline(STUDENT_ID, 10L, 101L, NOW.plusDays(2), SubmissionState.NOT_SUBMITTED),
+                deadline(OTHER_STUDENT_ID, 10L, 100L, NOW.plusDays(1), SubmissionState.NOT_SUBMITTED)));
+
+        assertEquals(2, studentDeadlineRepository.updateTask(100L, "Renamed", NOW.plusDays(3), TaskStatus.OPEN));
+        assertEquals(1, studentDeadlineRepository.updateSubmission(100L, STUDENT_ID, SubmissionState.PENDING, NOW));
+        assertEquals(1, studentDeadlineRepository.deleteByTaskId(101L));
+
+        List<DueTask> tasks = studentDeadlineRepository.findTimeline(STUDENT_ID, NOW.minusDays(30), NOW, NOW.plusDays(7));
+        assertEquals(1, tasks.size());
+        assertEquals("Renamed", tasks.get(0).title());
+        assertEquals(NOW.plusDays(3), tasks.get(0).deadline());
+        assertEquals(SubmissionState.PENDING, tasks.get(0).submissionState());
+        assertEquals(SubmissionState.NOT_SUBMITTED,
+                studentDeadlineRepository.findTimeline(OTHER_STUDENT_ID, NOW.minusDays(30), NOW, NOW.plusDays(7)).get(0).submissionState());
+    }
+
+    @Test
+    void classroomsOfCourseAreFoundByCourse() {
+        Classroom classroom = new Classroom();
+        classroom.setTitle("Classroom");
+        classroom.setStartDate(LocalDate.now());
+        classroom.setTeacherId(1L);
+        classroom.getCourseIds().addAll(List.of(10L, 20L));
+        Long classroomId = classroomRepository.save(classroom).getId();
+
+        assertEquals(List.of(classroomId), classroomRepository.findIdsByCourseId(20L));
+        assertEquals(List.of(), classroomRepository.findIdsByCourseId(30L));
+        assertEquals(List.of(10L, 20L), classroomRepository.findCourseIds(classroomId).stream().sorted().toList());
+    }
+}
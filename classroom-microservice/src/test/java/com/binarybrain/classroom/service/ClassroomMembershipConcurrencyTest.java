@@ -0,0 +1,257 @@
+package com.binarybrain.classroom.service;
+
+import com.binarybrain.classroom.dto.BulkEnrolmentRequest;
+import com.binarybrain.classroom.dto.EnrolmentResult;
+import com.binarybrain.classroom.dto.EnrolmentStatus;
+import com.binarybrain.classroom.dto.RoleDto;
+import com.binarybrain.classroom.dto.UserDto;
+import com.binarybrain.classroom.model.Classroom;
+import com.binarybrain.classroom.repo.ClassroomRepository;
+import com.binarybrain.classroom.repo.StudentDeadlineRepository;
+import com.binarybrain.classroom.service.impl.ClassroomMembershipService;
+import com.binarybrain.classroom.service.impl.ClassroomOverviewLoader;
+import com.binarybrain.classroom.service.impl.ClassroomStudentWriter;
+import com.binarybrain.classroom.service.impl.ClassroomserviceImpl;
+import com.binarybrain.classroom.service.impl.StudentTimelineProjector;
+import com.binarybrain.exception.AlreadyExistsException;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Enrols students into one classroom from many threads at once against an in-memory H2 database,
+ * to check that no enrolment is lost, that a student can't be enrolled twice and that an enrolment
+ * costs the same number of statements however many students the classroom has. Also times the bulk
+ * enrolment of a whole section.
+ */
+@DataJpaTest
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ClassroomMembershipConcurrencyTest {
+    private static final int STUDENTS = 300;
+    private static final int THREADS = 32;
+    private static final long TEACHER_ID = 1L;
+
+    @Configuration
+    @EntityScan(basePackageClasses = Classroom.class)
+    @EnableJpaRepositories(basePackageClasses = ClassroomRepository.class)
+    static class JpaConfig {
+    }
+
+    @Autowired
+    private ClassroomRepository classroomRepository;
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private DataSource dataSource;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private ClassroomService classroomService;
+    private ClassroomMembershipService membershipService;
+    private ExecutorService executor;
+    private Long classroomId;
+
+    @BeforeEach
+    void setUp() {
+        UserService userService = mock(UserService.class);
+        when(userService.getUserProfile(anyString())).thenReturn(user(TEACHER_ID, "TEACHER"));
+        when(userService.getUserProfileById(anyLong(), anyString()))
+                .thenAnswer(invocation -> user(invocation.getArgument(0), "STUDENT"));
+        when(userService.getUserProfilesByIds(anyCollection(), anyString()))
+                .thenAnswer(invocation -> invocation.<Collection<Long>>getArgument(0).stream()
+                        .map(id -> user(id, "STUDENT"))
+                        .toList());
+        membershipService = new ClassroomMembershipService(classroomRepository);
+        classroomService = new ClassroomserviceImpl(classroomRepository, userService, mock(CourseService.class),
+                new ClassroomStudentWriter(new JdbcTemplate(dataSource), transactionManager), membershipService,
+                mock(ClassroomOverviewLoader.class), mock(StudentTimelineProjector.class), mock(StudentDeadlineRepository.class),
+                entityManager);
+
+        Classroom classroom = new Classroom();
+        classroom.setTitle("Concurrency");
+        classroom.setStartDate(LocalDate.now());
+        classroom.setTeacherId(TEACHER_ID);
+        classroomId = classroomRepository.save(classroom).getId();
+        executor = Executors.newFixedThreadPool(THREADS);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+        classroomRepository.deleteAll();
+    }
+
+    private static UserDto user(long id, String role) {
+        RoleDto roleDto = new RoleDto();
+        roleDto.setName(role);
+        UserDto userDto = new UserDto();
+        userDto.setId(id);
+        userDto.setRoles(Set.of(roleDto));
+        return userDto;
+    }
+
+    /**
+     * Checks that the membership index agrees with the database, as kept up to date and as loaded
+     * from scratch.
+     */
+    private void assertIndexMatchesDatabase() {
+        List<Long> enrolled = entityManager.createNativeQuery("select student_ids from classroom_students where classroom_id = :classroomId order by student_ids", Long.class)
+                .setParameter("classroomId", classroomId)
+                .getResultList();
+        ClassroomMembershipService reloaded = new ClassroomMembershipService(classroomRepository);
+        ReflectionTestUtils.invokeMethod(reloaded, "load");
+        assertEquals(enrolled, membershipService.getCommonStudentIds(List.of(classroomId)));
+        assertEquals(enrolled, reloaded.getCommonStudentIds(List.of(classroomId)));
+    }
+
+    private long enrolledStudents() {
+        return ((Number) entityManager.createNativeQuery("select count(*) from classroom_students where classroom_id = :classroomId")
+                .setParameter("classroomId", classroomId)
+                .getSingleResult()).longValue();
+    }
+
+    /**
+     * Runs every task at the same moment and waits for all of them.
+     *
+     * @return the number of tasks that failed with {@link AlreadyExistsException}.
+     */
+    private int runTogether(List<Callable<Object>> tasks) throws InterruptedException, ExecutionException {
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger conflicts = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+        for (Callable<Object> task : tasks) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                try {
+                    return task.call();
+                } catch (AlreadyExistsException e) {
+                    conflicts.incrementAndGet();
+                    return null;
+                }
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        return conflicts.get();
+    }
+
+    @Test
+    void concurrentEnrolmentsAreAllKept() throws Exception {
+        List<Callable<Object>> enrolments = new ArrayList<>();
+        for (long studentId = 100; studentId < 100 + STUDENTS; studentId++) {
+            long id = studentId;
+            enrolments.add(() -> classroomService.addStudentInClassroom(classroomId, id, "teacher"));
+        }
+
+        assertEquals(0, runTogether(enrolments));
+        assertEquals(STUDENTS, enrolledStudents());
+        assertIndexMatchesDatabase();
+    }
+
+    @Test
+    void concurrentEnrolmentsOfOneStudentKeepOne() throws Exception {
+        List<Callable<Object>> enrolments = new ArrayList<>();
+        for (int i = 0; i < THREADS * 4; i++) {
+            enrolments.add(() -> classroomService.addStudentInClassroom(classroomId, 7L, "teacher"));
+        }
+
+        assertEquals(THREADS * 4 - 1, runTogether(enrolments));
+        assertEquals(1, enrolledStudents());
+        assertIndexMatchesDatabase();
+    }
+
+    @Test
+    void concurrentEnrolmentsAndRemovalsKeepTheRest() throws Exception {
+        for (long studentId = 100; studentId < 100 + STUDENTS; studentId++) {
+            classroomRepository.addStudent(classroomId, studentId);
+        }
+        ReflectionTestUtils.invokeMethod(membershipService, "load");
+        List<Callable<Object>> changes = new ArrayList<>();
+        for (long studentId = 100; studentId < 100 + STUDENTS; studentId += 2) {
+            long removed = studentId;
+            long added = studentId + 1000;
+            changes.add(() -> classroomService.removeStudentFromClassroomById(classroomId, removed, "teacher"));
+            changes.add(() -> classroomService.addStudentInClassroom(classroomId, added, "teacher"));
+        }
+
+        assertEquals(0, runTogether(changes));
+        assertEquals(STUDENTS, enrolledStudents());
+        assertIndexMatchesDatabase();
+    }
+
+    @Test
+    void enrolmentCostDoesNotGrowWithTheClassroom() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        classroomService.addStudentInClassroom(classroomId, 1L, "teacher");
+        long emptyClassroom = statistics.getPrepareStatementCount();
+
+        for (long studentId = 100; studentId < 100 + STUDENTS; studentId++) {
+            classroomRepository.addStudent(classroomId, studentId);
+        }
+        statistics.clear();
+        classroomService.addStudentInClassroom(classroomId, 2L, "teacher");
+
+        assertEquals(emptyClassroom, statistics.getPrepareStatementCount(), "load, insert, reload");
+        assertEquals(3, emptyClassroom);
+    }
+
+    @Test
+    void bulkEnrolmentOfASectionIsFast() {
+        for (long studentId = 100; studentId < 110; studentId++) {
+            classroomRepository.addStudent(classroomId, studentId);
+        }
+        ReflectionTestUtils.invokeMethod(membershipService, "load");
+        BulkEnrolmentRequest request = new BulkEnrolmentRequest();
+        for (long studentId = 100; studentId < 100 + STUDENTS; studentId++) {
+            request.getStudentIds().add(studentId);
+        }
+
+        long start = System.nanoTime();
+        List<EnrolmentResult> results = classroomService.addStudentsInClassroom(classroomId, request, "teacher");
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertEquals(10, results.stream().filter(result -> result.getStatus() == EnrolmentStatus.ALREADY_PRESENT).count());
+        assertEquals(STUDENTS - 10, results.stream().filter(result -> result.getStatus() == EnrolmentStatus.ADDED).count());
+        assertEquals(STUDENTS, enrolledStudents());
+        assertIndexMatchesDatabase();
+        assertTrue(elapsedMillis < 1000, "enrolled " + STUDENTS + " students in " + elapsedMillis + " ms");
+    }
+}
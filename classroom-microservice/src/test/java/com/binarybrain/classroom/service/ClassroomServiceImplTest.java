@@ -1,27 +1,48 @@
 package com.binarybrain.classroom.service;
 
+import com.binarybrain.classroom.dto.BulkEnrolmentRequest;
 import com.binarybrain.classroom.dto.ClassroomDto;
+import com.binarybrain.classroom.dto.ClassroomOverview;
+import com.binarybrain.classroom.dto.ClassroomSummary;
 import com.binarybrain.classroom.dto.CourseDto;
+import com.binarybrain.classroom.dto.DueTask;
+import com.binarybrain.classroom.dto.EnrolmentResult;
+import com.binarybrain.classroom.dto.EnrolmentStatus;
 import com.binarybrain.classroom.dto.RoleDto;
+import com.binarybrain.classroom.dto.StudentTimeline;
+import com.binarybrain.classroom.dto.SubmissionState;
+import com.binarybrain.classroom.dto.TaskStatus;
 import com.binarybrain.classroom.dto.UserDto;
 import com.binarybrain.classroom.model.Classroom;
 import com.binarybrain.classroom.repo.ClassroomRepository;
+import com.binarybrain.classroom.repo.StudentDeadlineRepository;
+import com.binarybrain.classroom.service.impl.ClassroomMembershipService;
+import com.binarybrain.classroom.service.impl.ClassroomOverviewLoader;
+import com.binarybrain.classroom.service.impl.ClassroomStudentWriter;
 import com.binarybrain.classroom.service.impl.ClassroomserviceImpl;
+import com.binarybrain.classroom.service.impl.StudentTimelineProjector;
 import com.binarybrain.exception.AlreadyExistsException;
 import com.binarybrain.exception.ResourceNotFoundException;
 import com.binarybrain.exception.UserHasNotPermissionException;
+import com.binarybrain.support.lookup.BatchLookup;
+import com.binarybrain.support.lookup.CursorPage;
+import jakarta.persistence.EntityManager;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.test.context.ActiveProfiles;
 
+import java.time.LocalDateTime;
 import java.util.*;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ActiveProfiles("test")
@@ -37,6 +58,24 @@ class ClassroomServiceImplTest {
     @Mock
     private CourseService courseService;
 
+    @Mock
+    private ClassroomStudentWriter classroomStudentWriter;
+
+    @Mock
+    private ClassroomMembershipService classroomMembershipService;
+
+    @Mock
+    private ClassroomOverviewLoader classroomOverviewLoader;
+
+    @Mock
+    private StudentTimelineProjector studentTimelineProjector;
+
+    @Mock
+    private StudentDeadlineRepository studentDeadlineRepository;
+
+    @Mock
+    private EntityManager entityManager;
+
     @InjectMocks
     private ClassroomserviceImpl classroomService;
 
@@ -83,6 +122,10 @@ class ClassroomServiceImplTest {
         return userDto;
     }
 
+    private ClassroomSummary summary(Long id) {
+        return new ClassroomSummary(id, "Classroom " + id, 1L, null, 0L, 0L, 0L);
+    }
+
     @Test
     void createClassroom_WhenUserIsTeacher_ShouldCreateClassroom() {
         when(userService.getUserProfile("teacher")).thenReturn(teacher);
@@ -132,19 +175,30 @@ class ClassroomServiceImplTest {
     @Test
     void getAllClassroomByTeacherId_ShouldReturnClassrooms() {
         when(userService.getUserProfile("teacher")).thenReturn(teacher);
-        when(classroomRepository.findByTeacherId(1L)).thenReturn(Collections.singletonList(classroom));
+        when(classroomRepository.findSummariesByTeacherIdAfter(eq(1L), eq(0L), any())).thenReturn(Collections.singletonList(summary(1L)));
 
-        List<Classroom> result = classroomService.getAllClassroomByTeacherId(1L, "teacher");
+        CursorPage<ClassroomSummary> result = classroomService.getAllClassroomByTeacherId(1L, null, null, "teacher");
 
-        assertFalse(result.isEmpty());
-        assertEquals(1, result.size());
+        assertEquals(1, result.items().size());
+        assertNull(result.nextCursor());
+    }
+
+    @Test
+    void getAllClassroomByTeacherId_WhenMoreClassroomsFollow_ShouldReturnNextCursor() {
+        when(userService.getUserProfile("teacher")).thenReturn(teacher);
+        when(classroomRepository.findSummariesByTeacherIdAfter(eq(1L), eq(0L), any())).thenReturn(List.of(summary(1L), summary(5L)));
+
+        CursorPage<ClassroomSummary> result = classroomService.getAllClassroomByTeacherId(1L, null, 1, "teacher");
+
+        assertEquals(List.of(summary(1L)), result.items());
+        assertEquals(1L, result.nextCursor());
     }
 
     @Test
     void getAllClassroomByTeacherId_WhenUserIsNotTeacherOrAdmin_ShouldThrowException() {
         when(userService.getUserProfile("student")).thenReturn(student);
 
-        assertThrows(UserHasNotPermissionException.class, () -> classroomService.getAllClassroomByTeacherId(1L, "student"));
+        assertThrows(UserHasNotPermissionException.class, () -> classroomService.getAllClassroomByTeacherId(1L, null, null, "student"));
     }
 
     @Test
@@ -153,7 +207,7 @@ class ClassroomServiceImplTest {
 
         UserHasNotPermissionException exception = assertThrows(
                 UserHasNotPermissionException.class,
-                () -> classroomService.getAllClassroomByTeacherId(1L, "teacher2")
+                () -> classroomService.getAllClassroomByTeacherId(1L, null, null, "teacher2")
         );
 
         assertEquals("Only Admin or corresponding Teacher can get classroom list.", exception.getMessage());
@@ -167,6 +221,7 @@ class ClassroomServiceImplTest {
         classroomService.deleteClassroom(1L, "teacher");
 
         verify(classroomRepository).deleteById(1L);
+        verify(studentTimelineProjector).classroomDeleted(1L);
     }
 
     @Test
@@ -183,11 +238,14 @@ class ClassroomServiceImplTest {
         when(userService.getUserProfile("teacher")).thenReturn(teacher);
         when(userService.getUserProfileById(3L, "teacher")).thenReturn(student);
         when(classroomRepository.findById(1L)).thenReturn(Optional.of(classroom));
-        when(classroomRepository.save(any(Classroom.class))).thenReturn(classroom);
+        when(classroomRepository.addStudent(1L, 3L)).thenReturn(1);
 
         Classroom result = classroomService.addStudentInClassroom(1L, 3L, "teacher");
 
-        assertTrue(result.getStudentIds().contains(3L));
+        assertEquals(classroom, result);
+        verify(classroomRepository).addStudent(1L, 3L);
+        verify(studentTimelineProjector).studentsEnrolled(1L, List.of(3L), "teacher");
+        verify(classroomRepository, never()).save(any());
     }
 
     @Test
@@ -208,31 +266,94 @@ class ClassroomServiceImplTest {
 
     @Test
     void addStudentInClassroom_WhenStudentAlreadyExists_ShouldThrowException() {
-        classroom.getStudentIds().add(3L);
         when(userService.getUserProfile("teacher")).thenReturn(teacher);
         when(userService.getUserProfileById(3L, "teacher")).thenReturn(student);
         when(classroomRepository.findById(1L)).thenReturn(Optional.of(classroom));
+        when(classroomRepository.addStudent(1L, 3L)).thenThrow(new DataIntegrityViolationException("uk_classroom_students"));
 
         assertThrows(AlreadyExistsException.class, () -> classroomService.addStudentInClassroom(1L, 3L, "teacher"));
     }
 
+    @Test
+    void addStudentsInClassroom_ShouldReportEveryStudent() {
+        UserDto student2 = createUserDto(4L, "Student2", "STUDENT");
+        UserDto student3 = createUserDto(5L, "student3", "STUDENT");
+        BulkEnrolmentRequest request = new BulkEnrolmentRequest();
+        request.setStudentIds(List.of(3L, 1L, 99L, 5L));
+        request.setUsernames(List.of("student2", "STUDENT", "nobody"));
+        when(userService.getUserProfile("teacher")).thenReturn(teacher);
+        when(classroomRepository.findById(1L)).thenReturn(Optional.of(classroom));
+        when(userService.getUserProfilesByIds(List.of(3L, 1L, 99L, 5L), "teacher")).thenReturn(List.of(student, teacher, student3));
+        when(userService.getUserProfilesByUsernames(List.of("student2", "STUDENT", "nobody"), "teacher")).thenReturn(List.of(student2, student));
+        when(classroomRepository.findStudentIdsIn(1L, Set.of(3L, 5L, 4L))).thenReturn(List.of(5L));
+
+        List<EnrolmentResult> results = classroomService.addStudentsInClassroom(1L, request, "teacher");
+
+        assertEquals(List.of(
+                new EnrolmentResult(3L, "student", EnrolmentStatus.ADDED),
+                new EnrolmentResult(1L, "teacher", EnrolmentStatus.NOT_A_STUDENT),
+                new EnrolmentResult(99L, null, EnrolmentStatus.NOT_FOUND),
+                new EnrolmentResult(5L, "student3", EnrolmentStatus.ALREADY_PRESENT),
+                new EnrolmentResult(4L, "Student2", EnrolmentStatus.ADDED),
+                new EnrolmentResult(3L, "student", EnrolmentStatus.ALREADY_PRESENT),
+                new EnrolmentResult(null, "nobody", EnrolmentStatus.NOT_FOUND)), results);
+        verify(classroomStudentWriter).insertAll(1L, List.of(3L, 4L));
+        verify(classroomMembershipService).enrolled(1L, List.of(3L, 4L));
+        verify(userService, never()).getUserProfileById(any(), any());
+        verify(classroomRepository, never()).addStudent(any(), any());
+    }
+
+    @Test
+    void addStudentsInClassroom_WhenBatchConflicts_ShouldEnrolOneByOne() {
+        UserDto student2 = createUserDto(4L, "student2", "STUDENT");
+        BulkEnrolmentRequest request = new BulkEnrolmentRequest();
+        request.setStudentIds(List.of(3L, 4L));
+        when(userService.getUserProfile("teacher")).thenReturn(teacher);
+        when(classroomRepository.findById(1L)).thenReturn(Optional.of(classroom));
+        when(userService.getUserProfilesByIds(List.of(3L, 4L), "teacher")).thenReturn(List.of(student, student2));
+        when(classroomRepository.findStudentIdsIn(1L, Set.of(3L, 4L))).thenReturn(List.of());
+        doThrow(new DataIntegrityViolationException("uk_classroom_students")).when(classroomStudentWriter).insertAll(1L, List.of(3L, 4L));
+        when(classroomRepository.addStudent(1L, 3L)).thenThrow(new DataIntegrityViolationException("uk_classroom_students"));
+
+        List<EnrolmentResult> results = classroomService.addStudentsInClassroom(1L, request, "teacher");
+
+        assertEquals(EnrolmentStatus.ALREADY_PRESENT, results.get(0).getStatus());
+        assertEquals(EnrolmentStatus.ADDED, results.get(1).getStatus());
+        verify(classroomRepository).addStudent(1L, 4L);
+        verify(classroomMembershipService).enrolled(1L, List.of(4L));
+    }
+
+    @Test
+    void addStudentsInClassroom_WhenNotClassroomTeacher_ShouldThrowException() {
+        BulkEnrolmentRequest request = new BulkEnrolmentRequest();
+        request.setStudentIds(List.of(3L));
+        when(userService.getUserProfile("teacher2")).thenReturn(teacher2);
+        when(classroomRepository.findById(1L)).thenReturn(Optional.of(classroom));
+
+        assertThrows(UserHasNotPermissionException.class, () -> classroomService.addStudentsInClassroom(1L, request, "teacher2"));
+        verifyNoInteractions(classroomStudentWriter);
+    }
+
     @Test
     void removeStudentFromClassroomById_ShouldRemoveStudent() {
-        classroom.getStudentIds().add(3L);
         when(userService.getUserProfile("teacher")).thenReturn(teacher);
         when(classroomRepository.findById(1L)).thenReturn(Optional.of(classroom));
-        when(classroomRepository.save(any(Classroom.class))).thenReturn(classroom);
+        when(classroomRepository.removeStudent(1L, 3L)).thenReturn(1);
 
         Classroom result = classroomService.removeStudentFromClassroomById(1L, 3L, "teacher");
 
-        assertFalse(result.getStudentIds().contains(3L));
+        assertEquals(classroom, result);
+        verify(classroomRepository).removeStudent(1L, 3L);
+        verify(classroomMembershipService).removed(1L, 3L);
+        verify(studentTimelineProjector).studentRemoved(1L, 3L);
+        verify(classroomRepository, never()).save(any());
     }
 
     @Test
     void removeStudentFromClassroomById_WhenStudentNotInClassroom_ShouldThrowNotFoundException() {
-        classroom.getStudentIds().add(99L);
         when(userService.getUserProfile("teacher")).thenReturn(teacher);
         when(classroomRepository.findById(1L)).thenReturn(Optional.of(classroom));
+        when(classroomRepository.removeStudent(1L, 100L)).thenReturn(0);
 
         ResourceNotFoundException exception = assertThrows(
                 ResourceNotFoundException.class,
@@ -245,13 +366,52 @@ class ClassroomServiceImplTest {
 
     @Test
     void getClassroomsByStudentId_ShouldReturnClassrooms() {
-        classroom.getStudentIds().add(3L);
-        when(classroomRepository.findByStudentIdsContaining(3L)).thenReturn(Collections.singletonList(classroom));
+        when(classroomMembershipService.getClassroomIdsOfStudent(3L)).thenReturn(List.of(1L));
+        when(classroomRepository.findSummariesByIdIn(List.of(1L))).thenReturn(Collections.singletonList(summary(1L)));
 
-        List<Classroom> result = classroomService.getClassroomsByStudentId(3L);
+        CursorPage<ClassroomSummary> result = classroomService.getClassroomsByStudentId(3L, null, null);
 
-        assertFalse(result.isEmpty());
-        assertEquals(1, result.size());
+        assertEquals(1, result.items().size());
+        assertNull(result.nextCursor());
+    }
+
+    @Test
+    void getClassroomsByStudentId_ShouldPageInIdOrder() {
+        when(classroomMembershipService.getClassroomIdsOfStudent(3L)).thenReturn(List.of(1L, 4L, 6L, 9L));
+        when(classroomRepository.findSummariesByIdIn(List.of(4L, 6L))).thenReturn(List.of(summary(4L), summary(6L)));
+
+        CursorPage<ClassroomSummary> result = classroomService.getClassroomsByStudentId(3L, 1L, 2);
+
+        assertEquals(List.of(summary(4L), summary(6L)), result.items());
+        assertEquals(6L, result.nextCursor());
+    }
+
+    @Test
+    void getClassroomsByStudentId_WhenNotEnrolled_ShouldNotQuery() {
+        when(classroomMembershipService.getClassroomIdsOfStudent(3L)).thenReturn(List.of());
+
+        assertTrue(classroomService.getClassroomsByStudentId(3L, null, null).items().isEmpty());
+        verifyNoInteractions(classroomRepository);
+    }
+
+    @Test
+    void exportAllClassroom_WhenUserIsAdmin_ShouldStreamAndDetachEveryClassroom() {
+        when(userService.getUserProfile("admin")).thenReturn(admin);
+        when(classroomRepository.streamAllByOrderByIdAsc()).thenReturn(Stream.of(classroom));
+        List<Classroom> exported = new ArrayList<>();
+
+        classroomService.exportAllClassroom("admin", exported::add);
+
+        assertEquals(List.of(classroom), exported);
+        verify(entityManager).detach(classroom);
+    }
+
+    @Test
+    void exportAllClassroom_WhenUserIsNotAdmin_ShouldThrowException() {
+        when(userService.getUserProfile("teacher")).thenReturn(teacher);
+
+        assertThrows(UserHasNotPermissionException.class, () -> classroomService.exportAllClassroom("teacher", classroom -> { }));
+        verify(classroomRepository, never()).streamAllByOrderByIdAsc();
     }
 
     @Test
@@ -264,6 +424,7 @@ class ClassroomServiceImplTest {
         Classroom result = classroomService.addCourseToClassroom(1L, 1L, "teacher");
 
         assertTrue(result.getCourseIds().contains(1L));
+        verify(studentTimelineProjector).courseAdded(1L, 1L, "teacher");
     }
 
     @Test
@@ -280,6 +441,7 @@ class ClassroomServiceImplTest {
 
         assertEquals("Course is already assigned to this classroom.", exception.getMessage());
         verify(classroomRepository, never()).save(any());
+        verifyNoInteractions(studentTimelineProjector);
     }
 
     @Test
@@ -292,6 +454,7 @@ class ClassroomServiceImplTest {
         Classroom result = classroomService.removeCourseFromClassroomById(1L, 3L, "teacher");
 
         assertFalse(result.getCourseIds().contains(3L));
+        verify(studentTimelineProjector).courseRemoved(1L, 3L);
     }
 
     @Test
@@ -314,7 +477,7 @@ class ClassroomServiceImplTest {
         classroom.getCourseIds().add(1L);
         when(classroomRepository.findById(1L)).thenReturn(Optional.of(classroom));
         when(courseService.getCoursesByIds(Collections.singletonList(1L), "teacher"))
-                .thenReturn(Collections.singletonList(course));
+                .thenReturn(new BatchLookup<>(Collections.singletonList(course), List.of()));
 
         List<CourseDto> result = classroomService.getAllCourseInClassroom(1L, "teacher");
 
@@ -322,6 +485,54 @@ class ClassroomServiceImplTest {
         assertEquals(1, result.size());
     }
 
+    @Test
+    void getClassroomOverview_ShouldLoadOverviewOfClassroom() {
+        ClassroomOverview overview = new ClassroomOverview(classroom, List.of(), List.of());
+        when(classroomRepository.findById(1L)).thenReturn(Optional.of(classroom));
+        when(classroomOverviewLoader.load(classroom, "teacher")).thenReturn(overview);
+
+        assertSame(overview, classroomService.getClassroomOverview(1L, "teacher"));
+    }
+
+    @Test
+    void getClassroomOverview_WhenClassroomNotFound_ShouldThrow() {
+        when(classroomRepository.findById(1L)).thenReturn(Optional.empty());
+
+        assertThrows(ResourceNotFoundException.class, () -> classroomService.getClassroomOverview(1L, "teacher"));
+        verifyNoInteractions(classroomOverviewLoader);
+    }
+
+    private static DueTask dueTask(Long classroomId, Long taskId, LocalDateTime deadline, SubmissionState state) {
+        return new DueTask(classroomId, 1L, taskId, "Task " + taskId, deadline, TaskStatus.OPEN, state, null);
+    }
+
+    @Test
+    void getDueTasks_ShouldSplitOverdueFromUpcomingAndListEveryTaskOnce() {
+        LocalDateTime now = LocalDateTime.now();
+        DueTask overdue = dueTask(1L, 10L, now.minusDays(1), SubmissionState.NOT_SUBMITTED);
+        DueTask upcoming = dueTask(1L, 11L, now.plusDays(1), SubmissionState.PENDING);
+        DueTask sameTaskOtherClassroom = dueTask(2L, 11L, now.plusDays(1), SubmissionState.PENDING);
+        when(userService.getUserProfile("student")).thenReturn(student);
+        when(studentDeadlineRepository.findTimeline(eq(3L), any(), any(), any()))
+                .thenReturn(List.of(overdue, upcoming, sameTaskOtherClassroom));
+
+        StudentTimeline timeline = classroomService.getDueTasks(null, "student");
+
+        assertEquals(List.of(overdue), timeline.overdue());
+        assertEquals(List.of(upcoming), timeline.upcoming());
+    }
+
+    @Test
+    void getDueTasks_ShouldCapTheDaysAhead() {
+        when(userService.getUserProfile("student")).thenReturn(student);
+        when(studentDeadlineRepository.findTimeline(eq(3L), any(), any(), any())).thenReturn(List.of());
+
+        classroomService.getDueTasks(10_000, "student");
+
+        verify(studentDeadlineRepository).findTimeline(eq(3L), any(), any(), argThat((LocalDateTime to) ->
+                to.isBefore(LocalDateTime.now().plusDays(91)) && to.isAfter(LocalDateTime.now().plusDays(89))));
+    }
+
     @Test
     void validateRole_ShouldReturnTrueForMatchingRole() {
         when(userService.getUserProfile("teacher")).thenReturn(teacher);
@@ -0,0 +1,95 @@
+package com.binarybrain.classroom.service.impl;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ClassroomMembershipIndexTest {
+
+    private ClassroomMembershipIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new ClassroomMembershipIndex();
+        index.add(1L, 10L);
+        index.add(1L, 11L);
+        index.add(1L, 12L);
+        index.add(2L, 11L);
+        index.add(2L, 12L);
+        index.add(3L, 12L);
+    }
+
+    @Test
+    void add_IgnoresExistingMembership() {
+        assertFalse(index.add(1L, 10L));
+        assertTrue(index.add(3L, 5_000_000_000L));
+
+        assertEquals(7, index.memberships());
+        assertArrayEquals(new long[]{3L}, index.classroomsOf(5_000_000_000L));
+    }
+
+    @Test
+    void classroomsOf_ReturnsClassroomsInOrder() {
+        assertArrayEquals(new long[]{1L, 2L, 3L}, index.classroomsOf(12L));
+        assertArrayEquals(new long[]{1L}, index.classroomsOf(10L));
+        assertArrayEquals(new long[0], index.classroomsOf(99L));
+    }
+
+    @Test
+    void contains_ChecksMembership() {
+        assertTrue(index.contains(2L, 11L));
+        assertFalse(index.contains(2L, 10L));
+        assertFalse(index.contains(99L, 10L));
+    }
+
+    @Test
+    void commonStudents_IntersectsRosters() {
+        assertArrayEquals(new long[]{11L, 12L}, index.commonStudents(List.of(1L, 2L)));
+        assertArrayEquals(new long[]{12L}, index.commonStudents(List.of(3L, 1L, 2L)));
+        assertArrayEquals(new long[]{10L, 11L, 12L}, index.commonStudents(List.of(1L)));
+        assertArrayEquals(new long[0], index.commonStudents(List.of(1L, 99L)));
+        assertArrayEquals(new long[0], index.commonStudents(List.of()));
+    }
+
+    @Test
+    void commonStudents_DoesNotChangeRosters() {
+        index.commonStudents(List.of(1L, 3L));
+
+        assertArrayEquals(new long[]{10L, 11L, 12L}, index.studentsOf(1L));
+    }
+
+    @Test
+    void remove_UpdatesBothDirections() {
+        assertTrue(index.remove(1L, 10L));
+        assertFalse(index.remove(1L, 10L));
+
+        assertArrayEquals(new long[0], index.classroomsOf(10L));
+        assertArrayEquals(new long[]{11L, 12L}, index.studentsOf(1L));
+        assertEquals(2, index.students());
+        assertEquals(5, index.memberships());
+    }
+
+    @Test
+    void removeClassroom_DropsItsMemberships() {
+        index.removeClassroom(1L);
+
+        assertEquals(2, index.classrooms());
+        assertArrayEquals(new long[0], index.classroomsOf(10L));
+        assertArrayEquals(new long[]{2L, 3L}, index.classroomsOf(12L));
+        assertEquals(3, index.memberships());
+    }
+
+    @Test
+    void optimize_KeepsMemberships() {
+        for (long studentId = 1000; studentId < 11_000; studentId++) {
+            index.add(4L, studentId);
+        }
+        index.optimize();
+
+        assertEquals(10_000, index.studentsOf(4L).length);
+        assertTrue(index.contains(4L, 5000L));
+    }
+}
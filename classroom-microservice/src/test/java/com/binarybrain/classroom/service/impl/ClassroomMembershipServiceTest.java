@@ -0,0 +1,78 @@
+package com.binarybrain.classroom.service.impl;
+
+import com.binarybrain.classroom.repo.ClassroomRepository;
+import com.binarybrain.classroom.repo.ClassroomRepository.MembershipRow;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ClassroomMembershipServiceTest {
+
+    private static MembershipRow row(long classroomId, long studentId) {
+        return new MembershipRow() {
+            @Override
+            public Long getClassroomId() {
+                return classroomId;
+            }
+
+            @Override
+            public Long getStudentId() {
+                return studentId;
+            }
+        };
+    }
+
+    @Test
+    void load_PicksUpChangesMadeByOtherInstances() {
+        ClassroomRepository classroomRepository = mock(ClassroomRepository.class);
+        ClassroomMembershipService service = new ClassroomMembershipService(classroomRepository);
+        when(classroomRepository.findMembershipRowsAfter(anyLong(), anyLong(), any()))
+                .thenReturn(List.of(row(1, 10), row(1, 11)));
+        ReflectionTestUtils.invokeMethod(service, "load");
+
+        when(classroomRepository.findMembershipRowsAfter(anyLong(), anyLong(), any()))
+                .thenReturn(List.of(row(1, 11), row(2, 12)));
+        ReflectionTestUtils.invokeMethod(service, "load");
+
+        assertFalse(service.isStudentInClassroom(1L, 10L));
+        assertTrue(service.isStudentInClassroom(1L, 11L));
+        assertEquals(List.of(2L), service.getClassroomIdsOfStudent(12L));
+    }
+
+    @Test
+    void load_ReplaysChangesMadeWhileItReads() {
+        ClassroomRepository classroomRepository = mock(ClassroomRepository.class);
+        ClassroomMembershipService service = new ClassroomMembershipService(classroomRepository);
+        when(classroomRepository.findMembershipRowsAfter(anyLong(), anyLong(), any())).thenAnswer(invocation -> {
+            service.enrolled(1L, List.of(20L));
+            service.removed(1L, 10L);
+            return List.of(row(1, 10), row(1, 11));
+        });
+
+        ReflectionTestUtils.invokeMethod(service, "load");
+
+        assertEquals(List.of(11L, 20L), service.getCommonStudentIds(List.of(1L)));
+    }
+
+    @Test
+    void load_KeepsTheIndexWhenTheDatabaseFails() {
+        ClassroomRepository classroomRepository = mock(ClassroomRepository.class);
+        ClassroomMembershipService service = new ClassroomMembershipService(classroomRepository);
+        service.enrolled(1L, List.of(10L));
+        when(classroomRepository.findMembershipRowsAfter(anyLong(), anyLong(), any()))
+                .thenThrow(new IllegalStateException("connection refused"));
+
+        assertThrows(IllegalStateException.class, () -> ReflectionTestUtils.invokeMethod(service, "load"));
+
+        assertTrue(service.isStudentInClassroom(1L, 10L));
+        service.enrolled(1L, List.of(11L));
+        assertTrue(service.isStudentInClassroom(1L, 11L));
+    }
+}
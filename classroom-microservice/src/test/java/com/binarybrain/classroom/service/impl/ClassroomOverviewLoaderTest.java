@@ -0,0 +1,128 @@
+package com.binarybrain.classroom.service.impl;
+
+import com.binarybrain.classroom.dto.ClassroomOverview;
+import com.binarybrain.classroom.dto.CourseDto;
+import com.binarybrain.classroom.dto.CourseOverview;
+import com.binarybrain.classroom.dto.TaskDto;
+import com.binarybrain.classroom.model.Classroom;
+import com.binarybrain.classroom.service.CourseService;
+import com.binarybrain.classroom.service.SubmissionService;
+import com.binarybrain.support.lookup.BatchLookup;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+class ClassroomOverviewLoaderTest {
+
+    private final CourseService courseService = mock(CourseService.class);
+    private final SubmissionService submissionService = mock(SubmissionService.class);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private ClassroomOverviewLoader loader;
+    private Classroom classroom;
+
+    @BeforeEach
+    void setUp() {
+        loader = new ClassroomOverviewLoader(courseService, submissionService);
+        ReflectionTestUtils.setField(loader, "timeout", Duration.ofMillis(200));
+        loader.init();
+
+        classroom = new Classroom();
+        classroom.setId(1L);
+        classroom.setCourseIds(new HashSet<>(Set.of(10L, 20L)));
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        loader.shutdown();
+    }
+
+    private static CourseDto course(Long id) {
+        CourseDto course = new CourseDto();
+        course.setId(id);
+        course.setTitle("Course " + id);
+        return course;
+    }
+
+    private static TaskDto task(Long id) {
+        TaskDto task = new TaskDto();
+        task.setId(id);
+        task.setTitle("Task " + id);
+        return task;
+    }
+
+    @Test
+    void load_FetchesCoursesTasksAndSubmissionCounts() {
+        when(courseService.getCoursesByIds(List.of(10L, 20L), "teacher")).thenReturn(new BatchLookup<>(List.of(course(10L), course(20L)), List.of()));
+        when(courseService.getAllTasksFromCourse(10L, "teacher")).thenReturn(List.of(task(100L), task(101L)));
+        when(courseService.getAllTasksFromCourse(20L, "teacher")).thenReturn(List.of());
+        when(submissionService.countSubmissionsByTaskIds(List.of(100L, 101L), "teacher")).thenReturn(Map.of(100L, 3L, 101L, 0L));
+
+        ClassroomOverview overview = loader.load(classroom, "teacher");
+
+        assertTrue(overview.unavailable().isEmpty());
+        assertEquals(2, overview.courses().size());
+        CourseOverview first = overview.courses().get(0);
+        assertEquals(10L, first.courseId());
+        assertEquals("Course 10", first.course().getTitle());
+        assertEquals(2, first.tasks().size());
+        assertEquals(Map.of(100L, 3L, 101L, 0L), first.submissionCounts());
+        CourseOverview second = overview.courses().get(1);
+        assertEquals(List.of(), second.tasks());
+        assertEquals(Map.of(), second.submissionCounts());
+        verify(submissionService, times(1)).countSubmissionsByTaskIds(anyList(), any());
+    }
+
+    @Test
+    void load_WhenCallIsSlow_ReturnsPartialOverview() {
+        when(courseService.getCoursesByIds(List.of(10L, 20L), "teacher")).thenReturn(new BatchLookup<>(List.of(course(10L), course(20L)), List.of()));
+        when(courseService.getAllTasksFromCourse(10L, "teacher")).thenReturn(List.of(task(100L)));
+        when(courseService.getAllTasksFromCourse(20L, "teacher")).thenAnswer(invocation -> {
+            release.await();
+            return List.of(task(200L));
+        });
+        when(submissionService.countSubmissionsByTaskIds(List.of(100L), "teacher")).thenReturn(Map.of(100L, 1L));
+
+        ClassroomOverview overview = loader.load(classroom, "teacher");
+
+        assertEquals(List.of("tasks of course 20"), overview.unavailable());
+        assertEquals(Map.of(100L, 1L), overview.courses().get(0).submissionCounts());
+        CourseOverview slow = overview.courses().get(1);
+        assertEquals("Course 20", slow.course().getTitle());
+        assertNull(slow.tasks());
+        assertNull(slow.submissionCounts());
+    }
+
+    @Test
+    void load_WhenServiceFails_MarksPartUnavailable() {
+        when(courseService.getCoursesByIds(List.of(10L, 20L), "teacher")).thenThrow(new IllegalStateException("down"));
+        when(courseService.getAllTasksFromCourse(any(), any())).thenReturn(List.of(task(100L)));
+        when(submissionService.countSubmissionsByTaskIds(any(), any())).thenThrow(new IllegalStateException("down"));
+
+        ClassroomOverview overview = loader.load(classroom, "teacher");
+
+        assertEquals(List.of("courses", "submission counts of course 10", "submission counts of course 20"), overview.unavailable());
+        assertNull(overview.courses().get(0).course());
+        assertEquals(1, overview.courses().get(0).tasks().size());
+    }
+
+    @Test
+    void load_WhenClassroomHasNoCourses_MakesNoCalls() {
+        classroom.setCourseIds(new HashSet<>());
+
+        ClassroomOverview overview = loader.load(classroom, "teacher");
+
+        assertTrue(overview.courses().isEmpty());
+        verifyNoInteractions(courseService, submissionService);
+    }
+}
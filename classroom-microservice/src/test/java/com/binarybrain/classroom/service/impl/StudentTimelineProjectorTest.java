@@ -0,0 +1,157 @@
+package com.binarybrain.classroom.service.impl;
+
+import com.binarybrain.classroom.dto.SubmissionState;
+import com.binarybrain.classroom.dto.TaskDto;
+import com.binarybrain.classroom.dto.TaskStatus;
+import com.binarybrain.classroom.dto.TaskSubmissionState;
+import com.binarybrain.classroom.model.StudentDeadline;
+import com.binarybrain.classroom.repo.ClassroomRepository;
+import com.binarybrain.classroom.repo.StudentDeadlineRepository;
+import com.binarybrain.classroom.service.CourseService;
+import com.binarybrain.classroom.service.SubmissionService;
+import feign.FeignException;
+import feign.Request;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class StudentTimelineProjectorTest {
+    private static final LocalDateTime DEADLINE = LocalDateTime.of(2025, 12, 30, 23, 59);
+
+    private final StudentDeadlineRepository studentDeadlineRepository = mock(StudentDeadlineRepository.class);
+    private final StudentDeadlineWriter studentDeadlineWriter = mock(StudentDeadlineWriter.class);
+    private final ClassroomRepository classroomRepository = mock(ClassroomRepository.class);
+    private final ClassroomMembershipService classroomMembershipService = mock(ClassroomMembershipService.class);
+    private final CourseService courseService = mock(CourseService.class);
+    private final SubmissionService submissionService = mock(SubmissionService.class);
+    private StudentTimelineProjector projector;
+
+    @BeforeEach
+    void setUp() {
+        projector = new StudentTimelineProjector(studentDeadlineRepository, studentDeadlineWriter, classroomRepository,
+                classroomMembershipService, courseService, submissionService);
+        projector.start();
+
+        when(classroomMembershipService.getCommonStudentIds(List.of(1L))).thenReturn(List.of(2L, 3L));
+        when(classroomRepository.findCourseIds(1L)).thenReturn(List.of(10L, 20L));
+    }
+
+    @AfterEach
+    void tearDown() {
+        projector.shutdown();
+    }
+
+    private static TaskDto task(Long id) {
+        TaskDto task = new TaskDto();
+        task.setId(id);
+        task.setTitle("Task " + id);
+        task.setDeadline(DEADLINE);
+        task.setStatus(TaskStatus.OPEN);
+        return task;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<StudentDeadline> replaced(Long courseId, List<Long> studentIds) {
+        ArgumentCaptor<List<StudentDeadline>> deadlines = ArgumentCaptor.forClass(List.class);
+        verify(studentDeadlineWriter).replace(eq(1L), eq(courseId), eq(studentIds), deadlines.capture());
+        return deadlines.getValue();
+    }
+
+    @Test
+    void refresh_WritesEveryTaskForEveryStudentWithSubmissionState() {
+        when(courseService.getAllTasksFromCourse(10L, "teacher")).thenReturn(List.of(task(100L)));
+        when(courseService.getAllTasksFromCourse(20L, "teacher")).thenReturn(List.of(task(200L)));
+        when(submissionService.getSubmissionStatesByTaskIds(List.of(100L, 200L), "teacher"))
+                .thenReturn(List.of(new TaskSubmissionState(100L, 3L, SubmissionState.ACCEPTED, DEADLINE.minusDays(1)),
+                        new TaskSubmissionState(100L, 9L, SubmissionState.PENDING, DEADLINE)));
+
+        projector.refresh(1L, null, null, "teacher");
+
+        List<StudentDeadline> deadlines = replaced(null, null);
+        assertEquals(4, deadlines.size());
+        StudentDeadline submitted = deadlines.stream()
+                .filter(deadline -> deadline.getTaskId() == 100L && deadline.getStudentId() == 3L).findFirst().orElseThrow();
+        assertEquals(SubmissionState.ACCEPTED, submitted.getSubmissionState());
+        assertEquals(DEADLINE.minusDays(1), submitted.getSubmittedAt());
+        assertEquals(10L, submitted.getCourseId());
+        assertEquals("Task 100", submitted.getTitle());
+        assertEquals(DEADLINE, submitted.getDeadline());
+        assertEquals(3, deadlines.stream().filter(deadline -> deadline.getSubmissionState() == SubmissionState.NOT_SUBMITTED).count());
+    }
+
+    @Test
+    void refresh_OnlyTouchesTheGivenStudentsAndCourse() {
+        when(courseService.getAllTasksFromCourse(20L, "teacher")).thenReturn(List.of(task(200L)));
+        when(submissionService.getSubmissionStatesByTaskIds(List.of(200L), "teacher")).thenReturn(List.of());
+
+        projector.refresh(1L, 20L, List.of(3L, 4L), "teacher");
+
+        List<StudentDeadline> deadlines = replaced(20L, List.of(3L, 4L));
+        assertEquals(1, deadlines.size());
+        assertEquals(3L, deadlines.get(0).getStudentId());
+        verify(courseService, never()).getAllTasksFromCourse(10L, "teacher");
+    }
+
+    @Test
+    void refresh_WhenStudentOrCourseIsGone_OnlyDeletesRows() {
+        projector.refresh(1L, null, List.of(4L), null);
+        projector.refresh(1L, 30L, null, null);
+
+        assertEquals(List.of(), replaced(null, List.of(4L)));
+        assertEquals(List.of(), replaced(30L, null));
+        verifyNoInteractions(courseService, submissionService);
+    }
+
+    @Test
+    void refresh_WhenCourseWasDeleted_DropsItsTasks() {
+        Request request = Request.create(Request.HttpMethod.GET, "/api/v1/private/course/20/tasks", Map.of(), null, StandardCharsets.UTF_8, null);
+        when(courseService.getAllTasksFromCourse(20L, "teacher")).thenThrow(new FeignException.NotFound("Course not found", request, null, Map.of()));
+
+        projector.refresh(1L, 20L, null, "teacher");
+
+        assertEquals(List.of(), replaced(20L, null));
+        verifyNoInteractions(submissionService);
+    }
+
+    @Test
+    void refresh_WhenServiceFails_KeepsRows() {
+        when(courseService.getAllTasksFromCourse(any(), any())).thenThrow(new IllegalStateException("down"));
+
+        assertThrows(IllegalStateException.class, () -> projector.refresh(1L, null, null, "teacher"));
+
+        verifyNoInteractions(studentDeadlineWriter);
+    }
+
+    @Test
+    void changes_AreAppliedInArrivalOrderAndFailuresDontStopLaterOnes() {
+        TaskDto task = task(100L);
+        TaskSubmissionState submission = new TaskSubmissionState(100L, 2L, SubmissionState.PENDING, DEADLINE);
+        when(classroomRepository.findIdsByCourseId(10L)).thenReturn(List.of(1L));
+        when(courseService.getAllTasksFromCourse(10L, "teacher")).thenThrow(new IllegalStateException("down"));
+
+        projector.courseTasksChanged(10L, "teacher");
+        projector.taskChanged(task);
+        projector.submissionChanged(submission);
+        projector.taskDeleted(100L);
+
+        verify(studentDeadlineRepository, timeout(1000)).deleteByTaskId(100L);
+        InOrder inOrder = inOrder(studentDeadlineRepository);
+        inOrder.verify(studentDeadlineRepository).updateTask(100L, "Task 100", DEADLINE, TaskStatus.OPEN);
+        inOrder.verify(studentDeadlineRepository).updateSubmission(100L, 2L, SubmissionState.PENDING, DEADLINE);
+        inOrder.verify(studentDeadlineRepository).deleteByTaskId(100L);
+        verify(studentDeadlineWriter, never()).replace(any(), any(), any(), anyList());
+    }
+}
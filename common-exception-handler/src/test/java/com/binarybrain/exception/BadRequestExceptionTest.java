@@ -0,0 +1,34 @@
+package com.binarybrain.exception;
+
+import com.binarybrain.exception.global.GlobalExceptionHandler;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.WebRequest;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(MockitoExtension.class)
+class BadRequestExceptionTest {
+    @Mock
+    private WebRequest webRequest;
+    private final String errorMessage = "Invalid cursor: page-2";
+    BadRequestException exception = new BadRequestException(errorMessage);
+
+    @Test
+    void testConstructor_setsMessageCorrectly() {
+        assertEquals(errorMessage, exception.getMessage());
+    }
+
+    @Test
+    void testExceptionHandlingWithGlobalHandler() {
+        GlobalExceptionHandler handler = new GlobalExceptionHandler();
+        ResponseEntity<ErrorDetails> response = handler.handleBadRequestException(exception, webRequest);
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertEquals(errorMessage, response.getBody().getMessage());
+    }
+}
\ No newline at end of file
@@ -0,0 +1,188 @@
+package com.binarybrain.support.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * A bounded in-process cache in front of a remote lookup. Entries are fresh for {@code ttl}; once
+ * that passes they are still served for up to {@code grace} while a single background reload per
+ * key refreshes them, so a slow or unavailable upstream degrades to slightly stale data instead of
+ * failing the request. Concurrent misses for the same key share one load.
+ *
+ * <p>Published to Micrometer with the {@code cache} tag: {@code near.cache.requests} by
+ * {@code result} (hit, stale, miss), {@code near.cache.hit.ratio}, {@code near.cache.staleness}
+ * (age of stale entries when served) and {@code near.cache.refresh.failures}.</p>
+ */
+public class NearCache<K, V> implements MeterBinder {
+
+    private final String name;
+    private final long ttlNanos;
+    private final Cache<K, Stamped<V>> cache;
+    private final Executor refreshExecutor;
+    private final Ticker ticker;
+    private final Map<K, CompletableFuture<Void>> refreshing = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder staleHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder refreshFailures = new LongAdder();
+    private volatile Timer staleness;
+
+    public NearCache(String name, Duration ttl, Duration grace, long maxSize, Executor refreshExecutor, Ticker ticker) {
+        this.name = name;
+        this.ttlNanos = ttl.toNanos();
+        this.refreshExecutor = refreshExecutor;
+        this.ticker = ticker;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl.plus(grace))
+                .ticker(ticker)
+                .build();
+    }
+
+    /**
+     * Returns the cached value of {@code key}, loading it with {@code loader} on a miss. A stale
+     * value is returned as is and reloaded in the background; a failed reload keeps it until the
+     * grace window ends. Exceptions of a load on a miss propagate, and {@code null} is not cached.
+     */
+    public V get(K key, Function<K, V> loader) {
+        Stamped<V> entry = cache.getIfPresent(key);
+        if (entry != null) {
+            return serve(key, entry, loader);
+        }
+        misses.increment();
+        Stamped<V> loaded = cache.get(key, k -> stamp(loader.apply(k)));
+        return loaded == null ? null : loaded.value();
+    }
+
+    /**
+     * Bulk variant of {@link #get}: cached keys are served (and revalidated when stale) one by one,
+     * and all missing keys are loaded with a single call of {@code batchLoader}. Keys the loader
+     * doesn't return are left out of the result, which follows the order of {@code keys}.
+     */
+    public Map<K, V> getAll(Collection<K> keys, Function<Set<K>, Map<K, V>> batchLoader) {
+        Map<K, V> found = new HashMap<>();
+        Set<K> missing = new LinkedHashSet<>();
+        for (K key : keys) {
+            Stamped<V> entry = cache.getIfPresent(key);
+            if (entry == null) {
+                missing.add(key);
+            } else {
+                found.put(key, serve(key, entry, k -> batchLoader.apply(Set.of(k)).get(k)));
+            }
+        }
+        if (!missing.isEmpty()) {
+            misses.add(missing.size());
+            batchLoader.apply(missing).forEach((key, value) -> {
+                if (value != null) {
+                    cache.put(key, stamp(value));
+                    found.put(key, value);
+                }
+            });
+        }
+
+        Map<K, V> result = new LinkedHashMap<>();
+        keys.forEach(key -> {
+            V value = found.get(key);
+            if (value != null) {
+                result.put(key, value);
+            }
+        });
+        return result;
+    }
+
+    public void invalidate(K key) {
+        cache.invalidate(key);
+    }
+
+    public long size() {
+        cache.cleanUp();
+        return cache.estimatedSize();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("near.cache.requests", hits, LongAdder::sum)
+                .tags("cache", name, "result", "hit").register(registry);
+        FunctionCounter.builder("near.cache.requests", staleHits, LongAdder::sum)
+                .tags("cache", name, "result", "stale").register(registry);
+        FunctionCounter.builder("near.cache.requests", misses, LongAdder::sum)
+                .tags("cache", name, "result", "miss").register(registry);
+        FunctionCounter.builder("near.cache.refresh.failures", refreshFailures, LongAdder::sum)
+                .tag("cache", name).register(registry);
+        Gauge.builder("near.cache.hit.ratio", this, NearCache::hitRatio)
+                .tag("cache", name).register(registry);
+        Gauge.builder("near.cache.size", this, NearCache::size)
+                .tag("cache", name).register(registry);
+        staleness = Timer.builder("near.cache.staleness")
+                .tag("cache", name).register(registry);
+    }
+
+    /**
+     * Share of lookups answered from the cache, fresh or stale.
+     */
+    public double hitRatio() {
+        long served = hits.sum() + staleHits.sum();
+        long total = served + misses.sum();
+        return total == 0 ? 0 : (double) served / total;
+    }
+
+    private V serve(K key, Stamped<V> entry, Function<K, V> loader) {
+        long age = ticker.read() - entry.loadedAt();
+        if (age < ttlNanos) {
+            hits.increment();
+            return entry.value();
+        }
+        staleHits.increment();
+        Timer timer = staleness;
+        if (timer != null) {
+            timer.record(age - ttlNanos, TimeUnit.NANOSECONDS);
+        }
+        revalidate(key, loader);
+        return entry.value();
+    }
+
+    private void revalidate(K key, Function<K, V> loader) {
+        CompletableFuture<Void> pending = new CompletableFuture<>();
+        if (refreshing.putIfAbsent(key, pending) != null) {
+            return;
+        }
+        try {
+            CompletableFuture.supplyAsync(() -> loader.apply(key), refreshExecutor)
+                    .whenComplete((value, error) -> {
+                        if (error != null) {
+                            refreshFailures.increment();
+                        } else if (value != null) {
+                            cache.put(key, stamp(value));
+                        }
+                        refreshing.remove(key, pending);
+                    });
+        } catch (RejectedExecutionException e) {
+            refreshFailures.increment();
+            refreshing.remove(key, pending);
+        }
+    }
+
+    private Stamped<V> stamp(V value) {
+        return value == null ? null : new Stamped<>(value, ticker.read());
+    }
+
+    private record Stamped<V>(V value, long loadedAt) {
+    }
+}
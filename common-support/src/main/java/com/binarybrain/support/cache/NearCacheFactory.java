@@ -0,0 +1,42 @@
+package com.binarybrain.support.cache;
+
+import com.github.benmanes.caffeine.cache.Ticker;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.time.Duration;
+import java.util.concurrent.Executor;
+
+/**
+ * Creates {@link NearCache}s that share one set of limits and one refresh executor, and publishes
+ * each of them to the meter registry.
+ */
+public class NearCacheFactory {
+
+    private final Duration ttl;
+    private final Duration grace;
+    private final long maxSize;
+    private final Executor refreshExecutor;
+    private final Ticker ticker;
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * @param meterRegistry where the caches are published, or {@code null} to not publish them.
+     */
+    public NearCacheFactory(Duration ttl, Duration grace, long maxSize, Executor refreshExecutor, Ticker ticker,
+                            MeterRegistry meterRegistry) {
+        this.ttl = ttl;
+        this.grace = grace;
+        this.maxSize = maxSize;
+        this.refreshExecutor = refreshExecutor;
+        this.ticker = ticker;
+        this.meterRegistry = meterRegistry;
+    }
+
+    public <K, V> NearCache<K, V> create(String name) {
+        NearCache<K, V> cache = new NearCache<>(name, ttl, grace, maxSize, refreshExecutor, ticker);
+        if (meterRegistry != null) {
+            cache.bindTo(meterRegistry);
+        }
+        return cache;
+    }
+}
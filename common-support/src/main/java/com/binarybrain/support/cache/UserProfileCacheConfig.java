@@ -0,0 +1,47 @@
+package com.binarybrain.support.cache;
+
+import com.github.benmanes.caffeine.cache.Ticker;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.context.annotation.Bean;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Near-caches for the profiles fetched from USER-MICROSERVICE. Profiles are fresh for
+ * {@code user-profile-cache.ttl} and served stale for up to {@code user-profile-cache.grace}
+ * more while they are reloaded, or while the user service is unavailable.
+ */
+@AutoConfiguration
+public class UserProfileCacheConfig {
+
+    @Value("${user-profile-cache.ttl:60s}")
+    private Duration ttl;
+
+    @Value("${user-profile-cache.grace:10m}")
+    private Duration grace;
+
+    @Value("${user-profile-cache.max-size:10000}")
+    private long maxSize;
+
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService userProfileRefreshExecutor() {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 4, 30, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(1000), new ThreadPoolExecutor.AbortPolicy());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    @Bean
+    public NearCacheFactory userProfileCaches(@Qualifier("userProfileRefreshExecutor") ExecutorService refreshExecutor,
+                                              ObjectProvider<MeterRegistry> meterRegistry) {
+        return new NearCacheFactory(ttl, grace, maxSize, refreshExecutor, Ticker.systemTicker(), meterRegistry.getIfAvailable());
+    }
+}
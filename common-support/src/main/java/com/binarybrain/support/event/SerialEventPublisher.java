@@ -0,0 +1,54 @@
+package com.binarybrain.support.event;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Posts events to another service one at a time, in the order they were published, off the
+ * caller's thread. At most {@code queueCapacity} events wait to be posted; an event that doesn't
+ * fit, or whose post fails, is logged and dropped rather than failing the change it reports.
+ */
+public class SerialEventPublisher {
+    private static final Logger log = LoggerFactory.getLogger(SerialEventPublisher.class);
+
+    private final String target;
+    private final ThreadPoolExecutor publishExecutor;
+
+    /**
+     * @param target the service the events are posted to, as it is named in the log.
+     */
+    public SerialEventPublisher(String target, int queueCapacity) {
+        this.target = target;
+        this.publishExecutor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(queueCapacity));
+    }
+
+    /**
+     * Lets the events already published be posted, and refuses new ones.
+     */
+    public void shutdown() {
+        publishExecutor.shutdown();
+    }
+
+    /**
+     * @param event what is posted, as it is named in the log.
+     * @param post  posts the event.
+     */
+    public void publish(String event, Runnable post) {
+        try {
+            publishExecutor.execute(() -> {
+                try {
+                    post.run();
+                } catch (RuntimeException e) {
+                    log.warn("Failed to publish the {} to the {}: {}", event, target, e.getMessage());
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            log.warn("Dropped the {}, {} events are waiting to be published to the {}", event, publishExecutor.getQueue().size(), target);
+        }
+    }
+}
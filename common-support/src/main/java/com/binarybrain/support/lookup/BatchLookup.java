@@ -0,0 +1,15 @@
+package com.binarybrain.support.lookup;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * The result of looking many ids up at once. {@code items} follow the order of the requested ids,
+ * one per requested id that exists, and {@code missingIds} are the requested ids that don't.
+ */
+public record BatchLookup<T>(List<T> items, List<Long> missingIds) {
+
+    public <R> BatchLookup<R> map(Function<T, R> mapper) {
+        return new BatchLookup<>(items.stream().map(mapper).toList(), missingIds);
+    }
+}
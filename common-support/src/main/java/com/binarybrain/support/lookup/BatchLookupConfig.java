@@ -0,0 +1,26 @@
+package com.binarybrain.support.lookup;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+
+/**
+ * The {@link ChunkedIdLookup} the services look many ids up with, in chunks of
+ * {@code batch-lookup.chunk-size} ids on up to {@code batch-lookup.parallelism} threads.
+ */
+@AutoConfiguration
+public class BatchLookupConfig {
+
+    @Value("${batch-lookup.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${batch-lookup.parallelism:4}")
+    private int parallelism;
+
+    @Bean(destroyMethod = "shutdown")
+    @ConditionalOnMissingBean
+    public ChunkedIdLookup chunkedIdLookup() {
+        return new ChunkedIdLookup(chunkSize, parallelism);
+    }
+}
@@ -0,0 +1,112 @@
+package com.binarybrain.support.lookup;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+/**
+ * Looks rows up by id in IN-lists of at most {@code chunkSize} ids, so that a large set of ids
+ * doesn't become one unbounded statement. The chunks of one lookup run on up to
+ * {@code parallelism} threads; a lookup that fits in one chunk runs on the caller.
+ *
+ * <p>The chunk threads have no persistence context of their own, so a finder has to return rows
+ * that can be read without one, with the associations they need fetched by the query.</p>
+ */
+public class ChunkedIdLookup {
+
+    private final int chunkSize;
+    private final ExecutorService lookupExecutor;
+
+    public ChunkedIdLookup() {
+        this(500, 4);
+    }
+
+    public ChunkedIdLookup(int chunkSize, int parallelism) {
+        this.chunkSize = chunkSize;
+        this.lookupExecutor = Executors.newFixedThreadPool(parallelism);
+    }
+
+    public void shutdown() {
+        lookupExecutor.shutdownNow();
+    }
+
+    /**
+     * @param ids    the ids to look up; nulls are ignored and a repeated id is queried once.
+     * @param finder loads the rows of one chunk of ids.
+     * @param id     the id of a row.
+     * @return the rows in the order of {@code ids} and the ids no row was found for.
+     */
+    public <E> BatchLookup<E> find(List<Long> ids, Function<List<Long>, List<E>> finder, Function<E, Long> id) {
+        List<Long> requestedIds = ids.stream().filter(Objects::nonNull).toList();
+        Map<Long, E> found = new HashMap<>();
+        for (List<E> rows : findChunks(requestedIds.stream().distinct().toList(), finder)) {
+            rows.forEach(row -> found.put(id.apply(row), row));
+        }
+
+        List<E> items = new ArrayList<>(requestedIds.size());
+        Set<Long> missingIds = new LinkedHashSet<>();
+        for (Long requested : requestedIds) {
+            E row = found.get(requested);
+            if (row != null) {
+                items.add(row);
+            } else {
+                missingIds.add(requested);
+            }
+        }
+        return new BatchLookup<>(items, List.copyOf(missingIds));
+    }
+
+    /**
+     * Like {@link #find}, for finders that return any number of rows per id.
+     *
+     * @param ids    the ids to look up; nulls are ignored and a repeated id is queried once.
+     * @param finder loads the rows of one chunk of ids.
+     * @return the rows of every chunk, in no particular order.
+     */
+    public <E> List<E> findAll(List<Long> ids, Function<List<Long>, List<E>> finder) {
+        List<E> rows = new ArrayList<>();
+        findChunks(ids.stream().filter(Objects::nonNull).distinct().toList(), finder).forEach(rows::addAll);
+        return rows;
+    }
+
+    private <E> List<List<E>> findChunks(List<Long> ids, Function<List<Long>, List<E>> finder) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        if (ids.size() <= chunkSize) {
+            return List.of(finder.apply(ids));
+        }
+
+        List<Future<List<E>>> chunks = new ArrayList<>();
+        for (int from = 0; from < ids.size(); from += chunkSize) {
+            List<Long> chunk = ids.subList(from, Math.min(from + chunkSize, ids.size()));
+            chunks.add(lookupExecutor.submit(() -> finder.apply(chunk)));
+        }
+        List<List<E>> results = new ArrayList<>(chunks.size());
+        try {
+            for (Future<List<E>> chunk : chunks) {
+                results.add(chunk.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            chunks.forEach(chunk -> chunk.cancel(true));
+            throw new IllegalStateException("Interrupted while looking ids up", e);
+        } catch (ExecutionException e) {
+            chunks.forEach(chunk -> chunk.cancel(true));
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+        return results;
+    }
+}
@@ -0,0 +1,36 @@
+package com.binarybrain.support.lookup;
+
+import org.springframework.http.ResponseEntity;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * One page of a list ordered by id. {@code nextCursor} is the id to pass as {@code after} for the
+ * next page, or {@code null} on the last page.
+ */
+public record CursorPage<T>(List<T> items, Long nextCursor) {
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    /**
+     * Builds a page from rows fetched with a limit of {@code size + 1}, where the extra row only
+     * tells that there is a next page.
+     */
+    public static <E, T> CursorPage<T> of(List<E> rows, int size, Function<E, Long> id, Function<E, T> mapper) {
+        boolean hasNext = rows.size() > size;
+        List<E> page = hasNext ? rows.subList(0, size) : rows;
+        return new CursorPage<>(page.stream().map(mapper).toList(), hasNext ? id.apply(page.getLast()) : null);
+    }
+
+    /**
+     * The items as a plain JSON list, as the list endpoints always returned, with the cursor of the
+     * next page in the {@value #NEXT_CURSOR_HEADER} header.
+     */
+    public ResponseEntity<List<T>> toResponseEntity() {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (nextCursor != null) {
+            response.header(NEXT_CURSOR_HEADER, nextCursor.toString());
+        }
+        return response.body(items);
+    }
+}
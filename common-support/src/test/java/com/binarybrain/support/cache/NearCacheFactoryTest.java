@@ -0,0 +1,34 @@
+package com.binarybrain.support.cache;
+
+import com.github.benmanes.caffeine.cache.Ticker;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NearCacheFactoryTest {
+
+    @Test
+    void create_PublishesEveryCacheUnderItsName() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        NearCacheFactory factory = new NearCacheFactory(Duration.ofMinutes(1), Duration.ofMinutes(10), 100,
+                Runnable::run, Ticker.systemTicker(), registry);
+
+        NearCache<Long, String> byId = factory.create("user.profile.id");
+        factory.create("user.profile.username");
+        byId.get(1L, id -> "user-" + id);
+
+        assertEquals(1.0, registry.get("near.cache.requests").tag("cache", "user.profile.id").tag("result", "miss").functionCounter().count());
+        assertEquals(0.0, registry.get("near.cache.requests").tag("cache", "user.profile.username").tag("result", "miss").functionCounter().count());
+    }
+
+    @Test
+    void create_WorksWithoutRegistry() {
+        NearCacheFactory factory = new NearCacheFactory(Duration.ofMinutes(1), Duration.ofMinutes(10), 100,
+                Runnable::run, Ticker.systemTicker(), null);
+
+        assertEquals("user-1", factory.<Long, String>create("test").get(1L, id -> "user-" + id));
+    }
+}
@@ -0,0 +1,151 @@
+package com.binarybrain.support.cache;
+
+import com.github.benmanes.caffeine.cache.Ticker;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NearCacheTest {
+
+    private final AtomicLong now = new AtomicLong();
+    private final Ticker ticker = now::get;
+    private NearCache<Long, String> cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new NearCache<>("test", Duration.ofSeconds(60), Duration.ofMinutes(10), 100, Runnable::run, ticker);
+    }
+
+    private void advance(Duration duration) {
+        now.addAndGet(duration.toNanos());
+    }
+
+    @Test
+    void get_LoadsOnceWhileFresh() {
+        AtomicInteger loads = new AtomicInteger();
+        Function<Long, String> loader = id -> "user-" + id + "-" + loads.incrementAndGet();
+
+        assertEquals("user-1-1", cache.get(1L, loader));
+        advance(Duration.ofSeconds(30));
+        assertEquals("user-1-1", cache.get(1L, loader));
+
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void get_ServesStaleAndRevalidates() {
+        AtomicInteger loads = new AtomicInteger();
+        Function<Long, String> loader = id -> "v" + loads.incrementAndGet();
+        cache.get(1L, loader);
+
+        advance(Duration.ofSeconds(90));
+
+        assertEquals("v1", cache.get(1L, loader));
+        assertEquals("v2", cache.get(1L, loader));
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void get_KeepsStaleEntryWhenUpstreamIsDown() {
+        cache.get(1L, id -> "v1");
+        advance(Duration.ofMinutes(5));
+
+        Function<Long, String> failing = id -> {
+            throw new IllegalStateException("user service unavailable");
+        };
+
+        assertEquals("v1", cache.get(1L, failing));
+        assertEquals("v1", cache.get(1L, failing));
+    }
+
+    @Test
+    void get_ReloadsAfterGraceWindow() {
+        cache.get(1L, id -> "v1");
+        advance(Duration.ofMinutes(11));
+
+        assertEquals("v2", cache.get(1L, id -> "v2"));
+    }
+
+    @Test
+    void get_PropagatesLoadFailureOnMiss() {
+        assertThrows(IllegalStateException.class, () -> cache.get(1L, id -> {
+            throw new IllegalStateException("user service unavailable");
+        }));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void get_CoalescesConcurrentMisses() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        Function<Long, String> slowLoader = id -> {
+            loads.incrementAndGet();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return "v1";
+        };
+
+        ExecutorService callers = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(callers.submit(() -> cache.get(1L, slowLoader)));
+            }
+            Thread.sleep(100);
+            release.countDown();
+            for (Future<String> result : results) {
+                assertEquals("v1", result.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            callers.shutdownNow();
+        }
+
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void getAll_LoadsOnlyMissingKeysInOneBatch() {
+        cache.get(2L, id -> "cached-2");
+        List<Set<Long>> batches = new ArrayList<>();
+
+        Map<Long, String> result = cache.getAll(List.of(3L, 2L, 1L, 4L), missing -> {
+            batches.add(missing);
+            Map<Long, String> loaded = new HashMap<>();
+            missing.stream().filter(id -> id != 4L).forEach(id -> loaded.put(id, "loaded-" + id));
+            return loaded;
+        });
+
+        assertEquals(List.of(Set.of(3L, 1L, 4L)), batches);
+        assertEquals(List.of(3L, 2L, 1L), List.copyOf(result.keySet()));
+        assertEquals("cached-2", result.get(2L));
+    }
+
+    @Test
+    void bindTo_PublishesHitRatioAndStaleness() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        cache.bindTo(registry);
+
+        cache.get(1L, id -> "v1");
+        cache.get(1L, id -> "v1");
+        advance(Duration.ofSeconds(75));
+        cache.get(1L, id -> "v2");
+
+        assertEquals(1.0, registry.get("near.cache.requests").tag("result", "hit").functionCounter().count());
+        assertEquals(1.0, registry.get("near.cache.requests").tag("result", "stale").functionCounter().count());
+        assertEquals(1.0, registry.get("near.cache.requests").tag("result", "miss").functionCounter().count());
+        assertEquals(2.0 / 3, registry.get("near.cache.hit.ratio").gauge().value(), 1e-9);
+        assertEquals(15.0, registry.get("near.cache.staleness").timer().max(TimeUnit.SECONDS), 1e-9);
+    }
+}
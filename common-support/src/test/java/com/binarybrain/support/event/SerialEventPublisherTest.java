@@ -0,0 +1,72 @@
+package com.binarybrain.support.event;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SerialEventPublisherTest {
+
+    private final SerialEventPublisher publisher = new SerialEventPublisher("classroom service", 2);
+
+    @AfterEach
+    void tearDown() {
+        publisher.shutdown();
+    }
+
+    @Test
+    void publish_PostsInOrderAndFailuresDontStopLaterEvents() throws InterruptedException {
+        List<String> posted = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(1);
+
+        publisher.publish("first", () -> {
+            posted.add("first");
+            throw new IllegalStateException("down");
+        });
+        publisher.publish("second", () -> posted.add("second"));
+        publisher.publish("third", () -> {
+            posted.add("third");
+            done.countDown();
+        });
+
+        assertTrue(done.await(1, TimeUnit.SECONDS));
+        assertEquals(List.of("first", "second", "third"), posted);
+    }
+
+    @Test
+    void publish_WhenTheQueueIsFull_DropsTheEventWithoutThrowing() throws InterruptedException {
+        CountDownLatch posting = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<String> posted = new CopyOnWriteArrayList<>();
+        publisher.publish("blocking", () -> {
+            posting.countDown();
+            awaitQuietly(release);
+        });
+        assertTrue(posting.await(1, TimeUnit.SECONDS));
+
+        CountDownLatch done = new CountDownLatch(1);
+        publisher.publish("queued 1", () -> posted.add("queued 1"));
+        publisher.publish("queued 2", () -> {
+            posted.add("queued 2");
+            done.countDown();
+        });
+        assertDoesNotThrow(() -> publisher.publish("dropped", () -> posted.add("dropped")));
+        release.countDown();
+
+        assertTrue(done.await(1, TimeUnit.SECONDS));
+        assertEquals(List.of("queued 1", "queued 2"), posted);
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.binarybrain.support.lookup;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Function;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChunkedIdLookupTest {
+
+    private ChunkedIdLookup lookup;
+
+    @BeforeEach
+    void setUp() {
+        lookup = new ChunkedIdLookup(10, 3);
+    }
+
+    @AfterEach
+    void tearDown() {
+        lookup.shutdown();
+    }
+
+    @Test
+    void find_SplitsIdsIntoBoundedChunksOnSeveralThreads() {
+        List<List<Long>> chunks = new CopyOnWriteArrayList<>();
+        Set<String> threads = ConcurrentHashMap.newKeySet();
+        Function<List<Long>, List<Long>> finder = ids -> {
+            chunks.add(List.copyOf(ids));
+            threads.add(Thread.currentThread().getName());
+            return ids.stream().filter(id -> id % 7 != 0).toList();
+        };
+        List<Long> ids = new ArrayList<>(LongStream.rangeClosed(1, 95).boxed().toList());
+        Collections.reverse(ids);
+
+        BatchLookup<Long> result = lookup.find(ids, finder, Function.identity());
+
+        assertEquals(10, chunks.size());
+        assertTrue(chunks.stream().allMatch(chunk -> chunk.size() <= 10));
+        assertFalse(threads.contains(Thread.currentThread().getName()));
+        assertEquals(ids.stream().filter(id -> id % 7 != 0).toList(), result.items());
+        assertEquals(ids.stream().filter(id -> id % 7 == 0).toList(), result.missingIds());
+    }
+
+    @Test
+    void find_WhenIdsFitInOneChunk_RunsOnCaller() {
+        String caller = Thread.currentThread().getName();
+
+        BatchLookup<Long> result = lookup.find(List.of(3L, 1L, 3L, 2L), ids -> {
+            assertEquals(caller, Thread.currentThread().getName());
+            assertEquals(List.of(3L, 1L, 2L), ids);
+            return List.of(1L, 3L);
+        }, Function.identity());
+
+        assertEquals(List.of(3L, 1L, 3L), result.items());
+        assertEquals(List.of(2L), result.missingIds());
+    }
+
+    @Test
+    void find_WhenChunkFails_ThrowsItsException() {
+        List<Long> ids = LongStream.rangeClosed(1, 30).boxed().toList();
+
+        assertThrows(IllegalArgumentException.class, () -> lookup.find(ids, chunk -> {
+            if (chunk.contains(25L)) {
+                throw new IllegalArgumentException("bad chunk");
+            }
+            return chunk;
+        }, Function.identity()));
+    }
+
+    @Test
+    void find_WhenNoIds_DoesNotQuery() {
+        BatchLookup<Long> result = lookup.find(List.of(), ids -> fail("should not query"), Function.identity());
+
+        assertTrue(result.items().isEmpty());
+        assertTrue(result.missingIds().isEmpty());
+    }
+
+    @Test
+    void findAll_KeepsEveryRowOfEveryChunk() {
+        List<Long> ids = LongStream.rangeClosed(1, 25).boxed().toList();
+
+        List<String> rows = lookup.findAll(ids, chunk -> chunk.stream()
+                .flatMap(id -> id % 5 == 0 ? Stream.<String>empty() : Stream.of(id + "a", id + "b"))
+                .toList());
+
+        assertEquals(40, rows.size());
+        assertTrue(rows.containsAll(List.of("1a", "1b", "24a", "24b")));
+        assertFalse(rows.contains("5a"));
+    }
+
+    @Test
+    void findAll_WhenNoIds_DoesNotQuery() {
+        assertTrue(lookup.findAll(List.of(), ids -> fail("should not query")).isEmpty());
+    }
+}
@@ -1,30 +1,44 @@
 package com.binarybrain.course.controller;
 
 import com.binarybrain.course.dto.CourseDto;
+import com.binarybrain.course.dto.CourseSearchHit;
+import com.binarybrain.course.dto.CourseSummary;
 import com.binarybrain.course.dto.TaskDto;
 import com.binarybrain.course.model.Course;
 import com.binarybrain.course.service.CourseService;
 import com.binarybrain.exception.ErrorDetails;
+import com.binarybrain.support.lookup.BatchLookup;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.util.List;
 
 @RestController
 @RequestMapping("/api/v1/private/course")
 public class CourseController {
 
+    private static final String NDJSON = "application/x-ndjson";
+
     private final CourseService courseService;
+    private final ObjectMapper objectMapper;
 
-    public CourseController(CourseService courseService) {
+    public CourseController(CourseService courseService, ObjectMapper objectMapper) {
         this.courseService = courseService;
+        this.objectMapper = objectMapper;
     }
 
     @Operation(
@@ -82,17 +96,35 @@ public class CourseController {
     @GetMapping("/by-ids")
     public ResponseEntity<List<CourseDto>> getCoursesByIds(@RequestParam List<Long> courseIds,
                                                            @Parameter(hidden = true) @RequestHeader("X-User-Username") String username){
-        List<CourseDto> courseDtoList = courseService.getCoursesbyIds(courseIds, username);
+        List<CourseDto> courseDtoList = courseService.getCoursesbyIds(courseIds, username).items();
         return ResponseEntity.ok(courseDtoList);
     }
 
+    @Operation(
+            summary = "Search Courses with a list of courseId in the request body",
+            tags = {"02 - Search Course"},
+            description = "Returns the courses in the order of the requested ids, and the requested ids that no course was found for. Takes the ids in the body, so any number of them can be sent.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Courses retrieved successfully.",
+                            content = @Content(mediaType = "application/json", schema = @Schema(implementation = BatchLookup.class))),
+                    @ApiResponse(responseCode = "401", description = "Unauthorized: Invalid or Expired JWT token.",
+                            content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorDetails.class)))
+            },
+            security = @SecurityRequirement(name = "bearerToken")
+    )
+    @PostMapping("/batch")
+    public ResponseEntity<BatchLookup<CourseDto>> getCoursesInBatch(@RequestBody List<Long> courseIds,
+                                                                    @Parameter(hidden = true) @RequestHeader("X-User-Username") String username){
+        return ResponseEntity.ok(courseService.getCoursesbyIds(courseIds, username));
+    }
+
     @Operation(
             summary = "Search all course  by Author id",
             tags = {"02 - Search Course"},
-            description = "Returns a list of course assigned to a specific teacher, filtered by teacher ID and username in the request header. One Teacher can't search for another teacher course!",
+            description = "Returns a summary of the courses assigned to a specific teacher, filtered by teacher ID and username in the request header, ordered by id one page at a time. Pass the X-Next-Cursor response header as 'after' to get the next page. One Teacher can't search for another teacher course!",
             responses = {
                     @ApiResponse(responseCode = "200", description = "Successfully retrieved course list",
-                            content = @Content(mediaType = "application/json", schema = @Schema(implementation = Course.class))),
+                            content = @Content(mediaType = "application/json", array = @ArraySchema(schema = @Schema(implementation = CourseSummary.class)))),
                     @ApiResponse(responseCode = "401", description = "Unauthorized: Invalid or Expired JWT token.",
                             content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorDetails.class))),
                     @ApiResponse(responseCode = "403", description = "You don't have permission to search course! User with role ADMIN, TEACHER can have permission to search Courses.",
@@ -103,19 +135,20 @@ public class CourseController {
             security = @SecurityRequirement(name = "bearerToken")
     )
     @GetMapping("/author/{authorId}")
-    public ResponseEntity<List<CourseDto>> getAllCoursesByAuthorId(@PathVariable Long authorId,
-                                                                   @Parameter(hidden = true) @RequestHeader("X-User-Username") String username) {
-        List<CourseDto> courseDtoList = courseService.getAllCourseByAuthorId(authorId, username);
-        return ResponseEntity.ok(courseDtoList);
+    public ResponseEntity<List<CourseSummary>> getAllCoursesByAuthorId(@PathVariable Long authorId,
+                                                                       @Parameter(description = "Id of the last course of the previous page") @RequestParam(required = false) Long after,
+                                                                       @Parameter(description = "Page size, capped by the server") @RequestParam(required = false) Integer size,
+                                                                       @Parameter(hidden = true) @RequestHeader("X-User-Username") String username) {
+        return courseService.getAllCourseByAuthorId(authorId, after, size, username).toResponseEntity();
     }
 
     @Operation(
             summary = "Search all course",
             tags = {"02 - Search Course"},
-            description = "Returns list of all courses. Only ADMIN have permission to do this.",
+            description = "Returns a summary of all courses ordered by id, one page at a time. Pass the X-Next-Cursor response header as 'after' to get the next page. Only ADMIN have permission to do this.",
             responses = {
                     @ApiResponse(responseCode = "200", description = "Successfully retrieved all courses.",
-                            content = @Content(mediaType = "application/json", schema = @Schema(implementation = Course.class))),
+                            content = @Content(mediaType = "application/json", array = @ArraySchema(schema = @Schema(implementation = CourseSummary.class)))),
                     @ApiResponse(responseCode = "401", description = "Unauthorized: Invalid or Expired JWT token.",
                             content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorDetails.class))),
                     @ApiResponse(responseCode = "403", description = "Only ADMIN have the permission to search all Courses.",
@@ -124,9 +157,60 @@ public class CourseController {
             security = @SecurityRequirement(name = "bearerToken")
     )
     @GetMapping
-    public ResponseEntity<List<CourseDto>> getAllCourses(@Parameter(hidden = true) @RequestHeader("X-User-Username") String username) {
-        List<CourseDto> courseDtoList = courseService.getAllCourse(username);
-        return ResponseEntity.ok(courseDtoList);
+    public ResponseEntity<List<CourseSummary>> getAllCourses(@Parameter(description = "Id of the last course of the previous page") @RequestParam(required = false) Long after,
+                                                             @Parameter(description = "Page size, capped by the server") @RequestParam(required = false) Integer size,
+                                                             @Parameter(hidden = true) @RequestHeader("X-User-Username") String username) {
+        return courseService.getAllCourse(after, size, username).toResponseEntity();
+    }
+
+    @Operation(
+            summary = "Search the course catalog",
+            tags = {"02 - Search Course"},
+            description = "Returns the courses whose title, code or description contain every word of the query, best match first. A word also matches the words it is the beginning of.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Successfully searched courses.",
+                            content = @Content(mediaType = "application/json", array = @ArraySchema(schema = @Schema(implementation = CourseSearchHit.class)))),
+                    @ApiResponse(responseCode = "401", description = "Unauthorized: Invalid or Expired JWT token.",
+                            content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorDetails.class)))
+            },
+            security = @SecurityRequirement(name = "bearerToken")
+    )
+    @GetMapping("/search")
+    public ResponseEntity<List<CourseSearchHit>> searchCourses(@RequestParam String q,
+                                                               @Parameter(description = "Maximum number of courses, capped by the server") @RequestParam(required = false) Integer size,
+                                                               @Parameter(hidden = true) @RequestHeader("X-User-Username") String username) {
+        return ResponseEntity.ok(courseService.searchCourses(q, size, username));
+    }
+
+    @Operation(
+            summary = "Export all course",
+            tags = {"02 - Search Course"},
+            description = "Streams every course as newline-delimited JSON, one course per line. Only ADMIN have permission to do this.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Successfully exported all courses.",
+                            content = @Content(mediaType = NDJSON, schema = @Schema(implementation = CourseDto.class))),
+                    @ApiResponse(responseCode = "401", description = "Unauthorized: Invalid or Expired JWT token.",
+                            content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorDetails.class))),
+                    @ApiResponse(responseCode = "403", description = "Only ADMIN have the permission to export all Courses.",
+                            content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorDetails.class)))
+            },
+            security = @SecurityRequirement(name = "bearerToken")
+    )
+    @GetMapping("/export")
+    public void exportAllCourses(@Parameter(hidden = true) @RequestHeader("X-User-Username") String username,
+                                 HttpServletResponse response) throws IOException {
+        // checked before the response is touched, so a refusal still gets its status and error body
+        courseService.validateExportPermission(username);
+        response.setContentType(NDJSON);
+        OutputStream out = response.getOutputStream();
+        courseService.exportAllCourse(username, courseDto -> {
+            try {
+                out.write(objectMapper.writeValueAsBytes(courseDto));
+                out.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
     }
 
     @Operation(
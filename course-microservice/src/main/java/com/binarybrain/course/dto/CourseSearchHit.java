@@ -0,0 +1,8 @@
+package com.binarybrain.course.dto;
+
+/**
+ * A course found by the catalog search, with its relevance to the query. Hits are returned best
+ * first; the score only means something relative to the other hits of the same query.
+ */
+public record CourseSearchHit(Long id, String title, String code, CourseStatus status, Long createdBy, double score) {
+}
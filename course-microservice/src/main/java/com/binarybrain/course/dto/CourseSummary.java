@@ -0,0 +1,8 @@
+package com.binarybrain.course.dto;
+
+/**
+ * A course as listed, with the number of its tasks instead of their ids. Read with one query per
+ * page; the task ids are returned by the detail endpoints.
+ */
+public record CourseSummary(Long id, String title, String code, CourseStatus status, Long createdBy, Long taskCount) {
+}
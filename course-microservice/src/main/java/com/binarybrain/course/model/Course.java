@@ -4,12 +4,14 @@ import com.binarybrain.course.dto.CourseStatus;
 import io.swagger.v3.oas.annotations.media.Schema;
 import jakarta.persistence.*;
 import lombok.Data;
+import org.hibernate.annotations.BatchSize;
 
 import java.util.HashSet;
 import java.util.Set;
 
 @Data
 @Entity
+@Table(indexes = @Index(name = "idx_course_created_by", columnList = "created_by, id"))
 public class Course {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -33,6 +35,7 @@ public class Course {
 
     @ElementCollection
     @CollectionTable(name = "course_tasks", joinColumns = @JoinColumn(name = "course_id"))
+    @BatchSize(size = 100)
     @Schema(example = "[\"Long\"]")
     private Set<Long> taskIds = new HashSet<>();
 }
@@ -1,13 +1,49 @@
 package com.binarybrain.course.repo;
 
+import com.binarybrain.course.dto.CourseSummary;
 import com.binarybrain.course.model.Course;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
 
 @Repository
 public interface CourseRepository extends JpaRepository<Course, Long> {
-    List<Course> findByCreatedBy(Long id);
-    List<Course> findByIdIn(List<Long> ids);
+    String SELECT_SUMMARY = "select new com.binarybrain.course.dto.CourseSummary(c.id, c.title, c.code, c.status, c.createdBy, " +
+            "(select count(t) from Course ct join ct.taskIds t where ct.id = c.id)) from Course c ";
+
+    /**
+     * The courses with the given ids, with their task ids fetched in the same statement, so they can
+     * be read outside the transaction and persistence context they were loaded in.
+     */
+    @Query("select distinct c from Course c left join fetch c.taskIds where c.id in :ids")
+    List<Course> findByIdIn(@Param("ids") List<Long> ids);
+
+    /**
+     * Keyset page of the courses as summaries, with the tasks counted in the same statement instead
+     * of initialising the task ids of every course.
+     */
+    @Query(SELECT_SUMMARY + "where c.id > :afterId order by c.id")
+    List<CourseSummary> findSummariesAfter(@Param("afterId") Long afterId, Limit limit);
+
+    /**
+     * Keyset page of an author's courses as summaries, in one statement.
+     */
+    @Query(SELECT_SUMMARY + "where c.createdBy = :createdBy and c.id > :afterId order by c.id")
+    List<CourseSummary> findSummariesByCreatedByAfter(@Param("createdBy") Long createdBy, @Param("afterId") Long afterId, Limit limit);
+
+    /**
+     * Every course in id order, read from the database as the stream is consumed. Has to be
+     * consumed and closed inside a transaction.
+     */
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    Stream<Course> streamAllByOrderByIdAsc();
 }
@@ -0,0 +1,13 @@
+package com.binarybrain.course.service;
+
+import org.springframework.cloud.openfeign.FeignClient;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+
+@FeignClient(name = "CLASSROOM-MICROSERVICE")
+public interface ClassroomService {
+    @PostMapping("/api/v1/internal/classroom/events/course/{courseId}/tasks")
+    void courseTasksChanged(@PathVariable Long courseId,
+                            @RequestHeader("X-User-Username") String username);
+}
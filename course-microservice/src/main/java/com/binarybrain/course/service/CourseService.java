@@ -1,17 +1,25 @@
 package com.binarybrain.course.service;
 
 import com.binarybrain.course.dto.CourseDto;
+import com.binarybrain.course.dto.CourseSearchHit;
+import com.binarybrain.course.dto.CourseSummary;
 import com.binarybrain.course.dto.TaskDto;
+import com.binarybrain.support.lookup.BatchLookup;
+import com.binarybrain.support.lookup.CursorPage;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface CourseService {
 
     CourseDto createCourse(CourseDto courseDto, String username);
     CourseDto getCourseByCourseId(Long id, String username);
-    List<CourseDto> getCoursesbyIds(List<Long> courseIds, String username);
-    List<CourseDto> getAllCourseByAuthorId(Long authorId, String username);
-    List<CourseDto> getAllCourse(String username);
+    BatchLookup<CourseDto> getCoursesbyIds(List<Long> courseIds, String username);
+    CursorPage<CourseSummary> getAllCourseByAuthorId(Long authorId, Long after, Integer size, String username);
+    CursorPage<CourseSummary> getAllCourse(Long after, Integer size, String username);
+    List<CourseSearchHit> searchCourses(String query, Integer size, String username);
+    void validateExportPermission(String username);
+    void exportAllCourse(String username, Consumer<CourseDto> sink);
     CourseDto updateCourse(Long courseId, CourseDto courseDto, String username);
     CourseDto assignTaskInCourse(Long courseId, Long taskId, String username);
     CourseDto removeTaskFromCourse(Long courseId, Long taskId, String username);
@@ -1,11 +1,13 @@
 package com.binarybrain.course.service;
 
 import com.binarybrain.course.dto.TaskDto;
+import com.binarybrain.support.lookup.BatchLookup;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestHeader;
-import org.springframework.web.bind.annotation.RequestParam;
 
 import java.util.List;
 
@@ -15,7 +17,7 @@ public interface TaskService {
     TaskDto getTaskById(@PathVariable Long id,
                         @RequestHeader("X-User-Username") String username);
 
-    @GetMapping("/api/v1/private/task/by-ids")
-    List<TaskDto> getTasksByIds(@RequestParam List<Long> taskIds,
-                                @RequestHeader("X-User-Username") String username);
+    @PostMapping("/api/v1/private/task/batch")
+    BatchLookup<TaskDto> getTasksByIds(@RequestBody List<Long> taskIds,
+                                       @RequestHeader("X-User-Username") String username);
 }
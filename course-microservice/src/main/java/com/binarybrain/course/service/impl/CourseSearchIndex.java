@@ -0,0 +1,448 @@
+package com.binarybrain.course.service.impl;
+
+import com.binarybrain.course.dto.CourseSearchHit;
+import com.binarybrain.course.dto.CourseStatus;
+import com.binarybrain.course.model.Course;
+import com.binarybrain.course.repo.CourseRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.text.Normalizer;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * An in-memory inverted index over the title, code and description of every course, so the catalog
+ * can be searched without a {@code LIKE} scan of the course table.
+ *
+ * <p>Text is folded to lower case without accents and split on anything that is not a letter or a
+ * digit. A query matches the courses that contain every one of its words, where each word also
+ * matches the indexed terms it is a prefix of (at most {@code course-search.max-prefix-terms} of
+ * them, at half weight). Hits are ranked with BM25, counting a word in the title three times and in
+ * the code twice.</p>
+ *
+ * <p>The course service keeps the index current as courses are created, updated and deleted. It is
+ * also rebuilt from the database at startup and every {@code course-search.rebuild-interval}, which
+ * picks up changes made through other instances of the service; changes made while a rebuild runs
+ * are replayed onto the rebuilt index before it replaces the old one.</p>
+ *
+ * <p>Published to Micrometer: {@code course.search.indexed} and the {@code course.search.query}
+ * timer.</p>
+ */
+@Component
+public class CourseSearchIndex implements MeterBinder {
+    private static final Logger log = LoggerFactory.getLogger(CourseSearchIndex.class);
+    private static final Pattern ACCENTS = Pattern.compile("\\p{M}+");
+    private static final float TITLE_WEIGHT = 3;
+    private static final float CODE_WEIGHT = 2;
+    private static final float DESCRIPTION_WEIGHT = 1;
+    private static final double PREFIX_WEIGHT = 0.5;
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    @Value("${course-search.rebuild-interval:15m}")
+    private Duration rebuildInterval = Duration.ofMinutes(15);
+
+    @Value("${course-search.max-prefix-terms:64}")
+    private int maxPrefixTerms = 64;
+
+    private final CourseRepository courseRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final EntityManager entityManager;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private Inverted inverted = new Inverted();
+    private List<Consumer<Inverted>> changesDuringRebuild;
+    private volatile Timer queryTimer;
+    private ScheduledExecutorService rebuildExecutor;
+
+    public CourseSearchIndex(CourseRepository courseRepository, PlatformTransactionManager transactionManager,
+                             EntityManager entityManager) {
+        this.courseRepository = courseRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.entityManager = entityManager;
+    }
+
+    @PostConstruct
+    void start() {
+        rebuildOrWarn();
+        rebuildExecutor = Executors.newSingleThreadScheduledExecutor();
+        rebuildExecutor.scheduleWithFixedDelay(this::rebuildOrWarn,
+                rebuildInterval.toMillis(), rebuildInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        rebuildExecutor.shutdownNow();
+    }
+
+    /**
+     * Adds {@code course} to the index, or replaces what was indexed for it before.
+     */
+    public void index(Course course) {
+        if (course.getId() == null) {
+            return;
+        }
+        Document document = Document.of(course);
+        change(index -> index.put(document));
+    }
+
+    public void remove(Long courseId) {
+        change(index -> index.remove(courseId));
+    }
+
+    /**
+     * Returns at most {@code limit} courses matching every word of {@code query}, best first.
+     */
+    public List<CourseSearchHit> search(String query, int limit) {
+        List<String> words = tokens(query).stream().distinct().toList();
+        if (words.isEmpty() || limit < 1) {
+            return List.of();
+        }
+        long start = System.nanoTime();
+        lock.readLock().lock();
+        try {
+            return inverted.search(words, limit, maxPrefixTerms);
+        } finally {
+            lock.readLock().unlock();
+            Timer timer = queryTimer;
+            if (timer != null) {
+                timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+
+    /**
+     * Reads every course from the database into a new index and swaps it in.
+     */
+    void rebuild() {
+        lock.writeLock().lock();
+        try {
+            changesDuringRebuild = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        Inverted rebuilt = new Inverted();
+        boolean read = false;
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                try (Stream<Course> courses = courseRepository.streamAllByOrderByIdAsc()) {
+                    courses.forEach(course -> {
+                        rebuilt.put(Document.of(course));
+                        entityManager.detach(course);
+                    });
+                }
+            });
+            read = true;
+        } finally {
+            lock.writeLock().lock();
+            try {
+                if (read) {
+                    changesDuringRebuild.forEach(change -> change.accept(rebuilt));
+                    inverted = rebuilt;
+                }
+                changesDuringRebuild = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    private void rebuildOrWarn() {
+        try {
+            rebuild();
+        } catch (RuntimeException e) {
+            log.warn("Failed to rebuild the course search index: {}", e.getMessage());
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return inverted.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void change(Consumer<Inverted> change) {
+        lock.writeLock().lock();
+        try {
+            change.accept(inverted);
+            if (changesDuringRebuild != null) {
+                changesDuringRebuild.add(change);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Splits {@code text} into lower case words of letters and digits, with accents removed.
+     */
+    static List<String> tokens(String text) {
+        if (text == null) {
+            return List.of();
+        }
+        String folded = text.chars().allMatch(c -> c < 128) ? text
+                : ACCENTS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+        folded = folded.toLowerCase(Locale.ROOT);
+
+        List<String> tokens = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i < folded.length(); ) {
+            int codePoint = folded.codePointAt(i);
+            if (Character.isLetterOrDigit(codePoint)) {
+                if (start < 0) {
+                    start = i;
+                }
+            } else if (start >= 0) {
+                tokens.add(folded.substring(start, i));
+                start = -1;
+            }
+            i += Character.charCount(codePoint);
+        }
+        if (start >= 0) {
+            tokens.add(folded.substring(start));
+        }
+        return tokens;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("course.search.indexed", this, CourseSearchIndex::size).register(registry);
+        queryTimer = Timer.builder("course.search.query").register(registry);
+    }
+
+    /**
+     * What is indexed for one course: the fields a hit is built from and the weighted frequency of
+     * each of its terms.
+     */
+    private record Document(long id, String title, String code, CourseStatus status, Long createdBy,
+                            String[] terms, float[] frequencies, float length) {
+
+        static Document of(Course course) {
+            Map<String, Float> frequencies = new HashMap<>();
+            addTerms(frequencies, tokens(course.getTitle()), TITLE_WEIGHT);
+            List<String> codeTokens = tokens(course.getCode());
+            addTerms(frequencies, codeTokens, CODE_WEIGHT);
+            if (codeTokens.size() > 1) {
+                // "CS-101" is also found as "cs101"
+                addTerms(frequencies, List.of(String.join("", codeTokens)), CODE_WEIGHT);
+            }
+            addTerms(frequencies, tokens(course.getDescription()), DESCRIPTION_WEIGHT);
+
+            String[] terms = new String[frequencies.size()];
+            float[] termFrequencies = new float[frequencies.size()];
+            float length = 0;
+            int i = 0;
+            for (Map.Entry<String, Float> entry : frequencies.entrySet()) {
+                terms[i] = entry.getKey();
+                termFrequencies[i++] = entry.getValue();
+                length += entry.getValue();
+            }
+            return new Document(course.getId(), course.getTitle(), course.getCode(), course.getStatus(),
+                    course.getCreatedBy(), terms, termFrequencies, length);
+        }
+
+        private static void addTerms(Map<String, Float> frequencies, List<String> tokens, float weight) {
+            tokens.forEach(token -> frequencies.merge(token, weight, Float::sum));
+        }
+    }
+
+    /**
+     * The courses holding one term, by slot, with the term's frequency in each and each course's
+     * length, in parallel arrays so a term costs a few bytes per course instead of a boxed entry.
+     */
+    private static final class Postings {
+        private final String term;
+        private int[] slots = new int[2];
+        private float[] frequencies = new float[2];
+        private float[] lengths = new float[2];
+        private int size;
+
+        Postings(String term) {
+            this.term = term;
+        }
+
+        void add(int slot, float frequency, float length) {
+            if (size == slots.length) {
+                int capacity = size * 2;
+                slots = Arrays.copyOf(slots, capacity);
+                frequencies = Arrays.copyOf(frequencies, capacity);
+                lengths = Arrays.copyOf(lengths, capacity);
+            }
+            slots[size] = slot;
+            frequencies[size] = frequency;
+            lengths[size++] = length;
+        }
+
+        void remove(int slot) {
+            for (int i = 0; i < size; i++) {
+                if (slots[i] == slot) {
+                    size--;
+                    slots[i] = slots[size];
+                    frequencies[i] = frequencies[size];
+                    lengths[i] = lengths[size];
+                    return;
+                }
+            }
+        }
+    }
+
+    private record Ranked(int slot, long id, double score) {
+        static final Comparator<Ranked> BEST_FIRST =
+                Comparator.comparingDouble(Ranked::score).reversed().thenComparingLong(Ranked::id);
+    }
+
+    /**
+     * Each indexed course lives in a slot, a small int reused once the course is removed, so a
+     * query can score into plain arrays indexed by slot.
+     */
+    private static final class Inverted {
+        private final NavigableMap<String, Postings> postings = new TreeMap<>();
+        private final Map<Long, Integer> slotsById = new HashMap<>();
+        private final Deque<Integer> freeSlots = new ArrayDeque<>();
+        private Document[] documents = new Document[16];
+        private int slotCount;
+        private double totalLength;
+
+        int size() {
+            return slotsById.size();
+        }
+
+        void put(Document document) {
+            remove(document.id());
+            int slot = freeSlots.isEmpty() ? slotCount++ : freeSlots.pop();
+            if (slot == documents.length) {
+                documents = Arrays.copyOf(documents, slot * 2);
+            }
+            documents[slot] = document;
+            slotsById.put(document.id(), slot);
+            totalLength += document.length();
+            String[] terms = document.terms();
+            for (int i = 0; i < terms.length; i++) {
+                Postings termPostings = postings.computeIfAbsent(terms[i], Postings::new);
+                termPostings.add(slot, document.frequencies()[i], document.length());
+                // keep one copy of each term however many courses hold it
+                terms[i] = termPostings.term;
+            }
+        }
+
+        void remove(long id) {
+            Integer slot = slotsById.remove(id);
+            if (slot == null) {
+                return;
+            }
+            Document document = documents[slot];
+            documents[slot] = null;
+            freeSlots.push(slot);
+            totalLength -= document.length();
+            for (String term : document.terms()) {
+                Postings termPostings = postings.get(term);
+                termPostings.remove(slot);
+                if (termPostings.size == 0) {
+                    postings.remove(term);
+                }
+            }
+        }
+
+        List<CourseSearchHit> search(List<String> words, int limit, int maxPrefixTerms) {
+            int courses = size();
+            if (courses == 0) {
+                return List.of();
+            }
+            double averageLength = totalLength / courses;
+            double[] totals = new double[slotCount];
+            double[] wordScores = new double[slotCount];
+            // how many of the words so far each slot matched; only slots that matched all go on
+            int[] matchedWords = new int[slotCount];
+            int[] matched = new int[0];
+            int matchedCount = 0;
+
+            for (int w = 0; w < words.size(); w++) {
+                String word = words.get(w);
+                int[] touched = new int[16];
+                int touchedCount = 0;
+                int expansions = 0;
+                for (Map.Entry<String, Postings> entry : postings.tailMap(word, true).entrySet()) {
+                    String term = entry.getKey();
+                    if (!term.startsWith(word) || expansions++ == maxPrefixTerms) {
+                        break;
+                    }
+                    Postings termPostings = entry.getValue();
+                    double weight = term.length() == word.length() ? 1 : PREFIX_WEIGHT;
+                    double idf = Math.log(1 + (courses - termPostings.size + 0.5) / (termPostings.size + 0.5));
+                    for (int i = 0; i < termPostings.size; i++) {
+                        int slot = termPostings.slots[i];
+                        if (matchedWords[slot] < w) {
+                            continue;
+                        }
+                        double frequency = termPostings.frequencies[i];
+                        double norm = K1 * (1 - B + B * termPostings.lengths[i] / averageLength);
+                        double score = weight * idf * frequency * (K1 + 1) / (frequency + norm);
+                        if (matchedWords[slot] == w) {
+                            matchedWords[slot] = w + 1;
+                            wordScores[slot] = score;
+                            if (touchedCount == touched.length) {
+                                touched = Arrays.copyOf(touched, touchedCount * 2);
+                            }
+                            touched[touchedCount++] = slot;
+                        } else if (score > wordScores[slot]) {
+                            wordScores[slot] = score;
+                        }
+                    }
+                }
+                if (touchedCount == 0) {
+                    return List.of();
+                }
+                for (int i = 0; i < touchedCount; i++) {
+                    totals[touched[i]] += wordScores[touched[i]];
+                }
+                matched = touched;
+                matchedCount = touchedCount;
+            }
+
+            PriorityQueue<Ranked> best = new PriorityQueue<>(limit + 1, Ranked.BEST_FIRST.reversed());
+            for (int i = 0; i < matchedCount; i++) {
+                int slot = matched[i];
+                Ranked ranked = new Ranked(slot, documents[slot].id(), totals[slot]);
+                if (best.size() == limit && Ranked.BEST_FIRST.compare(ranked, best.peek()) > 0) {
+                    continue;
+                }
+                best.offer(ranked);
+                if (best.size() > limit) {
+                    best.poll();
+                }
+            }
+            return best.stream()
+                    .sorted(Ranked.BEST_FIRST)
+                    .map(ranked -> {
+                        Document document = documents[ranked.slot()];
+                        return new CourseSearchHit(document.id(), document.title(), document.code(),
+                                document.status(), document.createdBy(), ranked.score());
+                    })
+                    .toList();
+        }
+    }
+}
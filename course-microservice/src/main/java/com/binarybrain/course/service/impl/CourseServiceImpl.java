@@ -7,24 +7,47 @@ import com.binarybrain.course.repo.CourseRepository;
 import com.binarybrain.course.service.*;
 import com.binarybrain.exception.*;
 import com.binarybrain.exception.global.GlobalExceptionHandler;
+import com.binarybrain.support.lookup.BatchLookup;
+import com.binarybrain.support.lookup.ChunkedIdLookup;
+import com.binarybrain.support.lookup.CursorPage;
+import jakarta.persistence.EntityManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
 public class CourseServiceImpl implements CourseService {
     private static final String ADMIN = "ADMIN";
     private static final String TEACHER = "TEACHER";
+    private static final int DEFAULT_SEARCH_SIZE = 20;
+    @Value("${pagination.max-page-size:1000}")
+    private int maxPageSize = 1000;
+
     private final CourseRepository courseRepository;
     private final UserService userService;
     private final TaskService taskService;
-
-    public CourseServiceImpl(CourseRepository courseRepository, UserService userService, TaskService taskService) {
+    private final ChunkedIdLookup chunkedIdLookup;
+    private final CourseSearchIndex courseSearchIndex;
+    private final TimelineEventPublisher timelineEventPublisher;
+    private final EntityManager entityManager;
+
+    public CourseServiceImpl(CourseRepository courseRepository, UserService userService, TaskService taskService,
+                             ChunkedIdLookup chunkedIdLookup, CourseSearchIndex courseSearchIndex,
+                             TimelineEventPublisher timelineEventPublisher, EntityManager entityManager) {
         this.courseRepository = courseRepository;
         this.userService = userService;
         this.taskService = taskService;
+        this.chunkedIdLookup = chunkedIdLookup;
+        this.courseSearchIndex = courseSearchIndex;
+        this.timelineEventPublisher = timelineEventPublisher;
+        this.entityManager = entityManager;
     }
 
     private boolean validateRole(UserDto userDto, List<String> targetRoles) {
@@ -47,6 +70,7 @@ public class CourseServiceImpl implements CourseService {
         course.setCreatedBy(teacherId);
         course.setStatus(CourseStatus.OPEN);
         courseRepository.save(course);
+        courseSearchIndex.index(course);
         return CourseMapper.mapToDto(course);
     }
 
@@ -57,39 +81,66 @@ public class CourseServiceImpl implements CourseService {
     }
 
     @Override
-    public List<CourseDto> getCoursesbyIds(List<Long> courseIds, String username) {
-        List<Course> courseList = courseRepository.findByIdIn(courseIds);
-        return courseList.stream()
-                .map(CourseMapper::mapToDto)
-                .toList();
+    public BatchLookup<CourseDto> getCoursesbyIds(List<Long> courseIds, String username) {
+        return chunkedIdLookup.find(courseIds, courseRepository::findByIdIn, Course::getId)
+                .map(CourseMapper::mapToDto);
     }
 
+    /**
+     * Returns the author's courses with an id above {@code after}, in id order, at most
+     * {@code size} and never more than {@code pagination.max-page-size}.
+     */
     @Override
-    public List<CourseDto> getAllCourseByAuthorId(Long authorId, String username) {
+    public CursorPage<CourseSummary> getAllCourseByAuthorId(Long authorId, Long after, Integer size, String username) {
         UserDto userDto = userService.getUserProfile(username);
         boolean isAdmin = validateRole(userDto, List.of(ADMIN));
         GlobalExceptionHandler.Thrower.throwIf(
                 (!isAdmin && !userDto.getId().equals(authorId)),
                 new UserHasNotPermissionException("Only ADMIN & TEACHER can get corresponding courses list!"));
 
-        List<Course> courseList = courseRepository.findByCreatedBy(authorId);
-        return courseList.stream()
-                .map(CourseMapper::mapToDto)
-                .toList();
+        int pageSize = pageSize(size);
+        List<CourseSummary> courseList = courseRepository.findSummariesByCreatedByAfter(authorId, afterId(after), Limit.of(pageSize + 1));
+        return CursorPage.of(courseList, pageSize, CourseSummary::id, course -> course);
     }
 
+    /**
+     * Returns the courses with an id above {@code after}, in id order, at most {@code size} and
+     * never more than {@code pagination.max-page-size}.
+     */
     @Override
-    public List<CourseDto> getAllCourse(String username) {
-        UserDto userDto = userService.getUserProfile(username);
-        boolean isAdmin = validateRole(userDto, List.of(ADMIN));
-        GlobalExceptionHandler.Thrower.throwIf(
-                !isAdmin,
-                new UserHasNotPermissionException("Only ADMIN can get all course list!"));
+    public CursorPage<CourseSummary> getAllCourse(Long after, Integer size, String username) {
+        validateAdmin(username, "Only ADMIN can get all course list!");
 
-        List<Course> courseList = courseRepository.findAll();
-        return courseList.stream()
-                .map(CourseMapper::mapToDto)
-                .toList();
+        int pageSize = pageSize(size);
+        List<CourseSummary> courseList = courseRepository.findSummariesAfter(afterId(after), Limit.of(pageSize + 1));
+        return CursorPage.of(courseList, pageSize, CourseSummary::id, course -> course);
+    }
+
+    /**
+     * Returns at most {@code size} courses whose title, code or description match every word of
+     * {@code query}, best match first, from the in-memory {@link CourseSearchIndex}.
+     */
+    @Override
+    public List<CourseSearchHit> searchCourses(String query, Integer size, String username) {
+        int limit = size == null ? DEFAULT_SEARCH_SIZE : pageSize(size);
+        return courseSearchIndex.search(query, limit);
+    }
+
+    /**
+     * Hands every course to {@code sink} in id order as it is read from the database. Each course
+     * is detached once handed over, so memory use doesn't grow with the number of courses.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public void exportAllCourse(String username, Consumer<CourseDto> sink) {
+        validateExportPermission(username);
+
+        try (Stream<Course> courses = courseRepository.streamAllByOrderByIdAsc()) {
+            courses.forEach(course -> {
+                sink.accept(CourseMapper.mapToDto(course));
+                entityManager.detach(course);
+            });
+        }
     }
 
     @Override
@@ -103,6 +154,7 @@ public class CourseServiceImpl implements CourseService {
         Optional.ofNullable(updatedCourseDto.getStatus()).ifPresent(existingCourse::setStatus);
 
         courseRepository.save(existingCourse);
+        courseSearchIndex.index(existingCourse);
         return CourseMapper.mapToDto(existingCourse);
     }
 
@@ -123,6 +175,7 @@ public class CourseServiceImpl implements CourseService {
         course.getTaskIds().add(taskId);
 
         courseRepository.save(course);
+        timelineEventPublisher.courseTasksChanged(courseId, username);
         return CourseMapper.mapToDto(course);
     }
 
@@ -136,6 +189,7 @@ public class CourseServiceImpl implements CourseService {
                 new ResourceNotFoundException("Task not found in the course!"));
 
         courseRepository.save(course);
+        timelineEventPublisher.courseTasksChanged(courseId, username);
         return CourseMapper.mapToDto(course);
     }
 
@@ -143,8 +197,8 @@ public class CourseServiceImpl implements CourseService {
     public List<TaskDto> getAllTaskFromCourse(Long courseId, String username) {
         Course course = getCourseById(courseId);
 
-        List<Long> courseIds = new ArrayList<>(course.getTaskIds());
-        return taskService.getTasksByIds(courseIds, username);
+        List<Long> taskIds = new ArrayList<>(course.getTaskIds());
+        return taskService.getTasksByIds(taskIds, username).items();
     }
 
     @Override
@@ -153,6 +207,8 @@ public class CourseServiceImpl implements CourseService {
         validateCourseModificationPermission(existingCourse, username);
 
         courseRepository.deleteById(courseId);
+        courseSearchIndex.remove(courseId);
+        timelineEventPublisher.courseTasksChanged(courseId, username);
     }
 
     private void validateCourseModificationPermission(Course course, String username) {
@@ -162,6 +218,26 @@ public class CourseServiceImpl implements CourseService {
         GlobalExceptionHandler.Thrower.throwIf((!isAdmin && !course.getCreatedBy().equals(userDto.getId())),new UserHasNotPermissionException("You do not have permission to modify this course."));
     }
 
+    @Override
+    public void validateExportPermission(String username) {
+        validateAdmin(username, "Only ADMIN can export all courses!");
+    }
+
+    private void validateAdmin(String username, String message) {
+        UserDto userDto = userService.getUserProfile(username);
+        GlobalExceptionHandler.Thrower.throwIf(
+                !validateRole(userDto, List.of(ADMIN)),
+                new UserHasNotPermissionException(message));
+    }
+
+    private int pageSize(Integer size) {
+        return size == null ? maxPageSize : Math.clamp(size, 1, maxPageSize);
+    }
+
+    private static long afterId(Long after) {
+        return after == null ? 0L : after;
+    }
+
     private Course getCourseById(Long id){
         return courseRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Course not found with id: " + id));
@@ -0,0 +1,46 @@
+package com.binarybrain.course.service.impl;
+
+import com.binarybrain.course.service.ClassroomService;
+import com.binarybrain.support.event.SerialEventPublisher;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Tells the classroom service when tasks are added to or removed from a course, or the course is
+ * deleted, so it can rebuild the deadline timelines of the students of the classrooms the course
+ * is assigned to. Events are posted one at a time in the order they were published, off the
+ * request thread; one that can't be posted is logged and dropped rather than failing the change
+ * to the course.
+ */
+@Component
+public class TimelineEventPublisher {
+    @Value("${timeline-events.queue-capacity:10000}")
+    private int queueCapacity = 10000;
+
+    private final ClassroomService classroomService;
+    private SerialEventPublisher events;
+
+    public TimelineEventPublisher(ClassroomService classroomService) {
+        this.classroomService = classroomService;
+    }
+
+    @PostConstruct
+    void start() {
+        events = new SerialEventPublisher("classroom service", queueCapacity);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        events.shutdown();
+    }
+
+    /**
+     * @param username the user who changed the course, on whose behalf the classroom service
+     *        reads its tasks back.
+     */
+    public void courseTasksChanged(Long courseId, String username) {
+        events.publish("change of the tasks of course " + courseId, () -> classroomService.courseTasksChanged(courseId, username));
+    }
+}
@@ -0,0 +1,104 @@
+package com.binarybrain.course.service.impl;
+
+import com.binarybrain.course.dto.RoleDto;
+import com.binarybrain.course.dto.UserDto;
+import com.binarybrain.course.service.UserService;
+import com.binarybrain.exception.ResourceNotFoundException;
+import com.binarybrain.support.cache.NearCache;
+import com.binarybrain.support.cache.NearCacheFactory;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Resolves the calling user from the {@code X-User-Id} and {@code X-User-Roles} headers that the
+ * gateway sets from the verified JWT, so permission checks don't need a USER-MICROSERVICE round trip.
+ *
+ * <p>It falls back to the Feign {@link UserService} client when the headers are missing, for example
+ * for tokens issued before the claims were added, or when they belong to another user. Lookups of
+ * other users go through the compact batch profile endpoint instead of the full user entity.
+ * Profiles fetched from the user service are kept in {@link NearCache}s, so a brownout of the user
+ * service is served from stale entries for the configured grace window.</p>
+ */
+@Primary
+@Service
+public class UserProfileResolver implements UserService {
+    static final String USERNAME_HEADER = "X-User-Username";
+    static final String USER_ID_HEADER = "X-User-Id";
+    static final String USER_ROLES_HEADER = "X-User-Roles";
+
+    private final UserService userServiceClient;
+    private final NearCache<String, UserDto> byUsername;
+    private final NearCache<Long, UserDto> byId;
+
+    public UserProfileResolver(@Qualifier("userServiceClient") UserService userServiceClient,
+                               NearCacheFactory userProfileCaches) {
+        this.userServiceClient = userServiceClient;
+        this.byUsername = userProfileCaches.create("user.profile.username");
+        this.byId = userProfileCaches.create("user.profile.id");
+    }
+
+    @Override
+    public UserDto getUserProfile(String username) {
+        return fromTrustedHeaders(username)
+                .orElseGet(() -> byUsername.get(username, userServiceClient::getUserProfile));
+    }
+
+    @Override
+    public UserDto getUserProfileById(Long id, String username) {
+        return byId.get(id, key -> userServiceClient.getUserProfilesByIds(List.of(key), username).stream()
+                .findFirst()
+                .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + key)));
+    }
+
+    @Override
+    public List<UserDto> getUserProfilesByIds(Collection<Long> ids, String username) {
+        return List.copyOf(byId.getAll(ids, missing -> userServiceClient.getUserProfilesByIds(missing, username).stream()
+                .collect(Collectors.toMap(UserDto::getId, Function.identity(), (first, second) -> first))).values());
+    }
+
+    private Optional<UserDto> fromTrustedHeaders(String username) {
+        if (!(RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes)) {
+            return Optional.empty();
+        }
+        HttpServletRequest request = attributes.getRequest();
+        String userId = request.getHeader(USER_ID_HEADER);
+        String roles = request.getHeader(USER_ROLES_HEADER);
+        if (userId == null || roles == null || !username.equals(request.getHeader(USERNAME_HEADER))) {
+            return Optional.empty();
+        }
+
+        try {
+            UserDto userDto = new UserDto();
+            userDto.setId(Long.valueOf(userId));
+            userDto.setUsername(username);
+            userDto.setRoles(toRoles(roles));
+            return Optional.of(userDto);
+        } catch (NumberFormatException e) {
+            return Optional.empty();
+        }
+    }
+
+    private Set<RoleDto> toRoles(String roles) {
+        return Arrays.stream(roles.split(","))
+                .map(String::trim)
+                .filter(name -> !name.isEmpty())
+                .map(name -> {
+                    RoleDto roleDto = new RoleDto();
+                    roleDto.setName(name);
+                    return roleDto;
+                })
+                .collect(Collectors.toSet());
+    }
+}
@@ -3,8 +3,12 @@ package com.binarybrain.course.controller;
 import com.binarybrain.course.dto.*;
 import com.binarybrain.course.model.Course;
 import com.binarybrain.course.repo.CourseRepository;
+import com.binarybrain.course.service.ClassroomService;
 import com.binarybrain.course.service.TaskService;
 import com.binarybrain.course.service.UserService;
+import com.binarybrain.course.service.impl.CourseSearchIndex;
+import com.binarybrain.support.lookup.BatchLookup;
+import com.binarybrain.support.lookup.CursorPage;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
@@ -21,10 +25,16 @@ import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
+import static org.hamcrest.Matchers.matchesPattern;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 
 import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
@@ -49,6 +59,12 @@ class CourseControllerTest {
     @MockitoBean
     TaskService taskService;
 
+    @MockitoBean
+    ClassroomService classroomService;
+
+    @Autowired
+    private CourseSearchIndex courseSearchIndex;
+
 
     private final List<Long> createdCourseIds = new LinkedList<>();
     private final ObjectMapper objectMapper = new ObjectMapper();  // Jackson ObjectMapper
@@ -119,12 +135,8 @@ class CourseControllerTest {
 
     @Test
     void getCoursesByIds() throws Exception {
-        createCourse();
-        String courseId1 = String.valueOf(createdCourseIds.getFirst());
-        createCourse();
-        String courseId2 = String.valueOf(createdCourseIds.get(1));
         mockMvc.perform(
-                get("/api/v1/private/course/by-ids?courseIds=%s,%s".formatted(courseId1, courseId2))
+                get("/api/v1/private/course/by-ids?courseIds=1,2")
                         .contentType(MediaType.APPLICATION_JSON)
                         .header("X-User-Username", "moinul")
         ).andExpect(status().isOk())
@@ -133,6 +145,33 @@ class CourseControllerTest {
                 .andExpect(jsonPath("$.length()").value(2));
     }
 
+    @Test
+    void getCoursesInBatch() throws Exception {
+        mockMvc.perform(
+                post("/api/v1/private/course/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[2,7,1]")
+                        .header("X-User-Username", "moinul")
+        ).andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(2))
+                .andExpect(jsonPath("$.items[0].id").value(2))
+                .andExpect(jsonPath("$.items[1].id").value(1))
+                .andExpect(jsonPath("$.missingIds[0]").value(7));
+    }
+
+    @Test
+    void searchCourses() throws Exception {
+        courseSearchIndex.index(getCourse(false));
+        mockMvc.perform(
+                        get("/api/v1/private/course/search")
+                                .param("q", "java prog")
+                                .header("X-User-Username", "moinul")
+                )
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(1))
+                .andExpect(jsonPath("$[0].code").value("JP-101"));
+    }
+
     @Test
     void getAllCoursesByAuthorId() throws Exception {
         createCourse();
@@ -158,6 +197,48 @@ class CourseControllerTest {
                 .andExpect(jsonPath("$").isNotEmpty());
     }
 
+    @Test
+    void getAllCourses_WithPageSize_ShouldReturnNextCursor() throws Exception {
+        Course second = getCourse(false);
+        second.setId(2L);
+        when(courseRepository.findSummariesAfter(eq(0L), any())).thenReturn(List.of(summary(getCourse(true)), summary(second)));
+        mockMvc.perform(
+                        get("/api/v1/private/course")
+                                .param("size", "1")
+                                .header("X-User-Username", "moinul")
+                ).andExpect(status().isOk())
+                .andExpect(header().string(CursorPage.NEXT_CURSOR_HEADER, "1"))
+                .andExpect(jsonPath("$.length()").value(1));
+    }
+
+    @Test
+    void exportAllCourses() throws Exception {
+        mockMvc.perform(
+                        get("/api/v1/private/course/export")
+                                .header("X-User-Username", "moinul")
+                ).andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andExpect(content().string(matchesPattern("(\\{\"id\":1,[^\\n]*}\\n){2}")));
+    }
+
+    @Test
+    void exportAllCourses_ForbiddenBeforeTheResponseIsStarted() throws Exception {
+        UserDto student = new UserDto();
+        student.setId(2L);
+        student.setUsername("student");
+        RoleDto roleDto = new RoleDto();
+        roleDto.setName("STUDENT");
+        student.setRoles(new HashSet<>(List.of(roleDto)));
+        when(userService.getUserProfile("student")).thenReturn(student);
+
+        mockMvc.perform(
+                        get("/api/v1/private/course/export")
+                                .header("X-User-Username", "student")
+                ).andExpect(status().isForbidden())
+                .andExpect(result -> assertNull(result.getResponse().getContentType()));
+        verify(courseRepository, never()).streamAllByOrderByIdAsc();
+    }
+
     @Test
     void assignTaskInCourse() throws Exception {
         when(taskService.getTaskById(1L, "moinul")).thenReturn(getTask());
@@ -268,9 +349,15 @@ class CourseControllerTest {
         when(courseRepository.save(any(Course.class))).thenReturn(getCourse(true));
         when(courseRepository.findById(1L)).thenReturn(Optional.of(getCourse(true)));
         when(courseRepository.findByIdIn(any())).thenReturn(List.of(courseDto1,courseDto2));
-        when(courseRepository.findByCreatedBy(1L)).thenReturn(List.of(getCourse(true)));
-        when(courseRepository.findAll()).thenReturn(List.of(getCourse(true)));
-        when(taskService.getTasksByIds(List.of(1L),"moinul")).thenReturn(List.of(getTask()));
+        when(courseRepository.findSummariesByCreatedByAfter(eq(1L), eq(0L), any())).thenReturn(List.of(summary(getCourse(true))));
+        when(courseRepository.findSummariesAfter(eq(0L), any())).thenReturn(List.of(summary(getCourse(true))));
+        when(courseRepository.streamAllByOrderByIdAsc()).thenAnswer(invocation -> Stream.of(getCourse(true), getCourse(false)));
+        when(taskService.getTasksByIds(List.of(1L),"moinul")).thenReturn(new BatchLookup<>(List.of(getTask()), List.of()));
         doNothing().when(courseRepository).deleteById(1L);
     }
-}
\ No newline at end of file
+
+    private CourseSummary summary(Course course) {
+        return new CourseSummary(course.getId(), course.getTitle(), course.getCode(), course.getStatus(), course.getCreatedBy(),
+                (long) course.getTaskIds().size());
+    }
+}
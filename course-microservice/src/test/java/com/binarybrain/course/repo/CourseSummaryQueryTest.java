@@ -0,0 +1,128 @@
+package com.binarybrain.course.repo;
+
+import com.binarybrain.course.dto.CourseDto;
+import com.binarybrain.course.dto.CourseStatus;
+import com.binarybrain.course.dto.CourseSummary;
+import com.binarybrain.course.mapper.CourseMapper;
+import com.binarybrain.course.model.Course;
+import com.binarybrain.support.lookup.BatchLookup;
+import com.binarybrain.support.lookup.ChunkedIdLookup;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Counts the SQL statements the course list queries issue against an in-memory H2 database, to
+ * check that a page of summaries costs one statement however many courses and tasks it has, and
+ * that full courses load their task ids in the statement that loads them.
+ */
+@DataJpaTest
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class CourseSummaryQueryTest {
+    private static final int COURSES = 40;
+    private static final long AUTHOR_ID = 1L;
+
+    @Configuration
+    @EntityScan(basePackageClasses = Course.class)
+    @EnableJpaRepositories(basePackageClasses = CourseRepository.class)
+    static class JpaConfig {
+    }
+
+    @Autowired
+    private CourseRepository courseRepository;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Statistics statistics;
+    private final List<Long> courseIds = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        for (int i = 0; i < COURSES; i++) {
+            Course course = new Course();
+            course.setTitle("Course " + i);
+            course.setCode("C-" + i);
+            course.setStatus(CourseStatus.OPEN);
+            course.setCreatedBy(i % 2 == 0 ? AUTHOR_ID : 2L);
+            for (long task = 0; task < i % 4; task++) {
+                course.getTaskIds().add(100 + task);
+            }
+            courseIds.add(courseRepository.save(course).getId());
+        }
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        courseRepository.deleteAll();
+    }
+
+    @Test
+    void summariesIssueOneStatement() {
+        List<CourseSummary> page = courseRepository.findSummariesAfter(0L, Limit.of(COURSES));
+
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(courseIds, page.stream().map(CourseSummary::id).toList());
+        assertEquals(3L, page.get(3).taskCount());
+        assertEquals(0L, page.get(4).taskCount());
+    }
+
+    @Test
+    void summariesByAuthorIssueOneStatement() {
+        List<CourseSummary> page = courseRepository.findSummariesByCreatedByAfter(AUTHOR_ID, 0L, Limit.of(COURSES));
+
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(COURSES / 2, page.size());
+        assertTrue(page.stream().allMatch(course -> course.createdBy() == AUTHOR_ID));
+        assertEquals(2L, page.get(1).taskCount());
+    }
+
+    @Test
+    void fullCoursesLoadTaskIdsInOneStatement() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                courseRepository.findByIdIn(courseIds).forEach(course -> course.getTaskIds().size()));
+
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void fullCoursesLookedUpInSeveralChunksCanBeMappedOutsideTheirTransaction() {
+        ChunkedIdLookup lookup = new ChunkedIdLookup(7, 3);
+        try {
+            BatchLookup<CourseDto> result = lookup.find(courseIds, courseRepository::findByIdIn, Course::getId)
+                    .map(CourseMapper::mapToDto);
+
+            assertEquals(courseIds, result.items().stream().map(CourseDto::getId).toList());
+            assertEquals(3, result.items().get(3).getTaskIds().size());
+            assertTrue(result.items().get(4).getTaskIds().isEmpty());
+            assertEquals(COURSES / 7 + 1, statistics.getPrepareStatementCount());
+        } finally {
+            lookup.shutdown();
+        }
+    }
+}
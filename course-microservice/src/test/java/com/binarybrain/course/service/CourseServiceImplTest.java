@@ -3,19 +3,28 @@ package com.binarybrain.course.service;
 import com.binarybrain.course.dto.*;
 import com.binarybrain.course.model.Course;
 import com.binarybrain.course.repo.CourseRepository;
+import com.binarybrain.course.service.impl.CourseSearchIndex;
 import com.binarybrain.course.service.impl.CourseServiceImpl;
+import com.binarybrain.course.service.impl.TimelineEventPublisher;
 import com.binarybrain.exception.AlreadyExistsException;
 import com.binarybrain.exception.ResourceNotFoundException;
 import com.binarybrain.exception.UserHasNotPermissionException;
+import com.binarybrain.support.lookup.BatchLookup;
+import com.binarybrain.support.lookup.ChunkedIdLookup;
+import com.binarybrain.support.lookup.CursorPage;
+import jakarta.persistence.EntityManager;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
 import org.springframework.test.context.ActiveProfiles;
 
 import java.util.*;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -34,6 +43,18 @@ class CourseServiceImplTest {
     @Mock
     private TaskService taskService;
 
+    @Spy
+    private ChunkedIdLookup chunkedIdLookup = new ChunkedIdLookup();
+
+    @Mock
+    private CourseSearchIndex courseSearchIndex;
+
+    @Mock
+    private TimelineEventPublisher timelineEventPublisher;
+
+    @Mock
+    private EntityManager entityManager;
+
     @InjectMocks
     private CourseServiceImpl courseService;
 
@@ -83,6 +104,10 @@ class CourseServiceImplTest {
         return userDto;
     }
 
+    private CourseSummary summary(Long id) {
+        return new CourseSummary(id, "Course " + id, "C-" + id, CourseStatus.OPEN, 1L, 0L);
+    }
+
     @Test
     void createCourse_WhenUserIsTeacher_ShouldCreateCourse() {
         when(userService.getUserProfile("teacher")).thenReturn(teacher);
@@ -93,6 +118,7 @@ class CourseServiceImplTest {
         assertNotNull(result);
         assertEquals("Test Course", result.getTitle());
         verify(courseRepository).save(any(Course.class));
+        verify(courseSearchIndex).index(any(Course.class));
     }
 
     @Test
@@ -136,21 +162,33 @@ class CourseServiceImplTest {
     void getCoursesByIds_ShouldReturnCourses() {
         when(courseRepository.findByIdIn(List.of(1L))).thenReturn(List.of(course));
 
-        List<CourseDto> result = courseService.getCoursesbyIds(List.of(1L), "teacher");
+        List<CourseDto> result = courseService.getCoursesbyIds(List.of(1L), "teacher").items();
 
         assertFalse(result.isEmpty());
         assertEquals(1, result.size());
     }
 
+    @Test
+    void getCoursesByIds_ShouldKeepRequestedOrderAndReportMissingIds() {
+        Course second = new Course();
+        second.setId(2L);
+        when(courseRepository.findByIdIn(List.of(2L, 5L, 1L))).thenReturn(List.of(course, second));
+
+        BatchLookup<CourseDto> result = courseService.getCoursesbyIds(List.of(2L, 5L, 1L), "teacher");
+
+        assertEquals(List.of(2L, 1L), result.items().stream().map(CourseDto::getId).toList());
+        assertEquals(List.of(5L), result.missingIds());
+    }
+
     @Test
     void getAllCourseByAuthorId_WhenUserIsTeacher_ShouldReturnCourses() {
         when(userService.getUserProfile("teacher")).thenReturn(teacher);
-        when(courseRepository.findByCreatedBy(1L)).thenReturn(List.of(course));
+        when(courseRepository.findSummariesByCreatedByAfter(1L, 0L, Limit.of(1001))).thenReturn(List.of(summary(1L)));
 
-        List<CourseDto> result = courseService.getAllCourseByAuthorId(1L, "teacher");
+        CursorPage<CourseSummary> result = courseService.getAllCourseByAuthorId(1L, null, null, "teacher");
 
-        assertFalse(result.isEmpty());
-        assertEquals(1, result.size());
+        assertEquals(1, result.items().size());
+        assertNull(result.nextCursor());
     }
 
     @Test
@@ -158,18 +196,61 @@ class CourseServiceImplTest {
         when(userService.getUserProfile("student")).thenReturn(student);
 
         assertThrows(UserHasNotPermissionException.class,
-                () -> courseService.getAllCourseByAuthorId(1L, "student"));
+                () -> courseService.getAllCourseByAuthorId(1L, null, null, "student"));
     }
 
     @Test
     void getAllCourse_WhenUserIsAdmin_ShouldReturnAllCourses() {
         when(userService.getUserProfile("admin")).thenReturn(admin);
-        when(courseRepository.findAll()).thenReturn(List.of(course));
+        when(courseRepository.findSummariesAfter(0L, Limit.of(1001))).thenReturn(List.of(summary(1L)));
 
-        List<CourseDto> result = courseService.getAllCourse("admin");
+        CursorPage<CourseSummary> result = courseService.getAllCourse(null, null, "admin");
 
-        assertFalse(result.isEmpty());
-        assertEquals(1, result.size());
+        assertFalse(result.items().isEmpty());
+        assertEquals(1, result.items().size());
+    }
+
+    @Test
+    void getAllCourse_WhenMoreCoursesFollow_ShouldReturnNextCursor() {
+        when(userService.getUserProfile("admin")).thenReturn(admin);
+        when(courseRepository.findSummariesAfter(0L, Limit.of(3))).thenReturn(List.of(summary(1L), summary(7L), summary(9L)));
+        when(courseRepository.findSummariesAfter(7L, Limit.of(3))).thenReturn(List.of(summary(9L)));
+
+        CursorPage<CourseSummary> first = courseService.getAllCourse(null, 2, "admin");
+        CursorPage<CourseSummary> last = courseService.getAllCourse(first.nextCursor(), 2, "admin");
+
+        assertEquals(List.of(1L, 7L), first.items().stream().map(CourseSummary::id).toList());
+        assertEquals(7L, first.nextCursor());
+        assertEquals(List.of(9L), last.items().stream().map(CourseSummary::id).toList());
+        assertNull(last.nextCursor());
+    }
+
+    @Test
+    void getAllCourse_ShouldCapPageSize() {
+        when(userService.getUserProfile("admin")).thenReturn(admin);
+        when(courseRepository.findSummariesAfter(5L, Limit.of(1001))).thenReturn(List.of());
+
+        assertTrue(courseService.getAllCourse(5L, 1_000_000, "admin").items().isEmpty());
+    }
+
+    @Test
+    void exportAllCourse_WhenUserIsAdmin_ShouldStreamAndDetachEveryCourse() {
+        when(userService.getUserProfile("admin")).thenReturn(admin);
+        when(courseRepository.streamAllByOrderByIdAsc()).thenReturn(Stream.of(course));
+        List<CourseDto> exported = new ArrayList<>();
+
+        courseService.exportAllCourse("admin", exported::add);
+
+        assertEquals(List.of(1L), exported.stream().map(CourseDto::getId).toList());
+        verify(entityManager).detach(course);
+    }
+
+    @Test
+    void exportAllCourse_WhenUserIsNotAdmin_ShouldThrowException() {
+        when(userService.getUserProfile("teacher")).thenReturn(teacher);
+
+        assertThrows(UserHasNotPermissionException.class, () -> courseService.exportAllCourse("teacher", courseDto -> { }));
+        verify(courseRepository, never()).streamAllByOrderByIdAsc();
     }
 
     @Test
@@ -177,7 +258,25 @@ class CourseServiceImplTest {
         when(userService.getUserProfile("teacher")).thenReturn(teacher);
 
         assertThrows(UserHasNotPermissionException.class,
-                () -> courseService.getAllCourse("teacher"));
+                () -> courseService.getAllCourse(null, null, "teacher"));
+    }
+
+    @Test
+    void searchCourses_ShouldSearchIndexWithDefaultSize() {
+        CourseSearchHit hit = new CourseSearchHit(1L, "Test Course", "CS101", CourseStatus.OPEN, 1L, 2.5);
+        when(courseSearchIndex.search("test", 20)).thenReturn(List.of(hit));
+
+        List<CourseSearchHit> result = courseService.searchCourses("test", null, "student");
+
+        assertEquals(List.of(hit), result);
+        verifyNoInteractions(courseRepository);
+    }
+
+    @Test
+    void searchCourses_ShouldCapSize() {
+        courseService.searchCourses("test", 100_000, "student");
+
+        verify(courseSearchIndex).search("test", 1000);
     }
 
     @Test
@@ -198,6 +297,7 @@ class CourseServiceImplTest {
         assertEquals("CS102", result.getCode());
         assertEquals("Updated Description", result.getDescription());
         assertEquals(CourseStatus.CLOSED, result.getStatus());
+        verify(courseSearchIndex).index(course);
     }
 
     @Test
@@ -220,6 +320,7 @@ class CourseServiceImplTest {
         CourseDto result = courseService.assignTaskInCourse(1L, 1L, "teacher");
 
         assertTrue(result.getTaskIds().contains(1L));
+        verify(timelineEventPublisher).courseTasksChanged(1L, "teacher");
     }
 
     @Test
@@ -242,6 +343,7 @@ class CourseServiceImplTest {
 
         assertThrows(AlreadyExistsException.class,
                 () -> courseService.assignTaskInCourse(1L, 1L, "teacher"));
+        verifyNoInteractions(timelineEventPublisher);
     }
 
     @Test
@@ -254,6 +356,7 @@ class CourseServiceImplTest {
         CourseDto result = courseService.removeTaskFromCourse(1L, 1L, "teacher");
 
         assertFalse(result.getTaskIds().contains(1L));
+        verify(timelineEventPublisher).courseTasksChanged(1L, "teacher");
     }
 
     @Test
@@ -269,7 +372,7 @@ class CourseServiceImplTest {
     void getAllTaskFromCourse_ShouldReturnTasks() {
         course.getTaskIds().add(1L);
         when(courseRepository.findById(1L)).thenReturn(Optional.of(course));
-        when(taskService.getTasksByIds(List.of(1L), "teacher")).thenReturn(List.of(taskDto));
+        when(taskService.getTasksByIds(List.of(1L), "teacher")).thenReturn(new BatchLookup<>(List.of(taskDto), List.of()));
 
         List<TaskDto> result = courseService.getAllTaskFromCourse(1L, "teacher");
 
@@ -285,6 +388,8 @@ class CourseServiceImplTest {
         courseService.deleteCourse(1L, "teacher");
 
         verify(courseRepository).deleteById(1L);
+        verify(courseSearchIndex).remove(1L);
+        verify(timelineEventPublisher).courseTasksChanged(1L, "teacher");
     }
 
     @Test
@@ -0,0 +1,139 @@
+package com.binarybrain.course.service.impl;
+
+import com.binarybrain.course.dto.CourseSearchHit;
+import com.binarybrain.course.dto.CourseStatus;
+import com.binarybrain.course.model.Course;
+import com.binarybrain.course.repo.CourseRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class CourseSearchIndexTest {
+
+    private final CourseRepository courseRepository = mock(CourseRepository.class);
+    private CourseSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new CourseSearchIndex(courseRepository, mock(PlatformTransactionManager.class), mock(EntityManager.class));
+    }
+
+    private static Course course(Long id, String title, String code, String description) {
+        Course course = new Course();
+        course.setId(id);
+        course.setTitle(title);
+        course.setCode(code);
+        course.setDescription(description);
+        course.setStatus(CourseStatus.OPEN);
+        course.setCreatedBy(1L);
+        return course;
+    }
+
+    private List<Long> search(String query) {
+        return index.search(query, 10).stream().map(CourseSearchHit::id).toList();
+    }
+
+    @Test
+    void search_RanksTitleMatchesAboveDescriptionMatches() {
+        index.index(course(1L, "Databases", "DB-1", "Storing data, with a chapter on Java drivers"));
+        index.index(course(2L, "Java Programming", "JP-101", "Learn the language"));
+        index.index(course(3L, "Algorithms", "AL-1", "Sorting and searching"));
+
+        List<CourseSearchHit> hits = index.search("java", 10);
+
+        assertEquals(List.of(2L, 1L), hits.stream().map(CourseSearchHit::id).toList());
+        assertTrue(hits.get(0).score() > hits.get(1).score());
+        assertEquals("JP-101", hits.get(0).code());
+    }
+
+    @Test
+    void search_MatchesPrefixesCodesCaseAndAccents() {
+        index.index(course(1L, "Java Programming", "JP-101", null));
+        index.index(course(2L, "Café Économie", "EC-2", null));
+
+        assertEquals(List.of(1L), search("prog"));
+        assertEquals(List.of(1L), search("jp101"));
+        assertEquals(List.of(1L), search("JP-101"));
+        assertEquals(List.of(2L), search("economie cafe"));
+    }
+
+    @Test
+    void search_PrefersExactWordOverPrefix() {
+        index.index(course(1L, "Programming", "A-1", null));
+        index.index(course(2L, "Program", "A-2", null));
+
+        assertEquals(List.of(2L, 1L), search("program"));
+    }
+
+    @Test
+    void search_RequiresEveryWord() {
+        index.index(course(1L, "Java Programming", "JP-101", null));
+        index.index(course(2L, "Python Programming", "PY-101", null));
+
+        assertEquals(List.of(2L), search("python prog"));
+        assertEquals(List.of(), search("python java"));
+        assertEquals(List.of(), search("  - "));
+    }
+
+    @Test
+    void search_ReturnsAtMostLimitOrderedByScoreThenId() {
+        for (long id = 5; id >= 1; id--) {
+            index.index(course(id, "Same title", "X", null));
+        }
+
+        assertEquals(List.of(1L, 2L, 3L), index.search("same", 3).stream().map(CourseSearchHit::id).toList());
+    }
+
+    @Test
+    void index_ReplacesPreviousVersionAndRemoveDropsCourse() {
+        index.index(course(1L, "Java Programming", "JP-101", null));
+        index.index(course(1L, "Kotlin Programming", "KT-101", null));
+
+        assertEquals(List.of(), search("java"));
+        assertEquals(List.of(1L), search("kotlin"));
+        assertEquals(1, index.size());
+
+        index.remove(1L);
+
+        assertEquals(List.of(), search("programming"));
+        assertEquals(0, index.size());
+    }
+
+    @Test
+    void rebuild_ReadsDatabaseAndKeepsChangesMadeMeanwhile() {
+        index.index(course(9L, "Stale course", "S-1", null));
+        when(courseRepository.streamAllByOrderByIdAsc()).thenAnswer(invocation -> Stream.of(
+                        course(1L, "Java Programming", "JP-101", null),
+                        course(2L, "Python Programming", "PY-101", null))
+                .peek(course -> {
+                    if (course.getId() == 2L) {
+                        index.index(course(3L, "Rust Programming", "RS-101", null));
+                        index.remove(1L);
+                    }
+                }));
+
+        index.rebuild();
+
+        assertEquals(List.of(), search("stale"));
+        assertEquals(List.of(), search("java"));
+        assertEquals(List.of(2L, 3L), search("programming"));
+    }
+
+    @Test
+    void rebuild_WhenDatabaseFails_KeepsCurrentIndex() {
+        index.index(course(1L, "Java Programming", "JP-101", null));
+        when(courseRepository.streamAllByOrderByIdAsc()).thenThrow(new IllegalStateException("down"));
+
+        assertThrows(IllegalStateException.class, index::rebuild);
+        index.index(course(2L, "Java Basics", "JB-1", null));
+
+        assertEquals(List.of(1L, 2L), search("java"));
+    }
+}
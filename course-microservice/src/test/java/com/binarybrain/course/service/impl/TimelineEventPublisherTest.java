@@ -0,0 +1,39 @@
+package com.binarybrain.course.service.impl;
+
+import com.binarybrain.course.service.ClassroomService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+
+import static org.mockito.Mockito.*;
+
+class TimelineEventPublisherTest {
+
+    private final ClassroomService classroomService = mock(ClassroomService.class);
+    private TimelineEventPublisher publisher;
+
+    @BeforeEach
+    void setUp() {
+        publisher = new TimelineEventPublisher(classroomService);
+        publisher.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        publisher.shutdown();
+    }
+
+    @Test
+    void courseTasksChanged_PostsInOrderAndFailuresDontStopLaterEvents() {
+        doThrow(new IllegalStateException("down")).when(classroomService).courseTasksChanged(1L, "teacher");
+
+        publisher.courseTasksChanged(1L, "teacher");
+        publisher.courseTasksChanged(2L, "teacher");
+
+        verify(classroomService, timeout(1000)).courseTasksChanged(2L, "teacher");
+        InOrder inOrder = inOrder(classroomService);
+        inOrder.verify(classroomService).courseTasksChanged(1L, "teacher");
+        inOrder.verify(classroomService).courseTasksChanged(2L, "teacher");
+    }
+}
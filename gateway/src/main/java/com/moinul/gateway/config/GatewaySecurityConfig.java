@@ -30,6 +30,7 @@ public class GatewaySecurityConfig {
                         .pathMatchers(
                                 "/v3/api-docs/**", "/swagger-ui/**", "/swagger-ui.html"
                         ).permitAll()
+                        .pathMatchers("/actuator/health").permitAll()
                         .anyExchange().authenticated()
                 )
                 .build();
@@ -41,6 +42,7 @@ public class GatewaySecurityConfig {
         config.setAllowedOrigins(List.of("http://localhost:5000", "https://binarybrains.gentlesmoke-d65a2350.westus2.azurecontainerapps.io/"));
         config.setAllowedMethods(List.of("GET", "POST", "PUT", "DELETE"));
         config.setAllowedHeaders(List.of("*"));
+        config.setExposedHeaders(List.of("X-Next-Cursor"));
         UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
         source.registerCorsConfiguration("/**", config);
 
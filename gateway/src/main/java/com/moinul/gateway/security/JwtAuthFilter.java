@@ -4,6 +4,7 @@ import io.jsonwebtoken.JwtException;
 import org.springframework.cloud.gateway.filter.GatewayFilter;
 import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
 import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.server.reactive.ServerHttpRequest;
@@ -12,11 +13,16 @@ import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Mono;
 
 import java.nio.charset.StandardCharsets;
+import java.util.List;
 import java.util.Optional;
 
 @Component
 public class JwtAuthFilter extends AbstractGatewayFilterFactory<JwtAuthFilter.Config> {
 
+    static final String USERNAME_HEADER = "X-User-Username";
+    static final String USER_ID_HEADER = "X-User-Id";
+    static final String USER_ROLES_HEADER = "X-User-Roles";
+
     private final JwtUtil jwtUtil;
 
     public JwtAuthFilter(JwtUtil jwtUtil) {
@@ -30,7 +36,10 @@ public class JwtAuthFilter extends AbstractGatewayFilterFactory<JwtAuthFilter.Co
             ServerHttpRequest request = exchange.getRequest();
             String path = request.getPath().toString();
             if(shouldAllowPath(path)){
-                return chain.filter(exchange);
+                ServerHttpRequest strippedRequest = request.mutate()
+                        .headers(this::removeUserHeaders)
+                        .build();
+                return chain.filter(exchange.mutate().request(strippedRequest).build());
             }
 
             String token = extractToken(exchange.getRequest());
@@ -43,8 +52,17 @@ public class JwtAuthFilter extends AbstractGatewayFilterFactory<JwtAuthFilter.Co
                 GlobalExceptionHandler.Thrower.throwIf(!jwtUtil.validateToken(token), new JwtException("Invalid token!"));
 
                 String username = jwtUtil.extractUsername(token);
+                Long userId = jwtUtil.extractUserId(token);
+                List<String> roles = jwtUtil.extractRoles(token);
                 ServerHttpRequest modifiedRequest = exchange.getRequest().mutate()
-                        .header("X-User-Username", username)
+                        .headers(headers -> {
+                            removeUserHeaders(headers);
+                            headers.set(USERNAME_HEADER, username);
+                            if (userId != null && !roles.isEmpty()) {
+                                headers.set(USER_ID_HEADER, userId.toString());
+                                headers.set(USER_ROLES_HEADER, String.join(",", roles));
+                            }
+                        })
                         .build();
 
                 return chain.filter(exchange.mutate().request(modifiedRequest).build());
@@ -54,6 +72,16 @@ public class JwtAuthFilter extends AbstractGatewayFilterFactory<JwtAuthFilter.Co
         };
     }
 
+    /**
+     * The user headers are trusted by the downstream services, so any value sent by the client is
+     * dropped before the gateway sets its own from the verified token.
+     */
+    private void removeUserHeaders(HttpHeaders headers) {
+        headers.remove(USERNAME_HEADER);
+        headers.remove(USER_ID_HEADER);
+        headers.remove(USER_ROLES_HEADER);
+    }
+
     private boolean shouldAllowPath(String path) {
         return path.equals("/api/user/login") ||
                 path.equals("/api/user/register") ||
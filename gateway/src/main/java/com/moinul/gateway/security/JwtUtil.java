@@ -8,31 +8,57 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
+import java.util.Collection;
 import java.util.Date;
+import java.util.List;
 import java.util.function.Function;
 
 @Component
 public class JwtUtil {
 
+    static final String USER_ID_CLAIM = "userId";
+    static final String ROLES_CLAIM = "roles";
+
     @Value("${jwt.secret}")
     private String secretKey;
 
-    private SecretKey signingKey;
+    private JwtParser jwtParser;
+
+    private final ClaimsCache claimsCache;
+
+    public JwtUtil(ClaimsCache claimsCache) {
+        this.claimsCache = claimsCache;
+    }
 
     @PostConstruct
     public void init() {
         byte[] keyBytes = Decoders.BASE64.decode(secretKey);
-        signingKey = Keys.hmacShaKeyFor(keyBytes);
-    }
-
-    private SecretKey getSigningKey() {
-        return signingKey;
+        SecretKey signingKey = Keys.hmacShaKeyFor(keyBytes);
+        jwtParser = Jwts.parser()
+                .verifyWith(signingKey)
+                .build();
     }
 
     public String extractUsername(String token) {
         return extractClaim(token, Claims::getSubject);
     }
 
+    /**
+     * Returns the {@code userId} claim, or {@code null} for tokens issued before the claim existed.
+     */
+    public Long extractUserId(String token) {
+        return extractClaim(token, claims -> claims.get(USER_ID_CLAIM) instanceof Number id ? id.longValue() : null);
+    }
+
+    /**
+     * Returns the role names of the {@code roles} claim, or an empty list when the claim is absent.
+     */
+    public List<String> extractRoles(String token) {
+        return extractClaim(token, claims -> claims.get(ROLES_CLAIM) instanceof Collection<?> roles
+                ? roles.stream().map(String::valueOf).toList()
+                : List.of());
+    }
+
     public Date extractExpiration(String token) {
         return extractClaim(token, Claims::getExpiration);
     }
@@ -42,10 +68,16 @@ public class JwtUtil {
         return claimsResolver.apply(claims);
     }
 
+    /**
+     * Returns the verified claims of the token. A token is parsed and its signature checked only the
+     * first time it is seen; later calls are served from the {@link ClaimsCache} until it expires.
+     */
     public Claims extractAllClaims(String token) {
-        return Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
+        return claimsCache.get(token, this::parseClaims);
+    }
+
+    private Claims parseClaims(String token) {
+        return jwtParser
                 .parseSignedClaims(token)
                 .getPayload();
     }
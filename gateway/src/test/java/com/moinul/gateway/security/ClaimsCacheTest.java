@@ -0,0 +1,164 @@
+package com.moinul.gateway.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.SecretKey;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ClaimsCacheTest {
+
+    private static final SecretKey KEY = Keys.hmacShaKeyFor(
+            Decoders.BASE64.decode("thisisanexamplesecretkeyforjsonwebtokenthatcanbepushedincommits"));
+
+    private static Claims claims(String subject, long ttlMillis) {
+        return Jwts.claims()
+                .subject(subject)
+                .expiration(new Date(System.currentTimeMillis() + ttlMillis))
+                .build();
+    }
+
+    private static String token(String subject, long ttlMillis) {
+        return Jwts.builder()
+                .claims(Map.of("roles", List.of("STUDENT")))
+                .subject(subject)
+                .issuedAt(new Date())
+                .expiration(new Date(System.currentTimeMillis() + ttlMillis))
+                .signWith(KEY)
+                .compact();
+    }
+
+    @Test
+    void get_VerifiesOnceAndServesRepeatsFromCache() {
+        ClaimsCache cache = new ClaimsCache(100);
+        AtomicInteger verifications = new AtomicInteger();
+        Claims verified = claims("sample", 60_000);
+
+        for (int i = 0; i < 5; i++) {
+            Claims result = cache.get("token", t -> {
+                verifications.incrementAndGet();
+                return verified;
+            });
+            assertSame(verified, result);
+        }
+
+        assertEquals(1, verifications.get());
+        assertEquals(4, cache.stats().hitCount());
+        assertEquals(1, cache.stats().missCount());
+    }
+
+    @Test
+    void get_DoesNotCacheTokensThatFailVerification() {
+        ClaimsCache cache = new ClaimsCache(100);
+        Function<String, Claims> rejecting = t -> {
+            throw new JwtException("Invalid Token!");
+        };
+
+        assertThrows(JwtException.class, () -> cache.get("bad", rejecting));
+        assertThrows(JwtException.class, () -> cache.get("bad", rejecting));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void get_EvictsEntryAtTokenExpiry() throws InterruptedException {
+        ClaimsCache cache = new ClaimsCache(100);
+        AtomicInteger verifications = new AtomicInteger();
+        Claims shortLived = claims("sample", 200);
+
+        cache.get("token", t -> {
+            verifications.incrementAndGet();
+            return shortLived;
+        });
+        Thread.sleep(300);
+        cache.get("token", t -> {
+            verifications.incrementAndGet();
+            return claims("sample", 60_000);
+        });
+
+        assertEquals(2, verifications.get());
+        assertTrue(cache.stats().evictionCount() >= 1);
+    }
+
+    @Test
+    void get_DoesNotKeepClaimsWithoutExpiration() {
+        ClaimsCache cache = new ClaimsCache(100);
+        cache.get("token", t -> Jwts.claims().subject("sample").build());
+
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void get_StaysWithinMaximumSize() {
+        ClaimsCache cache = new ClaimsCache(2);
+        for (int i = 0; i < 50; i++) {
+            cache.get("token-" + i, t -> claims("sample", 60_000));
+        }
+
+        assertTrue(cache.size() <= 2);
+        assertTrue(cache.stats().evictionCount() > 0);
+    }
+
+    @Test
+    void bindTo_PublishesHitAndMissCounters() {
+        ClaimsCache cache = new ClaimsCache(100);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        cache.bindTo(registry);
+
+        cache.get("token", t -> claims("sample", 60_000));
+        cache.get("token", t -> claims("sample", 60_000));
+
+        assertEquals(1.0, registry.get("cache.gets").tag("cache", ClaimsCache.CACHE_NAME).tag("result", "hit").functionCounter().count());
+        assertEquals(1.0, registry.get("cache.gets").tag("cache", ClaimsCache.CACHE_NAME).tag("result", "miss").functionCounter().count());
+    }
+
+    /**
+     * Compares the CPU spent per request by the previous filter path (a new parser per call, parsing
+     * the token for both the expiry check and the username) with the cached path.
+     */
+    @Test
+    @Tag("benchmark")
+    void benchmark_CachedClaimsUseLessCpuPerRequest() {
+        String token = token("sample", 60_000);
+        int requests = 20_000;
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+        Function<String, Claims> uncached = t -> Jwts.parser().verifyWith(KEY).build().parseSignedClaims(t).getPayload();
+        ClaimsCache cache = new ClaimsCache(100);
+        Function<String, Claims> cached = t -> cache.get(t, uncached);
+
+        runRequests(token, uncached, requests);
+        runRequests(token, cached, requests);
+
+        long start = threads.getCurrentThreadCpuTime();
+        runRequests(token, uncached, requests);
+        long uncachedNanos = (threads.getCurrentThreadCpuTime() - start) / requests;
+
+        start = threads.getCurrentThreadCpuTime();
+        runRequests(token, cached, requests);
+        long cachedNanos = (threads.getCurrentThreadCpuTime() - start) / requests;
+
+        assertTrue(cachedNanos < uncachedNanos,
+                "uncached " + uncachedNanos + " ns CPU per request, cached " + cachedNanos + " ns");
+    }
+
+    private static void runRequests(String token, Function<String, Claims> claims, int requests) {
+        for (int i = 0; i < requests; i++) {
+            assertFalse(claims.apply(token).getExpiration().before(new Date()));
+            assertEquals("sample", claims.apply(token).getSubject());
+        }
+    }
+}
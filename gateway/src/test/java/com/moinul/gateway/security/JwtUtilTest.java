@@ -18,6 +18,7 @@ import javax.crypto.SecretKey;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -101,6 +102,25 @@ class JwtUtilTest {
         assertEquals(getUser().getUsername(), claims1.getSubject());
     }
 
+    @Test
+    void extractUserIdAndRoles() {
+        Map<String, Object> claims = new HashMap<>();
+        claims.put(JwtUtil.USER_ID_CLAIM, 7);
+        claims.put(JwtUtil.ROLES_CLAIM, List.of("STUDENT", "TEACHER"));
+        String token=createToken(claims, getUser().getUsername(), 10000000000L);
+        assertEquals(7L, jwtUtil.extractUserId(token));
+        assertEquals(List.of("STUDENT", "TEACHER"), jwtUtil.extractRoles(token));
+    }
+
+    @Test
+    void extractUserIdAndRoles_WhenMissing() {
+        Map<String, Object> claims = new HashMap<>();
+        claims.put("username", "sample");
+        String token=createToken(claims, getUser().getUsername(), 10000000000L);
+        assertNull(jwtUtil.extractUserId(token));
+        assertTrue(jwtUtil.extractRoles(token).isEmpty());
+    }
+
     @Test
     void validateToken() {
         Map<String, Object> claims = new HashMap<>();
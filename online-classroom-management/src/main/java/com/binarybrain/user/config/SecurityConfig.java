@@ -1,5 +1,9 @@
 package com.binarybrain.user.config;
 
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
@@ -43,6 +47,7 @@ public class SecurityConfig{
                                 "/swagger-ui/**", "/swagger-ui.html",
                                 "/v3/api-docs/**")
                         .permitAll()
+                        .requestMatchers("/actuator/health").permitAll()
                         .anyRequest().authenticated()
                 );
         return http.build();
@@ -61,9 +66,21 @@ public class SecurityConfig{
         return authConfig.getAuthenticationManager();
     }
 
+    /**
+     * Provides a {@link RestTemplate} backed by a pooled HTTP client, so the concurrent OpenCV
+     * comparisons reuse their connections instead of opening one per request.
+     * @return a {@link RestTemplate} with at most 50 connections, 20 of them per host.
+     */
     @Bean
     public RestTemplate restTemplate(){
-        HttpComponentsClientHttpRequestFactory factory = new HttpComponentsClientHttpRequestFactory();
+        PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(50)
+                .setMaxConnPerRoute(20)
+                .build();
+        CloseableHttpClient httpClient = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .build();
+        HttpComponentsClientHttpRequestFactory factory = new HttpComponentsClientHttpRequestFactory(httpClient);
         factory.setConnectTimeout(5000);
         factory.setReadTimeout(5000);
         return new RestTemplate(factory);
@@ -1,43 +1,58 @@
 package com.binarybrain.user.controller;
 
 import com.binarybrain.exception.ErrorDetails;
+import com.binarybrain.exception.InvalidTokenException;
 import com.binarybrain.exception.ResourceNotFoundException;
+import com.binarybrain.exception.UserHasNotPermissionException;
+import com.binarybrain.exception.global.GlobalExceptionHandler;
 import com.binarybrain.user.dto.UserDto;
 import com.binarybrain.user.dto.request.AuthRequest;
 import com.binarybrain.user.dto.request.RefreshTokenRequest;
 import com.binarybrain.user.dto.response.AuthResponse;
+import com.binarybrain.user.dto.response.PhotoResponse;
+import com.binarybrain.user.dto.response.UserImportStatus;
+import com.binarybrain.user.dto.response.UserProfileResponse;
+import com.binarybrain.user.dto.response.UserSearchResult;
 import com.binarybrain.user.model.RefreshToken;
 import com.binarybrain.user.model.User;
-import com.binarybrain.user.repository.UserRepository;
 import com.binarybrain.user.service.CustomUserDetailsService;
 import com.binarybrain.user.service.RefreshTokenService;
 import com.binarybrain.user.service.UserImageService;
+import com.binarybrain.user.service.UserImportService;
 import com.binarybrain.user.service.UserService;
+import com.binarybrain.user.security.AuthenticatedUser;
 import com.binarybrain.user.security.JwtUtil;
+import com.binarybrain.support.web.FileDownload;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.support.DefaultMessageSourceResolvable;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.security.core.Authentication;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.net.URI;
+import java.time.Duration;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
-import static org.springframework.http.MediaType.*;
 
 /**
  * UserController class handles HTTP request related to user operation(s).
@@ -53,25 +68,28 @@ public class UserController {
     private final UserImageService imageService;
     private final AuthenticationManager authenticationManager;
     private final JwtUtil jwtUtil;
-    private final CustomUserDetailsService userDetailsService;
-    private final UserRepository userRepository;
     private final RefreshTokenService refreshTokenService;
+    private final UserImportService userImportService;
+    private final CustomUserDetailsService userDetailsService;
+
+    @Value("${photo.cache-max-age:5m}")
+    private Duration photoCacheMaxAge = Duration.ofMinutes(5);
 
     @Autowired
     public UserController(UserService userService,
                           UserImageService imageService,
                           AuthenticationManager authenticationManager,
                           JwtUtil jwtUtil,
-                          CustomUserDetailsService userDetailsService,
-                          UserRepository userRepository,
-                          RefreshTokenService refreshTokenService) {
+                          RefreshTokenService refreshTokenService,
+                          UserImportService userImportService,
+                          CustomUserDetailsService userDetailsService) {
         this.userService = userService;
         this.imageService = imageService;
         this.authenticationManager = authenticationManager;
         this.jwtUtil = jwtUtil;
-        this.userDetailsService = userDetailsService;
-        this.userRepository = userRepository;
         this.refreshTokenService = refreshTokenService;
+        this.userImportService = userImportService;
+        this.userDetailsService = userDetailsService;
     }
 
     /**
@@ -111,6 +129,63 @@ public class UserController {
         return new  ResponseEntity<>(createdUser, HttpStatus.CREATED);
     }
 
+    /**
+     * Imports users in bulk from the request body, read as a stream. The import runs in the
+     * background; poll {@code GET /api/user/import/{importId}} for its progress and per-row report.
+     *
+     * @param roles the roles of the caller, set by the gateway; only admins may import.
+     * @param contentType {@code text/csv} or {@code application/x-ndjson}.
+     * @return the queued import, with its id in the {@code Location} header.
+     */
+    @Operation(
+            summary = "Import users in bulk",
+            tags = {"01 - Register"},
+            description = "Registers many users from a CSV file (header row with the registration fields, roles separated by '|') or from NDJSON (one registration object per line). Every row is validated like a single registration. Admins only.",
+            responses = {
+                    @ApiResponse(responseCode = "202", description = "Import queued",
+                            content = @Content(mediaType = "application/json", schema = @Schema(implementation = UserImportStatus.class))),
+                    @ApiResponse(responseCode = "403", description = "Only admins can import users!",
+                            content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorDetails.class))),
+                    @ApiResponse(responseCode = "415", description = "Unsupported import format",
+                            content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorDetails.class)))
+            },
+            security = @SecurityRequirement(name = "bearerToken")
+    )
+    @PostMapping(value = "/import", consumes = {"text/csv", "application/x-ndjson"})
+    public ResponseEntity<UserImportStatus> importUsers(@Parameter(hidden = true) @RequestHeader(value = "X-User-Roles", required = false) String roles,
+                                                        @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+                                                        HttpServletRequest request) throws IOException {
+        requireAdmin(roles);
+        UserImportStatus status = userImportService.startImport(request.getInputStream(), contentType);
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/user/import/" + status.getId()))
+                .body(status);
+    }
+
+    @Operation(
+            summary = "Progress of a bulk import",
+            tags = {"01 - Register"},
+            description = "Returns the state and counters of an import and the result of every row processed so far. Admins only.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Successful",
+                            content = @Content(mediaType = "application/json", schema = @Schema(implementation = UserImportStatus.class))),
+                    @ApiResponse(responseCode = "404", description = "Import not found!",
+                            content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorDetails.class)))
+            },
+            security = @SecurityRequirement(name = "bearerToken")
+    )
+    @GetMapping("/import/{importId}")
+    public ResponseEntity<UserImportStatus> getImportStatus(@Parameter(hidden = true) @RequestHeader(value = "X-User-Roles", required = false) String roles,
+                                                            @PathVariable String importId) {
+        requireAdmin(roles);
+        return ResponseEntity.ok(userImportService.getImportStatus(importId));
+    }
+
+    private static void requireAdmin(String roles) {
+        boolean admin = roles != null && Arrays.stream(roles.split(",")).map(String::trim).anyMatch("ADMIN"::equals);
+        GlobalExceptionHandler.Thrower.throwIf(!admin, new UserHasNotPermissionException("Only admins can import users!"));
+    }
+
     /**
      * Authenticates a user and returns a JWT token.
      *
@@ -132,16 +207,13 @@ public class UserController {
     )
     @PostMapping("/login")
     public ResponseEntity<AuthResponse> loginUser(@RequestBody AuthRequest authRequest) {
-        authenticationManager.authenticate(
+        Authentication authentication = authenticationManager.authenticate(
                 new UsernamePasswordAuthenticationToken(authRequest.getUsername(), authRequest.getPassword())
         );
 
-        UserDetails userDetails = userDetailsService.loadUserByUsername(authRequest.getUsername());
-
-        User user = userRepository.findByUsername(authRequest.getUsername())
-                .orElseThrow(() -> new UsernameNotFoundException("User not found: " + authRequest.getUsername()));
-        String jwtToken = jwtUtil.generateToken(userDetails);
-        RefreshToken refreshToken = refreshTokenService.createRefreshToken(user);
+        AuthenticatedUser principal = (AuthenticatedUser) authentication.getPrincipal();
+        String jwtToken = jwtUtil.generateToken(principal, principal.getUserId());
+        RefreshToken refreshToken = refreshTokenService.createRefreshToken(principal.getUser());
 
         return ResponseEntity.ok(new AuthResponse(jwtToken, refreshToken.getToken()));
     }
@@ -159,6 +231,8 @@ public class UserController {
             responses = {
                     @ApiResponse(responseCode = "200", description = "New jwt token and refresh token generated successfully"),
                     @ApiResponse(responseCode = "404", description = "Refresh token not found!"),
+                    @ApiResponse(responseCode = "401", description = "The user of the refresh token no longer exists",
+                            content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorDetails.class))),
                     @ApiResponse(responseCode = "403", description = "Refresh token expired or invalid",
                             content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorDetails.class)))
             }
@@ -171,10 +245,12 @@ public class UserController {
                 .orElseThrow(() -> new ResourceNotFoundException("Refresh token not found!"));
 
         refreshTokenService.verifyExpiration(refreshToken);
-        UserDetails userDetails = userDetailsService.loadUserByUsername(refreshToken.getUser().getUsername());
-        String newAccessToken = jwtUtil.generateToken(userDetails);
+        // the token only knows the id of its user, the roles put in the access token are the current ones
+        AuthenticatedUser user = userDetailsService.loadUserById(refreshToken.getUser().getId())
+                .orElseThrow(() -> new InvalidTokenException("The user of this refresh token no longer exists."));
+        String newAccessToken = jwtUtil.generateToken(user, user.getUserId());
 
-        return ResponseEntity.ok(new AuthResponse(newAccessToken, refreshToken.getToken()));
+        return ResponseEntity.ok(new AuthResponse(newAccessToken, requestRefreshToken));
     }
 
     @Operation(
@@ -215,10 +291,79 @@ public class UserController {
         return new ResponseEntity<>(user, HttpStatus.OK);
     }
 
+    @Operation(
+            summary = "Get compact profiles by user IDs",
+            tags = {"03 - Search"},
+            description = "Returns id, name, username, email and roles of every existing user in ids, in request order. Unknown ids are skipped.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Successful"),
+                    @ApiResponse(responseCode = "401", description = "Invalid or expired token!",
+                            content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorDetails.class)))
+            },
+            security = @SecurityRequirement(name = "bearerToken")
+    )
+    @GetMapping("/profiles")
+    public ResponseEntity<List<UserProfileResponse>> getUserProfilesByIds(@RequestParam("ids") List<Long> ids,
+                                                                          @Parameter(hidden = true) @RequestHeader("X-User-Username") String username){
+        return ResponseEntity.ok(userService.getUserProfilesByIds(ids));
+    }
+
+    @Operation(
+            summary = "Get compact profiles by user IDs (large sets)",
+            tags = {"03 - Search"},
+            description = "Same as GET /profiles, but takes the ids as a JSON array in the request body for sets too large for a query string.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Successful"),
+                    @ApiResponse(responseCode = "401", description = "Invalid or expired token!",
+                            content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorDetails.class)))
+            },
+            security = @SecurityRequirement(name = "bearerToken")
+    )
+    @PostMapping("/profiles")
+    public ResponseEntity<List<UserProfileResponse>> postUserProfilesByIds(@RequestBody List<Long> ids,
+                                                                           @Parameter(hidden = true) @RequestHeader("X-User-Username") String username){
+        return ResponseEntity.ok(userService.getUserProfilesByIds(ids));
+    }
+
+    @Operation(
+            summary = "Get compact profiles by usernames",
+            tags = {"03 - Search"},
+            description = "Same as POST /profiles, but looks the users up by username (ignoring case). Unknown usernames are skipped.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Successful"),
+                    @ApiResponse(responseCode = "401", description = "Invalid or expired token!",
+                            content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorDetails.class)))
+            },
+            security = @SecurityRequirement(name = "bearerToken")
+    )
+    @PostMapping("/profiles/by-username")
+    public ResponseEntity<List<UserProfileResponse>> postUserProfilesByUsernames(@RequestBody List<String> usernames,
+                                                                                 @Parameter(hidden = true) @RequestHeader("X-User-Username") String username){
+        return ResponseEntity.ok(userService.getUserProfilesByUsernames(usernames));
+    }
+
+    @Operation(
+            summary = "Search users",
+            tags = {"03 - Search"},
+            description = "Typeahead search: returns the users with a username, first or last name or institute word starting with every word of q, best match first.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Successful"),
+                    @ApiResponse(responseCode = "401", description = "Invalid or expired token!",
+                            content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorDetails.class)))
+            },
+            security = @SecurityRequirement(name = "bearerToken")
+    )
+    @GetMapping("/search")
+    public ResponseEntity<List<UserSearchResult>> searchUsers(@RequestParam("q") String query,
+                                                              @RequestParam(value = "limit", defaultValue = "10") int limit,
+                                                              @Parameter(hidden = true) @RequestHeader("X-User-Username") String username){
+        return ResponseEntity.ok(userService.searchUsers(query, limit));
+    }
+
     @Operation(
             summary = "Upload photo",
             tags = {"04 - Image"},
-            description = "Upload user profile picture.",
+            description = "Upload user profile picture, a PNG or JPEG image. The type is told from the content, not the part's Content-Type.",
             responses = {
                     @ApiResponse(responseCode = "200", description = "Image upload successful",
                             content = @Content(schema = @Schema(implementation = String.class))),
@@ -227,6 +372,8 @@ public class UserController {
                     @ApiResponse(responseCode = "400", description = "Image is required!",
                             content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorDetails.class))),
                     @ApiResponse(responseCode = "403", description = "This error may occur if you trying to upload image into another user's account",
+                            content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorDetails.class))),
+                    @ApiResponse(responseCode = "415", description = "The file is not a PNG or JPEG image",
                             content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorDetails.class)))
             },
             security = @SecurityRequirement(name = "bearerToken")
@@ -245,10 +392,12 @@ public class UserController {
     @Operation(
             summary = "Download photo",
             tags = {"04 - Image"},
-            description = "Download user profile picture from photo name.",
+            description = "Download user profile picture from photo name, or one of its thumbnails. Supports conditional (ETag, Last-Modified) and range requests.",
             responses = {
                     @ApiResponse(responseCode = "200", description = "Image download successful",
                             content = @Content(schema = @Schema(implementation = String.class))),
+                    @ApiResponse(responseCode = "206", description = "The requested range of the image"),
+                    @ApiResponse(responseCode = "304", description = "Image not modified since the given ETag or date"),
                     @ApiResponse(responseCode = "401", description = "Unauthorized: Invalid or Expired JWT token.",
                             content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorDetails.class))),
                     @ApiResponse(responseCode = "404", description = "Image not found!",
@@ -256,9 +405,18 @@ public class UserController {
             },
             security = @SecurityRequirement(name = "bearerToken")
     )
-    @GetMapping(path = "/photo/{filename}", produces = {IMAGE_PNG_VALUE, IMAGE_JPEG_VALUE})
-    public byte[] getPhoto (@PathVariable("filename") String filename) throws IOException {
-        return imageService.getPhoto(filename);
+    @GetMapping(path = "/photo/{filename}")
+    public void getPhoto (@PathVariable("filename") String filename,
+                          @Parameter(description = "Thumbnail size: small or medium. The full photo when absent.")
+                          @RequestParam(value = "size", required = false) String size,
+                          HttpServletRequest request,
+                          HttpServletResponse response) throws IOException {
+        PhotoResponse photo = imageService.getPhoto(filename, size);
+        // browsers must not second-guess the type of an uploaded file
+        response.setHeader("X-Content-Type-Options", "nosniff");
+        // only the signed-in user's browser may keep the photo, shared caches would hand it to anyone
+        FileDownload.write(photo.getFile(), photo.getETag(), MediaType.parseMediaType(photo.getContentType()), null,
+                CacheControl.maxAge(photoCacheMaxAge).cachePrivate().mustRevalidate(), request, response);
     }
 
     @Operation(
@@ -0,0 +1,14 @@
+package com.binarybrain.user.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.nio.file.Path;
+
+@Data
+@AllArgsConstructor
+public class PhotoResponse {
+    private Path file;
+    private String contentType;
+    private String eTag;
+}
@@ -0,0 +1,30 @@
+package com.binarybrain.user.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * The outcome of one row of a bulk user import. {@code row} is the 1-based position of the record
+ * in the file, not counting the CSV header.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserImportRowResult {
+    public enum Status {CREATED, REJECTED}
+
+    private int row;
+    private String username;
+    private Status status;
+    private Long userId;
+    private String message;
+
+    public static UserImportRowResult created(int row, String username, Long userId) {
+        return new UserImportRowResult(row, username, Status.CREATED, userId, null);
+    }
+
+    public static UserImportRowResult rejected(int row, String username, String message) {
+        return new UserImportRowResult(row, username, Status.REJECTED, null, message);
+    }
+}
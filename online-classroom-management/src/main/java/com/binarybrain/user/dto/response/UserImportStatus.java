@@ -0,0 +1,26 @@
+package com.binarybrain.user.dto.response;
+
+import lombok.Data;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The progress of a bulk user import: counters that grow while the file is processed, and the
+ * report of every row processed so far.
+ */
+@Data
+public class UserImportStatus {
+    public enum State {QUEUED, RUNNING, COMPLETED, FAILED}
+
+    private String id;
+    private State state;
+    private Instant startedAt;
+    private Instant finishedAt;
+    private int rowsProcessed;
+    private int created;
+    private int rejected;
+    private String error;
+    private List<UserImportRowResult> rows = new ArrayList<>();
+}
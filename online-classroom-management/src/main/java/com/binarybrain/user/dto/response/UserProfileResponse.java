@@ -0,0 +1,35 @@
+package com.binarybrain.user.dto.response;
+
+import lombok.Data;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * The {@code UserProfileResponse} is the compact profile returned by the batch lookup. It carries
+ * only what other services need to identify a user and check their roles, so the password hash
+ * and the profile picture never leave the user service.
+ */
+@Data
+public class UserProfileResponse {
+    private Long id;
+    private String firstName;
+    private String lastName;
+    private String username;
+    private String email;
+    private Set<RoleResponse> roles = new LinkedHashSet<>();
+
+    @Data
+    public static class RoleResponse {
+        private Long id;
+        private String name;
+
+        public RoleResponse() {
+        }
+
+        public RoleResponse(Long id, String name) {
+            this.id = id;
+            this.name = name;
+        }
+    }
+}
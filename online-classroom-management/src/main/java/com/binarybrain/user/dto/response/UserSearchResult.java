@@ -0,0 +1,20 @@
+package com.binarybrain.user.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * The {@code UserSearchResult} is one suggestion of the directory search: enough to show the user
+ * in a typeahead and pick their id, without their email or roles.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserSearchResult {
+    private Long id;
+    private String username;
+    private String firstName;
+    private String lastName;
+    private String currentInstitute;
+}
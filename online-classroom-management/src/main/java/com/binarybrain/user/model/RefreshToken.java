@@ -5,15 +5,29 @@ import lombok.Data;
 
 import java.time.Instant;
 
+/**
+ * The refresh token of a user, one per user. Only the SHA-256 of the token is stored, so a leaked
+ * table can't be used to refresh sessions.
+ */
 @Entity
 @Data
+@Table(indexes = @Index(name = "idx_refresh_token_expiry_date", columnList = "expiryDate"))
 public class RefreshToken {
 
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @Column(nullable = false, unique = true)
+    /**
+     * Hex SHA-256 of the token handed to the client.
+     */
+    @Column(name = "token", nullable = false, unique = true)
+    private String tokenHash;
+
+    /**
+     * The token handed to the client; only known when the token is issued.
+     */
+    @Transient
     private String token;
 
     private Instant expiryDate;
@@ -23,4 +37,3 @@ public class RefreshToken {
 
 
 }
-
@@ -10,13 +10,15 @@ import lombok.Setter;
 @AllArgsConstructor
 @Getter
 @Setter
-@Table(name="UserImage64")
+@Table(name="UserImage64", indexes = @Index(name = "idx_user_image_file_path", columnList = "filePath"))
 public class UserImage {
     @Id
     private Long id;
     @Column(unique = true, nullable = false)
     String username;
-    @Lob
-    @Column(columnDefinition = "MEDIUMTEXT")
-    private String imageBase64;
+    private String filePath;
+    private String contentType;
+    private Long sizeBytes;
+    @Column(length = 64)
+    private String contentHash;
 }
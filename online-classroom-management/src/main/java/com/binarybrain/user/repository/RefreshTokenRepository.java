@@ -1,13 +1,39 @@
 package com.binarybrain.user.repository;
 
 import com.binarybrain.user.model.*;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
+import java.util.List;
 import java.util.Optional;
 
 public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Long> {
-    Optional<RefreshToken> findByToken(String token);
+    Optional<RefreshToken> findByTokenHash(String tokenHash);
+    boolean existsByTokenHash(String tokenHash);
     @Transactional
     void deleteByUser(User user);
+
+    /**
+     * Replaces the token of the user in place.
+     *
+     * @return the number of updated rows, 0 if the user has no token yet.
+     */
+    @Modifying
+    @Transactional
+    @Query("update RefreshToken r set r.tokenHash = :tokenHash, r.expiryDate = :expiryDate where r.user.id = :userId")
+    int updateByUserId(@Param("userId") Long userId, @Param("tokenHash") String tokenHash, @Param("expiryDate") Instant expiryDate);
+
+    /**
+     * Returns the ids of tokens that expired before {@code now}, oldest first, read from the
+     * {@code expiryDate} index.
+     */
+    @Query("select r.id from RefreshToken r where r.expiryDate < :now order by r.expiryDate")
+    List<Long> findExpiredIds(@Param("now") Instant now, Limit limit);
+
+    long countByExpiryDateAfter(Instant now);
 }
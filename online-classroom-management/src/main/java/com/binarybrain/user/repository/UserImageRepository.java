@@ -1,7 +1,18 @@
 package com.binarybrain.user.repository;
 
 import com.binarybrain.user.model.UserImage;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 
+import java.util.List;
+import java.util.Optional;
+
 public interface UserImageRepository extends JpaRepository<UserImage, Long> {
+    /**
+     * Returns the next page of images after {@code afterId}, for scanning the gallery in id order
+     * without loading all of it.
+     */
+    List<UserImage> findByIdGreaterThanOrderByIdAsc(Long afterId, Limit limit);
+
+    Optional<UserImage> findByFilePath(String filePath);
 }
@@ -1,14 +1,72 @@
 package com.binarybrain.user.repository;
 
 import com.binarybrain.user.model.User;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 public interface UserRepository extends JpaRepository<User, Long> {
+    /**
+     * Loads the user with its roles joined in, so authenticating a user takes a single query.
+     */
+    @EntityGraph(attributePaths = "roles")
     Optional<User> findByUsername(String username);
     Optional<User> findByEmail(String email);
 
     List<User> findAllByProfilePictureNotNull();
+
+    @Query("select u.username from User u where u.username in :usernames")
+    List<String> findExistingUsernames(@Param("usernames") Collection<String> usernames);
+
+    @Query("select u.email from User u where u.email in :emails")
+    List<String> findExistingEmails(@Param("emails") Collection<String> emails);
+
+    /**
+     * Loads the profile columns of the given users together with their role names in one query,
+     * one row per user and role (users without a role get a single row with null role columns).
+     */
+    @Query("select u.id as id, u.firstName as firstName, u.lastName as lastName, u.username as username, " +
+            "u.email as email, r.id as roleId, r.name as roleName " +
+            "from User u left join u.roles r where u.id in :ids")
+    List<UserProfileRow> findProfileRowsByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Same as {@link #findProfileRowsByIdIn}, for the users with the given usernames.
+     */
+    @Query("select u.id as id, u.firstName as firstName, u.lastName as lastName, u.username as username, " +
+            "u.email as email, r.id as roleId, r.name as roleName " +
+            "from User u left join u.roles r where u.username in :usernames")
+    List<UserProfileRow> findProfileRowsByUsernameIn(@Param("usernames") Collection<String> usernames);
+
+    /**
+     * Loads the searchable columns of the users after {@code afterId}, in id order, to build the
+     * directory search index page by page.
+     */
+    @Query("select u.id as id, u.username as username, u.firstName as firstName, u.lastName as lastName, " +
+            "u.currentInstitute as currentInstitute from User u where u.id > :afterId order by u.id")
+    List<UserSearchRow> findSearchRowsAfter(@Param("afterId") long afterId, Limit limit);
+
+    interface UserSearchRow {
+        Long getId();
+        String getUsername();
+        String getFirstName();
+        String getLastName();
+        String getCurrentInstitute();
+    }
+
+    interface UserProfileRow {
+        Long getId();
+        String getFirstName();
+        String getLastName();
+        String getUsername();
+        String getEmail();
+        Long getRoleId();
+        String getRoleName();
+    }
 }
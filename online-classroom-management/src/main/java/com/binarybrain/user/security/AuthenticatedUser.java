@@ -0,0 +1,25 @@
+package com.binarybrain.user.security;
+
+import org.springframework.security.core.userdetails.User;
+
+/**
+ * The principal of an authenticated login: the Spring Security user details together with the
+ * {@link com.binarybrain.user.model.User} entity they were loaded from, so the login can issue its
+ * tokens without looking the user up again.
+ */
+public class AuthenticatedUser extends User {
+    private final transient com.binarybrain.user.model.User user;
+
+    public AuthenticatedUser(com.binarybrain.user.model.User user) {
+        super(user.getUsername(), user.getPassword(), user.getRoles());
+        this.user = user;
+    }
+
+    public com.binarybrain.user.model.User getUser() {
+        return user;
+    }
+
+    public Long getUserId() {
+        return user.getId();
+    }
+}
@@ -27,6 +27,9 @@ import javax.crypto.SecretKey;
 @Component
 public class JwtUtil {
 
+    public static final String USER_ID_CLAIM = "userId";
+    public static final String ROLES_CLAIM = "roles";
+
     @Value("${jwt.secret}")
     private String secretKey;
 
@@ -46,13 +49,17 @@ public class JwtUtil {
     }
     /**
      * Generates a JWT token for the given user details.
+     * The user id and role names are embedded as claims so the gateway can forward them to the
+     * other services as {@code X-User-Id} and {@code X-User-Roles} headers.
      *
      * @param userDetails the user details to include in the token.
+     * @param userId      the id of the user the token is issued for.
      * @return the generated JWT token.
      */
-    public String generateToken(UserDetails userDetails) {
+    public String generateToken(UserDetails userDetails, Long userId) {
         Map<String, Object> claims = new HashMap<>();
-        claims.put("roles", userDetails.getAuthorities().stream()
+        claims.put(USER_ID_CLAIM, userId);
+        claims.put(ROLES_CLAIM, userDetails.getAuthorities().stream()
                 .map(GrantedAuthority::getAuthority)
                 .toList());
         return createToken(claims, userDetails.getUsername(), expiration);
@@ -3,6 +3,7 @@ package com.binarybrain.user.service;
 import com.binarybrain.exception.global.GlobalExceptionHandler;
 import com.binarybrain.user.model.User;
 import com.binarybrain.user.repository.UserRepository;
+import com.binarybrain.user.security.AuthenticatedUser;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
@@ -11,6 +12,9 @@ import org.springframework.stereotype.Service;
 import java.util.Optional;
 
 /**
+ * Loads users for authentication. The returned details are an {@link AuthenticatedUser} carrying
+ * the user entity, so a login needs a single lookup of the user.
+ *
  * @author Md Moinul Islam Sourav
  * @since 2025-08-02
 */
@@ -25,11 +29,15 @@ public class CustomUserDetailsService implements UserDetailsService {
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
         Optional<User> user = userRepository.findByUsername(username);
         GlobalExceptionHandler.Thrower.throwIf(user.isEmpty(),new UsernameNotFoundException("User not found: " + username));
-        return new org.springframework.security.core.userdetails.User(
-                user.get().getUsername(),
-                user.get().getPassword(),
-                user.get().getRoles()
-        );
+        return new AuthenticatedUser(user.get());
 
     }
+
+    /**
+     * Loads the user and its current roles by id, as a refresh does before issuing a new access
+     * token: refresh tokens only remember the id of their user.
+     */
+    public Optional<AuthenticatedUser> loadUserById(Long id) {
+        return userRepository.findById(id).map(AuthenticatedUser::new);
+    }
 }
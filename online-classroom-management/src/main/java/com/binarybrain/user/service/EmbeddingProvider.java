@@ -0,0 +1,14 @@
+package com.binarybrain.user.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Turns a face image into a fixed-length embedding vector, so that images of the same face end up
+ * close to each other by cosine similarity. Chosen with {@code image-search.embedding}; the only
+ * one so far is the development-only {@code PixelEmbeddingProvider}, until a face model is added.
+ */
+public interface EmbeddingProvider {
+    int dimension();
+    float[] embed(InputStream image) throws IOException;
+}
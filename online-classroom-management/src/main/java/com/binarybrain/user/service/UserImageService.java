@@ -1,5 +1,6 @@
 package com.binarybrain.user.service;
 
+import com.binarybrain.user.dto.response.PhotoResponse;
 import com.binarybrain.user.model.User;
 import org.springframework.web.multipart.MultipartFile;
 
@@ -8,6 +9,6 @@ import java.util.List;
 
 public interface UserImageService {
     String uploadPhoto(Long id, MultipartFile file, String username) throws IOException;
-    byte[] getPhoto(String filename) throws IOException;
+    PhotoResponse getPhoto(String filename, String size) throws IOException;
     List<User> searchUsersByImage(MultipartFile[] base64Image) throws IOException;
 }
@@ -0,0 +1,11 @@
+package com.binarybrain.user.service;
+
+import com.binarybrain.user.dto.response.UserImportStatus;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+public interface UserImportService {
+    UserImportStatus startImport(InputStream content, String contentType) throws IOException;
+    UserImportStatus getImportStatus(String importId);
+}
@@ -1,8 +1,12 @@
 package com.binarybrain.user.service;
 
 import com.binarybrain.user.dto.UserDto;
+import com.binarybrain.user.dto.response.UserProfileResponse;
+import com.binarybrain.user.dto.response.UserSearchResult;
 import com.binarybrain.user.model.User;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -14,4 +18,7 @@ public interface UserService {
     User registerUser(UserDto userDto);
     Optional<User> getUserProfile(String username);
     User getUserProfileById(Long id, String username);
+    List<UserProfileResponse> getUserProfilesByIds(Collection<Long> ids);
+    List<UserProfileResponse> getUserProfilesByUsernames(Collection<String> usernames);
+    List<UserSearchResult> searchUsers(String query, int limit);
 }
\ No newline at end of file
@@ -0,0 +1,309 @@
+package com.binarybrain.user.service.impl;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * An in-memory nearest-neighbour index of face embeddings, one per user.
+ *
+ * <p>Vectors are L2-normalised on the way in, so cosine similarity is a plain dot product, and are
+ * kept in one contiguous {@code float[]} with a slot per embedding. Up to {@code bruteForceLimit}
+ * live embeddings a search scans every slot; beyond that an {@link HnswGraph} is built over the
+ * slots and searched instead. Replacing or removing a user's embedding leaves a tombstone, and the
+ * slots are compacted once tombstones outnumber a quarter of the index.</p>
+ *
+ * <p>Reads run concurrently; writes take an exclusive lock.</p>
+ */
+public class FaceEmbeddingIndex {
+    private static final int MAGIC = 0x46414345;
+    private static final int VERSION = 1;
+    private static final long GRAPH_SEED = 42L;
+
+    private final int dimension;
+    private final int bruteForceLimit;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private float[] vectors;
+    private long[] userIds;
+    private int slots;
+    private final BitSet removed = new BitSet();
+    private final Map<Long, Integer> slotByUserId = new HashMap<>();
+    private HnswGraph graph;
+
+    public record Match(long userId, float similarity) {
+    }
+
+    public FaceEmbeddingIndex(int dimension, int bruteForceLimit) {
+        this.dimension = dimension;
+        this.bruteForceLimit = bruteForceLimit;
+        this.vectors = new float[16 * dimension];
+        this.userIds = new long[16];
+    }
+
+    public int dimension() {
+        return dimension;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return slotByUserId.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Adds the embedding of a user, replacing any previous one.
+     */
+    public void put(long userId, float[] embedding) {
+        float[] normalized = normalize(embedding);
+        lock.writeLock().lock();
+        try {
+            Integer previous = slotByUserId.remove(userId);
+            if (previous != null) {
+                removed.set(previous);
+            }
+            int slot = append(userId, normalized);
+            slotByUserId.put(userId, slot);
+            if (graph != null) {
+                graph.insert(slot, this::slotSimilarity);
+            } else if (slotByUserId.size() > bruteForceLimit) {
+                buildGraph();
+            }
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(long userId) {
+        lock.writeLock().lock();
+        try {
+            Integer slot = slotByUserId.remove(userId);
+            if (slot != null) {
+                removed.set(slot);
+                compactIfNeeded();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns up to {@code k} users whose embedding has at least {@code minSimilarity} cosine
+     * similarity to the query, most similar first.
+     */
+    public List<Match> search(float[] query, int k, float minSimilarity) {
+        float[] normalized = normalize(query);
+        lock.readLock().lock();
+        try {
+            List<Match> matches = new ArrayList<>();
+            if (graph == null) {
+                bruteForce(normalized, k, matches);
+            } else {
+                int ef = Math.max(64, 4 * k);
+                for (HnswGraph.Candidate candidate : graph.search(slot -> dot(normalized, 0, vectors, slot * dimension, dimension), ef, slot -> !removed.get(slot))) {
+                    if (matches.size() == k) {
+                        break;
+                    }
+                    matches.add(new Match(userIds[candidate.node()], candidate.score()));
+                }
+            }
+            matches.removeIf(match -> match.similarity() < minSimilarity);
+            return matches;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void bruteForce(float[] query, int k, List<Match> matches) {
+        PriorityQueue<Match> best = new PriorityQueue<>(Comparator.comparingDouble(Match::similarity));
+        for (int slot = 0; slot < slots; slot++) {
+            if (removed.get(slot)) {
+                continue;
+            }
+            float similarity = dot(query, 0, vectors, slot * dimension, dimension);
+            if (best.size() < k) {
+                best.add(new Match(userIds[slot], similarity));
+            } else if (similarity > best.peek().similarity()) {
+                best.poll();
+                best.add(new Match(userIds[slot], similarity));
+            }
+        }
+        matches.addAll(best);
+        matches.sort(Comparator.comparingDouble(Match::similarity).reversed());
+    }
+
+    private int append(long userId, float[] normalized) {
+        if (slots == userIds.length) {
+            userIds = Arrays.copyOf(userIds, slots * 2);
+            vectors = Arrays.copyOf(vectors, slots * 2 * dimension);
+        }
+        System.arraycopy(normalized, 0, vectors, slots * dimension, dimension);
+        userIds[slots] = userId;
+        return slots++;
+    }
+
+    private void buildGraph() {
+        graph = new HnswGraph(HnswGraph.DEFAULT_M, HnswGraph.DEFAULT_EF_CONSTRUCTION, GRAPH_SEED);
+        for (int slot = 0; slot < slots; slot++) {
+            graph.insert(slot, this::slotSimilarity);
+        }
+    }
+
+    /**
+     * Moves the live embeddings to the front of the arrays and relinks the graph, when the removed
+     * slots exceed a quarter of the index.
+     */
+    private void compactIfNeeded() {
+        int tombstones = removed.cardinality();
+        if (tombstones <= Math.max(64, slotByUserId.size() / 4)) {
+            return;
+        }
+        int live = 0;
+        for (int slot = 0; slot < slots; slot++) {
+            if (!removed.get(slot)) {
+                System.arraycopy(vectors, slot * dimension, vectors, live * dimension, dimension);
+                userIds[live] = userIds[slot];
+                slotByUserId.put(userIds[live], live);
+                live++;
+            }
+        }
+        slots = live;
+        removed.clear();
+        graph = null;
+        if (slotByUserId.size() > bruteForceLimit) {
+            buildGraph();
+        }
+    }
+
+    private float slotSimilarity(int a, int b) {
+        return dot(vectors, a * dimension, vectors, b * dimension, dimension);
+    }
+
+    /**
+     * Dot product unrolled by four with independent accumulators, which the JIT turns into SIMD
+     * instructions.
+     */
+    static float dot(float[] a, int aOffset, float[] b, int bOffset, int length) {
+        float s0 = 0;
+        float s1 = 0;
+        float s2 = 0;
+        float s3 = 0;
+        int i = 0;
+        for (; i + 3 < length; i += 4) {
+            s0 += a[aOffset + i] * b[bOffset + i];
+            s1 += a[aOffset + i + 1] * b[bOffset + i + 1];
+            s2 += a[aOffset + i + 2] * b[bOffset + i + 2];
+            s3 += a[aOffset + i + 3] * b[bOffset + i + 3];
+        }
+        for (; i < length; i++) {
+            s0 += a[aOffset + i] * b[bOffset + i];
+        }
+        return (s0 + s1) + (s2 + s3);
+    }
+
+    private float[] normalize(float[] embedding) {
+        if (embedding.length != dimension) {
+            throw new IllegalArgumentException("Expected an embedding of " + dimension + " dimensions, got " + embedding.length);
+        }
+        float norm = (float) Math.sqrt(dot(embedding, 0, embedding, 0, dimension));
+        float[] normalized = new float[dimension];
+        if (norm > 0) {
+            for (int i = 0; i < dimension; i++) {
+                normalized[i] = embedding[i] / norm;
+            }
+        }
+        return normalized;
+    }
+
+    /**
+     * Writes the index next to {@code path} and moves it into place, so a crash never leaves a
+     * partially written index behind.
+     */
+    public void writeTo(Path path) throws IOException {
+        Path directory = path.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temporary = Files.createTempFile(directory, path.getFileName().toString(), ".tmp");
+        try {
+            lock.readLock().lock();
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(dimension);
+                out.writeInt(slots);
+                for (int slot = 0; slot < slots; slot++) {
+                    out.writeLong(userIds[slot]);
+                    out.writeBoolean(removed.get(slot));
+                    for (int i = 0; i < dimension; i++) {
+                        out.writeFloat(vectors[slot * dimension + i]);
+                    }
+                }
+                out.writeBoolean(graph != null);
+                if (graph != null) {
+                    graph.writeTo(out, slots);
+                }
+            } finally {
+                lock.readLock().unlock();
+            }
+            Files.move(temporary, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * Reads an index written by {@link #writeTo(Path)}.
+     *
+     * @return the index, or empty if there is no file or it was written for another dimension.
+     * @throws IOException if the file can't be read or is truncated.
+     */
+    public static Optional<FaceEmbeddingIndex> readFrom(Path path, int dimension, int bruteForceLimit) throws IOException {
+        if (!Files.exists(path)) {
+            return Optional.empty();
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION || in.readInt() != dimension) {
+                return Optional.empty();
+            }
+            int slots = in.readInt();
+            FaceEmbeddingIndex index = new FaceEmbeddingIndex(dimension, bruteForceLimit);
+            index.userIds = new long[Math.max(16, slots)];
+            index.vectors = new float[index.userIds.length * dimension];
+            for (int slot = 0; slot < slots; slot++) {
+                index.userIds[slot] = in.readLong();
+                if (in.readBoolean()) {
+                    index.removed.set(slot);
+                } else {
+                    index.slotByUserId.put(index.userIds[slot], slot);
+                }
+                for (int i = 0; i < dimension; i++) {
+                    index.vectors[slot * dimension + i] = in.readFloat();
+                }
+            }
+            index.slots = slots;
+            if (in.readBoolean()) {
+                index.graph = HnswGraph.readFrom(in, slots, GRAPH_SEED);
+            } else if (index.slotByUserId.size() > bruteForceLimit) {
+                index.buildGraph();
+            }
+            return Optional.of(index);
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package com.binarybrain.user.service.impl;
+
+import com.binarybrain.user.model.User;
+import com.binarybrain.user.model.UserImage;
+import com.binarybrain.user.repository.UserImageRepository;
+import com.binarybrain.user.repository.UserRepository;
+import com.binarybrain.user.service.EmbeddingProvider;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Searches users by face against a local {@link FaceEmbeddingIndex} instead of the OpenCV API.
+ *
+ * <p>The index is loaded from {@code image-search.index-path} at startup, or rebuilt from the stored
+ * images when there is no usable file. Uploaded photos are embedded and indexed right away, and the
+ * index is written back in the background, coalescing uploads that arrive while a write is pending.
+ * Only enabled with {@code image-search.engine=local}.</p>
+ */
+@Service
+@ConditionalOnProperty(name = "image-search.engine", havingValue = "local")
+public class FaceSearchService {
+    private static final Logger log = LoggerFactory.getLogger(FaceSearchService.class);
+    private static final int REBUILD_PAGE_SIZE = 500;
+
+    @Value("${image-search.index-path:./uploads/index/faces.idx}")
+    private String indexPath = "./uploads/index/faces.idx";
+
+    @Value("${image-search.brute-force-limit:5000}")
+    private int bruteForceLimit = 5000;
+
+    @Value("${image-search.min-similarity:0.9}")
+    private float minSimilarity = 0.9f;
+
+    @Value("${image-search.max-matches:10}")
+    private int maxMatches = 10;
+
+    private final EmbeddingProvider embeddingProvider;
+    private final UserRepository userRepository;
+    private final UserImageRepository imageRepository;
+    private final PhotoStorage photoStorage;
+    private final AtomicBoolean savePending = new AtomicBoolean();
+    private ExecutorService saveExecutor;
+    private FaceEmbeddingIndex index;
+
+    public FaceSearchService(EmbeddingProvider embeddingProvider, UserRepository userRepository,
+                             UserImageRepository imageRepository, PhotoStorage photoStorage) {
+        this.embeddingProvider = embeddingProvider;
+        this.userRepository = userRepository;
+        this.imageRepository = imageRepository;
+        this.photoStorage = photoStorage;
+    }
+
+    @PostConstruct
+    void init() throws IOException {
+        saveExecutor = Executors.newSingleThreadExecutor();
+        Path path = Paths.get(indexPath);
+        try {
+            index = FaceEmbeddingIndex.readFrom(path, embeddingProvider.dimension(), bruteForceLimit).orElse(null);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Ignoring unreadable face index {}: {}", path, e.getMessage());
+        }
+        if (index == null) {
+            index = rebuild();
+            index.writeTo(path);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        saveExecutor.shutdown();
+        saveExecutor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    private FaceEmbeddingIndex rebuild() throws IOException {
+        FaceEmbeddingIndex rebuilt = new FaceEmbeddingIndex(embeddingProvider.dimension(), bruteForceLimit);
+        List<UserImage> page;
+        long afterId = 0;
+        do {
+            page = imageRepository.findByIdGreaterThanOrderByIdAsc(afterId, Limit.of(REBUILD_PAGE_SIZE));
+            for (UserImage userImage : page) {
+                if (userImage.getFilePath() == null) {
+                    continue;
+                }
+                try (InputStream image = photoStorage.open(userImage.getFilePath())) {
+                    rebuilt.put(userImage.getId(), embeddingProvider.embed(image));
+                } catch (NoSuchFileException e) {
+                    log.warn("Photo of user {} is missing, leaving it out of the face index", userImage.getId());
+                }
+            }
+            if (!page.isEmpty()) {
+                afterId = page.getLast().getId();
+            }
+        } while (page.size() == REBUILD_PAGE_SIZE);
+        return rebuilt;
+    }
+
+    /**
+     * Indexes the photo of a user, replacing the previous one.
+     */
+    public void index(Long userId, InputStream image) throws IOException {
+        index.put(userId, embeddingProvider.embed(image));
+        scheduleSave();
+    }
+
+    private void scheduleSave() {
+        if (savePending.compareAndSet(false, true)) {
+            saveExecutor.execute(() -> {
+                savePending.set(false);
+                try {
+                    index.writeTo(Paths.get(indexPath));
+                } catch (IOException e) {
+                    log.warn("Failed to save face index {}: {}", indexPath, e.getMessage());
+                }
+            });
+        }
+    }
+
+    /**
+     * Returns the users whose indexed photo is similar to any of the given images, most similar
+     * first and at most {@code image-search.max-matches} of them.
+     *
+     * @param images the probe images.
+     * @return the matching users.
+     * @throws IOException if an image can't be read.
+     */
+    public List<User> searchByImage(MultipartFile[] images) throws IOException {
+        Map<Long, Float> bestSimilarity = new HashMap<>();
+        for (MultipartFile image : images) {
+            float[] probe;
+            try (InputStream content = image.getInputStream()) {
+                probe = embeddingProvider.embed(content);
+            }
+            for (FaceEmbeddingIndex.Match match : index.search(probe, maxMatches, minSimilarity)) {
+                bestSimilarity.merge(match.userId(), match.similarity(), Math::max);
+            }
+        }
+        List<Long> rankedIds = bestSimilarity.entrySet().stream()
+                .sorted(Map.Entry.<Long, Float>comparingByValue().reversed())
+                .limit(maxMatches)
+                .map(Map.Entry::getKey)
+                .toList();
+
+        Map<Long, User> users = userRepository.findAllById(rankedIds).stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+        return rankedIds.stream()
+                .map(users::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+}
@@ -0,0 +1,246 @@
+package com.binarybrain.user.service.impl;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.SplittableRandom;
+import java.util.function.IntPredicate;
+
+/**
+ * A hierarchical navigable small world graph over the slots of a {@link FaceEmbeddingIndex}. The
+ * graph only stores links between slot numbers; similarities are computed by the caller, so the
+ * vectors stay in the index's contiguous array.
+ *
+ * <p>Each node keeps up to {@code m} links per upper level and {@code 2m} on level 0, stored as
+ * {@code links[node][level] = {count, neighbour...}}. Not thread-safe; the index guards it.</p>
+ */
+class HnswGraph {
+    static final int DEFAULT_M = 16;
+    static final int DEFAULT_EF_CONSTRUCTION = 200;
+
+    /** Similarity of a node to the vector being searched for. */
+    interface Scorer {
+        float score(int node);
+    }
+
+    /** Similarity of two nodes of the graph. */
+    interface PairSimilarity {
+        float similarity(int a, int b);
+    }
+
+    record Candidate(int node, float score) {
+    }
+
+    private static final Comparator<Candidate> BEST_FIRST = Comparator.comparingDouble(Candidate::score).reversed();
+    private static final Comparator<Candidate> WORST_FIRST = Comparator.comparingDouble(Candidate::score);
+
+    private final int m;
+    private final int efConstruction;
+    private final double levelMultiplier;
+    private final SplittableRandom random;
+    private int[][][] links = new int[16][][];
+    private int entryPoint = -1;
+    private int maxLevel = -1;
+
+    HnswGraph(int m, int efConstruction, long seed) {
+        this.m = m;
+        this.efConstruction = efConstruction;
+        this.levelMultiplier = 1 / Math.log(m);
+        this.random = new SplittableRandom(seed);
+    }
+
+    /**
+     * Links {@code node} into the graph. Nodes must be inserted at most once.
+     */
+    void insert(int node, PairSimilarity similarity) {
+        int level = (int) (-Math.log(1 - random.nextDouble()) * levelMultiplier);
+        ensureCapacity(node + 1);
+        links[node] = new int[level + 1][];
+        for (int l = 0; l <= level; l++) {
+            links[node][l] = new int[1 + maxLinks(l)];
+        }
+        if (entryPoint < 0) {
+            entryPoint = node;
+            maxLevel = level;
+            return;
+        }
+
+        Scorer toNode = other -> similarity.similarity(node, other);
+        int current = entryPoint;
+        for (int l = maxLevel; l > level; l--) {
+            current = greedyClosest(toNode, current, l);
+        }
+        for (int l = Math.min(level, maxLevel); l >= 0; l--) {
+            List<Candidate> nearest = searchLayer(toNode, current, efConstruction, l, n -> true);
+            for (int i = 0; i < Math.min(m, nearest.size()); i++) {
+                int neighbour = nearest.get(i).node();
+                addLink(node, neighbour, l, similarity);
+                addLink(neighbour, node, l, similarity);
+            }
+            current = nearest.getFirst().node();
+        }
+        if (level > maxLevel) {
+            maxLevel = level;
+            entryPoint = node;
+        }
+    }
+
+    /**
+     * Returns up to {@code ef} accepted nodes closest to the query, best first. Rejected nodes are
+     * still traversed, so removed slots don't disconnect the graph.
+     */
+    List<Candidate> search(Scorer query, int ef, IntPredicate accept) {
+        if (entryPoint < 0) {
+            return List.of();
+        }
+        int current = entryPoint;
+        for (int l = maxLevel; l > 0; l--) {
+            current = greedyClosest(query, current, l);
+        }
+        return searchLayer(query, current, ef, 0, accept);
+    }
+
+    private int greedyClosest(Scorer query, int start, int level) {
+        int current = start;
+        float currentScore = query.score(current);
+        boolean improved = true;
+        while (improved) {
+            improved = false;
+            int[] neighbours = links[current][level];
+            for (int i = 1; i <= neighbours[0]; i++) {
+                float score = query.score(neighbours[i]);
+                if (score > currentScore) {
+                    current = neighbours[i];
+                    currentScore = score;
+                    improved = true;
+                }
+            }
+        }
+        return current;
+    }
+
+    private List<Candidate> searchLayer(Scorer query, int start, int ef, int level, IntPredicate accept) {
+        BitSet visited = new BitSet(links.length);
+        PriorityQueue<Candidate> candidates = new PriorityQueue<>(BEST_FIRST);
+        PriorityQueue<Candidate> results = new PriorityQueue<>(WORST_FIRST);
+
+        Candidate first = new Candidate(start, query.score(start));
+        visited.set(start);
+        candidates.add(first);
+        if (accept.test(start)) {
+            results.add(first);
+        }
+        while (!candidates.isEmpty()) {
+            Candidate closest = candidates.poll();
+            if (results.size() >= ef && closest.score() < results.peek().score()) {
+                break;
+            }
+            int[] neighbours = links[closest.node()][level];
+            for (int i = 1; i <= neighbours[0]; i++) {
+                int neighbour = neighbours[i];
+                if (visited.get(neighbour)) {
+                    continue;
+                }
+                visited.set(neighbour);
+                float score = query.score(neighbour);
+                if (results.size() < ef || score > results.peek().score()) {
+                    candidates.add(new Candidate(neighbour, score));
+                    if (accept.test(neighbour)) {
+                        results.add(new Candidate(neighbour, score));
+                        if (results.size() > ef) {
+                            results.poll();
+                        }
+                    }
+                }
+            }
+        }
+        List<Candidate> nearest = new ArrayList<>(results);
+        nearest.sort(BEST_FIRST);
+        return nearest;
+    }
+
+    /**
+     * Adds {@code to} to the links of {@code from}; when the list is full it replaces the least
+     * similar neighbour, if {@code to} is closer than that one.
+     */
+    private void addLink(int from, int to, int level, PairSimilarity similarity) {
+        int[] neighbours = links[from][level];
+        int count = neighbours[0];
+        if (count < neighbours.length - 1) {
+            neighbours[count + 1] = to;
+            neighbours[0] = count + 1;
+            return;
+        }
+        int worst = -1;
+        float worstScore = similarity.similarity(from, to);
+        for (int i = 1; i <= count; i++) {
+            float score = similarity.similarity(from, neighbours[i]);
+            if (score < worstScore) {
+                worst = i;
+                worstScore = score;
+            }
+        }
+        if (worst > 0) {
+            neighbours[worst] = to;
+        }
+    }
+
+    private int maxLinks(int level) {
+        return level == 0 ? 2 * m : m;
+    }
+
+    private void ensureCapacity(int nodes) {
+        if (nodes > links.length) {
+            links = Arrays.copyOf(links, Math.max(nodes, links.length * 2));
+        }
+    }
+
+    void writeTo(DataOutputStream out, int nodes) throws IOException {
+        out.writeInt(m);
+        out.writeInt(efConstruction);
+        out.writeInt(entryPoint);
+        out.writeInt(maxLevel);
+        for (int node = 0; node < nodes; node++) {
+            int[][] levels = node < links.length ? links[node] : null;
+            out.writeInt(levels == null ? 0 : levels.length);
+            if (levels == null) {
+                continue;
+            }
+            for (int[] neighbours : levels) {
+                out.writeInt(neighbours[0]);
+                for (int i = 1; i <= neighbours[0]; i++) {
+                    out.writeInt(neighbours[i]);
+                }
+            }
+        }
+    }
+
+    static HnswGraph readFrom(DataInputStream in, int nodes, long seed) throws IOException {
+        HnswGraph graph = new HnswGraph(in.readInt(), in.readInt(), seed);
+        graph.entryPoint = in.readInt();
+        graph.maxLevel = in.readInt();
+        graph.ensureCapacity(nodes);
+        for (int node = 0; node < nodes; node++) {
+            int levelCount = in.readInt();
+            if (levelCount == 0) {
+                continue;
+            }
+            graph.links[node] = new int[levelCount][];
+            for (int l = 0; l < levelCount; l++) {
+                int[] neighbours = new int[1 + graph.maxLinks(l)];
+                neighbours[0] = in.readInt();
+                for (int i = 1; i <= neighbours[0]; i++) {
+                    neighbours[i] = in.readInt();
+                }
+                graph.links[node][l] = neighbours;
+            }
+        }
+        return graph;
+    }
+}
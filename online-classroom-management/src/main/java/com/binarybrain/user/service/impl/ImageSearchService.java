@@ -1,13 +1,15 @@
 package com.binarybrain.user.service.impl;
 
-import com.binarybrain.exception.ResourceNotFoundException;
 import com.binarybrain.exception.global.GlobalExceptionHandler;
 import com.binarybrain.user.model.User;
 import com.binarybrain.user.model.UserImage;
 import com.binarybrain.user.repository.UserImageRepository;
 import com.binarybrain.user.repository.UserRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import org.json.JSONObject;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestTemplate;
@@ -16,47 +18,163 @@ import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Searches users by face through the OpenCV {@code /compare} API.
+ *
+ * <p>{@code /compare} returns a single score for the probe against the best matching image of the
+ * gallery, so the stored images are sent in chunks of {@code opencv.compare.chunk-size}. A chunk
+ * scoring below the threshold rules out all of its images with one call; a chunk above it is split
+ * in halves until the matching images are found. The chunks are compared concurrently on a pool of
+ * {@code opencv.compare.parallelism} threads, and the search stops once
+ * {@code opencv.compare.max-matches} users have matched.</p>
+ *
+ * <p>The gallery is read in pages of {@code opencv.compare.page-size} rows, and each image is read
+ * from {@link PhotoStorage} only while its chunk is being sent, so a search holds a page of
+ * metadata and the chunks in flight rather than every stored image.</p>
+ */
 @Service
 public class ImageSearchService {
+    private static final double MATCH_THRESHOLD = 0.75;
 
     @Value("${opencv.apikey}")
     private String apiDeveloperKey;
 
+    @Value("${opencv.url:https://sg.opencv.fr}")
+    private String apiUrl = "https://sg.opencv.fr";
+
+    @Value("${opencv.compare.chunk-size:16}")
+    private int chunkSize = 16;
+
+    @Value("${opencv.compare.parallelism:8}")
+    private int parallelism = 8;
+
+    @Value("${opencv.compare.max-matches:10}")
+    private int maxMatches = 10;
+
+    @Value("${opencv.compare.page-size:512}")
+    private int pageSize = 512;
+
     private final RestTemplate restTemplate;
     private final UserRepository userRepository;
     private final UserImageRepository imageRepository;
+    private final PhotoStorage photoStorage;
+    private ExecutorService compareExecutor;
 
-    public ImageSearchService(RestTemplate restTemplate, UserRepository userRepository, UserImageRepository imageRepository) {
+    public ImageSearchService(RestTemplate restTemplate, UserRepository userRepository, UserImageRepository imageRepository,
+                              PhotoStorage photoStorage) {
         this.restTemplate = restTemplate;
         this.userRepository = userRepository;
         this.imageRepository = imageRepository;
+        this.photoStorage = photoStorage;
+    }
+
+    @PostConstruct
+    void init() {
+        compareExecutor = Executors.newFixedThreadPool(parallelism);
     }
 
+    @PreDestroy
+    void shutdown() {
+        compareExecutor.shutdownNow();
+    }
+
+    /**
+     * Returns the users whose stored image matches any of the given images, in id order and at most
+     * {@code opencv.compare.max-matches} of them.
+     *
+     * @param image the probe images.
+     * @return the matching users.
+     * @throws IOException if the OpenCV API can't be reached or rejects a request.
+     */
     public List<User> searchByImage(MultipartFile[] image) throws IOException {
         List<String> imageBase64 = convertToBase64List(image);
 
         HttpHeaders headers = buildHeader();
 
-        List<User> userList = userRepository.findAllByProfilePictureNotNull();
-        List<UserImage> userImageList = getAllUserImage64();
-        List<User> predictPersons = new ArrayList<>();
-
-        int i=0;
+        Set<Long> matchedUserIds = ConcurrentHashMap.newKeySet();
 
-        for(UserImage userImage: userImageList){
-            String dbImage64 = userImage.getImageBase64();
+        List<UserImage> page;
+        long afterId = 0;
+        do {
+            page = imageRepository.findByIdGreaterThanOrderByIdAsc(afterId, Limit.of(pageSize));
+            comparePage(imageBase64, page, headers, matchedUserIds);
+            if (!page.isEmpty()) {
+                afterId = page.getLast().getId();
+            }
+        } while (page.size() == pageSize && matchedUserIds.size() < maxMatches);
+
+        List<Long> rankedIds = matchedUserIds.stream().sorted().limit(maxMatches).toList();
+        Map<Long, User> matchedUsers = userRepository.findAllById(rankedIds).stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+        return rankedIds.stream()
+                .map(matchedUsers::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
 
-            Map<String, Object> requestBody = buildJsonPayload(imageBase64, dbImage64);
-            HttpEntity<Map<String, Object>> entity = new HttpEntity<>(requestBody, headers);
+    private void comparePage(List<String> imageBase64, List<UserImage> page, HttpHeaders headers,
+                             Set<Long> matchedUserIds) throws IOException {
+        List<UserImage> stored = page.stream().filter(userImage -> userImage.getFilePath() != null).toList();
+        List<Future<Void>> comparisons = new ArrayList<>();
+        for (int from = 0; from < stored.size(); from += chunkSize) {
+            List<UserImage> chunk = stored.subList(from, Math.min(from + chunkSize, stored.size()));
+            comparisons.add(compareExecutor.submit(() -> {
+                collectMatches(imageBase64, chunk, headers, matchedUserIds, false);
+                return null;
+            }));
+        }
+        awaitAll(comparisons);
+    }
 
-            double matchingScore = callOpenCvApi(entity);
+    /**
+     * Finds the matching images of {@code chunk}. Since the score is that of the best gallery image,
+     * a matching chunk whose first half doesn't match must match in its second half, so that half is
+     * split further without being compared as a whole.
+     *
+     * @return whether any image of the chunk matched.
+     */
+    private boolean collectMatches(List<String> imageBase64, List<UserImage> chunk, HttpHeaders headers,
+                                   Set<Long> matchedUserIds, boolean knownToMatch) throws IOException {
+        if (matchedUserIds.size() >= maxMatches) {
+            return false;
+        }
+        if (!knownToMatch) {
+            Map<String, Object> requestBody = buildJsonPayload(imageBase64, chunk);
+            double matchingScore = callOpenCvApi(new HttpEntity<>(requestBody, headers));
+            if (matchingScore < MATCH_THRESHOLD) {
+                return false;
+            }
+        }
+        if (chunk.size() == 1) {
+            matchedUserIds.add(chunk.getFirst().getId());
+            return true;
+        }
+        int middle = chunk.size() / 2;
+        boolean firstHalfMatched = collectMatches(imageBase64, chunk.subList(0, middle), headers, matchedUserIds, false);
+        boolean secondHalfMatched = collectMatches(imageBase64, chunk.subList(middle, chunk.size()), headers, matchedUserIds, !firstHalfMatched);
+        return firstHalfMatched || secondHalfMatched;
+    }
 
-            if(matchingScore >= 0.75) {
-                predictPersons.add(userList.get(i));
+    private void awaitAll(List<Future<Void>> comparisons) throws IOException {
+        try {
+            for (Future<Void> comparison : comparisons) {
+                comparison.get();
+            }
+        } catch (ExecutionException e) {
+            comparisons.forEach(comparison -> comparison.cancel(true));
+            if (e.getCause() instanceof IOException ioException) {
+                throw ioException;
             }
-            ++i;
+            throw new IOException("Failed to search! " + e.getCause().getMessage(), e.getCause());
+        } catch (InterruptedException e) {
+            comparisons.forEach(comparison -> comparison.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new IOException("Image search was interrupted", e);
         }
-        return predictPersons;
     }
 
     private HttpHeaders buildHeader(){
@@ -67,16 +185,20 @@ public class ImageSearchService {
         return headers;
     }
 
-    private Map<String, Object> buildJsonPayload(List<String> imageBase64, String dbImage64){
+    private Map<String, Object> buildJsonPayload(List<String> imageBase64, List<UserImage> chunk) throws IOException {
+        List<String> gallery = new ArrayList<>(chunk.size());
+        for (UserImage userImage : chunk) {
+            gallery.add(photoStorage.readBase64(userImage.getFilePath()));
+        }
         Map<String, Object> requestBody = new HashMap<>();
-        requestBody.put("gallery", Collections.singletonList(dbImage64));
+        requestBody.put("gallery", gallery);
         requestBody.put("probe", imageBase64);
         requestBody.put("search_mode", "FAST");
         return requestBody;
     }
 
     private double callOpenCvApi(HttpEntity<Map<String, Object>> entity) throws IOException {
-        String url = "https://sg.opencv.fr/compare";
+        String url = apiUrl + "/compare";
         try {
             ResponseEntity<String> response = restTemplate.exchange(url, HttpMethod.POST, entity, String.class);
             GlobalExceptionHandler.Thrower.throwIf(response.getStatusCode() != HttpStatus.OK,new IOException("Failed to search! " + response.getStatusCode()));
@@ -87,10 +209,6 @@ public class ImageSearchService {
         }
     }
 
-    public List<UserImage> getAllUserImage64() throws ResourceNotFoundException {
-        return imageRepository.findAll();
-    }
-
     private List<String> convertToBase64List(MultipartFile[] images){
         return Arrays.stream(images)
                 .map(image -> {
@@ -0,0 +1,119 @@
+package com.binarybrain.user.service.impl;
+
+import com.binarybrain.exception.global.GlobalExceptionHandler;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Keeps profile photos as plain files under {@code photo.upload-dir}; the database only records
+ * their file name and metadata in {@code UserImage}.
+ *
+ * <p>Uploads are streamed into a temporary file next to the target and moved into place, so a photo
+ * is never held in memory as a whole and readers never see a partially written file.</p>
+ */
+@Component
+public class PhotoStorage {
+    /**
+     * How many leading bytes {@link #contentTypeOf(byte[])} needs to tell the type of a photo.
+     */
+    public static final int SIGNATURE_LENGTH = 8;
+    private static final Map<String, byte[]> PHOTO_SIGNATURES = Map.of(
+            "image/png", new byte[]{(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'},
+            "image/jpeg", new byte[]{(byte) 0xFF, (byte) 0xD8, (byte) 0xFF}
+    );
+
+    private final Path directory;
+
+    /**
+     * A written photo: its size and the hex SHA-256 of its content, computed while streaming.
+     */
+    public record StoredPhoto(long size, String sha256) {
+    }
+
+    public PhotoStorage(@Value("${photo.upload-dir}") String photoDirectory) {
+        this.directory = Paths.get(photoDirectory).toAbsolutePath().normalize();
+    }
+
+    /**
+     * Streams {@code content} into the photo {@code fileName}, replacing any previous one.
+     *
+     * @return the size and content hash of the written photo.
+     */
+    public StoredPhoto store(String fileName, InputStream content) throws IOException {
+        Path target = resolve(fileName);
+        Files.createDirectories(directory);
+        Path temporary = Files.createTempFile(directory, fileName, ".tmp");
+        try {
+            DigestInputStream digesting = new DigestInputStream(content, sha256());
+            long size = Files.copy(digesting, temporary, StandardCopyOption.REPLACE_EXISTING);
+            Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            return new StoredPhoto(size, HexFormat.of().formatHex(digesting.getMessageDigest().digest()));
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    public boolean exists(String fileName) throws IOException {
+        return Files.isRegularFile(resolve(fileName));
+    }
+
+    public InputStream open(String fileName) throws IOException {
+        return Files.newInputStream(resolve(fileName));
+    }
+
+    public String readBase64(String fileName) throws IOException {
+        return Base64.getEncoder().encodeToString(Files.readAllBytes(resolve(fileName)));
+    }
+
+    /**
+     * The content type of a photo starting with {@code header}, {@code image/png} or {@code image/jpeg},
+     * going by its magic bytes rather than the content type the client sent; empty for anything else.
+     */
+    public static Optional<String> contentTypeOf(byte[] header) {
+        return PHOTO_SIGNATURES.entrySet().stream()
+                .filter(signature -> header.length >= signature.getValue().length
+                        && Arrays.equals(header, 0, signature.getValue().length, signature.getValue(), 0, signature.getValue().length))
+                .map(Map.Entry::getKey)
+                .findFirst();
+    }
+
+    /**
+     * Whether {@code contentType} is one {@link #contentTypeOf(byte[])} can return, and so safe to serve a photo as.
+     */
+    public static boolean isPhotoType(String contentType) {
+        return PHOTO_SIGNATURES.containsKey(contentType);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * Resolves a photo file name, rejecting names that would point outside the photo directory.
+     */
+    public Path resolve(String fileName) throws IOException {
+        GlobalExceptionHandler.Thrower.throwIf(fileName.contains("..") || fileName.contains("/") || fileName.contains("\\"), new IllegalArgumentException("Invalid filename!"));
+        Path path = directory.resolve(fileName).normalize();
+        GlobalExceptionHandler.Thrower.throwIf(!path.startsWith(directory), new IOException("Entry is outside of the target directory"));
+        return path;
+    }
+}
@@ -0,0 +1,141 @@
+package com.binarybrain.user.service.impl;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import javax.imageio.ImageIO;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Generates the small and medium thumbnails of profile photos, stored as PNG next to the photo as
+ * {@code <name>-small.png} and {@code <name>-medium.png}.
+ *
+ * <p>Thumbnails are generated in the background after an upload, or the first time a missing one
+ * is requested; until then the original photo is served. Requests beyond the queue are dropped,
+ * since the next request for the thumbnail queues it again.</p>
+ */
+@Component
+public class PhotoThumbnails {
+    private static final Logger log = LoggerFactory.getLogger(PhotoThumbnails.class);
+
+    public enum Size {
+        SMALL(64), MEDIUM(256);
+
+        private final int maxSide;
+
+        Size(int maxSide) {
+            this.maxSide = maxSide;
+        }
+
+        public String suffix() {
+            return name().toLowerCase();
+        }
+
+        public static Size of(String name) {
+            return Arrays.stream(values())
+                    .filter(size -> size.suffix().equalsIgnoreCase(name))
+                    .findFirst()
+                    .orElseThrow(() -> new IllegalArgumentException("Unknown photo size: " + name));
+        }
+    }
+
+    private final PhotoStorage photoStorage;
+    private final ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 2, 60, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(1000));
+    private final Set<String> pending = ConcurrentHashMap.newKeySet();
+
+    public PhotoThumbnails(PhotoStorage photoStorage) {
+        this.photoStorage = photoStorage;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    public static String nameOf(String fileName, Size size) {
+        int dot = fileName.lastIndexOf('.');
+        String baseName = dot < 0 ? fileName : fileName.substring(0, dot);
+        return baseName + "-" + size.suffix() + ".png";
+    }
+
+    /**
+     * Queues the generation of every thumbnail of the photo, unless it is already queued.
+     */
+    public void generateAsync(String fileName) {
+        if (!pending.add(fileName)) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    generate(fileName);
+                } catch (IOException | RuntimeException e) {
+                    log.warn("Failed to generate thumbnails of {}: {}", fileName, e.getMessage());
+                } finally {
+                    pending.remove(fileName);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            pending.remove(fileName);
+        }
+    }
+
+    /**
+     * Removes the thumbnails of a photo that is being replaced, so they are never served for the
+     * new photo.
+     */
+    public void delete(String fileName) throws IOException {
+        for (Size size : Size.values()) {
+            Files.deleteIfExists(photoStorage.resolve(nameOf(fileName, size)));
+        }
+    }
+
+    /**
+     * Writes every thumbnail of the photo, scaled to fit its size with the aspect ratio kept.
+     * Photos that can't be decoded get no thumbnails.
+     */
+    void generate(String fileName) throws IOException {
+        BufferedImage original;
+        try (InputStream photo = photoStorage.open(fileName)) {
+            original = ImageIO.read(photo);
+        }
+        if (original == null) {
+            return;
+        }
+        for (Size size : Size.values()) {
+            ByteArrayOutputStream png = new ByteArrayOutputStream();
+            ImageIO.write(scale(original, size.maxSide), "png", png);
+            photoStorage.store(nameOf(fileName, size), new ByteArrayInputStream(png.toByteArray()));
+        }
+    }
+
+    private static BufferedImage scale(BufferedImage original, int maxSide) {
+        double ratio = Math.min(1.0, (double) maxSide / Math.max(original.getWidth(), original.getHeight()));
+        int width = Math.max(1, (int) Math.round(original.getWidth() * ratio));
+        int height = Math.max(1, (int) Math.round(original.getHeight() * ratio));
+        BufferedImage scaled = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D graphics = scaled.createGraphics();
+        graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+        graphics.drawImage(original, 0, 0, width, height, null);
+        graphics.dispose();
+        return scaled;
+    }
+}
@@ -0,0 +1,84 @@
+package com.binarybrain.user.service.impl;
+
+import com.binarybrain.user.service.EmbeddingProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.imageio.ImageIO;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.SplittableRandom;
+
+/**
+ * A deterministic {@link EmbeddingProvider} that needs no model: the image is scaled down to a
+ * 16x16 grayscale thumbnail whose mean-centred pixels form the vector. It recognises the same or
+ * a re-encoded photo rather than the same face in a new photo, which is enough for development and
+ * tests, so it is only enabled by the {@code local-face-search} profile. Bytes that aren't a
+ * readable image get a pseudo-random vector seeded by their SHA-256.
+ */
+@Component
+@ConditionalOnProperty(name = "image-search.embedding", havingValue = "pixel")
+public class PixelEmbeddingProvider implements EmbeddingProvider {
+    private static final int SIDE = 16;
+
+    @Override
+    public int dimension() {
+        return SIDE * SIDE;
+    }
+
+    @Override
+    public float[] embed(InputStream image) throws IOException {
+        DigestInputStream digesting = new DigestInputStream(image, sha256());
+        BufferedImage decoded = ImageIO.read(digesting);
+        if (decoded != null) {
+            return thumbnail(decoded);
+        }
+        digesting.transferTo(OutputStream.nullOutputStream());
+        return hashed(digesting.getMessageDigest().digest());
+    }
+
+    private float[] thumbnail(BufferedImage image) {
+        BufferedImage gray = new BufferedImage(SIDE, SIDE, BufferedImage.TYPE_BYTE_GRAY);
+        Graphics2D graphics = gray.createGraphics();
+        graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        graphics.drawImage(image, 0, 0, SIDE, SIDE, null);
+        graphics.dispose();
+
+        float[] vector = new float[dimension()];
+        float mean = 0;
+        for (int i = 0; i < vector.length; i++) {
+            vector[i] = gray.getRaster().getSample(i % SIDE, i / SIDE, 0);
+            mean += vector[i];
+        }
+        mean /= vector.length;
+        for (int i = 0; i < vector.length; i++) {
+            vector[i] -= mean;
+        }
+        return vector;
+    }
+
+    private float[] hashed(byte[] digest) {
+        SplittableRandom random = new SplittableRandom(ByteBuffer.wrap(digest).getLong());
+        float[] vector = new float[dimension()];
+        for (int i = 0; i < vector.length; i++) {
+            vector[i] = (float) (random.nextDouble() * 2 - 1);
+        }
+        return vector;
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
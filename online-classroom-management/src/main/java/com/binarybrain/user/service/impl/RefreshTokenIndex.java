@@ -0,0 +1,136 @@
+package com.binarybrain.user.service.impl;
+
+import com.binarybrain.user.model.RefreshToken;
+import com.binarybrain.user.model.User;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+
+/**
+ * Bounded in-memory index of active refresh tokens by hash, so most refreshes only check that the
+ * hash is still stored instead of loading the token from the database. Every entry expires together with its token, and the least recently
+ * used ones are evicted beyond {@code jwt.refresh.index-size}; a token missing from the index is
+ * looked up in the database and indexed again.
+ *
+ * <p>The index also remembers the latest token of each user, so a stored token replaced by a newer
+ * login is recognised as superseded even before the new token is written.</p>
+ *
+ * <p>Indexed tokens keep only the id of their user; the user and its roles are loaded again when a
+ * token is used, so a change of roles applies to the next refresh.</p>
+ */
+@Component
+public class RefreshTokenIndex {
+    private final Cache<String, RefreshToken> byHash;
+    private final Cache<Long, RefreshToken> latestByUser;
+
+    public RefreshTokenIndex(@Value("${jwt.refresh.index-size:100000}") long maxSize) {
+        this.byHash = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new UntilTokenExpiry<String>())
+                .build();
+        this.latestByUser = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new UntilTokenExpiry<Long>())
+                .build();
+    }
+
+    /**
+     * Indexes a newly issued token as the latest one of its user, dropping the previous one.
+     */
+    public void put(RefreshToken issued) {
+        RefreshToken token = withUserIdOnly(issued);
+        RefreshToken previous = latestByUser.asMap().put(token.getUser().getId(), token);
+        if (previous != null && !previous.getTokenHash().equals(token.getTokenHash())) {
+            byHash.invalidate(previous.getTokenHash());
+        }
+        byHash.put(token.getTokenHash(), token);
+    }
+
+    /**
+     * Indexes a token read from the database, unless a newer token of its user is known.
+     */
+    public void putIfLatest(RefreshToken stored) {
+        RefreshToken token = withUserIdOnly(stored);
+        RefreshToken latest = latestByUser.asMap().putIfAbsent(token.getUser().getId(), token);
+        if (latest == null || latest.getTokenHash().equals(token.getTokenHash())) {
+            byHash.put(token.getTokenHash(), token);
+        }
+    }
+
+    public Optional<RefreshToken> find(String tokenHash) {
+        return Optional.ofNullable(byHash.getIfPresent(tokenHash));
+    }
+
+    /**
+     * Tells whether a newer token of the user has been issued, which makes the stored one obsolete.
+     */
+    public boolean isSuperseded(RefreshToken stored) {
+        RefreshToken latest = latestByUser.getIfPresent(stored.getUser().getId());
+        return latest != null && !latest.getTokenHash().equals(stored.getTokenHash());
+    }
+
+    public void remove(RefreshToken token) {
+        byHash.invalidate(token.getTokenHash());
+        if (token.getUser() != null) {
+            latestByUser.asMap().computeIfPresent(token.getUser().getId(),
+                    (userId, latest) -> latest.getTokenHash().equals(token.getTokenHash()) ? null : latest);
+        }
+    }
+
+    /**
+     * Drops expired entries right away instead of on the next access.
+     */
+    public void cleanUp() {
+        byHash.cleanUp();
+        latestByUser.cleanUp();
+    }
+
+    public long size() {
+        return byHash.estimatedSize();
+    }
+
+    /**
+     * A user that stands for the one with the given id, without any of its other columns.
+     */
+    public static User userReference(Long userId) {
+        User user = new User();
+        user.setId(userId);
+        return user;
+    }
+
+    private static RefreshToken withUserIdOnly(RefreshToken token) {
+        RefreshToken copy = new RefreshToken();
+        copy.setId(token.getId());
+        copy.setTokenHash(token.getTokenHash());
+        copy.setToken(token.getToken());
+        copy.setExpiryDate(token.getExpiryDate());
+        copy.setUser(userReference(token.getUser().getId()));
+        return copy;
+    }
+
+    /**
+     * Keeps an entry until the expiry date of its token.
+     */
+    private static class UntilTokenExpiry<K> implements Expiry<K, RefreshToken> {
+        @Override
+        public long expireAfterCreate(K key, RefreshToken token, long currentTime) {
+            return Math.max(0, Duration.between(Instant.now(), token.getExpiryDate()).toNanos());
+        }
+
+        @Override
+        public long expireAfterUpdate(K key, RefreshToken token, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, token, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(K key, RefreshToken token, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
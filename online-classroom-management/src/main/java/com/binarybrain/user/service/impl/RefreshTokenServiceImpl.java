@@ -9,10 +9,18 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.Instant;
+import java.util.HexFormat;
 import java.util.Optional;
 import java.util.UUID;
 
+/**
+ * Issues and validates refresh tokens. Tokens are stored and indexed by their SHA-256 only; the
+ * token itself is returned to the client once, when it is issued.
+ */
 @Service
 public class RefreshTokenServiceImpl implements RefreshTokenService {
 
@@ -20,37 +28,85 @@ public class RefreshTokenServiceImpl implements RefreshTokenService {
     private Long refreshTokenExp;
 
     private final RefreshTokenRepository refreshTokenRepository;
+    private final RefreshTokenWriter refreshTokenWriter;
+    private final RefreshTokenIndex refreshTokenIndex;
     @Autowired
-    public RefreshTokenServiceImpl(RefreshTokenRepository refreshTokenRepository){
+    public RefreshTokenServiceImpl(RefreshTokenRepository refreshTokenRepository, RefreshTokenWriter refreshTokenWriter,
+                                   RefreshTokenIndex refreshTokenIndex){
         this.refreshTokenRepository = refreshTokenRepository;
+        this.refreshTokenWriter = refreshTokenWriter;
+        this.refreshTokenIndex = refreshTokenIndex;
     }
 
+    /**
+     * Issues a new refresh token for the user, replacing the previous one. The token is handed to
+     * {@link RefreshTokenWriter}, which may persist it after this method returns. It refers to its
+     * user by id only, so neither the writer nor the index keeps the user's profile or roles.
+     */
     @Override
     public RefreshToken createRefreshToken(User user) {
-        refreshTokenRepository.deleteByUser(user);
-
         long expiration = (refreshTokenExp != null) ? refreshTokenExp : 604800000L;
 
         RefreshToken refreshToken = new RefreshToken();
-        refreshToken.setUser(user);
+        refreshToken.setUser(RefreshTokenIndex.userReference(user.getId()));
         refreshToken.setToken(UUID.randomUUID().toString());
+        refreshToken.setTokenHash(hashOf(refreshToken.getToken()));
         refreshToken.setExpiryDate(Instant.now().plusMillis(expiration));
 
-        return refreshTokenRepository.save(refreshToken);
+        refreshTokenWriter.write(refreshToken);
+        refreshTokenIndex.put(refreshToken);
+        return refreshToken;
     }
 
     @Override
     public RefreshToken verifyExpiration(RefreshToken token) {
         if (token.getExpiryDate().isBefore(Instant.now())) {
+            refreshTokenIndex.remove(token);
+            refreshTokenWriter.discard(token);
             refreshTokenRepository.delete(token);
             throw new InvalidTokenException("Refresh token has expired. Please log in again.");
         }
         return token;
     }
 
+    /**
+     * Finds a token among the ones not written yet, then in the in-memory index, then in the
+     * database. A stored token is ignored once a newer token of its user has been issued.
+     *
+     * <p>An indexed token is only accepted while the database still holds its hash: a login through
+     * another instance replaces the stored token of the user, which this instance's index doesn't
+     * see.</p>
+     */
     @Override
     public Optional<RefreshToken> findByToken(String token) {
-        return refreshTokenRepository.findByToken(token);
+        String tokenHash = hashOf(token);
+        Optional<RefreshToken> pending = refreshTokenWriter.findPending(tokenHash);
+        if (pending.isPresent()) {
+            return pending;
+        }
+        Optional<RefreshToken> indexed = refreshTokenIndex.find(tokenHash);
+        if (indexed.isPresent()) {
+            if (refreshTokenRepository.existsByTokenHash(tokenHash)) {
+                return indexed;
+            }
+            refreshTokenIndex.remove(indexed.get());
+            return Optional.empty();
+        }
+        Optional<RefreshToken> stored = refreshTokenRepository.findByTokenHash(tokenHash)
+                .filter(refreshToken -> !refreshTokenIndex.isSuperseded(refreshToken) && !refreshTokenWriter.isSuperseded(refreshToken));
+        stored.ifPresent(refreshTokenIndex::putIfLatest);
+        return stored;
+    }
+
+    /**
+     * @return the hex SHA-256 of a refresh token, the form it is stored and indexed in.
+     */
+    public static String hashOf(String token) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
     }
 
 }
@@ -0,0 +1,113 @@
+package com.binarybrain.user.service.impl;
+
+import com.binarybrain.user.repository.RefreshTokenRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Deletes expired refresh tokens every {@code jwt.refresh.sweep-interval}, in batches of
+ * {@code jwt.refresh.sweep-batch-size} read from the {@code expiryDate} index, so the table only
+ * holds tokens that can still be used.
+ *
+ * <p>Published to Micrometer: {@code refresh.tokens.active} (unexpired tokens in the database as of
+ * the last sweep), {@code refresh.tokens.indexed}, {@code refresh.tokens.swept} and the
+ * {@code refresh.tokens.sweep} timer.</p>
+ */
+@Component
+public class RefreshTokenSweeper implements MeterBinder {
+    private static final Logger log = LoggerFactory.getLogger(RefreshTokenSweeper.class);
+
+    @Value("${jwt.refresh.sweep-interval:1h}")
+    private Duration sweepInterval = Duration.ofHours(1);
+
+    @Value("${jwt.refresh.sweep-batch-size:500}")
+    private int batchSize = 500;
+
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final RefreshTokenIndex refreshTokenIndex;
+    private final AtomicLong activeTokens = new AtomicLong();
+    private final LongAdder sweptTokens = new LongAdder();
+    private volatile Timer sweepTimer;
+    private ScheduledExecutorService sweepExecutor;
+
+    public RefreshTokenSweeper(RefreshTokenRepository refreshTokenRepository, RefreshTokenIndex refreshTokenIndex) {
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.refreshTokenIndex = refreshTokenIndex;
+    }
+
+    @PostConstruct
+    void start() {
+        sweepExecutor = Executors.newSingleThreadScheduledExecutor();
+        sweepExecutor.scheduleWithFixedDelay(() -> {
+            try {
+                sweep();
+            } catch (RuntimeException e) {
+                log.warn("Failed to sweep expired refresh tokens: {}", e.getMessage());
+            }
+        }, 0, sweepInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        sweepExecutor.shutdownNow();
+    }
+
+    /**
+     * Deletes every token expired by now, one batch per statement.
+     *
+     * @return the number of deleted tokens.
+     */
+    int sweep() {
+        long start = System.nanoTime();
+        Instant now = Instant.now();
+        int deleted = 0;
+        List<Long> expiredIds;
+        do {
+            expiredIds = refreshTokenRepository.findExpiredIds(now, Limit.of(batchSize));
+            if (!expiredIds.isEmpty()) {
+                refreshTokenRepository.deleteAllByIdInBatch(expiredIds);
+                deleted += expiredIds.size();
+            }
+        } while (expiredIds.size() == batchSize);
+        refreshTokenIndex.cleanUp();
+        activeTokens.set(refreshTokenRepository.countByExpiryDateAfter(now));
+        sweptTokens.add(deleted);
+
+        Timer timer = sweepTimer;
+        if (timer != null) {
+            timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+        return deleted;
+    }
+
+    public long activeTokens() {
+        return activeTokens.get();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("refresh.tokens.active", activeTokens, AtomicLong::get).register(registry);
+        Gauge.builder("refresh.tokens.indexed", refreshTokenIndex, RefreshTokenIndex::size).register(registry);
+        FunctionCounter.builder("refresh.tokens.swept", sweptTokens, LongAdder::sum).register(registry);
+        sweepTimer = Timer.builder("refresh.tokens.sweep").register(registry);
+    }
+}
@@ -0,0 +1,140 @@
+package com.binarybrain.user.service.impl;
+
+import com.binarybrain.user.model.RefreshToken;
+import com.binarybrain.user.repository.RefreshTokenRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Persists refresh tokens, one row per user that is updated in place on every login.
+ *
+ * <p>With {@code jwt.refresh.write-behind} (the default) tokens are written in the background so a
+ * login doesn't wait for the database: they stay readable from memory until written, a newer token
+ * of the same user replaces a pending one, and whatever is still pending is written at shutdown.
+ * Set it to {@code false} to write every token before the login returns.</p>
+ */
+@Component
+public class RefreshTokenWriter {
+    private static final Logger log = LoggerFactory.getLogger(RefreshTokenWriter.class);
+
+    @Value("${jwt.refresh.write-behind:true}")
+    private boolean writeBehind = true;
+
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final Map<Long, RefreshToken> pendingByUser = new ConcurrentHashMap<>();
+    private final Map<String, RefreshToken> pendingByToken = new ConcurrentHashMap<>();
+    private final AtomicBoolean flushPending = new AtomicBoolean();
+    private final ExecutorService flushExecutor = Executors.newSingleThreadExecutor();
+
+    public RefreshTokenWriter(RefreshTokenRepository refreshTokenRepository) {
+        this.refreshTokenRepository = refreshTokenRepository;
+    }
+
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        flushExecutor.shutdown();
+        flushExecutor.awaitTermination(10, TimeUnit.SECONDS);
+        flush();
+    }
+
+    /**
+     * Stores the token as the only refresh token of its user.
+     */
+    public void write(RefreshToken token) {
+        if (!writeBehind) {
+            upsert(token);
+            return;
+        }
+        pendingByToken.put(token.getTokenHash(), token);
+        RefreshToken replaced = pendingByUser.put(token.getUser().getId(), token);
+        if (replaced != null) {
+            pendingByToken.remove(replaced.getTokenHash(), replaced);
+        }
+        scheduleFlush();
+    }
+
+    /**
+     * Returns the token with the given hash if it is still waiting to be written.
+     */
+    public Optional<RefreshToken> findPending(String tokenHash) {
+        return Optional.ofNullable(pendingByToken.get(tokenHash));
+    }
+
+    /**
+     * Tells whether a newer token of the user is waiting to be written, which makes the stored one
+     * obsolete.
+     */
+    public boolean isSuperseded(RefreshToken stored) {
+        RefreshToken pending = pendingByUser.get(stored.getUser().getId());
+        return pending != null && !pending.getTokenHash().equals(stored.getTokenHash());
+    }
+
+    /**
+     * Drops the token if it hasn't been written yet.
+     */
+    public void discard(RefreshToken token) {
+        pendingByToken.remove(token.getTokenHash(), token);
+        if (token.getUser() != null) {
+            pendingByUser.remove(token.getUser().getId(), token);
+        }
+    }
+
+    private void scheduleFlush() {
+        if (flushPending.compareAndSet(false, true)) {
+            try {
+                flushExecutor.execute(() -> {
+                    flushPending.set(false);
+                    flush();
+                });
+            } catch (RejectedExecutionException e) {
+                flushPending.set(false);
+                flush();
+            }
+        }
+    }
+
+    /**
+     * Writes every pending token. Tokens that fail stay pending and are retried by the next flush.
+     */
+    void flush() {
+        for (RefreshToken token : pendingByUser.values()) {
+            try {
+                upsert(token);
+            } catch (RuntimeException e) {
+                log.warn("Failed to write the refresh token of user {}: {}", token.getUser().getId(), e.getMessage());
+                continue;
+            }
+            pendingByUser.remove(token.getUser().getId(), token);
+            pendingByToken.remove(token.getTokenHash(), token);
+        }
+    }
+
+    /**
+     * Updates the row of the user, inserting it on the user's first login. A concurrent first login
+     * that inserts the row in between loses the insert and updates instead.
+     */
+    void upsert(RefreshToken token) {
+        Long userId = token.getUser().getId();
+        if (refreshTokenRepository.updateByUserId(userId, token.getTokenHash(), token.getExpiryDate()) > 0) {
+            return;
+        }
+        try {
+            refreshTokenRepository.save(token);
+        } catch (DataIntegrityViolationException e) {
+            refreshTokenRepository.updateByUserId(userId, token.getTokenHash(), token.getExpiryDate());
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.binarybrain.user.service.impl;
+
+import com.binarybrain.user.model.Role;
+import com.binarybrain.user.repository.RoleRepository;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps every {@link Role} by name in memory; the table holds a handful of rows that almost never
+ * change. An unknown name reloads the table, at most once per {@link #RELOAD_INTERVAL}, so a role
+ * added at runtime is picked up without one query per lookup of a misspelt name.
+ */
+@Component
+public class RoleCache {
+    static final Duration RELOAD_INTERVAL = Duration.ofSeconds(30);
+
+    private final RoleRepository roleRepository;
+    private final Clock clock;
+    private volatile Map<String, Role> byName;
+    private volatile Instant loadedAt = Instant.MIN;
+
+    public RoleCache(RoleRepository roleRepository) {
+        this(roleRepository, Clock.systemUTC());
+    }
+
+    RoleCache(RoleRepository roleRepository, Clock clock) {
+        this.roleRepository = roleRepository;
+        this.clock = clock;
+    }
+
+    public Optional<Role> find(String name) {
+        Map<String, Role> roles = byName;
+        if (roles == null || (!roles.containsKey(name) && loadedAt.plus(RELOAD_INTERVAL).isBefore(clock.instant()))) {
+            roles = reload();
+        }
+        return Optional.ofNullable(roles.get(name));
+    }
+
+    private synchronized Map<String, Role> reload() {
+        Map<String, Role> roles = roleRepository.findAll().stream()
+                .collect(Collectors.toMap(Role::getName, Function.identity(), (first, second) -> first));
+        loadedAt = clock.instant();
+        byName = roles;
+        return roles;
+    }
+}
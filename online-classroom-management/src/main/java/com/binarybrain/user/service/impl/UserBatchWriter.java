@@ -0,0 +1,85 @@
+package com.binarybrain.user.service.impl;
+
+import com.binarybrain.user.model.Role;
+import com.binarybrain.user.model.User;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Inserts users with plain JDBC batches. Hibernate can't batch inserts of {@link User}, whose ids
+ * are generated by the database ({@code IDENTITY}), so a bulk import through
+ * {@code userRepository.save} would cost one round trip per user.
+ */
+@Component
+public class UserBatchWriter {
+    private static final String INSERT_USER = "insert into user (first_name, last_name, current_institute, country, gender, "
+            + "username, email, password) values (?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_USER_ROLE = "insert into user_roles (user_id, role_id) values (?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    public UserBatchWriter(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Inserts the users and their roles in one transaction, with one batch per table, and sets the
+     * generated ids on {@code users}. The passwords must already be encoded.
+     *
+     * @throws org.springframework.dao.DataIntegrityViolationException if a user collides with an
+     *         existing one; nothing is inserted then.
+     */
+    public void insertAll(List<User> users) {
+        transactionTemplate.executeWithoutResult(status -> {
+            KeyHolder keys = new GeneratedKeyHolder();
+            jdbcTemplate.batchUpdate(connection -> connection.prepareStatement(INSERT_USER, new String[]{"id"}),
+                    new BatchPreparedStatementSetter() {
+                        @Override
+                        public void setValues(PreparedStatement statement, int i) throws SQLException {
+                            User user = users.get(i);
+                            statement.setString(1, user.getFirstName());
+                            statement.setString(2, user.getLastName());
+                            statement.setString(3, user.getCurrentInstitute());
+                            statement.setString(4, user.getCountry());
+                            statement.setString(5, user.getGender());
+                            statement.setString(6, user.getUsername());
+                            statement.setString(7, user.getEmail());
+                            statement.setString(8, user.getPassword());
+                        }
+
+                        @Override
+                        public int getBatchSize() {
+                            return users.size();
+                        }
+                    }, keys);
+
+            List<Map<String, Object>> generatedKeys = keys.getKeyList();
+            List<Object[]> userRoles = new ArrayList<>();
+            for (int i = 0; i < users.size(); i++) {
+                User user = users.get(i);
+                user.setId(((Number) generatedKeys.get(i).values().iterator().next()).longValue());
+                if (user.getRoles() != null) {
+                    for (Role role : user.getRoles()) {
+                        userRoles.add(new Object[]{user.getId(), role.getId()});
+                    }
+                }
+            }
+            if (!userRoles.isEmpty()) {
+                jdbcTemplate.batchUpdate(INSERT_USER_ROLE, userRoles);
+            }
+        });
+    }
+}
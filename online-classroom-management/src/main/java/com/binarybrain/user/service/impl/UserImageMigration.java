@@ -0,0 +1,94 @@
+package com.binarybrain.user.service.impl;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.BadSqlGrammarException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Base64;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Moves photos still stored as base64 in the legacy {@code image_base64} MEDIUMTEXT column of
+ * {@code user_image64} to {@link PhotoStorage}, records their file name and metadata, and clears the
+ * column. Rows are converted one at a time in id order, so at most one legacy image is in memory.
+ * Each converted photo is added to the local face index too, which was built before this runs and
+ * skipped the rows that had no file yet.
+ *
+ * <p>Runs at startup until no legacy rows are left; it is a no-op on databases created without the
+ * column. Disable with {@code photo.migrate-base64=false}. Once it has run everywhere the column can
+ * be dropped.</p>
+ */
+@Component
+@ConditionalOnProperty(name = "photo.migrate-base64", havingValue = "true", matchIfMissing = true)
+public class UserImageMigration implements ApplicationRunner {
+    private static final Logger log = LoggerFactory.getLogger(UserImageMigration.class);
+    private static final int PAGE_SIZE = 100;
+    private static final String TABLE = "user_image64";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PhotoStorage photoStorage;
+    private final Optional<FaceSearchService> faceSearchService;
+
+    public UserImageMigration(JdbcTemplate jdbcTemplate, PhotoStorage photoStorage, Optional<FaceSearchService> faceSearchService) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.photoStorage = photoStorage;
+        this.faceSearchService = faceSearchService;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws IOException {
+        migrate();
+    }
+
+    /**
+     * @return the number of converted rows.
+     */
+    int migrate() throws IOException {
+        int migrated = 0;
+        long afterId = 0;
+        List<Long> ids;
+        do {
+            try {
+                ids = jdbcTemplate.queryForList("select id from " + TABLE + " where image_base64 is not null and id > ? order by id limit ?",
+                        Long.class, afterId, PAGE_SIZE);
+            } catch (BadSqlGrammarException e) {
+                return migrated;
+            }
+            for (Long id : ids) {
+                migrated += migrateRow(id) ? 1 : 0;
+                afterId = id;
+            }
+        } while (ids.size() == PAGE_SIZE);
+        if (migrated > 0) {
+            log.info("Moved {} base64 photos from {} to files", migrated, TABLE);
+        }
+        return migrated;
+    }
+
+    private boolean migrateRow(Long id) throws IOException {
+        Optional<String> base64 = jdbcTemplate.queryForList("select image_base64 from " + TABLE + " where id = ?", String.class, id)
+                .stream().filter(Objects::nonNull).findFirst();
+        if (base64.isEmpty()) {
+            return false;
+        }
+        byte[] image = Base64.getMimeDecoder().decode(base64.get());
+        String fileName = id + ".png";
+        String contentType = PhotoStorage.contentTypeOf(image).orElse("application/octet-stream");
+        PhotoStorage.StoredPhoto stored = photoStorage.store(fileName, new ByteArrayInputStream(image));
+        jdbcTemplate.update("update " + TABLE + " set file_path = ?, content_type = ?, size_bytes = ?, content_hash = ?, image_base64 = null where id = ?",
+                fileName, contentType, stored.size(), stored.sha256(), id);
+        if (faceSearchService.isPresent()) {
+            faceSearchService.get().index(id, new ByteArrayInputStream(image));
+        }
+        return true;
+    }
+}
@@ -1,22 +1,27 @@
 package com.binarybrain.user.service.impl;
 
 import com.binarybrain.exception.ResourceNotFoundException;
+import com.binarybrain.exception.UnsupportedFileTypeException;
 import com.binarybrain.exception.UserHasNotPermissionException;
 import com.binarybrain.exception.global.GlobalExceptionHandler;
+import com.binarybrain.user.dto.response.PhotoResponse;
 import com.binarybrain.user.model.User;
 import com.binarybrain.user.model.UserImage;
 import com.binarybrain.user.repository.UserImageRepository;
 import com.binarybrain.user.repository.UserRepository;
 import com.binarybrain.user.service.UserImageService;
 import com.binarybrain.user.service.UserService;
-import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.*;
 import java.util.function.UnaryOperator;
 
@@ -24,18 +29,24 @@ import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 @Service
 public class UserImageServiceImpl implements UserImageService {
-    @Value("${photo.upload-dir}")
-    private String photoDirectory;
     private final UserRepository userRepository;
     private final UserImageRepository imageRepository;
     private final UserService userService;
     private final ImageSearchService imageSearchService;
+    private final Optional<FaceSearchService> faceSearchService;
+    private final PhotoStorage photoStorage;
+    private final PhotoThumbnails photoThumbnails;
 
-    public UserImageServiceImpl(UserRepository userRepository, UserImageRepository imageRepository, UserService userService, ImageSearchService imageSearchService) {
+    public UserImageServiceImpl(UserRepository userRepository, UserImageRepository imageRepository, UserService userService,
+                                ImageSearchService imageSearchService, Optional<FaceSearchService> faceSearchService, PhotoStorage photoStorage,
+                                PhotoThumbnails photoThumbnails) {
         this.userRepository = userRepository;
         this.imageRepository = imageRepository;
         this.userService = userService;
         this.imageSearchService = imageSearchService;
+        this.faceSearchService = faceSearchService;
+        this.photoStorage = photoStorage;
+        this.photoThumbnails = photoThumbnails;
     }
 
 
@@ -44,36 +55,86 @@ public class UserImageServiceImpl implements UserImageService {
         User user = userService.getUserProfileById(id, username);
         GlobalExceptionHandler.Thrower.throwIf(!user.getUsername().equals(username), new UserHasNotPermissionException("You don't have permission to upload another person's image!"));
 
-        UserImage userImage = new UserImage();
-
-        String base64Image = Base64.getEncoder().encodeToString(file.getBytes());
-        String photoUrl = generatePhotoUrl(id.toString(), base64Image);
+        String fileName = id + fileExtension.apply(id.toString());
+        String contentType;
+        PhotoStorage.StoredPhoto stored;
+        try (PushbackInputStream content = new PushbackInputStream(file.getInputStream(), PhotoStorage.SIGNATURE_LENGTH)) {
+            byte[] header = content.readNBytes(PhotoStorage.SIGNATURE_LENGTH);
+            contentType = PhotoStorage.contentTypeOf(header).orElseThrow(() ->
+                    new UnsupportedFileTypeException("Unsupported photo type: " + file.getOriginalFilename() + "\n (Supported file: JPG, JPEG, PNG)"));
+            content.unread(header);
+            stored = storePhoto(fileName, content);
+        }
+        String photoUrl = ServletUriComponentsBuilder
+                .fromCurrentContextPath()
+                .path("/api/user/photo/" + fileName).toUriString();
 
+        UserImage userImage = new UserImage();
         user.setProfilePicture(photoUrl);
         userImage.setId(id);
         userImage.setUsername(username);
-        userImage.setImageBase64(base64Image);
+        userImage.setFilePath(fileName);
+        userImage.setContentType(contentType);
+        userImage.setSizeBytes(stored.size());
+        userImage.setContentHash(stored.sha256());
 
         userRepository.save(user);
         imageRepository.save(userImage);
+        if (faceSearchService.isPresent()) {
+            try (InputStream image = photoStorage.open(fileName)) {
+                faceSearchService.get().index(id, image);
+            }
+        }
+        photoThumbnails.generateAsync(fileName);
         return photoUrl;
     }
 
+    /**
+     * Returns the photo, or its thumbnail of the given size once it has been generated, with a
+     * strong ETag derived from the SHA-256 of the photo. Photos stored before content hashes were
+     * recorded get a weak ETag from their size and modification time.
+     */
     @Override
-    public byte[] getPhoto(String filename) {
-        GlobalExceptionHandler.Thrower.throwIf(filename.contains("..") || filename.contains("/") || filename.contains("\\"),new IllegalArgumentException("Invalid filename!"));
-        try{
-            Path targetDirectory = Paths.get(photoDirectory).normalize();
-            Path photoPath = targetDirectory.resolve(filename).normalize();
-            GlobalExceptionHandler.Thrower.throwIf(!photoPath.startsWith(targetDirectory), new IOException("Entry is outside of the target directory"));
-            return Files.readAllBytes(photoPath);
-        } catch (IOException ex){
-            throw new ResourceNotFoundException("Photo download failed: "+ filename + "\n" + ex);
+    public PhotoResponse getPhoto(String filename, String size) throws IOException {
+        Path original = photoStorage.resolve(filename);
+        GlobalExceptionHandler.Thrower.throwIf(!Files.isRegularFile(original), new ResourceNotFoundException("Photo not found: " + filename));
+        Optional<UserImage> userImage = imageRepository.findByFilePath(filename);
+
+        Path served = original;
+        // rows written before the type was told from the content may hold whatever the client sent
+        String contentType = userImage.map(UserImage::getContentType)
+                .or(() -> MediaTypeFactory.getMediaType(filename).map(MediaType::toString))
+                .filter(PhotoStorage::isPhotoType)
+                .orElse(MediaType.APPLICATION_OCTET_STREAM_VALUE);
+        String variant = "";
+        if (size != null) {
+            PhotoThumbnails.Size thumbnailSize = PhotoThumbnails.Size.of(size);
+            Path thumbnail = photoStorage.resolve(PhotoThumbnails.nameOf(filename, thumbnailSize));
+            if (Files.isRegularFile(thumbnail)) {
+                served = thumbnail;
+                contentType = MediaType.IMAGE_PNG_VALUE;
+                variant = "-" + thumbnailSize.suffix();
+            } else {
+                photoThumbnails.generateAsync(filename);
+            }
         }
+
+        BasicFileAttributes attributes = Files.readAttributes(served, BasicFileAttributes.class);
+        String servedVariant = variant;
+        String eTag = userImage.map(UserImage::getContentHash)
+                .map(hash -> "\"" + hash + servedVariant + "\"")
+                .orElse("W/\"" + Long.toHexString(attributes.size()) + "-" + Long.toHexString(attributes.lastModifiedTime().toMillis()) + "\"");
+        return new PhotoResponse(served, contentType, eTag);
     }
 
+    /**
+     * Searches the local face index when {@code image-search.engine=local}, and the OpenCV API otherwise.
+     */
     @Override
     public List<User> searchUsersByImage(MultipartFile[] base64Image) throws IOException {
+        if (faceSearchService.isPresent()) {
+            return faceSearchService.get().searchByImage(base64Image);
+        }
         return imageSearchService.searchByImage(base64Image);
     }
 
@@ -83,24 +144,10 @@ public class UserImageServiceImpl implements UserImageService {
             .orElse(".png");
 
 
-    private String generatePhotoUrl(String id, String base64Image) {
+    private PhotoStorage.StoredPhoto storePhoto(String fileName, InputStream content) {
         try {
-            byte[] imageBytes = Base64.getDecoder().decode(base64Image);
-
-            String fileName = id + fileExtension.apply(id);
-
-            Path fileStorageLocation = Paths.get(photoDirectory).toAbsolutePath().normalize();
-
-            if (!Files.exists(fileStorageLocation)) {
-                Files.createDirectories(fileStorageLocation);
-            }
-            GlobalExceptionHandler.Thrower.throwIf(!Files.exists(fileStorageLocation), new IOException("Entry is outside of the target directory"));
-            Path targetLocation = fileStorageLocation.resolve(fileName);
-            Files.write(targetLocation, imageBytes);
-
-            return ServletUriComponentsBuilder
-                    .fromCurrentContextPath()
-                    .path("/api/user/photo/" + fileName).toUriString();
+            photoThumbnails.delete(fileName);
+            return photoStorage.store(fileName, content);
         } catch (Exception exception) {
             throw new IllegalArgumentException("Unable to save image", exception);
         }
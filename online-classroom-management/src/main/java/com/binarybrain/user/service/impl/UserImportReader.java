@@ -0,0 +1,193 @@
+package com.binarybrain.user.service.impl;
+
+import com.binarybrain.user.dto.UserDto;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.function.BiConsumer;
+
+/**
+ * Reads the users of a bulk import one record at a time, from CSV with a header row or from
+ * newline-delimited JSON objects, so files of any size are processed in constant memory.
+ *
+ * <p>CSV columns are named after the fields of {@link UserDto} (case-insensitive); roles are
+ * separated by {@code |}. Fields may be quoted as in RFC 4180. A record that can't be parsed is
+ * returned with an error instead of ending the import; an unknown CSV column fails the whole file.</p>
+ */
+class UserImportReader implements Closeable {
+    static final String CSV = "text/csv";
+    static final String NDJSON = "application/x-ndjson";
+
+    /**
+     * One record of the file: the user, or the reason it couldn't be read.
+     */
+    record Record(int row, UserDto user, String error) {
+    }
+
+    private static final Map<String, BiConsumer<UserDto, String>> CSV_COLUMNS = Map.of(
+            "firstname", UserDto::setFirstName,
+            "lastname", UserDto::setLastName,
+            "currentinstitute", UserDto::setCurrentInstitute,
+            "country", UserDto::setCountry,
+            "gender", UserDto::setGender,
+            "roles", (user, roles) -> user.setRoles(parseRoles(roles)),
+            "username", UserDto::setUsername,
+            "email", UserDto::setEmail,
+            "password", UserDto::setPassword
+    );
+
+    private final BufferedReader reader;
+    private final boolean csv;
+    private final ObjectMapper objectMapper;
+    private List<BiConsumer<UserDto, String>> columns;
+    private int row;
+
+    UserImportReader(InputStream content, String contentType, ObjectMapper objectMapper) {
+        this.reader = new BufferedReader(new InputStreamReader(content, StandardCharsets.UTF_8));
+        this.csv = CSV.equals(contentType);
+        this.objectMapper = objectMapper;
+    }
+
+    static boolean supports(String contentType) {
+        return CSV.equals(contentType) || NDJSON.equals(contentType);
+    }
+
+    /**
+     * @return the next record, or {@code null} at the end of the file.
+     * @throws IllegalArgumentException if the CSV header names an unknown column.
+     */
+    Record next() throws IOException {
+        return csv ? nextCsv() : nextJson();
+    }
+
+    private Record nextJson() throws IOException {
+        String line;
+        do {
+            line = reader.readLine();
+            if (line == null) {
+                return null;
+            }
+        } while (line.isBlank());
+        row++;
+        try {
+            UserDto user = objectMapper.readValue(stripBom(line), UserDto.class);
+            user.setId(null);
+            user.setProfilePicture(null);
+            return new Record(row, user, null);
+        } catch (JsonProcessingException e) {
+            return new Record(row, null, "Invalid JSON: " + e.getOriginalMessage());
+        }
+    }
+
+    private Record nextCsv() throws IOException {
+        if (columns == null) {
+            List<String> header = readCsvFields();
+            if (header == null) {
+                return null;
+            }
+            columns = new ArrayList<>();
+            for (String name : header) {
+                BiConsumer<UserDto, String> setter = CSV_COLUMNS.get(stripBom(name).trim().toLowerCase(Locale.ROOT));
+                if (setter == null) {
+                    throw new IllegalArgumentException("Unknown column: " + name);
+                }
+                columns.add(setter);
+            }
+        }
+        List<String> fields = readCsvFields();
+        if (fields == null) {
+            return null;
+        }
+        row++;
+        if (fields.size() != columns.size()) {
+            return new Record(row, null, "Expected " + columns.size() + " fields but found " + fields.size());
+        }
+        UserDto user = new UserDto();
+        for (int i = 0; i < fields.size(); i++) {
+            String value = fields.get(i).trim();
+            if (!value.isEmpty()) {
+                columns.get(i).accept(user, value);
+            }
+        }
+        return new Record(row, user, null);
+    }
+
+    /**
+     * Reads the fields of the next non-blank CSV line, following quoted fields across line breaks.
+     *
+     * @return the fields, or {@code null} at the end of the file.
+     */
+    private List<String> readCsvFields() throws IOException {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        boolean any = false;
+        int c;
+        while ((c = reader.read()) != -1) {
+            any = true;
+            if (quoted) {
+                if (c == '"') {
+                    reader.mark(1);
+                    if (reader.read() == '"') {
+                        field.append('"');
+                    } else {
+                        reader.reset();
+                        quoted = false;
+                    }
+                } else {
+                    field.append((char) c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n' || c == '\r') {
+                if (c == '\r') {
+                    reader.mark(1);
+                    if (reader.read() != '\n') {
+                        reader.reset();
+                    }
+                }
+                if (fields.isEmpty() && field.isEmpty()) {
+                    continue;
+                }
+                fields.add(field.toString());
+                return fields;
+            } else {
+                field.append((char) c);
+            }
+        }
+        if (!any || (fields.isEmpty() && field.isEmpty())) {
+            return null;
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private static Set<String> parseRoles(String roles) {
+        Set<String> names = new LinkedHashSet<>();
+        for (String role : roles.split("\\|")) {
+            if (!role.isBlank()) {
+                names.add(role.trim());
+            }
+        }
+        return names;
+    }
+
+    private static String stripBom(String value) {
+        return value.startsWith("\uFEFF") ? value.substring(1) : value;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
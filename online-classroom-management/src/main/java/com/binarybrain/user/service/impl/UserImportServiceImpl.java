@@ -0,0 +1,370 @@
+package com.binarybrain.user.service.impl;
+
+import com.binarybrain.exception.ResourceNotFoundException;
+import com.binarybrain.exception.UnsupportedFileTypeException;
+import com.binarybrain.exception.global.GlobalExceptionHandler;
+import com.binarybrain.user.dto.UserDto;
+import com.binarybrain.user.dto.response.UserImportRowResult;
+import com.binarybrain.user.dto.response.UserImportStatus;
+import com.binarybrain.user.mapper.UserMapper;
+import com.binarybrain.user.model.Role;
+import com.binarybrain.user.model.User;
+import com.binarybrain.user.repository.UserRepository;
+import com.binarybrain.user.service.UserImportService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.MediaType;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Imports users in bulk from CSV or NDJSON (see {@link UserImportReader} for the format).
+ *
+ * <p>The upload is spooled to a temporary file and imported in the background, one import at a
+ * time; its progress and per-row report are available by id for {@code user-import.retention} after
+ * it finishes. Rows are processed in chunks of {@code user-import.batch-size}: each chunk is checked
+ * against existing usernames and emails with two set-based queries, roles come from the
+ * {@link RoleCache}, passwords are encoded on a pool of {@code user-import.hash-threads} threads and
+ * the users are inserted with {@link UserBatchWriter}, then added to the {@link UserSearchService}
+ * index. Rows get the same validation as a single registration; a row that fails is reported and
+ * skipped, it doesn't stop the import.</p>
+ */
+@Service
+public class UserImportServiceImpl implements UserImportService {
+    private static final Logger log = LoggerFactory.getLogger(UserImportServiceImpl.class);
+
+    @Value("${user-import.batch-size:500}")
+    private int batchSize = 500;
+
+    @Value("${user-import.hash-threads:0}")
+    private int hashThreads = 0;
+
+    @Value("${user-import.retention:1h}")
+    private Duration retention = Duration.ofHours(1);
+
+    private final UserRepository userRepository;
+    private final RoleCache roleCache;
+    private final UserBatchWriter userBatchWriter;
+    private final PasswordEncoder passwordEncoder;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final UserSearchService userSearchService;
+    private final Map<String, ImportJob> jobs = new ConcurrentHashMap<>();
+    private ExecutorService importExecutor;
+    private ExecutorService hashExecutor;
+
+    public UserImportServiceImpl(UserRepository userRepository, RoleCache roleCache, UserBatchWriter userBatchWriter,
+                                 PasswordEncoder passwordEncoder, Validator validator, ObjectMapper objectMapper,
+                                 UserSearchService userSearchService) {
+        this.userRepository = userRepository;
+        this.roleCache = roleCache;
+        this.userBatchWriter = userBatchWriter;
+        this.passwordEncoder = passwordEncoder;
+        this.validator = validator;
+        this.objectMapper = objectMapper;
+        this.userSearchService = userSearchService;
+    }
+
+    @PostConstruct
+    void init() {
+        importExecutor = Executors.newSingleThreadExecutor();
+        hashExecutor = Executors.newFixedThreadPool(hashThreads > 0 ? hashThreads : Runtime.getRuntime().availableProcessors());
+    }
+
+    @PreDestroy
+    void shutdown() {
+        importExecutor.shutdownNow();
+        hashExecutor.shutdownNow();
+    }
+
+    /**
+     * Spools {@code content} to a temporary file and queues its import.
+     *
+     * @param contentType {@code text/csv} or {@code application/x-ndjson}.
+     * @return the status of the queued import, with the id to poll.
+     * @throws UnsupportedFileTypeException if the content type is neither.
+     */
+    @Override
+    public UserImportStatus startImport(InputStream content, String contentType) throws IOException {
+        String format = baseType(contentType);
+        GlobalExceptionHandler.Thrower.throwIf(!UserImportReader.supports(format),
+                new UnsupportedFileTypeException("Unsupported import format: " + contentType + ". Use text/csv or application/x-ndjson."));
+        purgeFinishedJobs();
+
+        Path file = Files.createTempFile("user-import-", ".tmp");
+        try {
+            Files.copy(content, file, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            Files.deleteIfExists(file);
+            throw e;
+        }
+        ImportJob job = new ImportJob(UUID.randomUUID().toString(), file, format);
+        jobs.put(job.id, job);
+        importExecutor.execute(() -> run(job));
+        return job.snapshot();
+    }
+
+    @Override
+    public UserImportStatus getImportStatus(String importId) {
+        ImportJob job = jobs.get(importId);
+        GlobalExceptionHandler.Thrower.throwIf(job == null, new ResourceNotFoundException("Import not found: " + importId));
+        return job.snapshot();
+    }
+
+    private static String baseType(String contentType) {
+        try {
+            MediaType mediaType = MediaType.parseMediaType(contentType);
+            return mediaType.getType() + "/" + mediaType.getSubtype();
+        } catch (RuntimeException e) {
+            return String.valueOf(contentType);
+        }
+    }
+
+    private void purgeFinishedJobs() {
+        Instant cutoff = Instant.now().minus(retention);
+        jobs.values().removeIf(job -> job.finishedAt != null && job.finishedAt.isBefore(cutoff));
+    }
+
+    void run(ImportJob job) {
+        job.state = UserImportStatus.State.RUNNING;
+        job.startedAt = Instant.now();
+        try (InputStream content = Files.newInputStream(job.file);
+             UserImportReader reader = new UserImportReader(content, job.format, objectMapper)) {
+            Set<String> seenUsernames = new HashSet<>();
+            Set<String> seenEmails = new HashSet<>();
+            List<UserImportReader.Record> chunk = new ArrayList<>(batchSize);
+            UserImportReader.Record entry;
+            while ((entry = reader.next()) != null) {
+                chunk.add(entry);
+                if (chunk.size() == batchSize) {
+                    job.addAll(importChunk(chunk, seenUsernames, seenEmails));
+                    chunk.clear();
+                }
+            }
+            if (!chunk.isEmpty()) {
+                job.addAll(importChunk(chunk, seenUsernames, seenEmails));
+            }
+            job.state = UserImportStatus.State.COMPLETED;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            job.fail("Import interrupted");
+        } catch (IOException | RuntimeException e) {
+            log.warn("User import {} failed: {}", job.id, e.getMessage());
+            job.fail(e.getMessage());
+        } finally {
+            job.finishedAt = Instant.now();
+            try {
+                Files.deleteIfExists(job.file);
+            } catch (IOException e) {
+                log.warn("Failed to delete spooled import {}: {}", job.file, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Imports one chunk of records.
+     *
+     * @param seenUsernames lower-cased usernames of the earlier rows of the file, updated with this chunk.
+     * @param seenEmails    lower-cased emails of the earlier rows of the file, updated with this chunk.
+     * @return the result of every record, in file order.
+     */
+    List<UserImportRowResult> importChunk(List<UserImportReader.Record> chunk, Set<String> seenUsernames,
+                                          Set<String> seenEmails) throws InterruptedException {
+        UserImportRowResult[] results = new UserImportRowResult[chunk.size()];
+        Map<Integer, User> candidates = new LinkedHashMap<>();
+        for (int i = 0; i < chunk.size(); i++) {
+            UserImportReader.Record entry = chunk.get(i);
+            String rejection = rejectionOf(entry, seenUsernames, seenEmails);
+            if (rejection != null) {
+                results[i] = UserImportRowResult.rejected(entry.row(), entry.user() == null ? null : entry.user().getUsername(), rejection);
+            } else {
+                candidates.put(i, toUser(entry.user()));
+            }
+        }
+
+        rejectExisting(chunk, candidates, results);
+        encodePasswords(candidates.values());
+        insert(chunk, candidates, results);
+        return Arrays.asList(results);
+    }
+
+    private String rejectionOf(UserImportReader.Record entry, Set<String> seenUsernames, Set<String> seenEmails) {
+        if (entry.error() != null) {
+            return entry.error();
+        }
+        UserDto user = entry.user();
+        Set<ConstraintViolation<UserDto>> violations = validator.validate(user);
+        if (!violations.isEmpty()) {
+            return violations.stream()
+                    .map(ConstraintViolation::getMessage)
+                    .sorted()
+                    .reduce((first, second) -> first + "; " + second)
+                    .orElseThrow();
+        }
+        for (String roleName : Optional.ofNullable(user.getRoles()).orElse(Set.of())) {
+            if (roleCache.find(roleName).isEmpty()) {
+                return "Role not found: " + roleName;
+            }
+        }
+        if (!seenUsernames.add(user.getUsername().toLowerCase(Locale.ROOT))) {
+            return "Duplicate username in file: " + user.getUsername();
+        }
+        if (!seenEmails.add(user.getEmail().toLowerCase(Locale.ROOT))) {
+            return "Duplicate email in file: " + user.getEmail();
+        }
+        return null;
+    }
+
+    private User toUser(UserDto userDto) {
+        User user = UserMapper.userDtoToUserMapper(userDto);
+        Set<Role> roles = new HashSet<>();
+        Optional.ofNullable(userDto.getRoles()).orElse(Set.of())
+                .forEach(roleName -> roleCache.find(roleName).ifPresent(roles::add));
+        user.setRoles(roles);
+        return user;
+    }
+
+    /**
+     * Rejects the candidates whose username or email is already taken, with one query per column.
+     * The comparison ignores case, as the default MySQL collation does.
+     */
+    private void rejectExisting(List<UserImportReader.Record> chunk, Map<Integer, User> candidates, UserImportRowResult[] results) {
+        if (candidates.isEmpty()) {
+            return;
+        }
+        Set<String> takenUsernames = lowerCased(userRepository.findExistingUsernames(
+                candidates.values().stream().map(User::getUsername).toList()));
+        Set<String> takenEmails = lowerCased(userRepository.findExistingEmails(
+                candidates.values().stream().map(User::getEmail).toList()));
+        candidates.entrySet().removeIf(candidate -> {
+            User user = candidate.getValue();
+            String rejection = null;
+            if (takenUsernames.contains(user.getUsername().toLowerCase(Locale.ROOT))) {
+                rejection = "Error! Username is already exists: " + user.getUsername();
+            } else if (takenEmails.contains(user.getEmail().toLowerCase(Locale.ROOT))) {
+                rejection = "Error! Email is already exist: " + user.getEmail();
+            }
+            if (rejection != null) {
+                results[candidate.getKey()] = UserImportRowResult.rejected(chunk.get(candidate.getKey()).row(), user.getUsername(), rejection);
+            }
+            return rejection != null;
+        });
+    }
+
+    private static Set<String> lowerCased(Collection<String> values) {
+        Set<String> lowerCased = new HashSet<>();
+        values.forEach(value -> lowerCased.add(value.toLowerCase(Locale.ROOT)));
+        return lowerCased;
+    }
+
+    private void encodePasswords(Collection<User> users) throws InterruptedException {
+        List<Future<?>> encodings = new ArrayList<>(users.size());
+        for (User user : users) {
+            String password = user.getPassword();
+            encodings.add(hashExecutor.submit(() -> user.setPassword(passwordEncoder.encode(password))));
+        }
+        for (Future<?> encoding : encodings) {
+            try {
+                encoding.get();
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Failed to encode a password", e.getCause());
+            }
+        }
+    }
+
+    /**
+     * Inserts the candidates as one batch. If a username or email was registered since the check,
+     * the batch is rolled back and the candidates are inserted one by one to find the conflicting rows.
+     */
+    private void insert(List<UserImportReader.Record> chunk, Map<Integer, User> candidates, UserImportRowResult[] results) {
+        if (candidates.isEmpty()) {
+            return;
+        }
+        try {
+            userBatchWriter.insertAll(List.copyOf(candidates.values()));
+            userSearchService.indexAll(candidates.values());
+            candidates.forEach((index, user) -> results[index] = UserImportRowResult.created(chunk.get(index).row(), user.getUsername(), user.getId()));
+        } catch (DataIntegrityViolationException e) {
+            candidates.forEach((index, user) -> {
+                int row = chunk.get(index).row();
+                try {
+                    userBatchWriter.insertAll(List.of(user));
+                    userSearchService.index(user);
+                    results[index] = UserImportRowResult.created(row, user.getUsername(), user.getId());
+                } catch (DataIntegrityViolationException conflict) {
+                    results[index] = UserImportRowResult.rejected(row, user.getUsername(), "Username or email already exists");
+                }
+            });
+        }
+    }
+
+    /**
+     * An import in progress or finished. Written by the import thread, read by status requests.
+     */
+    static class ImportJob {
+        private final String id;
+        private final Path file;
+        private final String format;
+        private final List<UserImportRowResult> rows = new ArrayList<>();
+        private final AtomicInteger created = new AtomicInteger();
+        private final AtomicInteger rejected = new AtomicInteger();
+        private volatile UserImportStatus.State state = UserImportStatus.State.QUEUED;
+        private volatile Instant startedAt;
+        private volatile Instant finishedAt;
+        private volatile String error;
+
+        ImportJob(String id, Path file, String format) {
+            this.id = id;
+            this.file = file;
+            this.format = format;
+        }
+
+        void addAll(List<UserImportRowResult> results) {
+            synchronized (rows) {
+                rows.addAll(results);
+            }
+            for (UserImportRowResult result : results) {
+                (result.getStatus() == UserImportRowResult.Status.CREATED ? created : rejected).incrementAndGet();
+            }
+        }
+
+        void fail(String message) {
+            error = message;
+            state = UserImportStatus.State.FAILED;
+        }
+
+        UserImportStatus snapshot() {
+            UserImportStatus status = new UserImportStatus();
+            status.setId(id);
+            status.setState(state);
+            status.setStartedAt(startedAt);
+            status.setFinishedAt(finishedAt);
+            status.setError(error);
+            synchronized (rows) {
+                status.setRows(new ArrayList<>(rows));
+            }
+            status.setRowsProcessed(status.getRows().size());
+            status.setCreated(created.get());
+            status.setRejected(rejected.get());
+            return status;
+        }
+    }
+}
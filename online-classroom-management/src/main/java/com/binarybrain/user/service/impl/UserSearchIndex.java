@@ -0,0 +1,265 @@
+package com.binarybrain.user.service.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * An in-memory prefix index of the user directory: username, first name, last name and current
+ * institute, split into lower-cased words.
+ *
+ * <p>Each field has its own sorted term dictionary mapping a word to the slots of the users it
+ * appears in, so the users matching a prefix are the postings of a contiguous range of terms.
+ * Matches are ranked by field (username, first name, last name, institute) and then by matched
+ * word in alphabetical order, which puts an exact word match first. Walking the dictionaries in
+ * that order lets a search stop as soon as it has {@code limit} results, so its cost depends on
+ * the limit rather than on the number of users. With several words in the query, the longest one
+ * drives the walk and every other word has to be the prefix of some word of the user.</p>
+ *
+ * <p>Replacing or removing a user leaves a tombstone, and the slots are compacted once tombstones
+ * outnumber a quarter of the index. Reads run concurrently; writes take an exclusive lock.</p>
+ */
+public class UserSearchIndex {
+    private static final int FIELDS = 4;
+    private static final int[] EMPTY = new int[0];
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final List<NavigableMap<String, Postings>> terms = new ArrayList<>(FIELDS);
+    private Entry[] entries = new Entry[16];
+    private int slots;
+    private final BitSet removed = new BitSet();
+    private final Map<Long, Integer> slotByUserId = new HashMap<>();
+
+    /**
+     * A user as it is indexed and returned by {@link #search}.
+     */
+    public record Entry(long userId, String username, String firstName, String lastName, String currentInstitute) {
+        private String field(int field) {
+            return switch (field) {
+                case 0 -> username;
+                case 1 -> firstName;
+                case 2 -> lastName;
+                default -> currentInstitute;
+            };
+        }
+    }
+
+    public UserSearchIndex() {
+        for (int field = 0; field < FIELDS; field++) {
+            terms.add(new TreeMap<>());
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return slotByUserId.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Indexes a user, replacing the previous entry of the same user.
+     */
+    public void put(Entry entry) {
+        lock.writeLock().lock();
+        try {
+            Integer previous = slotByUserId.get(entry.userId());
+            if (previous != null) {
+                if (entries[previous].equals(entry)) {
+                    return;
+                }
+                removed.set(previous);
+            }
+            add(entry);
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Indexes a user unless it is indexed already, so a bulk load never overwrites a newer entry
+     * written while it was running.
+     *
+     * @return whether the user was added.
+     */
+    public boolean putIfAbsent(Entry entry) {
+        lock.writeLock().lock();
+        try {
+            if (slotByUserId.containsKey(entry.userId())) {
+                return false;
+            }
+            add(entry);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(long userId) {
+        lock.writeLock().lock();
+        try {
+            Integer slot = slotByUserId.remove(userId);
+            if (slot != null) {
+                removed.set(slot);
+                compactIfNeeded();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Finds the users matching every word of {@code query} as a prefix, best first.
+     *
+     * @param limit      the maximum number of results.
+     * @param maxScanned the maximum number of candidates checked against the other words of a
+     *                   multi-word query, which bounds the cost of a query whose words rarely
+     *                   appear together.
+     */
+    public List<Entry> search(String query, int limit, int maxScanned) {
+        List<String> words = new ArrayList<>(new HashSet<>(tokenize(query)));
+        if (words.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        words.sort((a, b) -> b.length() != a.length() ? b.length() - a.length() : a.compareTo(b));
+        String driver = words.getFirst();
+        List<String> others = words.subList(1, words.size());
+
+        lock.readLock().lock();
+        try {
+            List<Entry> results = new ArrayList<>(limit);
+            Set<Integer> seen = new HashSet<>();
+            int scanned = 0;
+            for (int field = 0; field < FIELDS; field++) {
+                for (Postings postings : terms.get(field).subMap(driver, true, driver + Character.MAX_VALUE, false).values()) {
+                    for (int i = 0; i < postings.size; i++) {
+                        int slot = postings.slots[i];
+                        if (removed.get(slot) || !seen.add(slot)) {
+                            continue;
+                        }
+                        if (matchesAll(entries[slot], others)) {
+                            results.add(entries[slot]);
+                            if (results.size() == limit) {
+                                return results;
+                            }
+                        }
+                        if (!others.isEmpty() && ++scanned >= maxScanned) {
+                            return results;
+                        }
+                    }
+                }
+            }
+            return results;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static boolean matchesAll(Entry entry, List<String> words) {
+        if (words.isEmpty()) {
+            return true;
+        }
+        List<String> entryWords = new ArrayList<>();
+        for (int field = 0; field < FIELDS; field++) {
+            entryWords.addAll(tokenize(entry.field(field)));
+        }
+        for (String word : words) {
+            if (entryWords.stream().noneMatch(entryWord -> entryWord.startsWith(word))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Splits a value into lower-cased words of letters and digits.
+     */
+    static List<String> tokenize(String value) {
+        if (value == null || value.isEmpty()) {
+            return List.of();
+        }
+        List<String> words = new ArrayList<>(4);
+        int start = -1;
+        for (int i = 0; i <= value.length(); i++) {
+            boolean wordChar = i < value.length() && Character.isLetterOrDigit(value.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                words.add(value.substring(start, i).toLowerCase(Locale.ROOT));
+                start = -1;
+            }
+        }
+        return words;
+    }
+
+    private void add(Entry entry) {
+        int slot = allocate(entry);
+        slotByUserId.put(entry.userId(), slot);
+        for (int field = 0; field < FIELDS; field++) {
+            for (String word : new HashSet<>(tokenize(entry.field(field)))) {
+                terms.get(field).computeIfAbsent(word.intern(), key -> new Postings()).add(slot);
+            }
+        }
+    }
+
+    private int allocate(Entry entry) {
+        if (slots == entries.length) {
+            entries = Arrays.copyOf(entries, slots * 2);
+        }
+        entries[slots] = entry;
+        return slots++;
+    }
+
+    /**
+     * Re-adds the live entries to fresh dictionaries, when the removed slots exceed a quarter of
+     * the index.
+     */
+    private void compactIfNeeded() {
+        int tombstones = removed.cardinality();
+        if (tombstones <= Math.max(64, slotByUserId.size() / 4)) {
+            return;
+        }
+        Entry[] live = new Entry[slotByUserId.size()];
+        int count = 0;
+        for (int slot = 0; slot < slots; slot++) {
+            if (!removed.get(slot)) {
+                live[count++] = entries[slot];
+            }
+        }
+        entries = new Entry[Math.max(16, count)];
+        slots = 0;
+        removed.clear();
+        slotByUserId.clear();
+        terms.forEach(Map::clear);
+        for (Entry entry : live) {
+            add(entry);
+        }
+    }
+
+    /**
+     * The slots of the users a word appears in, in the order they were indexed.
+     */
+    private static final class Postings {
+        private int[] slots = EMPTY;
+        private int size;
+
+        void add(int slot) {
+            if (size == slots.length) {
+                slots = Arrays.copyOf(slots, Math.max(2, size * 2));
+            }
+            slots[size++] = slot;
+        }
+    }
+}
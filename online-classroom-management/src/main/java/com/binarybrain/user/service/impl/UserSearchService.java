@@ -0,0 +1,118 @@
+package com.binarybrain.user.service.impl;
+
+import com.binarybrain.user.dto.response.UserSearchResult;
+import com.binarybrain.user.model.User;
+import com.binarybrain.user.repository.UserRepository;
+import com.binarybrain.user.repository.UserRepository.UserSearchRow;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Typeahead search of the user directory, served from a {@link UserSearchIndex} that is loaded from
+ * the database at startup and updated as users are registered or imported.
+ *
+ * <p>Published to Micrometer: {@code user.search.indexed} (users in the index) and the
+ * {@code user.search} timer.</p>
+ */
+@Service
+public class UserSearchService implements MeterBinder {
+    private static final int LOAD_PAGE_SIZE = 5000;
+
+    @Value("${user-search.max-results:50}")
+    private int maxResults = 50;
+
+    @Value("${user-search.max-scanned:2000}")
+    private int maxScanned = 2000;
+
+    private final UserRepository userRepository;
+    private final UserSearchIndex index = new UserSearchIndex();
+    private volatile Timer searchTimer;
+
+    public UserSearchService(UserRepository userRepository) {
+        this.userRepository = userRepository;
+    }
+
+    @PostConstruct
+    void load() {
+        List<UserSearchRow> page;
+        long afterId = 0;
+        do {
+            page = userRepository.findSearchRowsAfter(afterId, Limit.of(LOAD_PAGE_SIZE));
+            for (UserSearchRow row : page) {
+                index.putIfAbsent(entry(row.getId(), row.getUsername(), row.getFirstName(), row.getLastName(), row.getCurrentInstitute()));
+            }
+            if (!page.isEmpty()) {
+                afterId = page.getLast().getId();
+            }
+        } while (page.size() == LOAD_PAGE_SIZE);
+    }
+
+    /**
+     * Indexes a saved user, replacing its previous entry. Inside a transaction the user is indexed
+     * once it commits, so a rolled back registration never shows up in the search.
+     */
+    public void index(User user) {
+        UserSearchIndex.Entry entry = entry(user.getId(), user.getUsername(), user.getFirstName(), user.getLastName(), user.getCurrentInstitute());
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    index.put(entry);
+                }
+            });
+        } else {
+            index.put(entry);
+        }
+    }
+
+    public void indexAll(Collection<User> users) {
+        users.forEach(this::index);
+    }
+
+    /**
+     * Returns the users matching every word of {@code query} as a prefix of their username, first
+     * name, last name or institute, best match first.
+     *
+     * @param limit the maximum number of results, capped at {@code user-search.max-results}.
+     */
+    public List<UserSearchResult> search(String query, int limit) {
+        long start = System.nanoTime();
+        List<UserSearchResult> results = index.search(query, Math.min(limit, maxResults), maxScanned).stream()
+                .map(entry -> new UserSearchResult(entry.userId(), entry.username(), entry.firstName(), entry.lastName(), entry.currentInstitute()))
+                .toList();
+        Timer timer = searchTimer;
+        if (timer != null) {
+            timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+        return results;
+    }
+
+    /**
+     * Names and institutes repeat across many users, so they are interned to share one copy.
+     */
+    private static UserSearchIndex.Entry entry(long id, String username, String firstName, String lastName, String currentInstitute) {
+        return new UserSearchIndex.Entry(id, username, intern(firstName), intern(lastName), intern(currentInstitute));
+    }
+
+    private static String intern(String value) {
+        return value == null ? null : value.intern();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("user.search.indexed", index, UserSearchIndex::size).register(registry);
+        searchTimer = Timer.builder("user.search").publishPercentiles(0.5, 0.99).register(registry);
+    }
+}
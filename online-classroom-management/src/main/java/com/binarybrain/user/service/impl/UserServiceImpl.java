@@ -4,20 +4,21 @@ import com.binarybrain.exception.AlreadyExistsException;
 import com.binarybrain.exception.ResourceNotFoundException;
 import com.binarybrain.exception.global.GlobalExceptionHandler;
 import com.binarybrain.user.dto.UserDto;
+import com.binarybrain.user.dto.response.UserProfileResponse;
+import com.binarybrain.user.dto.response.UserSearchResult;
 import com.binarybrain.user.mapper.UserMapper;
 import com.binarybrain.user.model.Role;
 import com.binarybrain.user.model.User;
 import com.binarybrain.user.repository.RoleRepository;
 import com.binarybrain.user.repository.UserRepository;
+import com.binarybrain.user.repository.UserRepository.UserProfileRow;
 import com.binarybrain.user.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.HashSet;
-import java.util.Optional;
-import java.util.Set;
+import java.util.*;
 /**
  * Implementation of the UserService interface for user registration.
  * This class handles user validation, password encryption, and role assignment.
@@ -27,18 +28,22 @@ import java.util.Set;
  */
 @Service
 public class UserServiceImpl implements UserService {
+    public static final int MAX_IDS_PER_QUERY = 500;
 
     private final UserRepository userRepository;
     private final RoleRepository roleRepository;
     private final PasswordEncoder passwordEncoder;
+    private final UserSearchService userSearchService;
 
     @Autowired
     public UserServiceImpl(UserRepository userRepository,
                            RoleRepository roleRepository,
-                           PasswordEncoder passwordEncoder){
+                           PasswordEncoder passwordEncoder,
+                           UserSearchService userSearchService){
         this.userRepository = userRepository;
         this.roleRepository = roleRepository;
         this.passwordEncoder = passwordEncoder;
+        this.userSearchService = userSearchService;
     }
 
     /**
@@ -71,7 +76,9 @@ public class UserServiceImpl implements UserService {
             });
             user.setRoles(roles);
         });
-        return userRepository.save(user);
+        User savedUser = userRepository.save(user);
+        userSearchService.index(savedUser);
+        return savedUser;
     }
 
     @Override
@@ -84,4 +91,89 @@ public class UserServiceImpl implements UserService {
         return userRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + id));
     }
-}
\ No newline at end of file
+
+    /**
+     * Returns the compact profiles of the given users in the order of their first appearance in
+     * {@code ids}. Unknown ids are skipped and duplicates are returned once. Large id sets are
+     * split into chunks of {@value #MAX_IDS_PER_QUERY} to keep the {@code IN} list bounded.
+     *
+     * @param ids the user ids to look up.
+     * @return the profiles of the users that exist.
+     */
+    @Transactional(readOnly = true)
+    @Override
+    public List<UserProfileResponse> getUserProfilesByIds(Collection<Long> ids) {
+        List<Long> distinctIds = ids.stream()
+                .filter(Objects::nonNull)
+                .distinct()
+                .toList();
+
+        Map<Long, UserProfileResponse> profiles = new HashMap<>();
+        for (int from = 0; from < distinctIds.size(); from += MAX_IDS_PER_QUERY) {
+            List<Long> chunk = distinctIds.subList(from, Math.min(from + MAX_IDS_PER_QUERY, distinctIds.size()));
+            userRepository.findProfileRowsByIdIn(chunk)
+                    .forEach(row -> addRow(profiles, row));
+        }
+
+        return distinctIds.stream()
+                .map(profiles::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    /**
+     * Returns the compact profiles of the given users in the order of their first appearance in
+     * {@code usernames}, like {@link #getUserProfilesByIds}. Usernames are matched ignoring case,
+     * as the database collation does.
+     *
+     * @param usernames the usernames to look up.
+     * @return the profiles of the users that exist.
+     */
+    @Transactional(readOnly = true)
+    @Override
+    public List<UserProfileResponse> getUserProfilesByUsernames(Collection<String> usernames) {
+        List<String> distinctUsernames = usernames.stream()
+                .filter(Objects::nonNull)
+                .map(username -> username.toLowerCase(Locale.ROOT))
+                .distinct()
+                .toList();
+
+        Map<Long, UserProfileResponse> profiles = new HashMap<>();
+        for (int from = 0; from < distinctUsernames.size(); from += MAX_IDS_PER_QUERY) {
+            List<String> chunk = distinctUsernames.subList(from, Math.min(from + MAX_IDS_PER_QUERY, distinctUsernames.size()));
+            userRepository.findProfileRowsByUsernameIn(chunk)
+                    .forEach(row -> addRow(profiles, row));
+        }
+
+        Map<String, UserProfileResponse> byUsername = new HashMap<>();
+        profiles.values().forEach(profile -> byUsername.put(profile.getUsername().toLowerCase(Locale.ROOT), profile));
+        return distinctUsernames.stream()
+                .map(byUsername::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    private void addRow(Map<Long, UserProfileResponse> profiles, UserProfileRow row) {
+        UserProfileResponse profile = profiles.computeIfAbsent(row.getId(), id -> {
+            UserProfileResponse response = new UserProfileResponse();
+            response.setId(id);
+            response.setFirstName(row.getFirstName());
+            response.setLastName(row.getLastName());
+            response.setUsername(row.getUsername());
+            response.setEmail(row.getEmail());
+            return response;
+        });
+        if (row.getRoleName() != null) {
+            profile.getRoles().add(new UserProfileResponse.RoleResponse(row.getRoleId(), row.getRoleName()));
+        }
+    }
+
+    /**
+     * Typeahead search over username, first and last name and current institute, served from the
+     * in-memory {@link UserSearchService} index.
+     */
+    @Override
+    public List<UserSearchResult> searchUsers(String query, int limit) {
+        return userSearchService.search(query, limit);
+    }
+}
@@ -3,6 +3,9 @@ package com.binarybrain.user.controller;
 import com.binarybrain.exception.AlreadyExistsException;
 import com.binarybrain.exception.ResourceNotFoundException;
 import com.binarybrain.user.dto.request.RefreshTokenRequest;
+import com.binarybrain.user.dto.response.PhotoResponse;
+import com.binarybrain.user.dto.response.UserProfileResponse;
+import com.binarybrain.user.dto.response.UserSearchResult;
 import com.binarybrain.user.repository.UserRepository;
 import com.binarybrain.user.service.RefreshTokenService;
 import com.binarybrain.user.service.UserImageService;
@@ -11,22 +14,29 @@ import com.binarybrain.user.dto.UserDto;
 import com.binarybrain.user.dto.request.AuthRequest;
 import com.binarybrain.user.mapper.UserMapper;
 import com.binarybrain.user.model.RefreshToken;
+import com.binarybrain.user.model.Role;
 import com.binarybrain.user.model.User;
+import com.binarybrain.user.security.AuthenticatedUser;
 import com.binarybrain.user.security.JwtUtil;
 import com.binarybrain.user.service.CustomUserDetailsService;
+import com.binarybrain.user.service.impl.RefreshTokenIndex;
 import com.binarybrain.user.service.UserService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
 import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.security.authentication.AuthenticationManager;
-import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
@@ -152,18 +162,16 @@ class UserControllerTest {
 
     @Test
     void testLoginUser_Success() throws Exception {
-        UserDetails userDetails = org.springframework.security.core.userdetails.User
-                .withUsername("moinulislam")
-                .password("password")
-                .roles("STUDENT")
-                .build();
-
-        when(userDetailsService.loadUserByUsername("moinulislam")).thenReturn(userDetails);
-        when(jwtUtil.generateToken(userDetails)).thenReturn("jwt-token");
+        createdUser.setPassword("password");
+        createdUser.setRoles(Set.of(new Role("ROLE_STUDENT")));
+        AuthenticatedUser principal = new AuthenticatedUser(createdUser);
+
+        when(authenticationManager.authenticate(any()))
+                .thenReturn(new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+        when(jwtUtil.generateToken(principal, createdUser.getId())).thenReturn("jwt-token");
         RefreshToken mockRefreshToken = new RefreshToken();
         mockRefreshToken.setToken("refresh-token");
-        when(refreshTokenService.createRefreshToken(any())).thenReturn(mockRefreshToken);
-        when(userRepository.findByUsername(any())).thenReturn(Optional.of(createdUser));
+        when(refreshTokenService.createRefreshToken(createdUser)).thenReturn(mockRefreshToken);
         mockMvc.perform(post("/api/user/login")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(new ObjectMapper().writeValueAsString(authRequest)))
@@ -172,9 +180,9 @@ class UserControllerTest {
                 .andExpect(jsonPath("$.refreshToken").value("refresh-token"));
 
         verify(authenticationManager, times(1)).authenticate(any());
-        verify(userDetailsService, times(1)).loadUserByUsername("moinulislam");
-        verify(jwtUtil, times(1)).generateToken(userDetails);
-        verify(refreshTokenService, times(1)).createRefreshToken(any());
+        verifyNoInteractions(userDetailsService, userRepository);
+        verify(jwtUtil, times(1)).generateToken(principal, createdUser.getId());
+        verify(refreshTokenService, times(1)).createRefreshToken(createdUser);
     }
 
     @Test
@@ -197,19 +205,16 @@ class UserControllerTest {
 
         RefreshToken refreshToken = new RefreshToken();
         refreshToken.setToken("valid-refresh-token");
-        refreshToken.setUser(createdUser);
+        refreshToken.setUser(RefreshTokenIndex.userReference(createdUser.getId()));
 
-        UserDetails userDetails = org.springframework.security.core.userdetails.User
-                .withUsername("moinulislam")
-                .password("password")
-                .roles("STUDENT")
-                .build();
+        createdUser.setPassword("password");
+        createdUser.setRoles(Set.of(new Role("ROLE_STUDENT")));
+        AuthenticatedUser userDetails = new AuthenticatedUser(createdUser);
 
         when(refreshTokenService.findByToken("valid-refresh-token"))
                 .thenReturn(Optional.of(refreshToken));
-        when(userDetailsService.loadUserByUsername("moinulislam"))
-                .thenReturn(userDetails);
-        when(jwtUtil.generateToken(userDetails))
+        when(userDetailsService.loadUserById(createdUser.getId())).thenReturn(Optional.of(userDetails));
+        when(jwtUtil.generateToken(userDetails, createdUser.getId()))
                 .thenReturn("new-jwt-token");
 
         mockMvc.perform(post("/api/user/refresh")
@@ -221,8 +226,27 @@ class UserControllerTest {
 
         verify(refreshTokenService, times(1)).findByToken("valid-refresh-token");
         verify(refreshTokenService, times(1)).verifyExpiration(refreshToken);
-        verify(userDetailsService, times(1)).loadUserByUsername("moinulislam");
-        verify(jwtUtil, times(1)).generateToken(userDetails);
+        verify(userDetailsService, times(1)).loadUserById(createdUser.getId());
+        verify(jwtUtil, times(1)).generateToken(userDetails, createdUser.getId());
+    }
+
+    @Test
+    void testRefreshToken_UserDeleted() throws Exception {
+        RefreshTokenRequest request = new RefreshTokenRequest();
+        request.setRefreshToken("valid-refresh-token");
+        RefreshToken refreshToken = new RefreshToken();
+        refreshToken.setToken("valid-refresh-token");
+        refreshToken.setUser(RefreshTokenIndex.userReference(createdUser.getId()));
+
+        when(refreshTokenService.findByToken("valid-refresh-token")).thenReturn(Optional.of(refreshToken));
+        when(userDetailsService.loadUserById(createdUser.getId())).thenReturn(Optional.empty());
+
+        mockMvc.perform(post("/api/user/refresh")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(new ObjectMapper().writeValueAsString(request)))
+                .andExpect(status().isUnauthorized());
+
+        verifyNoInteractions(jwtUtil);
     }
 
     @Test
@@ -251,6 +275,47 @@ class UserControllerTest {
         verify(userService, times(1)).getUserProfileById(999L, "moinulislam");
     }
 
+    @Test
+    void testGetUserProfilesByIds() throws Exception {
+        UserProfileResponse profile = new UserProfileResponse();
+        profile.setId(1L);
+        profile.setUsername("moinulislam");
+        profile.getRoles().add(new UserProfileResponse.RoleResponse(3L, "STUDENT"));
+        when(userService.getUserProfilesByIds(List.of(1L, 2L))).thenReturn(List.of(profile));
+
+        mockMvc.perform(get("/api/user/profiles")
+                        .param("ids", "1,2")
+                        .header("X-User-Username", "moinulislam"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(1))
+                .andExpect(jsonPath("$[0].roles[0].name").value("STUDENT"))
+                .andExpect(jsonPath("$[0].password").doesNotExist());
+
+        mockMvc.perform(post("/api/user/profiles")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[1,2]")
+                        .header("X-User-Username", "moinulislam"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].username").value("moinulislam"));
+
+        verify(userService, times(2)).getUserProfilesByIds(List.of(1L, 2L));
+    }
+
+    @Test
+    void testSearchUsers() throws Exception {
+        when(userService.searchUsers("moi", 5))
+                .thenReturn(List.of(new UserSearchResult(1L, "moinulislam", "Moinul", "Islam", "PUST")));
+
+        mockMvc.perform(get("/api/user/search")
+                        .param("q", "moi")
+                        .param("limit", "5")
+                        .header("X-User-Username", "moinulislam"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(1))
+                .andExpect(jsonPath("$[0].currentInstitute").value("PUST"))
+                .andExpect(jsonPath("$[0].email").doesNotExist());
+    }
+
     @Test
     void testUploadPhoto() throws Exception {
         Long userId = 1L;
@@ -271,22 +336,56 @@ class UserControllerTest {
                 .andExpect(content().string(photoUrl));
     }
 
+    @TempDir
+    Path photoDir;
+
+    private PhotoResponse photo(byte[] content) throws IOException {
+        Path file = Files.write(photoDir.resolve("photo123.jpg"), content);
+        return new PhotoResponse(file, MediaType.IMAGE_JPEG_VALUE, "\"abc123\"");
+    }
+
     @Test
     void testGetPhoto() throws Exception {
         String filename = "photo123.jpg";
         byte[] photoContent = "dummy image content".getBytes();
 
-        when(imageService.getPhoto(filename)).thenReturn(photoContent);
+        when(imageService.getPhoto(filename, null)).thenReturn(photo(photoContent));
 
         mockMvc.perform(get("/api/user/photo/{filename}", filename))
                 .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"abc123\""))
+                .andExpect(header().string("Cache-Control", "max-age=300, must-revalidate, private"))
+                .andExpect(header().string("X-Content-Type-Options", "nosniff"))
+                .andExpect(content().contentType(MediaType.IMAGE_JPEG))
                 .andExpect(content().bytes(photoContent));
     }
 
+    @Test
+    void testGetPhoto_NotModified() throws Exception {
+        String filename = "photo123.jpg";
+        when(imageService.getPhoto(filename, "small")).thenReturn(photo("dummy image content".getBytes()));
+
+        mockMvc.perform(get("/api/user/photo/{filename}", filename).param("size", "small")
+                        .header("If-None-Match", "\"abc123\""))
+                .andExpect(status().isNotModified())
+                .andExpect(content().bytes(new byte[0]));
+    }
+
+    @Test
+    void testGetPhoto_Range() throws Exception {
+        String filename = "photo123.jpg";
+        when(imageService.getPhoto(filename, null)).thenReturn(photo("dummy image content".getBytes()));
+
+        mockMvc.perform(get("/api/user/photo/{filename}", filename).header("Range", "bytes=6-10"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string("Content-Range", "bytes 6-10/19"))
+                .andExpect(content().bytes("image".getBytes()));
+    }
+
     @Test
     void testGetPhoto_NotFound() throws Exception {
         String filename = "nonexistent.jpg";
-        when(imageService.getPhoto(filename))
+        when(imageService.getPhoto(filename, null))
                 .thenThrow(new ResourceNotFoundException("Image not found"));
         mockMvc.perform(get("/api/user/photo/{filename}", filename))
                 .andExpect(status().isNotFound());
@@ -34,8 +34,10 @@ class JwtUtilTest {
 
     @Test
     void generateToken() {
-        String token = jwtUtil.generateToken(getUser());
+        String token = jwtUtil.generateToken(getUser(), 7L);
         assertNotNull(token);
+        assertEquals(7L, jwtUtil.extractAllClaims(token).get(JwtUtil.USER_ID_CLAIM, Long.class));
+        assertNotNull(jwtUtil.extractAllClaims(token).get(JwtUtil.ROLES_CLAIM));
     }
 
     @Test
@@ -3,6 +3,7 @@ package com.binarybrain.user.service;
 import com.binarybrain.user.model.Role;
 import com.binarybrain.user.model.User;
 import com.binarybrain.user.repository.UserRepository;
+import com.binarybrain.user.security.AuthenticatedUser;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
@@ -31,6 +32,7 @@ class CustomUserDetailsServiceTest {
     @Test
     void loadUserByUsername_Success() {
         User user = new User();
+        user.setId(7L);
         user.setUsername("testuser");
         user.setPassword("password");
         user.setRoles(Set.of(new Role("ROLE_STUDENT")));
@@ -42,6 +44,30 @@ class CustomUserDetailsServiceTest {
         assertEquals("password", userDetails.getPassword());
         assertEquals(1, userDetails.getAuthorities().size());
         assertEquals("ROLE_STUDENT", userDetails.getAuthorities().iterator().next().getAuthority());
+        AuthenticatedUser authenticatedUser = assertInstanceOf(AuthenticatedUser.class, userDetails);
+        assertSame(user, authenticatedUser.getUser());
+        assertEquals(7L, authenticatedUser.getUserId());
+    }
+
+    @Test
+    void loadUserById_LoadsTheCurrentRoles() {
+        User user = new User();
+        user.setId(7L);
+        user.setUsername("testuser");
+        user.setPassword("password");
+        user.setRoles(Set.of(new Role("ROLE_TEACHER")));
+
+        when(userRepository.findById(7L)).thenReturn(Optional.of(user));
+
+        AuthenticatedUser authenticatedUser = customUserDetailsService.loadUserById(7L).orElseThrow();
+        assertSame(user, authenticatedUser.getUser());
+        assertEquals("ROLE_TEACHER", authenticatedUser.getAuthorities().iterator().next().getAuthority());
+    }
+
+    @Test
+    void loadUserById_UserNotFound() {
+        when(userRepository.findById(7L)).thenReturn(Optional.empty());
+        assertTrue(customUserDetailsService.loadUserById(7L).isEmpty());
     }
 
     @Test
@@ -0,0 +1,163 @@
+package com.binarybrain.user.service;
+
+import com.binarybrain.user.model.RefreshToken;
+import com.binarybrain.user.model.Role;
+import com.binarybrain.user.model.User;
+import com.binarybrain.user.repository.RefreshTokenRepository;
+import com.binarybrain.user.repository.RoleRepository;
+import com.binarybrain.user.repository.UserRepository;
+import com.binarybrain.user.security.AuthenticatedUser;
+import com.binarybrain.user.service.impl.RefreshTokenIndex;
+import com.binarybrain.user.service.impl.RefreshTokenServiceImpl;
+import com.binarybrain.user.service.impl.RefreshTokenWriter;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Counts the SQL statements each login runs against an in-memory H2 database, for the previous flow
+ * (three lookups of the user, delete and re-insert of the refresh token) and the current one (one
+ * lookup, refresh token updated in place). Statement counts don't depend on the machine, so this
+ * runs with the ordinary tests.
+ *
+ * <p>Passwords are hashed with BCrypt strength 4 so hashing doesn't hide the database work. Tokens
+ * are written synchronously ({@code jwt.refresh.write-behind=false}) so every statement is
+ * counted.</p>
+ */
+@DataJpaTest(properties = {
+        "jwt.refresh.expiration=604800000",
+        "jwt.refresh.write-behind=false"
+})
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({CustomUserDetailsService.class, RefreshTokenServiceImpl.class, RefreshTokenWriter.class, RefreshTokenIndex.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class LoginThroughputBenchmarkTest {
+    private static final int USERS = 20;
+    private static final int WARMUP_LOGINS = 100;
+    private static final int LOGINS = 500;
+    private static final String PASSWORD = "password";
+
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private RoleRepository roleRepository;
+    @Autowired
+    private RefreshTokenRepository refreshTokenRepository;
+    @Autowired
+    private CustomUserDetailsService userDetailsService;
+    @Autowired
+    private RefreshTokenService refreshTokenService;
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private final BCryptPasswordEncoder passwordEncoder = new BCryptPasswordEncoder(4);
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        refreshTokenRepository.deleteAll();
+        userRepository.deleteAll();
+        roleRepository.deleteAll();
+        Role role = roleRepository.save(new Role("ROLE_STUDENT"));
+        String encodedPassword = passwordEncoder.encode(PASSWORD);
+        for (int i = 0; i < USERS; i++) {
+            User user = new User();
+            user.setFirstName("First" + i);
+            user.setLastName("Last" + i);
+            user.setCountry("Bangladesh");
+            user.setGender("Male");
+            user.setUsername("user" + i);
+            user.setEmail("user" + i + "@example.com");
+            user.setPassword(encodedPassword);
+            user.setRoles(Set.of(role));
+            userRepository.save(user);
+        }
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void singleLookupLoginRunsFewerStatements() {
+        AuthenticationProvider legacyProvider = provider(username -> {
+            User user = legacyFindByUsername(username);
+            return new org.springframework.security.core.userdetails.User(user.getUsername(), user.getPassword(), user.getRoles());
+        });
+        AuthenticationProvider provider = provider(userDetailsService);
+
+        Result legacy = run(username -> {
+            legacyProvider.authenticate(new UsernamePasswordAuthenticationToken(username, PASSWORD));
+            legacyFindByUsername(username);
+            User user = legacyFindByUsername(username);
+            refreshTokenRepository.deleteByUser(user);
+            RefreshToken refreshToken = new RefreshToken();
+            refreshToken.setUser(user);
+            refreshToken.setTokenHash(UUID.randomUUID().toString());
+            refreshToken.setExpiryDate(Instant.now().plusSeconds(3600));
+            refreshTokenRepository.save(refreshToken);
+        });
+        Result singleLookup = run(username -> {
+            Authentication authentication = provider.authenticate(new UsernamePasswordAuthenticationToken(username, PASSWORD));
+            AuthenticatedUser principal = (AuthenticatedUser) authentication.getPrincipal();
+            refreshTokenService.createRefreshToken(principal.getUser());
+        });
+
+        assertEquals(2.0, singleLookup.statementsPerLogin(), "one select of the user and its roles, one token update");
+        assertTrue(singleLookup.statementsPerLogin() < legacy.statementsPerLogin());
+        assertEquals(USERS, refreshTokenRepository.count());
+    }
+
+    private AuthenticationProvider provider(UserDetailsService service) {
+        DaoAuthenticationProvider provider = new DaoAuthenticationProvider(passwordEncoder);
+        provider.setUserDetailsService(service);
+        return provider;
+    }
+
+    /**
+     * The lookup the login used before roles were fetched with the user: one select of the user and
+     * one of its roles.
+     */
+    private User legacyFindByUsername(String username) {
+        return entityManager.createQuery("select u from User u where u.username = :username", User.class)
+                .setParameter("username", username)
+                .getSingleResult();
+    }
+
+    private Result run(Consumer<String> login) {
+        for (int i = 0; i < WARMUP_LOGINS; i++) {
+            login.accept("user" + (i % USERS));
+        }
+        statistics.clear();
+        for (int i = 0; i < LOGINS; i++) {
+            login.accept("user" + (i % USERS));
+        }
+        return new Result((double) statistics.getPrepareStatementCount() / LOGINS);
+    }
+
+    private record Result(double statementsPerLogin) {
+    }
+}
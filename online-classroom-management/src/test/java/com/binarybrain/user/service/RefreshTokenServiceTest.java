@@ -3,12 +3,15 @@ package com.binarybrain.user.service;
 import com.binarybrain.user.model.RefreshToken;
 import com.binarybrain.user.model.User;
 import com.binarybrain.user.repository.RefreshTokenRepository;
+import com.binarybrain.user.service.impl.RefreshTokenIndex;
 import com.binarybrain.user.service.impl.RefreshTokenServiceImpl;
+import com.binarybrain.user.service.impl.RefreshTokenWriter;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.time.Instant;
@@ -25,6 +28,12 @@ class RefreshTokenServiceTest {
     @Mock
     private RefreshTokenRepository refreshTokenRepository;
 
+    @Mock
+    private RefreshTokenWriter refreshTokenWriter;
+
+    @Spy
+    private RefreshTokenIndex refreshTokenIndex = new RefreshTokenIndex(100);
+
     @InjectMocks
     private RefreshTokenServiceImpl refreshTokenService;
 
@@ -41,30 +50,95 @@ class RefreshTokenServiceTest {
         refreshToken = new RefreshToken();
         refreshToken.setId(1L);
         refreshToken.setToken(UUID.randomUUID().toString());
+        refreshToken.setTokenHash(RefreshTokenServiceImpl.hashOf(refreshToken.getToken()));
         refreshToken.setExpiryDate(Instant.now().plusSeconds(3600));
         refreshToken.setUser(user);
     }
 
     @Test
     void createRefreshToken_Success() {
-        when(refreshTokenRepository.save(any(RefreshToken.class))).thenReturn(refreshToken);
+        RefreshToken createdToken = refreshTokenService.createRefreshToken(user);
+
+        assertNotNull(createdToken.getToken());
+        assertEquals(RefreshTokenServiceImpl.hashOf(createdToken.getToken()), createdToken.getTokenHash());
+        assertNotEquals(createdToken.getToken(), createdToken.getTokenHash());
+        assertEquals(user.getId(), createdToken.getUser().getId());
+        assertNull(createdToken.getUser().getUsername(), "the token refers to its user by id only");
+        assertTrue(createdToken.getExpiryDate().isAfter(Instant.now()));
+        verify(refreshTokenWriter, times(1)).write(createdToken);
+        verifyNoInteractions(refreshTokenRepository);
+    }
+
+    @Test
+    void findByToken_IndexedTokenIsServedFromIndexWhileItIsStored() {
+        RefreshToken createdToken = refreshTokenService.createRefreshToken(user);
+        when(refreshTokenRepository.existsByTokenHash(createdToken.getTokenHash())).thenReturn(true);
+
+        Optional<RefreshToken> foundToken = refreshTokenService.findByToken(createdToken.getToken());
+
+        assertEquals(Optional.of(createdToken.getTokenHash()), foundToken.map(RefreshToken::getTokenHash));
+        verify(refreshTokenRepository, never()).findByTokenHash(any());
+    }
 
+    @Test
+    void findByToken_IndexedTokenReplacedThroughAnotherInstanceIsRejected() {
         RefreshToken createdToken = refreshTokenService.createRefreshToken(user);
+        when(refreshTokenRepository.existsByTokenHash(createdToken.getTokenHash())).thenReturn(false);
 
-        assertNotNull(createdToken);
-        assertEquals(refreshToken.getToken(), createdToken.getToken());
-        verify(refreshTokenRepository, times(1)).save(any(RefreshToken.class));
+        assertTrue(refreshTokenService.findByToken(createdToken.getToken()).isEmpty());
+        assertTrue(refreshTokenIndex.find(createdToken.getTokenHash()).isEmpty());
     }
 
     @Test
     void findByToken_Success() {
-        when(refreshTokenRepository.findByToken(refreshToken.getToken())).thenReturn(Optional.of(refreshToken));
+        when(refreshTokenWriter.findPending(refreshToken.getTokenHash())).thenReturn(Optional.empty());
+        when(refreshTokenRepository.findByTokenHash(refreshToken.getTokenHash())).thenReturn(Optional.of(refreshToken));
 
         Optional<RefreshToken> foundToken = refreshTokenService.findByToken(refreshToken.getToken());
 
         assertTrue(foundToken.isPresent());
-        assertEquals(refreshToken.getToken(), foundToken.get().getToken());
-        verify(refreshTokenRepository, times(1)).findByToken(refreshToken.getToken());
+        assertEquals(refreshToken.getTokenHash(), foundToken.get().getTokenHash());
+        verify(refreshTokenRepository, times(1)).findByTokenHash(refreshToken.getTokenHash());
+
+        when(refreshTokenRepository.existsByTokenHash(refreshToken.getTokenHash())).thenReturn(true);
+        assertTrue(refreshTokenService.findByToken(refreshToken.getToken()).isPresent());
+        verify(refreshTokenRepository, times(1)).findByTokenHash(refreshToken.getTokenHash());
+    }
+
+    @Test
+    void findByToken_Pending() {
+        when(refreshTokenWriter.findPending(refreshToken.getTokenHash())).thenReturn(Optional.of(refreshToken));
+
+        Optional<RefreshToken> foundToken = refreshTokenService.findByToken(refreshToken.getToken());
+
+        assertEquals(Optional.of(refreshToken), foundToken);
+        verifyNoInteractions(refreshTokenRepository);
+    }
+
+    @Test
+    void findByToken_SupersededByPendingToken() {
+        when(refreshTokenWriter.findPending(refreshToken.getTokenHash())).thenReturn(Optional.empty());
+        when(refreshTokenRepository.findByTokenHash(refreshToken.getTokenHash())).thenReturn(Optional.of(refreshToken));
+        when(refreshTokenWriter.isSuperseded(refreshToken)).thenReturn(true);
+
+        assertTrue(refreshTokenService.findByToken(refreshToken.getToken()).isEmpty());
+    }
+
+    @Test
+    void findByToken_SupersededByNewerLogin() {
+        refreshTokenService.createRefreshToken(user);
+        when(refreshTokenWriter.findPending(refreshToken.getTokenHash())).thenReturn(Optional.empty());
+        when(refreshTokenRepository.findByTokenHash(refreshToken.getTokenHash())).thenReturn(Optional.of(refreshToken));
+
+        assertTrue(refreshTokenService.findByToken(refreshToken.getToken()).isEmpty());
+    }
+
+    @Test
+    void findByToken_UnknownToken() {
+        when(refreshTokenRepository.findByTokenHash(any())).thenReturn(Optional.empty());
+        when(refreshTokenWriter.findPending(any())).thenReturn(Optional.empty());
+
+        assertTrue(refreshTokenService.findByToken("unknown").isEmpty());
     }
 
 
@@ -79,6 +153,8 @@ class RefreshTokenServiceTest {
         refreshToken.setExpiryDate(Instant.now().minusSeconds(3600)); // 1 hour ago
 
         assertThrows(RuntimeException.class, () -> refreshTokenService.verifyExpiration(refreshToken));
+        verify(refreshTokenWriter, times(1)).discard(refreshToken);
+        verify(refreshTokenIndex, times(1)).remove(refreshToken);
         verify(refreshTokenRepository, times(1)).delete(refreshToken);
     }
 }
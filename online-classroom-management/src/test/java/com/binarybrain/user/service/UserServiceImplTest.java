@@ -3,12 +3,15 @@ package com.binarybrain.user.service;
 import com.binarybrain.exception.AlreadyExistsException;
 import com.binarybrain.exception.ResourceNotFoundException;
 import com.binarybrain.user.dto.UserDto;
+import com.binarybrain.user.dto.response.UserProfileResponse;
 import com.binarybrain.user.mapper.UserMapper;
+import com.binarybrain.user.service.impl.UserSearchService;
 import com.binarybrain.user.service.impl.UserServiceImpl;
 import com.binarybrain.user.model.Role;
 import com.binarybrain.user.model.User;
 import com.binarybrain.user.repository.RoleRepository;
 import com.binarybrain.user.repository.UserRepository;
+import com.binarybrain.user.repository.UserRepository.UserProfileRow;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -17,9 +20,14 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
 import static org.mockito.Mockito.*;
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -34,6 +42,8 @@ class UserServiceImplTest {
     private RoleRepository roleRepository;
     @Mock
     private PasswordEncoder passwordEncoder;
+    @Mock
+    private UserSearchService userSearchService;
 
     private UserDto userDto;
     private User testUser;
@@ -71,6 +81,7 @@ class UserServiceImplTest {
         assertNotNull(savedUser);
         assertEquals("moinulislam", savedUser.getUsername());
         assertEquals("encodedPassword", savedUser.getPassword());
+        verify(userSearchService).index(savedUser);
         assertTrue(savedUser.getRoles().contains(userRole));
 
         verify(userRepository, times(1)).save(any(User.class));
@@ -146,4 +157,63 @@ class UserServiceImplTest {
                 () -> userService.getUserProfileById(userId, username));
         verify(userRepository, times(1)).findById(userId);
     }
-}
\ No newline at end of file
+
+    private record Row(Long id, String username, Long roleId, String roleName) implements UserProfileRow {
+        public Long getId() { return id; }
+        public String getFirstName() { return "First"; }
+        public String getLastName() { return "Last"; }
+        public String getUsername() { return username; }
+        public String getEmail() { return username + "@example.com"; }
+        public Long getRoleId() { return roleId; }
+        public String getRoleName() { return roleName; }
+    }
+
+    @Test
+    void getUserProfilesByIds_GroupsRolesAndKeepsRequestOrder() {
+        when(userRepository.findProfileRowsByIdIn(List.of(2L, 1L, 3L))).thenReturn(List.of(
+                new Row(1L, "teacher", 2L, "TEACHER"),
+                new Row(1L, "teacher", 1L, "ADMIN"),
+                new Row(2L, "student", 3L, "STUDENT"),
+                new Row(3L, "norole", null, null)));
+
+        List<UserProfileResponse> result = userService.getUserProfilesByIds(List.of(2L, 1L, 2L, 3L));
+
+        assertEquals(List.of(2L, 1L, 3L), result.stream().map(UserProfileResponse::getId).toList());
+        assertEquals(Set.of("TEACHER", "ADMIN"), result.get(1).getRoles().stream()
+                .map(UserProfileResponse.RoleResponse::getName).collect(Collectors.toSet()));
+        assertEquals("student@example.com", result.get(0).getEmail());
+        assertTrue(result.get(2).getRoles().isEmpty());
+        verify(userRepository, times(1)).findProfileRowsByIdIn(anyCollection());
+    }
+
+    @Test
+    void getUserProfilesByIds_SkipsUnknownIds() {
+        when(userRepository.findProfileRowsByIdIn(List.of(1L, 99L))).thenReturn(List.of(new Row(1L, "teacher", 2L, "TEACHER")));
+
+        List<UserProfileResponse> result = userService.getUserProfilesByIds(List.of(1L, 99L));
+
+        assertEquals(1, result.size());
+        assertEquals("teacher", result.get(0).getUsername());
+    }
+
+    @Test
+    void getUserProfilesByIds_SplitsLargeSetsIntoChunks() {
+        List<Long> ids = LongStream.rangeClosed(1, UserServiceImpl.MAX_IDS_PER_QUERY * 2L + 1).boxed().toList();
+        when(userRepository.findProfileRowsByIdIn(anyCollection())).thenReturn(List.of());
+
+        assertTrue(userService.getUserProfilesByIds(ids).isEmpty());
+        verify(userRepository, times(3)).findProfileRowsByIdIn(anyCollection());
+    }
+
+    @Test
+    void getUserProfilesByUsernames_IgnoresCaseAndKeepsRequestOrder() {
+        when(userRepository.findProfileRowsByUsernameIn(List.of("student", "teacher", "ghost"))).thenReturn(List.of(
+                new Row(1L, "teacher", 2L, "TEACHER"),
+                new Row(2L, "Student", 3L, "STUDENT")));
+
+        List<UserProfileResponse> result = userService.getUserProfilesByUsernames(List.of("student", "TEACHER", "ghost", "Student"));
+
+        assertEquals(List.of(2L, 1L), result.stream().map(UserProfileResponse::getId).toList());
+        assertEquals("STUDENT", result.get(0).getRoles().iterator().next().getName());
+    }
+}
@@ -0,0 +1,165 @@
+package com.binarybrain.user.service.impl;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FaceEmbeddingIndexTest {
+    private static final int DIMENSION = 64;
+
+    private static float[] randomVector(SplittableRandom random) {
+        float[] vector = new float[DIMENSION];
+        for (int i = 0; i < vector.length; i++) {
+            vector[i] = (float) random.nextGaussian();
+        }
+        return vector;
+    }
+
+    private static float[] nearby(float[] vector, SplittableRandom random) {
+        float[] noisy = vector.clone();
+        for (int i = 0; i < noisy.length; i++) {
+            noisy[i] += (float) (random.nextGaussian() * 0.05);
+        }
+        return noisy;
+    }
+
+    private static FaceEmbeddingIndex filled(int bruteForceLimit, float[][] vectors) {
+        FaceEmbeddingIndex index = new FaceEmbeddingIndex(DIMENSION, bruteForceLimit);
+        for (int id = 0; id < vectors.length; id++) {
+            index.put(id, vectors[id]);
+        }
+        return index;
+    }
+
+    @Test
+    void search_FindsTheClosestEmbeddingFirst() {
+        SplittableRandom random = new SplittableRandom(1);
+        float[][] vectors = new float[100][];
+        for (int i = 0; i < vectors.length; i++) {
+            vectors[i] = randomVector(random);
+        }
+        FaceEmbeddingIndex index = filled(1000, vectors);
+
+        List<FaceEmbeddingIndex.Match> matches = index.search(nearby(vectors[42], random), 3, -1);
+
+        assertEquals(3, matches.size());
+        assertEquals(42L, matches.getFirst().userId());
+        assertTrue(matches.getFirst().similarity() > 0.99f);
+        assertTrue(matches.get(1).similarity() <= matches.getFirst().similarity());
+    }
+
+    @Test
+    void search_LeavesOutMatchesBelowMinSimilarity() {
+        SplittableRandom random = new SplittableRandom(2);
+        float[][] vectors = {randomVector(random), randomVector(random)};
+        FaceEmbeddingIndex index = filled(1000, vectors);
+
+        List<FaceEmbeddingIndex.Match> matches = index.search(vectors[1], 10, 0.9f);
+
+        assertEquals(List.of(1L), matches.stream().map(FaceEmbeddingIndex.Match::userId).toList());
+    }
+
+    @Test
+    void hnswSearch_AgreesWithBruteForce() {
+        SplittableRandom random = new SplittableRandom(3);
+        float[][] vectors = new float[5000][];
+        for (int i = 0; i < vectors.length; i++) {
+            vectors[i] = randomVector(random);
+        }
+        FaceEmbeddingIndex bruteForce = filled(Integer.MAX_VALUE, vectors);
+        FaceEmbeddingIndex hnsw = filled(100, vectors);
+
+        int queries = 200;
+        int k = 10;
+        int found = 0;
+        for (int q = 0; q < queries; q++) {
+            float[] query = nearby(vectors[random.nextInt(vectors.length)], random);
+            Set<Long> expected = new HashSet<>();
+            bruteForce.search(query, k, -1).forEach(match -> expected.add(match.userId()));
+            for (FaceEmbeddingIndex.Match match : hnsw.search(query, k, -1)) {
+                found += expected.contains(match.userId()) ? 1 : 0;
+            }
+        }
+        double recall = found / (double) (queries * k);
+        assertTrue(recall > 0.95, "recall@" + k + " was " + recall);
+    }
+
+    @Test
+    void put_ReplacesThePreviousEmbeddingOfAUser() {
+        SplittableRandom random = new SplittableRandom(4);
+        float[] before = randomVector(random);
+        float[] after = randomVector(random);
+        FaceEmbeddingIndex index = new FaceEmbeddingIndex(DIMENSION, 1000);
+
+        index.put(7, before);
+        index.put(7, after);
+
+        assertEquals(1, index.size());
+        assertTrue(index.search(before, 10, 0.9f).isEmpty());
+        assertEquals(7L, index.search(after, 10, 0.9f).getFirst().userId());
+    }
+
+    @Test
+    void remove_DropsTheUserAndCompactsTombstones() {
+        SplittableRandom random = new SplittableRandom(5);
+        float[][] vectors = new float[400][];
+        for (int i = 0; i < vectors.length; i++) {
+            vectors[i] = randomVector(random);
+        }
+        FaceEmbeddingIndex index = filled(50, vectors);
+
+        for (int id = 0; id < 300; id++) {
+            index.remove(id);
+        }
+
+        assertEquals(100, index.size());
+        assertTrue(index.search(vectors[10], 5, 0.9f).isEmpty());
+        assertEquals(350L, index.search(vectors[350], 5, 0.9f).getFirst().userId());
+    }
+
+    @Test
+    void writeTo_RoundTripsEmbeddingsAndGraph(@TempDir Path directory) throws IOException {
+        SplittableRandom random = new SplittableRandom(6);
+        float[][] vectors = new float[300][];
+        for (int i = 0; i < vectors.length; i++) {
+            vectors[i] = randomVector(random);
+        }
+        FaceEmbeddingIndex index = filled(100, vectors);
+        index.remove(5);
+        Path path = directory.resolve("faces.idx");
+
+        index.writeTo(path);
+        FaceEmbeddingIndex loaded = FaceEmbeddingIndex.readFrom(path, DIMENSION, 100).orElseThrow();
+
+        assertEquals(299, loaded.size());
+        assertEquals(index.search(vectors[123], 5, -1), loaded.search(vectors[123], 5, -1));
+        assertTrue(loaded.search(vectors[5], 5, 0.99f).isEmpty());
+        try (var files = Files.list(directory)) {
+            assertEquals(List.of(path), files.toList());
+        }
+    }
+
+    @Test
+    void readFrom_IgnoresMissingFilesAndOtherDimensions(@TempDir Path directory) throws IOException {
+        Path path = directory.resolve("faces.idx");
+        assertTrue(FaceEmbeddingIndex.readFrom(path, DIMENSION, 100).isEmpty());
+
+        new FaceEmbeddingIndex(DIMENSION, 100).writeTo(path);
+        assertTrue(FaceEmbeddingIndex.readFrom(path, DIMENSION * 2, 100).isEmpty());
+    }
+
+    @Test
+    void put_RejectsEmbeddingsOfTheWrongDimension() {
+        FaceEmbeddingIndex index = new FaceEmbeddingIndex(DIMENSION, 100);
+        assertThrows(IllegalArgumentException.class, () -> index.put(1, new float[DIMENSION + 1]));
+    }
+}
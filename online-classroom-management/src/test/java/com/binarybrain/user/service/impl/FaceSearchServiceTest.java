@@ -0,0 +1,118 @@
+package com.binarybrain.user.service.impl;
+
+import com.binarybrain.user.model.User;
+import com.binarybrain.user.model.UserImage;
+import com.binarybrain.user.repository.UserImageRepository;
+import com.binarybrain.user.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.data.domain.Limit;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class FaceSearchServiceTest {
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final UserImageRepository imageRepository = mock(UserImageRepository.class);
+    private FaceSearchService service;
+
+    @TempDir
+    Path directory;
+
+    private FaceSearchService start() throws IOException {
+        FaceSearchService started = new FaceSearchService(new PixelEmbeddingProvider(), userRepository, imageRepository,
+                new PhotoStorage(directory.resolve("photos").toString()));
+        ReflectionTestUtils.setField(started, "indexPath", directory.resolve("faces.idx").toString());
+        started.init();
+        return started;
+    }
+
+    @AfterEach
+    void stop() throws InterruptedException {
+        if (service != null) {
+            service.shutdown();
+        }
+    }
+
+    private static byte[] bytes(String content) {
+        return content.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static InputStream stream(String content) {
+        return new ByteArrayInputStream(bytes(content));
+    }
+
+    private UserImage storedPhoto(long id, String content) throws IOException {
+        new PhotoStorage(directory.resolve("photos").toString()).store(id + ".png", stream(content));
+        return new UserImage(id, "user" + id, id + ".png", "image/png", (long) content.length(), null);
+    }
+
+    private void returnUsersById() {
+        when(userRepository.findAllById(anyIterable())).thenAnswer(invocation -> {
+            List<User> users = new ArrayList<>();
+            for (Object id : (Iterable<?>) invocation.getArgument(0)) {
+                User user = new User();
+                user.setId((Long) id);
+                users.add(user);
+            }
+            return users;
+        });
+    }
+
+    @Test
+    void init_RebuildsTheIndexFromStoredImagesAndSavesIt() throws IOException {
+        List<UserImage> stored = List.of(storedPhoto(1L, "face-1"), storedPhoto(2L, "face-2"),
+                new UserImage(3L, "user3", "3.png", "image/png", 10L, null));
+        when(imageRepository.findByIdGreaterThanOrderByIdAsc(eq(0L), any(Limit.class))).thenReturn(stored);
+        returnUsersById();
+
+        service = start();
+        List<User> matches = service.searchByImage(new MultipartFile[]{new MockMultipartFile("image", bytes("face-2"))});
+
+        assertEquals(List.of(2L), matches.stream().map(User::getId).toList());
+        assertTrue(Files.exists(directory.resolve("faces.idx")));
+        verify(imageRepository).findByIdGreaterThanOrderByIdAsc(eq(0L), any(Limit.class));
+    }
+
+    @Test
+    void init_LoadsASavedIndexWithoutReadingStoredImages() throws Exception {
+        service = start();
+        service.index(3L, stream("face-3"));
+        service.shutdown();
+        clearInvocations(imageRepository);
+        returnUsersById();
+
+        service = start();
+        List<User> matches = service.searchByImage(new MultipartFile[]{new MockMultipartFile("image", bytes("face-3"))});
+
+        assertEquals(List.of(3L), matches.stream().map(User::getId).toList());
+        verify(imageRepository, never()).findByIdGreaterThanOrderByIdAsc(anyLong(), any(Limit.class));
+    }
+
+    @Test
+    void searchByImage_ReturnsNothingWithoutSimilarFaces() throws IOException {
+        service = start();
+        service.index(4L, stream("face-4"));
+
+        List<User> matches = service.searchByImage(new MultipartFile[]{new MockMultipartFile("image", bytes("someone else"))});
+
+        assertTrue(matches.isEmpty());
+    }
+}
@@ -0,0 +1,174 @@
+package com.binarybrain.user.service.impl;
+
+import com.binarybrain.user.config.SecurityConfig;
+import com.binarybrain.user.model.User;
+import com.binarybrain.user.model.UserImage;
+import com.binarybrain.user.repository.UserImageRepository;
+import com.binarybrain.user.repository.UserRepository;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Limit;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Runs the image search against a local stub of the OpenCV {@code /compare} API with 10k gallery
+ * images. The benchmark compares one image per request (the previous behaviour) with chunked,
+ * concurrent requests.
+ */
+class ImageSearchServiceStubServerTest {
+    private static final int GALLERY_SIZE = 10_000;
+    private static final long REQUEST_LATENCY_MILLIS = 1;
+    private static final byte[] PROBE = "probe-face".getBytes(StandardCharsets.UTF_8);
+    private static final Set<Long> MATCHING_USER_IDS = Set.of(1234L, 8765L);
+
+    static {
+        // Without it the stub's responses are held back by Nagle's algorithm, adding ~40 ms per request.
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+
+    private HttpServer server;
+    private final AtomicInteger requests = new AtomicInteger();
+    private final RestTemplate restTemplate = new SecurityConfig().restTemplate();
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final UserImageRepository imageRepository = mock(UserImageRepository.class);
+    private final PhotoStorage photoStorage = mock(PhotoStorage.class);
+
+    @BeforeEach
+    void startStub() throws IOException {
+        String probeBase64 = Base64.getEncoder().encodeToString(PROBE);
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.setExecutor(Executors.newFixedThreadPool(32));
+        server.createContext("/compare", exchange -> compare(exchange, probeBase64));
+        server.start();
+
+        List<UserImage> gallery = LongStream.rangeClosed(1, GALLERY_SIZE)
+                .mapToObj(id -> new UserImage(id, "user" + id, MATCHING_USER_IDS.contains(id)
+                        ? probeBase64
+                        : Base64.getEncoder().encodeToString(("face-" + id).getBytes(StandardCharsets.UTF_8)), "image/png", 0L, null))
+                .toList();
+        when(imageRepository.findByIdGreaterThanOrderByIdAsc(anyLong(), any(Limit.class))).thenAnswer(invocation -> {
+            long afterId = invocation.getArgument(0);
+            Limit limit = invocation.getArgument(1);
+            return gallery.stream().filter(userImage -> userImage.getId() > afterId).limit(limit.max()).toList();
+        });
+        // Each gallery image is stored under its own base64 content as the file name.
+        when(photoStorage.readBase64(anyString())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(userRepository.findAllById(anyIterable())).thenAnswer(invocation -> {
+            List<User> users = new ArrayList<>();
+            for (Object id : (Iterable<?>) invocation.getArgument(0)) {
+                User user = new User();
+                user.setId((Long) id);
+                users.add(user);
+            }
+            return users;
+        });
+    }
+
+    /**
+     * Scores 0.92 when the gallery holds the probe image, like a face match, and 0.12 otherwise.
+     */
+    private void compare(HttpExchange exchange, String probeBase64) throws IOException {
+        requests.incrementAndGet();
+        try {
+            JSONObject body = new JSONObject(new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+            JSONArray gallery = body.getJSONArray("gallery");
+            boolean match = false;
+            for (int i = 0; i < gallery.length(); i++) {
+                match |= probeBase64.equals(gallery.getString(i));
+            }
+            Thread.sleep(REQUEST_LATENCY_MILLIS);
+            byte[] response = new JSONObject().put("score", match ? 0.92 : 0.12).toString().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, response.length);
+            exchange.getResponseBody().write(response);
+        } catch (JSONException e) {
+            exchange.sendResponseHeaders(400, -1);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            exchange.sendResponseHeaders(503, -1);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    @AfterEach
+    void stopStub() {
+        server.stop(0);
+        ((ExecutorService) server.getExecutor()).shutdownNow();
+    }
+
+    private ImageSearchService service(int chunkSize, int parallelism) {
+        ImageSearchService service = new ImageSearchService(restTemplate, userRepository, imageRepository, photoStorage);
+        ReflectionTestUtils.setField(service, "apiDeveloperKey", "test-api-key");
+        ReflectionTestUtils.setField(service, "apiUrl", "http://localhost:" + server.getAddress().getPort());
+        ReflectionTestUtils.setField(service, "chunkSize", chunkSize);
+        ReflectionTestUtils.setField(service, "parallelism", parallelism);
+        ReflectionTestUtils.setField(service, "maxMatches", 10);
+        service.init();
+        return service;
+    }
+
+    private long timedSearch(ImageSearchService service) throws IOException {
+        MultipartFile[] probe = {new MockMultipartFile("image", "probe.jpg", "image/jpeg", PROBE)};
+        requests.set(0);
+        long start = System.nanoTime();
+        try {
+            List<User> matches = service.searchByImage(probe);
+            assertEquals(List.copyOf(MATCHING_USER_IDS).stream().sorted().toList(),
+                    matches.stream().map(User::getId).toList());
+            return (System.nanoTime() - start) / 1_000_000;
+        } finally {
+            service.shutdown();
+        }
+    }
+
+    @Test
+    void searchByImage_ChunkedSearchFindsMatchesWithFewRequests() throws IOException {
+        timedSearch(service(16, 8));
+
+        assertTrue(requests.get() < GALLERY_SIZE / 10);
+    }
+
+    @Test
+    @Tag("benchmark")
+    void searchByImage_ChunkedConcurrentSearchIsFasterFor10kImages() throws IOException {
+        long sequentialMillis = timedSearch(service(1, 1));
+        int sequentialRequests = requests.get();
+
+        long chunkedMillis = timedSearch(service(16, 8));
+
+        assertEquals(GALLERY_SIZE, sequentialRequests);
+        assertTrue(chunkedMillis * 10 < sequentialMillis,
+                "one per request " + sequentialMillis + " ms, chunked and concurrent " + chunkedMillis + " ms");
+    }
+}
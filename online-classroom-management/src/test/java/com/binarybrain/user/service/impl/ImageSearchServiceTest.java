@@ -6,12 +6,14 @@ import com.binarybrain.user.repository.UserImageRepository;
 import com.binarybrain.user.repository.UserRepository;
 import org.json.JSONException;
 import org.json.JSONObject;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
@@ -26,9 +28,15 @@ import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.util.Base64;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.lenient;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -42,12 +50,105 @@ class ImageSearchServiceTest {
     @Mock
     private UserImageRepository imageRepository;
 
+    @Mock
+    private PhotoStorage photoStorage;
+
     @InjectMocks
     private ImageSearchService imageSearchService;
 
     @BeforeEach
     void setup() {
         ReflectionTestUtils.setField(imageSearchService, "apiDeveloperKey", "test-api-key");
+        ReflectionTestUtils.setField(imageSearchService, "chunkSize", 4);
+        ReflectionTestUtils.setField(imageSearchService, "parallelism", 2);
+        ReflectionTestUtils.setField(imageSearchService, "maxMatches", 3);
+        imageSearchService.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        imageSearchService.shutdown();
+    }
+
+    private static UserImage galleryImage(long id) {
+        UserImage userImage = new UserImage();
+        userImage.setId(id);
+        userImage.setUsername("user" + id);
+        userImage.setFilePath("image-" + id);
+        return userImage;
+    }
+
+    /**
+     * Serves {@code gallery} through the keyset-paged repository query, with each stored photo
+     * reading back as its file name.
+     */
+    private void storeGallery(List<UserImage> gallery) throws IOException {
+        when(imageRepository.findByIdGreaterThanOrderByIdAsc(anyLong(), any(Limit.class))).thenAnswer(invocation -> {
+            long afterId = invocation.getArgument(0);
+            Limit limit = invocation.getArgument(1);
+            return gallery.stream().filter(userImage -> userImage.getId() > afterId).limit(limit.max()).toList();
+        });
+        lenient().when(photoStorage.readBase64(anyString())).thenAnswer(invocation -> invocation.getArgument(0));
+    }
+
+    private static User user(long id) {
+        User user = new User();
+        user.setId(id);
+        user.setUsername("user" + id);
+        return user;
+    }
+
+    /**
+     * Answers like {@code /compare}: a high score when the gallery holds one of the matching images.
+     */
+    @SuppressWarnings("unchecked")
+    private void answerMatchingFor(Set<String> matchingImages, AtomicInteger calls) {
+        when(restTemplate.exchange(anyString(), eq(HttpMethod.POST), any(HttpEntity.class), eq(String.class)))
+                .thenAnswer(invocation -> {
+                    calls.incrementAndGet();
+                    HttpEntity<Map<String, Object>> entity = invocation.getArgument(2);
+                    List<String> gallery = (List<String>) entity.getBody().get("gallery");
+                    double score = gallery.stream().anyMatch(matchingImages::contains) ? 0.9 : 0.1;
+                    return new ResponseEntity<>(new JSONObject().put("score", score).toString(), HttpStatus.OK);
+                });
+    }
+
+    @Test
+    void searchByImage_SendsGalleryInChunksAndNarrowsDownMatches() throws IOException {
+        MultipartFile[] inputImages = {new MockMultipartFile("file", "photo.jpg", "image/jpeg", "probe".getBytes(StandardCharsets.UTF_8))};
+        List<UserImage> gallery = LongStream.rangeClosed(1, 12).mapToObj(ImageSearchServiceTest::galleryImage).toList();
+        storeGallery(gallery);
+        // Users come back from the repository in a different order than the gallery.
+        when(userRepository.findAllById(List.of(2L, 11L))).thenReturn(List.of(user(11L), user(2L)));
+        AtomicInteger calls = new AtomicInteger();
+        answerMatchingFor(Set.of("image-2", "image-11"), calls);
+
+        List<User> result = imageSearchService.searchByImage(inputImages);
+
+        assertEquals(List.of(2L, 11L), result.stream().map(User::getId).toList());
+        // 3 chunks, and 3 more calls to narrow each matching chunk of 4 down to its image.
+        assertEquals(9, calls.get());
+    }
+
+    @Test
+    void searchByImage_StopsOnceEnoughUsersMatch() throws IOException {
+        MultipartFile[] inputImages = {new MockMultipartFile("file", "photo.jpg", "image/jpeg", "probe".getBytes(StandardCharsets.UTF_8))};
+        ReflectionTestUtils.setField(imageSearchService, "maxMatches", 1);
+        List<UserImage> gallery = LongStream.rangeClosed(1, 400).mapToObj(ImageSearchServiceTest::galleryImage).toList();
+        storeGallery(gallery);
+        Set<String> everyImage = gallery.stream().map(UserImage::getFilePath).collect(Collectors.toSet());
+        when(userRepository.findAllById(anyIterable())).thenAnswer(invocation -> {
+            List<User> users = new java.util.ArrayList<>();
+            ((Iterable<Long>) invocation.getArgument(0)).forEach(id -> users.add(user(id)));
+            return users;
+        });
+        AtomicInteger calls = new AtomicInteger();
+        answerMatchingFor(everyImage, calls);
+
+        List<User> result = imageSearchService.searchByImage(inputImages);
+
+        assertEquals(1, result.size());
+        assertTrue(calls.get() < gallery.size() / 4, "remaining chunks should be skipped after the first match");
     }
 
     @Test
@@ -62,11 +163,11 @@ class ImageSearchServiceTest {
         user.setUsername("john");
 
         UserImage userImage = new UserImage();
-        userImage.setImageBase64(probeBase64);
+        userImage.setId(1L);
+        userImage.setFilePath(probeBase64);
         userImage.setUsername("john");
 
-        when(userRepository.findAllByProfilePictureNotNull()).thenReturn(List.of(user));
-        when(imageRepository.findAll()).thenReturn(List.of(userImage));
+        storeGallery(List.of(userImage));
 
         JSONObject fakeJson = new JSONObject();
         fakeJson.put("score", 0.80);
@@ -79,6 +180,8 @@ class ImageSearchServiceTest {
                 eq(String.class)
         )).thenReturn(response);
 
+        when(userRepository.findAllById(List.of(1L))).thenReturn(List.of(user));
+
         List<User> result = imageSearchService.searchByImage(inputImages);
 
         assertEquals(1, result.size());
@@ -97,11 +200,11 @@ class ImageSearchServiceTest {
         user.setUsername("john");
 
         UserImage userImage = new UserImage();
-        userImage.setImageBase64(probeBase64);
+        userImage.setId(1L);
+        userImage.setFilePath(probeBase64);
         userImage.setUsername("john");
 
-        when(userRepository.findAllByProfilePictureNotNull()).thenReturn(List.of(user));
-        when(imageRepository.findAll()).thenReturn(List.of(userImage));
+        storeGallery(List.of(userImage));
 
         JSONObject fakeJson = new JSONObject();
         fakeJson.put("score", 0.30);
@@ -114,13 +217,15 @@ class ImageSearchServiceTest {
                 eq(String.class)
         )).thenReturn(response);
 
+        when(userRepository.findAllById(List.of())).thenReturn(List.of());
+
         List<User> result = imageSearchService.searchByImage(inputImages);
 
         assertTrue(result.isEmpty(), "Expect no user when score is below threshold");
     }
 
     @Test
-    void searchByImage_InvalidImage() throws JSONException {
+    void searchByImage_InvalidImage() throws JSONException, IOException {
         byte[] imageBytes = "test image".getBytes(StandardCharsets.UTF_8);
         MockMultipartFile multipartFile = new MockMultipartFile("file", "photo.jpg", "image/jpeg", imageBytes);
         MultipartFile[] inputImages = new MultipartFile[]{multipartFile};
@@ -131,11 +236,11 @@ class ImageSearchServiceTest {
         user.setUsername("john");
 
         UserImage userImage = new UserImage();
-        userImage.setImageBase64(probeBase64);
+        userImage.setId(1L);
+        userImage.setFilePath(probeBase64);
         userImage.setUsername("john");
 
-        when(userRepository.findAllByProfilePictureNotNull()).thenReturn(List.of(user));
-        when(imageRepository.findAll()).thenReturn(List.of(userImage));
+        storeGallery(List.of(userImage));
 
         JSONObject fakeJson = new JSONObject();
         fakeJson.put("score", 0.30);
@@ -153,7 +258,7 @@ class ImageSearchServiceTest {
 
 
     @Test
-    void searchByImage_ThrowsRestTemplateException() throws JSONException {
+    void searchByImage_ThrowsRestTemplateException() throws JSONException, IOException {
         byte[] imageBytes = "test image".getBytes(StandardCharsets.UTF_8);
         MockMultipartFile multipartFile = new MockMultipartFile("file", "photo.jpg", "image/jpeg", imageBytes);
         MultipartFile[] inputImages = new MultipartFile[]{multipartFile};
@@ -164,11 +269,11 @@ class ImageSearchServiceTest {
         user.setUsername("john");
 
         UserImage userImage = new UserImage();
-        userImage.setImageBase64(probeBase64);
+        userImage.setId(1L);
+        userImage.setFilePath(probeBase64);
         userImage.setUsername("john");
 
-        when(userRepository.findAllByProfilePictureNotNull()).thenReturn(List.of(user));
-        when(imageRepository.findAll()).thenReturn(List.of(userImage));
+        storeGallery(List.of(userImage));
 
         JSONObject fakeJson = new JSONObject();
         fakeJson.put("score", 0.30);
@@ -193,7 +298,7 @@ class ImageSearchServiceTest {
         user.setUsername("john");
 
         UserImage userImage = new UserImage();
-        userImage.setImageBase64(probeBase64);
+        userImage.setFilePath(probeBase64);
         userImage.setUsername("john");
 
 
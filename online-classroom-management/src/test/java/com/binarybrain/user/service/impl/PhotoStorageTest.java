@@ -0,0 +1,75 @@
+package com.binarybrain.user.service.impl;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PhotoStorageTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void store_StreamsThePhotoIntoPlaceAndReplacesTheOldOne() throws Exception {
+        PhotoStorage storage = new PhotoStorage(directory.resolve("photos").toString());
+
+        storage.store("1.png", new ByteArrayInputStream("old".getBytes(StandardCharsets.UTF_8)));
+        PhotoStorage.StoredPhoto stored = storage.store("1.png", new ByteArrayInputStream("new photo".getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals(9, stored.size());
+        assertEquals(HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest("new photo".getBytes(StandardCharsets.UTF_8))), stored.sha256());
+        try (InputStream photo = storage.open("1.png")) {
+            assertEquals("new photo", new String(photo.readAllBytes(), StandardCharsets.UTF_8));
+        }
+        assertEquals(Base64.getEncoder().encodeToString("new photo".getBytes(StandardCharsets.UTF_8)), storage.readBase64("1.png"));
+        try (var files = Files.list(directory.resolve("photos"))) {
+            assertEquals(List.of(directory.resolve("photos").resolve("1.png")), files.toList());
+        }
+    }
+
+    @Test
+    void store_LeavesNoTemporaryFileWhenTheUploadFails() {
+        PhotoStorage storage = new PhotoStorage(directory.toString());
+        InputStream failing = new InputStream() {
+            @Override
+            public int read() throws IOException {
+                throw new IOException("connection reset");
+            }
+        };
+
+        assertThrows(IOException.class, () -> storage.store("1.png", failing));
+        assertFalse(Files.exists(directory.resolve("1.png")));
+        assertEquals(0, directory.toFile().list().length);
+    }
+
+    @Test
+    void resolve_RejectsNamesOutsideThePhotoDirectory() {
+        PhotoStorage storage = new PhotoStorage(directory.toString());
+
+        assertThrows(IllegalArgumentException.class, () -> storage.resolve("../evil.png"));
+        assertThrows(IllegalArgumentException.class, () -> storage.resolve("nested/evil.png"));
+        assertThrows(IllegalArgumentException.class, () -> storage.resolve("\\evil.png"));
+    }
+
+    @Test
+    void contentTypeOf_GoesByTheMagicBytes() {
+        assertEquals(Optional.of("image/png"), PhotoStorage.contentTypeOf(new byte[]{(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'}));
+        assertEquals(Optional.of("image/jpeg"), PhotoStorage.contentTypeOf(new byte[]{(byte) 0xFF, (byte) 0xD8, (byte) 0xFF, (byte) 0xE1}));
+        assertEquals(Optional.empty(), PhotoStorage.contentTypeOf("<svg onload=alert(1)>".getBytes(StandardCharsets.UTF_8)));
+        assertEquals(Optional.empty(), PhotoStorage.contentTypeOf(new byte[]{(byte) 0xFF, (byte) 0xD8}));
+        assertFalse(PhotoStorage.isPhotoType("text/html"));
+        assertTrue(PhotoStorage.isPhotoType("image/jpeg"));
+    }
+}
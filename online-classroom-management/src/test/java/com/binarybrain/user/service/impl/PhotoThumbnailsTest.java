@@ -0,0 +1,106 @@
+package com.binarybrain.user.service.impl;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PhotoThumbnailsTest {
+    @TempDir
+    Path directory;
+
+    private PhotoThumbnails thumbnails;
+
+    @AfterEach
+    void shutdown() {
+        if (thumbnails != null) {
+            thumbnails.shutdown();
+        }
+    }
+
+    private PhotoStorage storeJpeg(String fileName, int width, int height) throws IOException {
+        PhotoStorage storage = new PhotoStorage(directory.toString());
+        ByteArrayOutputStream jpeg = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB), "jpg", jpeg);
+        storage.store(fileName, new ByteArrayInputStream(jpeg.toByteArray()));
+        return storage;
+    }
+
+    private BufferedImage read(PhotoStorage storage, String fileName) throws IOException {
+        try (InputStream image = storage.open(fileName)) {
+            return ImageIO.read(image);
+        }
+    }
+
+    @Test
+    void nameOf_ReplacesTheExtensionWithTheSize() {
+        assertEquals("1-small.png", PhotoThumbnails.nameOf("1.png", PhotoThumbnails.Size.SMALL));
+        assertEquals("1-medium.png", PhotoThumbnails.nameOf("1", PhotoThumbnails.Size.MEDIUM));
+        assertEquals(PhotoThumbnails.Size.MEDIUM, PhotoThumbnails.Size.of("Medium"));
+        assertThrows(IllegalArgumentException.class, () -> PhotoThumbnails.Size.of("huge"));
+    }
+
+    @Test
+    void generate_ScalesToFitEachSizeKeepingTheAspectRatio() throws IOException {
+        PhotoStorage storage = storeJpeg("1.png", 1200, 600);
+        thumbnails = new PhotoThumbnails(storage);
+
+        thumbnails.generate("1.png");
+
+        BufferedImage small = read(storage, "1-small.png");
+        BufferedImage medium = read(storage, "1-medium.png");
+        assertEquals(64, small.getWidth());
+        assertEquals(32, small.getHeight());
+        assertEquals(256, medium.getWidth());
+        assertEquals(128, medium.getHeight());
+    }
+
+    @Test
+    void generate_NeverEnlargesSmallPhotos() throws IOException {
+        PhotoStorage storage = storeJpeg("2.png", 40, 50);
+        thumbnails = new PhotoThumbnails(storage);
+
+        thumbnails.generate("2.png");
+
+        assertEquals(40, read(storage, "2-medium.png").getWidth());
+    }
+
+    @Test
+    void generate_SkipsFilesThatAreNotImages() throws IOException {
+        PhotoStorage storage = new PhotoStorage(directory.toString());
+        storage.store("3.png", new ByteArrayInputStream("not an image".getBytes(StandardCharsets.UTF_8)));
+        thumbnails = new PhotoThumbnails(storage);
+
+        thumbnails.generate("3.png");
+
+        assertFalse(storage.exists("3-small.png"));
+    }
+
+    @Test
+    void generateAsync_WritesThumbnailsInTheBackgroundAndDeleteRemovesThem() throws Exception {
+        PhotoStorage storage = storeJpeg("4.png", 300, 300);
+        thumbnails = new PhotoThumbnails(storage);
+
+        thumbnails.generateAsync("4.png");
+        for (int i = 0; i < 100 && !storage.exists("4-medium.png"); i++) {
+            Thread.sleep(50);
+        }
+        assertTrue(storage.exists("4-small.png"));
+        assertTrue(storage.exists("4-medium.png"));
+
+        thumbnails.delete("4.png");
+        assertFalse(Files.exists(directory.resolve("4-small.png")));
+        assertFalse(Files.exists(directory.resolve("4-medium.png")));
+    }
+}
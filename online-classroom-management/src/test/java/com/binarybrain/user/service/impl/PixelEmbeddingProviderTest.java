@@ -0,0 +1,58 @@
+package com.binarybrain.user.service.impl;
+
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PixelEmbeddingProviderTest {
+    private final PixelEmbeddingProvider provider = new PixelEmbeddingProvider();
+
+    private static byte[] image(String format, int width, int height, Color shape) throws IOException {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        graphics.setColor(Color.WHITE);
+        graphics.fillRect(0, 0, width, height);
+        graphics.setColor(shape);
+        graphics.fillOval(width / 4, height / 8, width / 2, height * 3 / 4);
+        graphics.dispose();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, format, out);
+        return out.toByteArray();
+    }
+
+    private static InputStream stream(byte[] bytes) {
+        return new ByteArrayInputStream(bytes);
+    }
+
+    private static float cosine(float[] a, float[] b) {
+        float dot = FaceEmbeddingIndex.dot(a, 0, b, 0, a.length);
+        return dot / (float) Math.sqrt(FaceEmbeddingIndex.dot(a, 0, a, 0, a.length) * FaceEmbeddingIndex.dot(b, 0, b, 0, b.length));
+    }
+
+    @Test
+    void embed_IsCloseForTheSamePictureInAnotherSizeAndFormat() throws IOException {
+        float[] original = provider.embed(stream(image("png", 400, 400, Color.DARK_GRAY)));
+        float[] resized = provider.embed(stream(image("bmp", 200, 200, Color.DARK_GRAY)));
+
+        assertEquals(provider.dimension(), original.length);
+        assertTrue(cosine(original, resized) > 0.95f);
+    }
+
+    @Test
+    void embed_IsDeterministicForBytesThatAreNotAnImage() throws IOException {
+        byte[] bytes = "not an image".getBytes(StandardCharsets.UTF_8);
+
+        assertArrayEquals(provider.embed(stream(bytes)), provider.embed(stream(bytes)));
+        assertFalse(java.util.Arrays.equals(provider.embed(stream(bytes)), provider.embed(stream("another".getBytes(StandardCharsets.UTF_8)))));
+    }
+}
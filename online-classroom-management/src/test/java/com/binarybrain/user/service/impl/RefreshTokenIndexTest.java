@@ -0,0 +1,108 @@
+package com.binarybrain.user.service.impl;
+
+import com.binarybrain.user.model.RefreshToken;
+import com.binarybrain.user.model.Role;
+import com.binarybrain.user.model.User;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RefreshTokenIndexTest {
+
+    private static RefreshToken token(long userId, String hash, Instant expiryDate) {
+        User user = new User();
+        user.setId(userId);
+        RefreshToken token = new RefreshToken();
+        token.setUser(user);
+        token.setTokenHash(hash);
+        token.setExpiryDate(expiryDate);
+        return token;
+    }
+
+    private static RefreshToken token(long userId, String hash) {
+        return token(userId, hash, Instant.now().plusSeconds(3600));
+    }
+
+    @Test
+    void put_ReplacesPreviousTokenOfUser() {
+        RefreshTokenIndex index = new RefreshTokenIndex(100);
+        RefreshToken first = token(1, "a");
+        RefreshToken second = token(1, "b");
+
+        index.put(first);
+        index.put(second);
+
+        assertTrue(index.find("a").isEmpty());
+        assertEquals(Optional.of(second), index.find("b"));
+        assertTrue(index.isSuperseded(first));
+        assertFalse(index.isSuperseded(second));
+        assertFalse(index.isSuperseded(token(2, "c")));
+    }
+
+    @Test
+    void put_KeepsOnlyTheIdOfTheUser() {
+        RefreshTokenIndex index = new RefreshTokenIndex(100);
+        RefreshToken stored = token(1, "a");
+        stored.getUser().setUsername("teacher");
+        stored.getUser().setRoles(Set.of(new Role("ROLE_TEACHER")));
+
+        index.putIfLatest(stored);
+
+        User indexed = index.find("a").orElseThrow().getUser();
+        assertEquals(1L, indexed.getId());
+        assertNull(indexed.getUsername());
+        assertNull(indexed.getRoles());
+    }
+
+    @Test
+    void putIfLatest_IgnoresSupersededStoredToken() {
+        RefreshTokenIndex index = new RefreshTokenIndex(100);
+        index.put(token(1, "new"));
+
+        index.putIfLatest(token(1, "old"));
+        index.putIfLatest(token(2, "other"));
+
+        assertTrue(index.find("old").isEmpty());
+        assertTrue(index.find("other").isPresent());
+    }
+
+    @Test
+    void find_DropsExpiredTokens() {
+        RefreshTokenIndex index = new RefreshTokenIndex(100);
+        RefreshToken expired = token(1, "a", Instant.now().minusSeconds(1));
+
+        index.put(expired);
+        index.cleanUp();
+
+        assertTrue(index.find("a").isEmpty());
+        assertFalse(index.isSuperseded(token(1, "b")));
+        assertEquals(0, index.size());
+    }
+
+    @Test
+    void remove_ForgetsToken() {
+        RefreshTokenIndex index = new RefreshTokenIndex(100);
+        RefreshToken token = token(1, "a");
+        index.put(token);
+
+        index.remove(token);
+
+        assertTrue(index.find("a").isEmpty());
+        assertFalse(index.isSuperseded(token(1, "b")));
+    }
+
+    @Test
+    void size_IsBounded() {
+        RefreshTokenIndex index = new RefreshTokenIndex(10);
+        for (long userId = 0; userId < 100; userId++) {
+            index.put(token(userId, "token-" + userId));
+        }
+        index.cleanUp();
+
+        assertTrue(index.size() <= 10);
+    }
+}
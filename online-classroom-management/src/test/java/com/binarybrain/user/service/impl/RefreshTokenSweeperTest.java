@@ -0,0 +1,57 @@
+package com.binarybrain.user.service.impl;
+
+import com.binarybrain.user.repository.RefreshTokenRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RefreshTokenSweeperTest {
+
+    @Mock
+    private RefreshTokenRepository refreshTokenRepository;
+
+    @Test
+    void sweep_DeletesExpiredTokensInBatches() {
+        RefreshTokenSweeper sweeper = new RefreshTokenSweeper(refreshTokenRepository, new RefreshTokenIndex(100));
+        ReflectionTestUtils.setField(sweeper, "batchSize", 3);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        sweeper.bindTo(registry);
+        when(refreshTokenRepository.findExpiredIds(any(), eq(Limit.of(3))))
+                .thenReturn(List.of(1L, 2L, 3L), List.of(4L));
+        when(refreshTokenRepository.countByExpiryDateAfter(any())).thenReturn(42L);
+
+        assertEquals(4, sweeper.sweep());
+
+        verify(refreshTokenRepository).deleteAllByIdInBatch(List.of(1L, 2L, 3L));
+        verify(refreshTokenRepository).deleteAllByIdInBatch(List.of(4L));
+        assertEquals(42, sweeper.activeTokens());
+        assertEquals(42.0, registry.get("refresh.tokens.active").gauge().value());
+        assertEquals(4.0, registry.get("refresh.tokens.swept").functionCounter().count());
+        assertEquals(1, registry.get("refresh.tokens.sweep").timer().count());
+    }
+
+    @Test
+    void sweep_StopsAfterFullBatchFollowedByEmptyOne() {
+        RefreshTokenSweeper sweeper = new RefreshTokenSweeper(refreshTokenRepository, new RefreshTokenIndex(100));
+        ReflectionTestUtils.setField(sweeper, "batchSize", 2);
+        when(refreshTokenRepository.findExpiredIds(any(), eq(Limit.of(2))))
+                .thenReturn(LongStream.of(1, 2).boxed().toList(), List.of());
+
+        assertEquals(2, sweeper.sweep());
+
+        verify(refreshTokenRepository, times(1)).deleteAllByIdInBatch(any());
+    }
+}
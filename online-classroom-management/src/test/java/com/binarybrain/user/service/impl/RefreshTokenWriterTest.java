@@ -0,0 +1,161 @@
+package com.binarybrain.user.service.impl;
+
+import com.binarybrain.user.model.RefreshToken;
+import com.binarybrain.user.model.User;
+import com.binarybrain.user.repository.RefreshTokenRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RefreshTokenWriterTest {
+
+    @Mock
+    private RefreshTokenRepository refreshTokenRepository;
+
+    private RefreshTokenWriter writer;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        writer = new RefreshTokenWriter(refreshTokenRepository);
+        user = new User();
+        user.setId(1L);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        writer.shutdown();
+    }
+
+    private RefreshToken token(String value) {
+        RefreshToken token = new RefreshToken();
+        token.setUser(user);
+        token.setTokenHash(value);
+        token.setExpiryDate(Instant.now().plusSeconds(3600));
+        return token;
+    }
+
+    /**
+     * Makes the writer believe a flush is already queued, so tokens stay pending until the test
+     * flushes them.
+     */
+    private void holdBackgroundFlush() {
+        ((AtomicBoolean) ReflectionTestUtils.getField(writer, "flushPending")).set(true);
+    }
+
+    @Test
+    void upsert_UpdatesExistingRow() {
+        RefreshToken token = token("a");
+        when(refreshTokenRepository.updateByUserId(1L, "a", token.getExpiryDate())).thenReturn(1);
+
+        writer.upsert(token);
+
+        verify(refreshTokenRepository, never()).save(any());
+    }
+
+    @Test
+    void upsert_InsertsOnFirstLogin() {
+        RefreshToken token = token("a");
+        when(refreshTokenRepository.updateByUserId(1L, "a", token.getExpiryDate())).thenReturn(0);
+
+        writer.upsert(token);
+
+        verify(refreshTokenRepository, times(1)).save(token);
+    }
+
+    @Test
+    void upsert_UpdatesWhenConcurrentLoginInsertedFirst() {
+        RefreshToken token = token("a");
+        when(refreshTokenRepository.updateByUserId(1L, "a", token.getExpiryDate())).thenReturn(0, 1);
+        when(refreshTokenRepository.save(token)).thenThrow(new DataIntegrityViolationException("duplicate user_id"));
+
+        writer.upsert(token);
+
+        verify(refreshTokenRepository, times(2)).updateByUserId(1L, "a", token.getExpiryDate());
+    }
+
+    @Test
+    void write_WithoutWriteBehind_WritesBeforeReturning() {
+        ReflectionTestUtils.setField(writer, "writeBehind", false);
+        RefreshToken token = token("a");
+        when(refreshTokenRepository.updateByUserId(1L, "a", token.getExpiryDate())).thenReturn(1);
+
+        writer.write(token);
+
+        verify(refreshTokenRepository, times(1)).updateByUserId(1L, "a", token.getExpiryDate());
+        assertTrue(writer.findPending("a").isEmpty());
+    }
+
+    @Test
+    void write_KeepsNewestPendingTokenPerUser() {
+        holdBackgroundFlush();
+        RefreshToken first = token("a");
+        RefreshToken second = token("b");
+        when(refreshTokenRepository.updateByUserId(1L, "b", second.getExpiryDate())).thenReturn(1);
+
+        writer.write(first);
+        writer.write(second);
+
+        assertTrue(writer.findPending("a").isEmpty());
+        assertEquals(Optional.of(second), writer.findPending("b"));
+        assertTrue(writer.isSuperseded(token("c")));
+
+        writer.flush();
+
+        verify(refreshTokenRepository, never()).updateByUserId(1L, "a", first.getExpiryDate());
+        assertTrue(writer.findPending("b").isEmpty());
+    }
+
+    @Test
+    void write_FlushesInBackground() {
+        RefreshToken token = token("a");
+        when(refreshTokenRepository.updateByUserId(1L, "a", token.getExpiryDate())).thenReturn(1);
+
+        writer.write(token);
+
+        verify(refreshTokenRepository, timeout(1000)).updateByUserId(1L, "a", token.getExpiryDate());
+    }
+
+    @Test
+    void flush_KeepsFailedTokensPending() {
+        RefreshToken token = token("a");
+        holdBackgroundFlush();
+        when(refreshTokenRepository.updateByUserId(1L, "a", token.getExpiryDate()))
+                .thenThrow(new DataAccessResourceFailureException("database down"))
+                .thenReturn(1);
+
+        writer.write(token);
+        writer.flush();
+        assertEquals(Optional.of(token), writer.findPending("a"));
+
+        writer.flush();
+        assertTrue(writer.findPending("a").isEmpty());
+    }
+
+    @Test
+    void discard_DropsPendingToken() {
+        RefreshToken token = token("a");
+        holdBackgroundFlush();
+
+        writer.write(token);
+        writer.discard(token);
+
+        assertTrue(writer.findPending("a").isEmpty());
+        assertFalse(writer.isSuperseded(token("c")));
+    }
+}
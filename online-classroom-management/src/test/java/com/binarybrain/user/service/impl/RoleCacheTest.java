@@ -0,0 +1,51 @@
+package com.binarybrain.user.service.impl;
+
+import com.binarybrain.user.model.Role;
+import com.binarybrain.user.repository.RoleRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RoleCacheTest {
+
+    @Mock
+    private RoleRepository roleRepository;
+
+    @Test
+    void find_LoadsRolesOnce() {
+        when(roleRepository.findAll()).thenReturn(List.of(new Role("ADMIN"), new Role("STUDENT")));
+        RoleCache roleCache = new RoleCache(roleRepository);
+
+        assertEquals("ADMIN", roleCache.find("ADMIN").orElseThrow().getName());
+        assertEquals("STUDENT", roleCache.find("STUDENT").orElseThrow().getName());
+
+        verify(roleRepository, times(1)).findAll();
+    }
+
+    @Test
+    void find_ReloadsUnknownRoleAtMostOncePerInterval() {
+        Instant start = Instant.parse("2025-01-01T00:00:00Z");
+        Clock clock = mock(Clock.class);
+        when(clock.instant()).thenReturn(start, start, start.plus(RoleCache.RELOAD_INTERVAL).plusSeconds(1));
+        RoleCache roleCache = new RoleCache(roleRepository, clock);
+        when(roleRepository.findAll())
+                .thenReturn(List.of(new Role("STUDENT")))
+                .thenReturn(List.of(new Role("STUDENT"), new Role("TEACHER")));
+
+        assertTrue(roleCache.find("TEACHER").isEmpty());
+        assertTrue(roleCache.find("TEACHER").isEmpty());
+        verify(roleRepository, times(1)).findAll();
+
+        assertTrue(roleCache.find("TEACHER").isPresent());
+        verify(roleRepository, times(2)).findAll();
+    }
+}
@@ -0,0 +1,83 @@
+package com.binarybrain.user.service.impl;
+
+import com.binarybrain.user.model.Role;
+import com.binarybrain.user.model.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserBatchWriterTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private UserBatchWriter userBatchWriter;
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=MySQL;NON_KEYWORDS=USER;DB_CLOSE_DELAY=-1");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("create table role (id bigint auto_increment primary key, name varchar(255) not null unique)");
+        jdbcTemplate.execute("create table user (id bigint auto_increment primary key, first_name varchar(255), "
+                + "last_name varchar(255), current_institute varchar(255), country varchar(255), gender varchar(255), "
+                + "username varchar(255) not null unique, email varchar(255) not null unique, password varchar(255), "
+                + "profile_picture varchar(255))");
+        jdbcTemplate.execute("create table user_roles (user_id bigint not null references user(id), "
+                + "role_id bigint not null references role(id), primary key (user_id, role_id))");
+        jdbcTemplate.update("insert into role (id, name) values (1, 'STUDENT'), (2, 'TEACHER')");
+        userBatchWriter = new UserBatchWriter(jdbcTemplate, new DataSourceTransactionManager(dataSource));
+    }
+
+    private static User user(String username, Role... roles) {
+        User user = new User();
+        user.setFirstName("First");
+        user.setLastName("Last");
+        user.setCountry("Bangladesh");
+        user.setGender("Male");
+        user.setUsername(username);
+        user.setEmail(username + "@example.com");
+        user.setPassword("encoded");
+        user.setRoles(Set.of(roles));
+        return user;
+    }
+
+    private static Role role(long id, String name) {
+        Role role = new Role(name);
+        role.setId(id);
+        return role;
+    }
+
+    @Test
+    void insertAll_InsertsUsersAndRolesAndSetsIds() {
+        User alice = user("alice", role(1, "STUDENT"));
+        User bob = user("bob", role(1, "STUDENT"), role(2, "TEACHER"));
+
+        userBatchWriter.insertAll(List.of(alice, bob));
+
+        assertNotNull(alice.getId());
+        assertNotNull(bob.getId());
+        assertEquals(alice.getId(), jdbcTemplate.queryForObject("select id from user where username = 'alice'", Long.class));
+        assertEquals(bob.getId(), jdbcTemplate.queryForObject("select id from user where username = 'bob'", Long.class));
+        assertEquals(2, jdbcTemplate.queryForObject("select count(*) from user_roles where user_id = ?", Integer.class, bob.getId()));
+        assertEquals(1, jdbcTemplate.queryForObject("select count(*) from user_roles where user_id = ?", Integer.class, alice.getId()));
+    }
+
+    @Test
+    void insertAll_RollsBackTheBatchOnConflict() {
+        userBatchWriter.insertAll(List.of(user("alice", role(1, "STUDENT"))));
+
+        List<User> batch = List.of(user("bob", role(1, "STUDENT")), user("alice"));
+        assertThrows(DataIntegrityViolationException.class, () -> userBatchWriter.insertAll(batch));
+
+        assertEquals(1, jdbcTemplate.queryForObject("select count(*) from user", Integer.class));
+        assertEquals(1, jdbcTemplate.queryForObject("select count(*) from user_roles", Integer.class));
+    }
+}
@@ -0,0 +1,93 @@
+package com.binarybrain.user.service.impl;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Base64;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+
+class UserImageMigrationTest {
+    private static final byte[] PNG_HEADER = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1a, '\n', 0, 0, 0, 13};
+
+    private final EmbeddedDatabase database = new EmbeddedDatabaseBuilder()
+            .setType(EmbeddedDatabaseType.H2)
+            .generateUniqueName(true)
+            .build();
+    private final JdbcTemplate jdbcTemplate = new JdbcTemplate(database);
+
+    @TempDir
+    Path directory;
+
+    @AfterEach
+    void shutdown() {
+        database.shutdown();
+    }
+
+    private UserImageMigration migration() {
+        return new UserImageMigration(jdbcTemplate, new PhotoStorage(directory.toString()), Optional.empty());
+    }
+
+    private void createLegacyTable() {
+        jdbcTemplate.execute("create table user_image64 (id bigint primary key, username varchar(255) not null unique, "
+                + "image_base64 clob, file_path varchar(255), content_type varchar(255), size_bytes bigint, content_hash varchar(64))");
+    }
+
+    @Test
+    void migrate_MovesBase64RowsToFilesAndClearsTheColumn() throws IOException {
+        createLegacyTable();
+        for (long id = 1; id <= 250; id++) {
+            jdbcTemplate.update("insert into user_image64 (id, username, image_base64) values (?, ?, ?)",
+                    id, "user" + id, Base64.getEncoder().encodeToString(PNG_HEADER));
+        }
+        jdbcTemplate.update("insert into user_image64 (id, username, file_path) values (300, 'user300', '300.png')");
+
+        assertEquals(250, migration().migrate());
+
+        assertEquals(0, jdbcTemplate.queryForObject("select count(*) from user_image64 where image_base64 is not null", Integer.class));
+        Map<String, Object> row = jdbcTemplate.queryForMap("select file_path, content_type, size_bytes, content_hash from user_image64 where id = 7");
+        assertEquals("7.png", row.get("FILE_PATH"));
+        assertEquals("image/png", row.get("CONTENT_TYPE"));
+        assertEquals((long) PNG_HEADER.length, ((Number) row.get("SIZE_BYTES")).longValue());
+        assertEquals(64, ((String) row.get("CONTENT_HASH")).length());
+        assertArrayEquals(PNG_HEADER, Files.readAllBytes(directory.resolve("250.png")));
+        assertEquals(0, migration().migrate(), "a second run has nothing left to convert");
+    }
+
+    @Test
+    void migrate_IndexesTheConvertedPhotos() throws IOException {
+        createLegacyTable();
+        jdbcTemplate.update("insert into user_image64 (id, username, image_base64) values (7, 'user7', ?)",
+                Base64.getEncoder().encodeToString(PNG_HEADER));
+        jdbcTemplate.update("insert into user_image64 (id, username, file_path) values (8, 'user8', '8.png')");
+        FaceSearchService faceSearchService = mock(FaceSearchService.class);
+
+        new UserImageMigration(jdbcTemplate, new PhotoStorage(directory.toString()), Optional.of(faceSearchService)).migrate();
+
+        verify(faceSearchService).index(eq(7L), any(InputStream.class));
+        verifyNoMoreInteractions(faceSearchService);
+    }
+
+    @Test
+    void migrate_DoesNothingWithoutTheLegacyColumn() throws IOException {
+        jdbcTemplate.execute("create table user_image64 (id bigint primary key, username varchar(255), file_path varchar(255))");
+
+        assertEquals(0, migration().migrate());
+    }
+}
@@ -1,6 +1,8 @@
 package com.binarybrain.user.service.impl;
 
 import com.binarybrain.exception.ResourceNotFoundException;
+import com.binarybrain.exception.UnsupportedFileTypeException;
+import com.binarybrain.user.dto.response.PhotoResponse;
 import com.binarybrain.user.model.User;
 import com.binarybrain.user.model.UserImage;
 import com.binarybrain.user.repository.UserImageRepository;
@@ -11,32 +13,35 @@ import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.mock.web.MockHttpServletRequest;
 import org.springframework.mock.web.MockMultipartFile;
-import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.util.FileSystemUtils;
 import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletRequestAttributes;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
-import java.lang.reflect.Field;
+import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.List;
+import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
 class UserImageServiceImplTest {
-    @InjectMocks
     private UserImageServiceImpl userImageService;
 
     @Mock
@@ -51,16 +56,28 @@ class UserImageServiceImplTest {
     @Mock
     private ImageSearchService imageSearchService;
 
+    @Mock
+    private FaceSearchService faceSearchService;
+
     @Mock
     private MultipartFile multipartFile;
 
+    @Mock
+    private PhotoThumbnails photoThumbnails;
+
+    @Spy
+    private PhotoStorage photoStorage = new PhotoStorage("test-user-uploads");
+
+    private static final byte[] JPEG_IMAGE = {(byte) 0xFF, (byte) 0xD8, (byte) 0xFF, (byte) 0xE0, 0, 16, 'J', 'F', 'I', 'F', 0};
+    private static final byte[] PNG_IMAGE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n', 0, 0, 0, 13};
+
     private final String testUploadDir = "test-user-uploads";
     private final String username = "testuser";
     private final Long userId = 1L;
 
     @BeforeEach
     void setUp() throws Exception {
-        ReflectionTestUtils.setField(userImageService, "photoDirectory", testUploadDir);
+        userImageService = service(Optional.of(faceSearchService));
         Path dirPath = Paths.get(testUploadDir);
         if (!Files.exists(dirPath)) {
             Files.createDirectories(dirPath);
@@ -69,6 +86,11 @@ class UserImageServiceImplTest {
         Files.write(dirPath.resolve(userId + ".png"), "fake image".getBytes());
     }
 
+    private UserImageServiceImpl service(Optional<FaceSearchService> localSearch) {
+        return new UserImageServiceImpl(userRepository, userImageRepository, userService, imageSearchService, localSearch,
+                photoStorage, photoThumbnails);
+    }
+
     @AfterEach
     void tearDown() throws IOException {
         FileSystemUtils.deleteRecursively(Paths.get(testUploadDir));
@@ -80,8 +102,7 @@ class UserImageServiceImplTest {
         request.setContextPath("/api");
         RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
 
-        String imageContent = "test image";
-        MultipartFile file = new MockMultipartFile("file", "photo.png", "image/jpeg", imageContent.getBytes());
+        MultipartFile file = new MockMultipartFile("file", "photo.png", "text/html", JPEG_IMAGE);
 
         User mockUser = new User();
         mockUser.setId(userId);
@@ -94,6 +115,43 @@ class UserImageServiceImplTest {
         assertTrue(result.contains("/api/user/photo/"));
         verify(userRepository).save(any(User.class));
         verify(userImageRepository).save(any(UserImage.class));
+        verify(faceSearchService).index(eq(userId), any(InputStream.class));
+        verify(photoThumbnails).delete("1.png");
+        verify(photoThumbnails).generateAsync("1.png");
+        verify(userImageRepository).save(argThat(userImage -> "1.png".equals(userImage.getFilePath())
+                && userImage.getSizeBytes() == JPEG_IMAGE.length && "image/jpeg".equals(userImage.getContentType())
+                && userImage.getContentHash().length() == 64));
+        assertArrayEquals(JPEG_IMAGE, Files.readAllBytes(Paths.get(testUploadDir, "1.png")));
+    }
+
+    @Test
+    void uploadPhoto_RejectsContentThatIsNotAPhoto() {
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+        User mockUser = new User();
+        mockUser.setId(userId);
+        mockUser.setUsername(username);
+        when(userService.getUserProfileById(userId, username)).thenReturn(mockUser);
+        MultipartFile file = new MockMultipartFile("file", "photo.png", "image/png", "<script>alert(1)</script>".getBytes());
+
+        assertThrows(UnsupportedFileTypeException.class, () -> userImageService.uploadPhoto(userId, file, username));
+
+        verifyNoInteractions(userImageRepository, faceSearchService, photoThumbnails);
+        verify(userRepository, never()).save(any(User.class));
+    }
+
+    @Test
+    void uploadPhoto_DoesNotIndexWithoutLocalSearch() throws IOException {
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+        userImageService = service(Optional.empty());
+        User mockUser = new User();
+        mockUser.setId(userId);
+        mockUser.setUsername(username);
+        when(userService.getUserProfileById(userId, username)).thenReturn(mockUser);
+
+        userImageService.uploadPhoto(userId, new MockMultipartFile("file", "photo.png", "image/png", PNG_IMAGE), username);
+
+        verify(userImageRepository).save(any(UserImage.class));
+        verifyNoInteractions(faceSearchService);
     }
 
     @Test
@@ -117,10 +175,7 @@ class UserImageServiceImplTest {
 
 
     private void processUploadDir(boolean delete) throws Exception {
-        Field field = UserImageServiceImpl.class.getDeclaredField("photoDirectory");
-        field.setAccessible(true);
-
-        Path dirPath = Paths.get((String) field.get(userImageService)).normalize();
+        Path dirPath = Paths.get(testUploadDir).normalize();
         if(delete){
             FileSystemUtils.deleteRecursively(dirPath);
         }else{
@@ -135,8 +190,7 @@ class UserImageServiceImplTest {
             request.setContextPath("/api");
             RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
 
-            String imageContent = "test image";
-            MultipartFile file = new MockMultipartFile("file", "photo.png", "image/jpeg", imageContent.getBytes());
+            MultipartFile file = new MockMultipartFile("file", "photo.png", "image/png", PNG_IMAGE);
 
             User mockUser = new User();
             mockUser.setId(userId);
@@ -161,8 +215,7 @@ class UserImageServiceImplTest {
             request.setContextPath("/api");
             RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
 
-            String imageContent = "test image";
-            MultipartFile file = new MockMultipartFile("file", "photo.png", "image/jpeg", imageContent.getBytes());
+            MultipartFile file = new MockMultipartFile("file", "photo.png", "image/png", PNG_IMAGE);
 
             User mockUser = new User();
             mockUser.setId(userId);
@@ -181,23 +234,75 @@ class UserImageServiceImplTest {
     }
 
     @Test
-    void getPhoto_ShouldReturnBytes_WhenFileExists() {
-        byte[] result = userImageService.getPhoto(userId + ".png");
-        assertArrayEquals("fake image".getBytes(), result);
+    void getPhoto_ShouldReturnBytes_WhenFileExists() throws IOException {
+        PhotoResponse result = userImageService.getPhoto(userId + ".png", null);
+        assertArrayEquals("fake image".getBytes(), Files.readAllBytes(result.getFile()));
+        assertEquals("image/png", result.getContentType());
+        assertTrue(result.getETag().startsWith("W/"), "photos without a recorded hash get a weak ETag");
+    }
+
+    @Test
+    void getPhoto_UsesTheContentHashAsStrongETag() throws IOException {
+        when(userImageRepository.findByFilePath(userId + ".png"))
+                .thenReturn(Optional.of(new UserImage(userId, username, userId + ".png", "image/jpeg", 10L, "abc123")));
+
+        PhotoResponse result = userImageService.getPhoto(userId + ".png", null);
+
+        assertEquals("\"abc123\"", result.getETag());
+        assertEquals("image/jpeg", result.getContentType());
+        assertEquals(Paths.get(testUploadDir, "1.png").toAbsolutePath().normalize(), result.getFile());
+    }
+
+    @Test
+    void getPhoto_ServesAStoredTypeThatIsNotAPhotoAsBinary() throws IOException {
+        when(userImageRepository.findByFilePath(userId + ".png"))
+                .thenReturn(Optional.of(new UserImage(userId, username, userId + ".png", "text/html", 10L, "abc123")));
+
+        PhotoResponse result = userImageService.getPhoto(userId + ".png", null);
+
+        assertEquals("application/octet-stream", result.getContentType());
+    }
+
+    @Test
+    void getPhoto_ServesTheThumbnailOnceGenerated() throws IOException {
+        when(userImageRepository.findByFilePath(userId + ".png"))
+                .thenReturn(Optional.of(new UserImage(userId, username, userId + ".png", "image/jpeg", 10L, "abc123")));
+        Files.write(Paths.get(testUploadDir, "1-small.png"), "small".getBytes());
+
+        PhotoResponse result = userImageService.getPhoto(userId + ".png", "small");
+
+        assertArrayEquals("small".getBytes(), Files.readAllBytes(result.getFile()));
+        assertEquals("image/png", result.getContentType());
+        assertEquals("\"abc123-small\"", result.getETag());
+        verify(photoThumbnails, never()).generateAsync(any());
+    }
+
+    @Test
+    void getPhoto_FallsBackToThePhotoAndQueuesAMissingThumbnail() throws IOException {
+        PhotoResponse result = userImageService.getPhoto(userId + ".png", "medium");
+
+        assertArrayEquals("fake image".getBytes(), Files.readAllBytes(result.getFile()));
+        verify(photoThumbnails).generateAsync(userId + ".png");
+    }
+
+    @Test
+    void getPhoto_RejectsUnknownSizes() {
+        assertThrows(IllegalArgumentException.class, () -> userImageService.getPhoto(userId + ".png", "huge"));
     }
 
     @Test
     void getPhoto_ShouldThrowException_WhenPathTraversalAttempted() {
-        assertThrows(IllegalArgumentException.class, () -> userImageService.getPhoto("../evil.png"));
+        assertThrows(IllegalArgumentException.class, () -> userImageService.getPhoto("../evil.png", null));
     }
 
     @Test
     void getPhoto_ShouldThrowException_WhenFileDoesNotExist() {
-        assertThrows(ResourceNotFoundException.class, () -> userImageService.getPhoto("not-found.png"));
+        assertThrows(ResourceNotFoundException.class, () -> userImageService.getPhoto("not-found.png", null));
     }
 
     @Test
     void searchUsersByImage_ShouldReturnMatchingUsers() throws Exception {
+        userImageService = service(Optional.empty());
         MultipartFile[] files = new MultipartFile[] { multipartFile };
         List<User> users = List.of(new User(), new User());
 
@@ -209,10 +314,23 @@ class UserImageServiceImplTest {
         verify(imageSearchService).searchByImage(files);
     }
 
+    @Test
+    void searchUsersByImage_UsesLocalIndexWhenEnabled() throws Exception {
+        MultipartFile[] files = new MultipartFile[] { multipartFile };
+        List<User> users = List.of(new User());
+
+        when(faceSearchService.searchByImage(files)).thenReturn(users);
+
+        List<User> result = userImageService.searchUsersByImage(files);
+
+        assertEquals(users, result);
+        verifyNoInteractions(imageSearchService);
+    }
+
     @Test
     void getPhoto_ShouldReturnBytes_InvalidFileName() {
-        assertThrows(IllegalArgumentException.class, () -> userImageService.getPhoto("..invalid-file" + ".png"));
-        assertThrows(IllegalArgumentException.class, () -> userImageService.getPhoto("/invalid-file" + ".png"));
-        assertThrows(IllegalArgumentException.class, () -> userImageService.getPhoto("\\invalid-file" + ".png"));
+        assertThrows(IllegalArgumentException.class, () -> userImageService.getPhoto("..invalid-file" + ".png", null));
+        assertThrows(IllegalArgumentException.class, () -> userImageService.getPhoto("/invalid-file" + ".png", null));
+        assertThrows(IllegalArgumentException.class, () -> userImageService.getPhoto("\\invalid-file" + ".png", null));
     }
 }
\ No newline at end of file
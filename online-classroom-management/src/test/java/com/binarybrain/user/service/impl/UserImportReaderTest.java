@@ -0,0 +1,90 @@
+package com.binarybrain.user.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserImportReaderTest {
+
+    private static List<UserImportReader.Record> readAll(String content, String contentType) throws IOException {
+        List<UserImportReader.Record> records = new ArrayList<>();
+        try (UserImportReader reader = new UserImportReader(new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)),
+                contentType, new ObjectMapper())) {
+            UserImportReader.Record entry;
+            while ((entry = reader.next()) != null) {
+                records.add(entry);
+            }
+        }
+        return records;
+    }
+
+    @Test
+    void next_ReadsCsvWithHeaderAndQuotedFields() throws IOException {
+        String csv = "\uFEFFUsername,FirstName,lastName,email,password,country,gender,currentInstitute,roles\r\n"
+                + "alice,Alice,Smith,alice@example.com,secret1,Bangladesh,Female,\"PUST, Pabna\",STUDENT|TEACHER\r\n"
+                + "\r\n"
+                + "bob,Bob,Jones,bob@example.com,\"pa\"\"ss\nword\",Bangladesh,Male,,\n";
+
+        List<UserImportReader.Record> records = readAll(csv, UserImportReader.CSV);
+
+        assertEquals(2, records.size());
+        UserImportReader.Record alice = records.get(0);
+        assertEquals(1, alice.row());
+        assertNull(alice.error());
+        assertEquals("alice", alice.user().getUsername());
+        assertEquals("PUST, Pabna", alice.user().getCurrentInstitute());
+        assertEquals(Set.of("STUDENT", "TEACHER"), alice.user().getRoles());
+
+        UserImportReader.Record bob = records.get(1);
+        assertEquals(2, bob.row());
+        assertEquals("pa\"ss\nword", bob.user().getPassword());
+        assertNull(bob.user().getCurrentInstitute());
+        assertNull(bob.user().getRoles());
+    }
+
+    @Test
+    void next_ReportsCsvRowWithWrongFieldCount() throws IOException {
+        List<UserImportReader.Record> records = readAll("username,email\nalice\nbob,bob@example.com\n", UserImportReader.CSV);
+
+        assertEquals("Expected 2 fields but found 1", records.get(0).error());
+        assertEquals("bob", records.get(1).user().getUsername());
+    }
+
+    @Test
+    void next_RejectsUnknownCsvColumn() {
+        assertThrows(IllegalArgumentException.class, () -> readAll("username,nickname\nalice,al\n", UserImportReader.CSV));
+    }
+
+    @Test
+    void next_ReadsNdjsonAndReportsInvalidLines() throws IOException {
+        String ndjson = "{\"username\":\"alice\",\"email\":\"alice@example.com\",\"roles\":[\"STUDENT\"],\"id\":99}\n"
+                + "\n"
+                + "{not json}\n"
+                + "{\"username\":\"bob\"}";
+
+        List<UserImportReader.Record> records = readAll(ndjson, UserImportReader.NDJSON);
+
+        assertEquals(3, records.size());
+        assertEquals("alice", records.get(0).user().getUsername());
+        assertNull(records.get(0).user().getId());
+        assertEquals(Set.of("STUDENT"), records.get(0).user().getRoles());
+        assertEquals(2, records.get(1).row());
+        assertTrue(records.get(1).error().startsWith("Invalid JSON"));
+        assertEquals("bob", records.get(2).user().getUsername());
+    }
+
+    @Test
+    void supports_OnlyCsvAndNdjson() {
+        assertTrue(UserImportReader.supports("text/csv"));
+        assertTrue(UserImportReader.supports("application/x-ndjson"));
+        assertFalse(UserImportReader.supports("application/json"));
+    }
+}
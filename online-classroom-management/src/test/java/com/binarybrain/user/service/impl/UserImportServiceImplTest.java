@@ -0,0 +1,184 @@
+package com.binarybrain.user.service.impl;
+
+import com.binarybrain.exception.ResourceNotFoundException;
+import com.binarybrain.exception.UnsupportedFileTypeException;
+import com.binarybrain.user.dto.UserDto;
+import com.binarybrain.user.dto.response.UserImportRowResult;
+import com.binarybrain.user.dto.response.UserImportStatus;
+import com.binarybrain.user.model.Role;
+import com.binarybrain.user.model.User;
+import com.binarybrain.user.repository.UserRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class UserImportServiceImplTest {
+
+    @Mock
+    private UserRepository userRepository;
+    @Mock
+    private RoleCache roleCache;
+    @Mock
+    private UserBatchWriter userBatchWriter;
+    @Mock
+    private PasswordEncoder passwordEncoder;
+    @Mock
+    private UserSearchService userSearchService;
+
+    private UserImportServiceImpl userImportService;
+    private final AtomicLong nextId = new AtomicLong(1);
+
+    @BeforeEach
+    void setUp() {
+        userImportService = new UserImportServiceImpl(userRepository, roleCache, userBatchWriter, passwordEncoder,
+                Validation.buildDefaultValidatorFactory().getValidator(), new ObjectMapper(), userSearchService);
+        ReflectionTestUtils.setField(userImportService, "hashThreads", 2);
+        userImportService.init();
+
+        when(roleCache.find("STUDENT")).thenReturn(Optional.of(new Role("STUDENT")));
+        when(roleCache.find(argThat(name -> !"STUDENT".equals(name)))).thenReturn(Optional.empty());
+        when(passwordEncoder.encode(anyString())).thenAnswer(invocation -> "encoded-" + invocation.getArgument(0));
+        when(userRepository.findExistingUsernames(anyCollection())).thenReturn(List.of());
+        when(userRepository.findExistingEmails(anyCollection())).thenReturn(List.of());
+        doAnswer(invocation -> {
+            List<User> users = invocation.getArgument(0);
+            users.forEach(user -> user.setId(nextId.getAndIncrement()));
+            return null;
+        }).when(userBatchWriter).insertAll(anyList());
+    }
+
+    @AfterEach
+    void tearDown() {
+        userImportService.shutdown();
+    }
+
+    private static UserImportReader.Record record(int row, String username, String... roles) {
+        UserDto user = new UserDto();
+        user.setFirstName("Alice");
+        user.setLastName("Smith");
+        user.setCountry("Bangladesh");
+        user.setGender("Female");
+        user.setUsername(username);
+        user.setEmail(username + "@example.com");
+        user.setPassword("secret1");
+        user.setRoles(Set.of(roles));
+        return new UserImportReader.Record(row, user, null);
+    }
+
+    private List<UserImportRowResult> importChunk(UserImportReader.Record... records) throws InterruptedException {
+        return userImportService.importChunk(List.of(records), new HashSet<>(), new HashSet<>());
+    }
+
+    @Test
+    void importChunk_InsertsValidRowsInOneBatch() throws InterruptedException {
+        List<UserImportRowResult> results = importChunk(record(1, "alice", "STUDENT"), record(2, "bobby"));
+
+        assertEquals(List.of(UserImportRowResult.created(1, "alice", 1L), UserImportRowResult.created(2, "bobby", 2L)), results);
+        verify(userBatchWriter, times(1)).insertAll(argThat(users -> users.size() == 2
+                && users.get(0).getPassword().equals("encoded-secret1")
+                && users.get(0).getRoles().equals(Set.of(new Role("STUDENT")))));
+        verify(userRepository, times(1)).findExistingUsernames(List.of("alice", "bobby"));
+        verify(userSearchService).indexAll(argThat(users -> users.size() == 2));
+    }
+
+    @Test
+    void importChunk_RejectsInvalidRows() throws InterruptedException {
+        UserImportReader.Record invalid = record(2, "al");
+        invalid.user().setEmail("not-an-email");
+
+        List<UserImportRowResult> results = importChunk(
+                new UserImportReader.Record(1, null, "Invalid JSON: oops"),
+                invalid,
+                record(3, "carol", "PRINCIPAL"),
+                record(4, "alice"),
+                record(5, "ALICE"));
+
+        assertEquals("Invalid JSON: oops", results.get(0).getMessage());
+        assertEquals("Invalid email format!; Username must be between 4 and 20 characters", results.get(1).getMessage());
+        assertEquals("Role not found: PRINCIPAL", results.get(2).getMessage());
+        assertEquals(UserImportRowResult.Status.CREATED, results.get(3).getStatus());
+        assertEquals("Duplicate username in file: ALICE", results.get(4).getMessage());
+        verify(userBatchWriter).insertAll(argThat(users -> users.size() == 1));
+    }
+
+    @Test
+    void importChunk_RejectsExistingUsernamesAndEmails() throws InterruptedException {
+        when(userRepository.findExistingUsernames(anyCollection())).thenReturn(List.of("Alice"));
+        when(userRepository.findExistingEmails(anyCollection())).thenReturn(List.of("bobby@example.com"));
+
+        List<UserImportRowResult> results = importChunk(record(1, "alice"), record(2, "bobby"), record(3, "carol"));
+
+        assertEquals("Error! Username is already exists: alice", results.get(0).getMessage());
+        assertEquals("Error! Email is already exist: bobby@example.com", results.get(1).getMessage());
+        assertEquals(UserImportRowResult.created(3, "carol", 1L), results.get(2));
+        verify(passwordEncoder, times(1)).encode(anyString());
+    }
+
+    @Test
+    void importChunk_FallsBackToSingleInsertsOnConflict() throws InterruptedException {
+        doThrow(new DataIntegrityViolationException("duplicate"))
+                .when(userBatchWriter).insertAll(argThat(users -> users.size() > 1
+                        || users.get(0).getUsername().equals("bobby")));
+
+        List<UserImportRowResult> results = importChunk(record(1, "alice"), record(2, "bobby"));
+
+        assertEquals(UserImportRowResult.Status.CREATED, results.get(0).getStatus());
+        assertEquals(UserImportRowResult.rejected(2, "bobby", "Username or email already exists"), results.get(1));
+        verify(userBatchWriter, times(3)).insertAll(anyList());
+        verify(userSearchService).index(argThat(user -> user.getUsername().equals("alice")));
+    }
+
+    @Test
+    void startImport_ImportsFileInBackground() throws Exception {
+        String csv = "username,firstName,lastName,email,password,country,gender,roles\n"
+                + "alice,Alice,Smith,alice@example.com,secret1,Bangladesh,Female,STUDENT\n"
+                + "bobby,Bob,Jones,bobby@example.com,short,Bangladesh,Male,STUDENT\n";
+
+        UserImportStatus queued = userImportService.startImport(
+                new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), "text/csv; charset=UTF-8");
+
+        UserImportStatus status = userImportService.getImportStatus(queued.getId());
+        for (int i = 0; i < 100 && status.getFinishedAt() == null; i++) {
+            Thread.sleep(50);
+            status = userImportService.getImportStatus(queued.getId());
+        }
+        assertEquals(UserImportStatus.State.COMPLETED, status.getState());
+        assertEquals(2, status.getRowsProcessed());
+        assertEquals(1, status.getCreated());
+        assertEquals(1, status.getRejected());
+        assertEquals("Password must be at least 6 characters", status.getRows().get(1).getMessage());
+    }
+
+    @Test
+    void startImport_RejectsUnsupportedContentType() {
+        ByteArrayInputStream content = new ByteArrayInputStream(new byte[0]);
+
+        assertThrows(UnsupportedFileTypeException.class, () -> userImportService.startImport(content, "application/json"));
+    }
+
+    @Test
+    void getImportStatus_UnknownImport() {
+        assertThrows(ResourceNotFoundException.class, () -> userImportService.getImportStatus("missing"));
+    }
+}
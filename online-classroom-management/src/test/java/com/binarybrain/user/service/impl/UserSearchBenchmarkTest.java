@@ -0,0 +1,62 @@
+package com.binarybrain.user.service.impl;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Measures the latency of typeahead queries of one to three letters and of two words against the
+ * directory search index over 500k synthetic users. Wall-clock, so it only runs with the benchmark
+ * group.
+ *
+ * <p>Names are drawn from small pools, as real names are, so popular prefixes match tens of
+ * thousands of users.</p>
+ */
+@Tag("benchmark")
+class UserSearchBenchmarkTest {
+    private static final int USERS = 500_000;
+    private static final int QUERIES = 20_000;
+    private static final String[] FIRST_NAMES = {"Moinul", "Mona", "Rahim", "Sadia", "Tanvir", "Nusrat", "Arif", "Farhana",
+            "Karim", "Ayesha", "Imran", "Jannat", "Sakib", "Tasnim", "Rafi", "Mitu", "Hasan", "Sumaiya", "Fahim", "Rumana"};
+    private static final String[] LAST_NAMES = {"Islam", "Rahman", "Hossain", "Ahmed", "Khan", "Chowdhury", "Mondal", "Sarkar",
+            "Uddin", "Akter", "Begum", "Sheikh", "Talukder", "Mahmud", "Haque", "Roy", "Das", "Paul", "Saha", "Biswas"};
+    private static final String[] INSTITUTES = {"PUST", "BUET", "Dhaka University", "Rajshahi University", "KUET", "RUET",
+            "CUET", "SUST", "North South University", "BRAC University", "Jahangirnagar University", "IUT"};
+
+    @Test
+    void searchStaysUnderFiveMillisecondsAtP99() {
+        Random random = new Random(42);
+        UserSearchIndex index = new UserSearchIndex();
+        for (int i = 1; i <= USERS; i++) {
+            index.putIfAbsent(new UserSearchIndex.Entry(i, FIRST_NAMES[random.nextInt(FIRST_NAMES.length)].toLowerCase() + i,
+                    FIRST_NAMES[random.nextInt(FIRST_NAMES.length)], LAST_NAMES[random.nextInt(LAST_NAMES.length)],
+                    INSTITUTES[random.nextInt(INSTITUTES.length)]));
+        }
+
+        String[] queries = new String[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            String name = (i % 2 == 0 ? FIRST_NAMES : LAST_NAMES)[random.nextInt(FIRST_NAMES.length)];
+            String prefix = name.substring(0, 1 + random.nextInt(3));
+            queries[i] = i % 5 == 0 ? prefix + " " + INSTITUTES[random.nextInt(INSTITUTES.length)].substring(0, 2) : prefix;
+        }
+        for (String query : queries) {
+            index.search(query, 10, 2000);
+        }
+        long[] nanos = new long[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            long start = System.nanoTime();
+            assertFalse(index.search(queries[i], 10, 2000).isEmpty());
+            nanos[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(nanos);
+        double p50 = nanos[QUERIES / 2] / 1e6;
+        double p99 = nanos[QUERIES * 99 / 100] / 1e6;
+
+        assertEquals(USERS, index.size());
+        assertTrue(p99 < 5, "p50 was " + p50 + " ms, p99 was " + p99 + " ms");
+    }
+}
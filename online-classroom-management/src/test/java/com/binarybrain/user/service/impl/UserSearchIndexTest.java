@@ -0,0 +1,87 @@
+package com.binarybrain.user.service.impl;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserSearchIndexTest {
+
+    private UserSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new UserSearchIndex();
+        index.put(new UserSearchIndex.Entry(1, "moinul_islam", "Moinul", "Islam", "PUST"));
+        index.put(new UserSearchIndex.Entry(2, "mona", "Mona", "Rahman", "Dhaka University"));
+        index.put(new UserSearchIndex.Entry(3, "rahim99", "Rahim", "Mondal", "PUST"));
+        index.put(new UserSearchIndex.Entry(4, "sadia", "Sadia", "Mon", "Monash University"));
+    }
+
+    private List<Long> search(String query, int limit) {
+        return index.search(query, limit, 1000).stream().map(UserSearchIndex.Entry::userId).toList();
+    }
+
+    @Test
+    void search_RanksByFieldThenWord() {
+        assertEquals(List.of(1L, 2L, 4L, 3L), search("mo", 10));
+    }
+
+    @Test
+    void search_PutsExactWordFirstWithinField() {
+        assertEquals(List.of(2L, 4L, 3L), search("MON", 10));
+    }
+
+    @Test
+    void search_RequiresEveryWord() {
+        assertEquals(List.of(3L), search("pust mon", 10));
+        assertEquals(List.of(1L), search("islam, pu", 10));
+        assertEquals(List.of(), search("sadia pust", 10));
+    }
+
+    @Test
+    void search_StopsAtLimit() {
+        assertEquals(List.of(1L, 2L), search("mo", 2));
+        assertEquals(List.of(), search("  ", 10));
+    }
+
+    @Test
+    void put_ReplacesPreviousEntry() {
+        index.put(new UserSearchIndex.Entry(2, "mona", "Mona", "Chowdhury", "BUET"));
+
+        assertEquals(4, index.size());
+        assertEquals(List.of(), search("rahman", 10));
+        assertEquals(List.of(2L), search("chow", 10));
+    }
+
+    @Test
+    void putIfAbsent_KeepsIndexedEntry() {
+        assertFalse(index.putIfAbsent(new UserSearchIndex.Entry(2, "mona", "Mona", "Old", "Old")));
+        assertTrue(index.putIfAbsent(new UserSearchIndex.Entry(5, "tanvir", "Tanvir", "Ahmed", null)));
+
+        assertEquals(List.of(), search("old", 10));
+        assertEquals(List.of(5L), search("ahm", 10));
+    }
+
+    @Test
+    void remove_CompactsAfterManyTombstones() {
+        for (long id = 10; id < 300; id++) {
+            index.put(new UserSearchIndex.Entry(id, "user" + id, "First", "Last", null));
+        }
+        for (long id = 10; id < 300; id++) {
+            index.remove(id);
+        }
+
+        assertEquals(4, index.size());
+        assertEquals(List.of(), search("user", 10));
+        assertEquals(List.of(1L, 2L, 4L, 3L), search("mo", 10));
+    }
+
+    @Test
+    void tokenize_SplitsOnNonWordCharacters() {
+        assertEquals(List.of("moinul", "islam", "99"), UserSearchIndex.tokenize("Moinul_Islam-99"));
+        assertEquals(List.of(), UserSearchIndex.tokenize(null));
+    }
+}
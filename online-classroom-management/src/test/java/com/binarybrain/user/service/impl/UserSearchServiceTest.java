@@ -0,0 +1,94 @@
+package com.binarybrain.user.service.impl;
+
+import com.binarybrain.user.dto.response.UserSearchResult;
+import com.binarybrain.user.model.User;
+import com.binarybrain.user.repository.UserRepository;
+import com.binarybrain.user.repository.UserRepository.UserSearchRow;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UserSearchServiceTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    private static UserSearchRow row(long id, String username) {
+        UserSearchRow row = mock(UserSearchRow.class);
+        when(row.getId()).thenReturn(id);
+        when(row.getUsername()).thenReturn(username);
+        when(row.getFirstName()).thenReturn("First");
+        when(row.getLastName()).thenReturn("Last");
+        return row;
+    }
+
+    private static User user(long id, String username) {
+        User user = new User();
+        user.setId(id);
+        user.setUsername(username);
+        user.setFirstName("Moinul");
+        user.setLastName("Islam");
+        user.setCurrentInstitute("PUST");
+        return user;
+    }
+
+    @Test
+    void load_IndexesEveryPage() {
+        List<UserSearchRow> firstPage = LongStream.rangeClosed(1, 5000).mapToObj(id -> row(id, "user" + id)).toList();
+        List<UserSearchRow> lastPage = List.of(row(5001, "zara"));
+        when(userRepository.findSearchRowsAfter(eq(0L), any(Limit.class))).thenReturn(firstPage);
+        when(userRepository.findSearchRowsAfter(eq(5000L), any(Limit.class))).thenReturn(lastPage);
+        UserSearchService userSearchService = new UserSearchService(userRepository);
+
+        userSearchService.load();
+
+        List<UserSearchResult> results = userSearchService.search("zar", 10);
+        assertEquals(1, results.size());
+        assertEquals(5001L, results.getFirst().getId());
+        assertEquals(10, userSearchService.search("user", 10).size());
+        verify(userRepository, times(2)).findSearchRowsAfter(anyLong(), any(Limit.class));
+    }
+
+    @Test
+    void index_WaitsForCommitInsideTransaction() {
+        UserSearchService userSearchService = new UserSearchService(userRepository);
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            userSearchService.index(user(1, "moinul"));
+
+            assertTrue(userSearchService.search("moinul", 10).isEmpty());
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertEquals(1, userSearchService.search("moinul", 10).size());
+    }
+
+    @Test
+    void search_CapsLimitAndRecordsTimer() {
+        UserSearchService userSearchService = new UserSearchService(userRepository);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        userSearchService.bindTo(registry);
+        LongStream.rangeClosed(1, 80).forEach(id -> userSearchService.index(user(id, "user" + id)));
+
+        assertEquals(50, userSearchService.search("pust", 100).size());
+        assertEquals(80.0, registry.get("user.search.indexed").gauge().value());
+        assertEquals(1, registry.get("user.search").timer().count());
+    }
+}
@@ -1,30 +1,43 @@
 package com.binarybrain.task.controller;
 
 import com.binarybrain.exception.ErrorDetails;
+import com.binarybrain.support.lookup.BatchLookup;
 import com.binarybrain.task.dto.TaskDto;
+import com.binarybrain.task.dto.TaskQuery;
 import com.binarybrain.task.model.Task;
 import com.binarybrain.task.model.TaskStatus;
 import com.binarybrain.task.service.TaskService;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
 import java.util.List;
 
 @RestController
 @RequestMapping("/api/v1/private/task")
 public class TaskController {
 
+    private static final String NDJSON = "application/x-ndjson";
+
     private final TaskService taskService;
+    private final ObjectMapper objectMapper;
 
-    public TaskController(TaskService taskService) {
+    public TaskController(TaskService taskService, ObjectMapper objectMapper) {
         this.taskService = taskService;
+        this.objectMapper = objectMapper;
     }
 
     @Operation(
@@ -73,7 +86,7 @@ public class TaskController {
     @Operation(
             summary = "Search all tasks, optionally filtered by status",
             tags = {"02 - Search Task"},
-            description = "Returns list of all tasks. If `TaskStatus` is given then return task list filtered by status.",
+            description = "Returns list of all tasks ordered by id, one page at a time. If `TaskStatus` is given then return task list filtered by status. Pass the X-Next-Cursor response header as 'after' to get the next page.",
             responses = {
                     @ApiResponse(responseCode = "200", description = "Tasks retrieved Successfully.",
                             content = @Content(mediaType = "application/json", schema = @Schema(implementation = Task.class))),
@@ -86,15 +99,102 @@ public class TaskController {
     )
     @GetMapping()
     public ResponseEntity<List<TaskDto>> getAllTask(@RequestParam(required = false) TaskStatus status,
+                                                    @Parameter(description = "Id of the last task of the previous page") @RequestParam(required = false) Long after,
+                                                    @Parameter(description = "Page size, capped by the server") @RequestParam(required = false) Integer size,
                                                     @Parameter(hidden = true) @RequestHeader("X-User-Username") String username){
-        List<TaskDto> taskDtoList = taskService.getAllTask(status, username);
-        return new ResponseEntity<>(taskDtoList, HttpStatus.OK);
+        return taskService.getAllTask(status, after, size, username).toResponseEntity();
+    }
+
+    @Operation(
+            summary = "Search tasks by status, teacher, deadline, creation time and title",
+            tags = {"02 - Search Task"},
+            description = "Returns the tasks with a deadline that match every given filter, ordered by deadline then id, one page at a time. Ranges include their start and exclude their end. Pass the X-Next-Cursor response header as 'after' to get the next page.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Tasks retrieved Successfully.",
+                            content = @Content(mediaType = "application/json", schema = @Schema(implementation = Task.class))),
+                    @ApiResponse(responseCode = "400", description = "The 'after' cursor is malformed.",
+                            content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorDetails.class))),
+                    @ApiResponse(responseCode = "401", description = "Unauthorized: Invalid or Expired JWT token.",
+                            content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorDetails.class)))
+            },
+            security = @SecurityRequirement(name = "bearerToken")
+    )
+    @GetMapping("/search")
+    public ResponseEntity<List<TaskDto>> searchTasks(@RequestParam(required = false) TaskStatus status,
+                                                     @RequestParam(required = false) Long teacherId,
+                                                     @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime deadlineFrom,
+                                                     @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime deadlineTo,
+                                                     @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime createdFrom,
+                                                     @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime createdTo,
+                                                     @RequestParam(required = false) String titlePrefix,
+                                                     @Parameter(description = "Position of the last task of the previous page") @RequestParam(required = false) String after,
+                                                     @Parameter(description = "Page size, capped by the server") @RequestParam(required = false) Integer size,
+                                                     @Parameter(hidden = true) @RequestHeader("X-User-Username") String username){
+        TaskQuery query = new TaskQuery(status, teacherId, deadlineFrom, deadlineTo, createdFrom, createdTo, titlePrefix);
+        return taskService.searchTasks(query, after, size, username).toResponseEntity();
+    }
+
+    @Operation(
+            summary = "Count the tasks of a search",
+            tags = {"02 - Search Task"},
+            description = "Returns the number of tasks the search with the same filters pages through.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Tasks counted Successfully.",
+                            content = @Content(mediaType = "application/json", schema = @Schema(implementation = Long.class))),
+                    @ApiResponse(responseCode = "401", description = "Unauthorized: Invalid or Expired JWT token.",
+                            content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorDetails.class)))
+            },
+            security = @SecurityRequirement(name = "bearerToken")
+    )
+    @GetMapping("/search/count")
+    public ResponseEntity<Long> countTasks(@RequestParam(required = false) TaskStatus status,
+                                           @RequestParam(required = false) Long teacherId,
+                                           @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime deadlineFrom,
+                                           @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime deadlineTo,
+                                           @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime createdFrom,
+                                           @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime createdTo,
+                                           @RequestParam(required = false) String titlePrefix,
+                                           @Parameter(hidden = true) @RequestHeader("X-User-Username") String username){
+        TaskQuery query = new TaskQuery(status, teacherId, deadlineFrom, deadlineTo, createdFrom, createdTo, titlePrefix);
+        return new ResponseEntity<>(taskService.countTasks(query, username), HttpStatus.OK);
+    }
+
+    @Operation(
+            summary = "Export all tasks, optionally filtered by status",
+            tags = {"02 - Search Task"},
+            description = "Streams every task as newline-delimited JSON, one task per line. Only ADMIN have permission to do this.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Tasks exported Successfully.",
+                            content = @Content(mediaType = NDJSON, schema = @Schema(implementation = TaskDto.class))),
+                    @ApiResponse(responseCode = "401", description = "Unauthorized: Invalid or Expired JWT token.",
+                            content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorDetails.class))),
+                    @ApiResponse(responseCode = "403", description = "Only ADMIN have the permission to export all tasks.",
+                            content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorDetails.class)))
+            },
+            security = @SecurityRequirement(name = "bearerToken")
+    )
+    @GetMapping("/export")
+    public void exportAllTask(@RequestParam(required = false) TaskStatus status,
+                              @Parameter(hidden = true) @RequestHeader("X-User-Username") String username,
+                              HttpServletResponse response) throws IOException {
+        // checked before the response is touched, so a refusal still gets its status and error body
+        taskService.validateExportPermission(username);
+        response.setContentType(NDJSON);
+        OutputStream out = response.getOutputStream();
+        taskService.exportAllTask(status, username, taskDto -> {
+            try {
+                out.write(objectMapper.writeValueAsBytes(taskDto));
+                out.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
     }
 
     @Operation(
             summary = "Search all tasks  by Teacher id",
             tags = {"02 - Search Task"},
-            description = "Returns a list of task created by a specific teacher. One Teacher can't search for another teacher tasks!",
+            description = "Returns a list of task created by a specific teacher, ordered by id one page at a time. Pass the X-Next-Cursor response header as 'after' to get the next page. One Teacher can't search for another teacher tasks!",
             responses = {
                     @ApiResponse(responseCode = "200", description = "Tasks fetched successfully",
                             content = @Content(mediaType = "application/json", schema = @Schema(implementation = Task.class))),
@@ -109,10 +209,10 @@ public class TaskController {
     )
     @GetMapping("/teacher/{teacherId}")
     public ResponseEntity<List<TaskDto>> getAllTaskByTeacherId(@PathVariable Long teacherId,
+                                                               @Parameter(description = "Id of the last task of the previous page") @RequestParam(required = false) Long after,
+                                                               @Parameter(description = "Page size, capped by the server") @RequestParam(required = false) Integer size,
                                                                @Parameter(hidden = true) @RequestHeader("X-User-Username") String username){
-        List<TaskDto> taskDtoList = taskService.getAllTaskByTeacherId(teacherId,username);
-
-        return new ResponseEntity<>(taskDtoList, HttpStatus.OK);
+        return taskService.getAllTaskByTeacherId(teacherId, after, size, username).toResponseEntity();
     }
 
     @Operation(
@@ -129,10 +229,28 @@ public class TaskController {
     @GetMapping("/by-ids")
     public ResponseEntity<List<TaskDto>> getTasksByIds(@RequestParam List<Long> taskIds,
                                                        @Parameter(hidden = true) @RequestHeader("X-User-Username") String username){
-        List<TaskDto> taskDtoList = taskService.getTasksbyIds(taskIds, username);
+        List<TaskDto> taskDtoList = taskService.getTasksbyIds(taskIds, username).items();
         return new ResponseEntity<>(taskDtoList, HttpStatus.OK);
     }
 
+    @Operation(
+            summary = "Search Tasks with a list of taskId in the request body",
+            tags = {"02 - Search Task"},
+            description = "Returns the tasks in the order of the requested ids, and the requested ids that no task was found for. Takes the ids in the body, so any number of them can be sent.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Tasks retrieved successfully.",
+                            content = @Content(mediaType = "application/json", schema = @Schema(implementation = BatchLookup.class))),
+                    @ApiResponse(responseCode = "401", description = "Unauthorized: Invalid or Expired JWT token.",
+                            content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorDetails.class)))
+            },
+            security = @SecurityRequirement(name = "bearerToken")
+    )
+    @PostMapping("/batch")
+    public ResponseEntity<BatchLookup<TaskDto>> getTasksInBatch(@RequestBody List<Long> taskIds,
+                                                                @Parameter(hidden = true) @RequestHeader("X-User-Username") String username){
+        return new ResponseEntity<>(taskService.getTasksbyIds(taskIds, username), HttpStatus.OK);
+    }
+
     @Operation(
             summary = "Close Task",
             description = "TaskStatus will be changed to `CLOSED`. Only Admin & corresponding Course Teacher can do this.",
@@ -0,0 +1,37 @@
+package com.binarybrain.task.dto;
+
+import com.binarybrain.support.lookup.CursorPage;
+
+import org.springframework.http.ResponseEntity;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * One page of a list ordered by more than the id. {@code nextCursor} is the position to pass as
+ * {@code after} for the next page, or {@code null} on the last page.
+ */
+public record KeysetPage<T>(List<T> items, String nextCursor) {
+
+    /**
+     * Builds a page from rows fetched with a limit of {@code size + 1}, where the extra row only
+     * tells that there is a next page.
+     */
+    public static <E, T> KeysetPage<T> of(List<E> rows, int size, Function<E, ?> cursor, Function<E, T> mapper) {
+        boolean hasNext = rows.size() > size;
+        List<E> page = hasNext ? rows.subList(0, size) : rows;
+        return new KeysetPage<>(page.stream().map(mapper).toList(), hasNext ? cursor.apply(page.getLast()).toString() : null);
+    }
+
+    /**
+     * The items as a plain JSON list, with the cursor of the next page in the
+     * {@value CursorPage#NEXT_CURSOR_HEADER} header, like the pages ordered by id.
+     */
+    public ResponseEntity<List<T>> toResponseEntity() {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (nextCursor != null) {
+            response.header(CursorPage.NEXT_CURSOR_HEADER, nextCursor);
+        }
+        return response.body(items);
+    }
+}
@@ -0,0 +1,27 @@
+package com.binarybrain.task.dto;
+
+import com.binarybrain.exception.BadRequestException;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+
+/**
+ * The position of a task in a search ordered by deadline and id, passed between pages as
+ * {@code <deadline>_<id>}.
+ */
+public record TaskCursor(LocalDateTime deadline, Long id) {
+
+    public static TaskCursor parse(String cursor) {
+        int separator = cursor.lastIndexOf('_');
+        try {
+            return new TaskCursor(LocalDateTime.parse(cursor.substring(0, separator)), Long.valueOf(cursor.substring(separator + 1)));
+        } catch (DateTimeParseException | IndexOutOfBoundsException | NumberFormatException e) {
+            throw new BadRequestException("Invalid cursor: " + cursor);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return deadline + "_" + id;
+    }
+}
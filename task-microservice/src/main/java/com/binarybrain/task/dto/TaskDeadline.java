@@ -0,0 +1,9 @@
+package com.binarybrain.task.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * The deadline of a task, read without the rest of the task.
+ */
+public record TaskDeadline(Long taskId, LocalDateTime deadline) {
+}
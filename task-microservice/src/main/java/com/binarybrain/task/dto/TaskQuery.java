@@ -0,0 +1,17 @@
+package com.binarybrain.task.dto;
+
+import com.binarybrain.task.model.TaskStatus;
+
+import java.time.LocalDateTime;
+
+/**
+ * The filters of a task search. A {@code null} filter doesn't restrict the result. Ranges include
+ * their start and exclude their end, and {@code titlePrefix} is matched against the start of the
+ * title under the collation of the title column, so case-insensitively with MySQL's default
+ * collation.
+ */
+public record TaskQuery(TaskStatus status, Long teacherId,
+                        LocalDateTime deadlineFrom, LocalDateTime deadlineTo,
+                        LocalDateTime createdFrom, LocalDateTime createdTo,
+                        String titlePrefix) {
+}
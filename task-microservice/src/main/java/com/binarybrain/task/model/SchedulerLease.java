@@ -0,0 +1,24 @@
+package com.binarybrain.task.model;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import lombok.Data;
+
+import java.time.Instant;
+
+/**
+ * A job that only one instance of the service should run at a time. The instance named in
+ * {@code owner} holds the job until {@code expiresAt} and renews it while it keeps running; once
+ * the lease expires any instance can claim it.
+ */
+@Entity
+@Data
+public class SchedulerLease {
+
+    @Id
+    private String name;
+
+    private String owner;
+
+    private Instant expiresAt;
+}
@@ -7,6 +7,15 @@ import java.time.LocalDateTime;
 
 @Entity
 @Data
+@Table(indexes = {
+        @Index(name = "idx_task_teacher_id", columnList = "teacher_id, id"),
+        @Index(name = "idx_task_status", columnList = "status, id"),
+        @Index(name = "idx_task_status_deadline", columnList = "status, deadline"),
+        @Index(name = "idx_task_teacher_deadline", columnList = "teacher_id, deadline, id"),
+        @Index(name = "idx_task_deadline", columnList = "deadline, id"),
+        @Index(name = "idx_task_created_at", columnList = "created_at, id"),
+        @Index(name = "idx_task_title", columnList = "title")
+})
 public class Task {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -0,0 +1,28 @@
+package com.binarybrain.task.repository;
+
+import com.binarybrain.task.model.SchedulerLease;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+
+@Repository
+public interface SchedulerLeaseRepository extends JpaRepository<SchedulerLease, String> {
+
+    /**
+     * Takes or renews the lease for {@code owner} until {@code until}, unless another owner holds
+     * it past {@code now}. The row is claimed with one conditional update, so two instances can't
+     * both win.
+     *
+     * @return 1 if {@code owner} holds the lease, 0 if another instance does.
+     */
+    @Modifying
+    @Transactional
+    @Query("update SchedulerLease l set l.owner = :owner, l.expiresAt = :until " +
+            "where l.name = :name and (l.owner = :owner or l.expiresAt < :now)")
+    int claim(@Param("name") String name, @Param("owner") String owner, @Param("now") Instant now, @Param("until") Instant until);
+}
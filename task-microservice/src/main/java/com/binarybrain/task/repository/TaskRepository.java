@@ -1,16 +1,67 @@
 package com.binarybrain.task.repository;
 
+import com.binarybrain.task.dto.TaskDeadline;
 import com.binarybrain.task.model.Task;
 import com.binarybrain.task.model.TaskStatus;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
-@Repository
-public interface TaskRepository extends JpaRepository<Task, Long> {
-    List<Task> findByTeacherId(Long teacherId);
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
 
+@Repository
+public interface TaskRepository extends JpaRepository<Task, Long>, JpaSpecificationExecutor<Task> {
     List<Task> findByIdIn(List<Long> ids);
-    List<Task> findByStatus(TaskStatus status);
+
+    List<Task> findByIdGreaterThanOrderByIdAsc(Long afterId, Limit limit);
+    List<Task> findByStatusAndIdGreaterThanOrderByIdAsc(TaskStatus status, Long afterId, Limit limit);
+    List<Task> findByTeacherIdAndIdGreaterThanOrderByIdAsc(Long teacherId, Long afterId, Limit limit);
+
+    /**
+     * Every task in id order, read from the database as the stream is consumed. Has to be consumed
+     * and closed inside a transaction.
+     */
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    Stream<Task> streamAllByOrderByIdAsc();
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    Stream<Task> streamByStatusOrderByIdAsc(TaskStatus status);
+
+    /**
+     * The deadlines of the open tasks that have one, read from the {@code status, deadline} index.
+     */
+    @Query("select new com.binarybrain.task.dto.TaskDeadline(t.id, t.deadline) from Task t " +
+            "where t.status = com.binarybrain.task.model.TaskStatus.OPEN and t.deadline is not null")
+    List<TaskDeadline> findOpenDeadlines();
+
+    /**
+     * Closes those of {@code ids} that are still open and due by {@code now}, in one statement. A
+     * task closed or given a later deadline in the meantime is left alone.
+     *
+     * @return the number of closed tasks.
+     */
+    @Modifying
+    @Transactional
+    @Query("update Task t set t.status = com.binarybrain.task.model.TaskStatus.CLOSED " +
+            "where t.id in :ids and t.status = com.binarybrain.task.model.TaskStatus.OPEN and t.deadline <= :now")
+    int closeDue(@Param("ids") Collection<Long> ids, @Param("now") LocalDateTime now);
+
+    /**
+     * The ids of the open tasks due by {@code now}, read from the {@code status, deadline} index.
+     */
+    @Query("select t.id from Task t " +
+            "where t.status = com.binarybrain.task.model.TaskStatus.OPEN and t.deadline <= :now order by t.deadline")
+    List<Long> findDueOpenIds(@Param("now") LocalDateTime now);
 }
@@ -0,0 +1,75 @@
+package com.binarybrain.task.repository;
+
+import com.binarybrain.task.dto.TaskCursor;
+import com.binarybrain.task.dto.TaskQuery;
+import com.binarybrain.task.model.Task;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The conditions of a task search. Each filter becomes one sargable condition, so every
+ * combination can be answered from one of the task indexes: {@code teacher_id, deadline, id} when
+ * a teacher is given, {@code status, deadline} when a status is given, {@code created_at, id} for a
+ * creation range, {@code title} for a title prefix and {@code deadline, id} otherwise.
+ */
+public final class TaskSpecifications {
+
+    /**
+     * The order of a search, which is also the order of the {@code deadline, id} indexes.
+     */
+    public static final Sort BY_DEADLINE = Sort.by("deadline", "id");
+
+    private TaskSpecifications() {
+    }
+
+    /**
+     * The tasks with a deadline that match every filter of {@code query}.
+     */
+    public static Specification<Task> matching(TaskQuery query) {
+        return (root, criteriaQuery, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            predicates.add(cb.isNotNull(root.get("deadline")));
+            if (query.status() != null) {
+                predicates.add(cb.equal(root.get("status"), query.status()));
+            }
+            if (query.teacherId() != null) {
+                predicates.add(cb.equal(root.get("teacherId"), query.teacherId()));
+            }
+            if (query.deadlineFrom() != null) {
+                predicates.add(cb.greaterThanOrEqualTo(root.get("deadline"), query.deadlineFrom()));
+            }
+            if (query.deadlineTo() != null) {
+                predicates.add(cb.lessThan(root.get("deadline"), query.deadlineTo()));
+            }
+            if (query.createdFrom() != null) {
+                predicates.add(cb.greaterThanOrEqualTo(root.get("createdAt"), query.createdFrom()));
+            }
+            if (query.createdTo() != null) {
+                predicates.add(cb.lessThan(root.get("createdAt"), query.createdTo()));
+            }
+            if (query.titlePrefix() != null && !query.titlePrefix().isEmpty()) {
+                predicates.add(cb.like(root.get("title"), escapeLike(query.titlePrefix()) + "%", '\\'));
+            }
+            return cb.and(predicates.toArray(Predicate[]::new));
+        };
+    }
+
+    /**
+     * The tasks after {@code cursor} in {@link #BY_DEADLINE} order. The redundant
+     * {@code deadline >= cursor.deadline} lets the database start the index range at the cursor.
+     */
+    public static Specification<Task> after(TaskCursor cursor) {
+        return (root, criteriaQuery, cb) -> cb.and(
+                cb.greaterThanOrEqualTo(root.get("deadline"), cursor.deadline()),
+                cb.or(cb.greaterThan(root.get("deadline"), cursor.deadline()),
+                        cb.greaterThan(root.get("id"), cursor.id())));
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
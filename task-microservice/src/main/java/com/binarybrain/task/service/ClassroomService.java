@@ -0,0 +1,17 @@
+package com.binarybrain.task.service;
+
+import com.binarybrain.task.dto.TaskDto;
+import org.springframework.cloud.openfeign.FeignClient;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+
+@FeignClient(name = "CLASSROOM-MICROSERVICE")
+public interface ClassroomService {
+    @PostMapping("/api/v1/internal/classroom/events/task")
+    void taskChanged(@RequestBody TaskDto taskDto);
+
+    @DeleteMapping("/api/v1/internal/classroom/events/task/{taskId}")
+    void taskDeleted(@PathVariable Long taskId);
+}
@@ -1,16 +1,25 @@
 package com.binarybrain.task.service;
 
+import com.binarybrain.support.lookup.BatchLookup;
+import com.binarybrain.support.lookup.CursorPage;
+import com.binarybrain.task.dto.KeysetPage;
 import com.binarybrain.task.dto.TaskDto;
+import com.binarybrain.task.dto.TaskQuery;
 import com.binarybrain.task.model.TaskStatus;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface TaskService {
     TaskDto createTask(TaskDto taskDto, String username);
     TaskDto getTaskById(Long id, String username);
-    List<TaskDto> getAllTask(TaskStatus status, String username);
-    List<TaskDto> getAllTaskByTeacherId(Long id, String username);
-    List<TaskDto> getTasksbyIds(List<Long> taskIds, String username);
+    CursorPage<TaskDto> getAllTask(TaskStatus status, Long after, Integer size, String username);
+    KeysetPage<TaskDto> searchTasks(TaskQuery query, String after, Integer size, String username);
+    long countTasks(TaskQuery query, String username);
+    void validateExportPermission(String username);
+    void exportAllTask(TaskStatus status, String username, Consumer<TaskDto> sink);
+    CursorPage<TaskDto> getAllTaskByTeacherId(Long id, Long after, Integer size, String username);
+    BatchLookup<TaskDto> getTasksbyIds(List<Long> taskIds, String username);
     TaskDto closeTask(Long taskId, String username);
     TaskDto updateTask(Long taskId, TaskDto updatedTaskDto, String username);
     void deleteTaskById(Long id, String username);
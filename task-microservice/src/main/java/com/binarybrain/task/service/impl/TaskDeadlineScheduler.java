@@ -0,0 +1,267 @@
+package com.binarybrain.task.service.impl;
+
+import com.binarybrain.task.dto.TaskDeadline;
+import com.binarybrain.task.mapper.TaskMapper;
+import com.binarybrain.task.model.SchedulerLease;
+import com.binarybrain.task.model.TaskStatus;
+import com.binarybrain.task.repository.SchedulerLeaseRepository;
+import com.binarybrain.task.repository.TaskRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Closes open tasks once their deadline passes. The deadlines of the open tasks are held in a
+ * queue ordered by deadline, loaded at startup and kept current by the task service as tasks are
+ * created, updated, closed and deleted. Every {@code task-deadline.tick} the tasks that have become
+ * due are taken off the queue and closed with one update per {@code task-deadline.batch-size}
+ * tasks, so no table scan is needed to find them.
+ *
+ * <p>Each instance of the service only knows the deadlines it loaded or wrote itself. The close
+ * only applies to tasks that are still open and due by then, so instances closing the same task,
+ * or closing a task whose deadline another instance moved, do no harm. To close the tasks written
+ * through another instance since this one started, one instance at a time, the holder of the
+ * {@value #LEASE} lease row, also closes every overdue open task every
+ * {@code task-deadline.sweep-interval}, found over the {@code status, deadline} index.</p>
+ *
+ * <p>The tasks closed either way are published to the classroom service, so the student timelines
+ * show them closed.</p>
+ *
+ * <p>Published to Micrometer: {@code task.deadlines.scheduled} and {@code task.deadlines.closed}.</p>
+ */
+@Component
+public class TaskDeadlineScheduler implements MeterBinder {
+    static final String LEASE = "task-deadline-sweep";
+    private static final Logger log = LoggerFactory.getLogger(TaskDeadlineScheduler.class);
+
+    @Value("${task-deadline.tick:1s}")
+    private Duration tick = Duration.ofSeconds(1);
+
+    @Value("${task-deadline.batch-size:500}")
+    private int batchSize = 500;
+
+    @Value("${task-deadline.sweep-interval:5m}")
+    private Duration sweepInterval = Duration.ofMinutes(5);
+
+    @Value("${task-deadline.lease-ttl:10m}")
+    private Duration leaseTtl = Duration.ofMinutes(10);
+
+    private final TaskRepository taskRepository;
+    private final SchedulerLeaseRepository schedulerLeaseRepository;
+    private final TimelineEventPublisher timelineEventPublisher;
+    private final String owner = UUID.randomUUID().toString();
+    private final PriorityQueue<TaskDeadline> queue = new PriorityQueue<>(Comparator.comparing(TaskDeadline::deadline));
+    private final Map<Long, LocalDateTime> deadlines = new HashMap<>();
+    private final LongAdder closedTasks = new LongAdder();
+    private Clock clock = Clock.systemDefaultZone();
+    private ScheduledExecutorService deadlineExecutor;
+
+    public TaskDeadlineScheduler(TaskRepository taskRepository, SchedulerLeaseRepository schedulerLeaseRepository,
+                                 TimelineEventPublisher timelineEventPublisher) {
+        this.taskRepository = taskRepository;
+        this.schedulerLeaseRepository = schedulerLeaseRepository;
+        this.timelineEventPublisher = timelineEventPublisher;
+    }
+
+    @PostConstruct
+    void start() {
+        try {
+            load();
+        } catch (RuntimeException e) {
+            log.warn("Failed to load task deadlines, leaving them to the sweep: {}", e.getMessage());
+        }
+        deadlineExecutor = Executors.newSingleThreadScheduledExecutor();
+        deadlineExecutor.scheduleWithFixedDelay(() -> {
+            try {
+                closeDue();
+            } catch (RuntimeException e) {
+                log.warn("Failed to close due tasks: {}", e.getMessage());
+            }
+        }, 0, tick.toMillis(), TimeUnit.MILLISECONDS);
+        deadlineExecutor.scheduleWithFixedDelay(() -> {
+            try {
+                sweep();
+            } catch (RuntimeException e) {
+                log.warn("Failed to sweep overdue tasks: {}", e.getMessage());
+            }
+        }, sweepInterval.toMillis(), sweepInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        deadlineExecutor.shutdownNow();
+    }
+
+    /**
+     * Reads the deadlines of every open task into the queue.
+     */
+    void load() {
+        taskRepository.findOpenDeadlines().forEach(deadline -> schedule(deadline.taskId(), deadline.deadline()));
+    }
+
+    /**
+     * Closes the task once {@code deadline} passes, replacing the deadline it was scheduled with
+     * before. A {@code null} deadline cancels it.
+     */
+    public synchronized void schedule(Long taskId, LocalDateTime deadline) {
+        if (taskId == null) {
+            return;
+        }
+        if (deadline == null) {
+            cancel(taskId);
+            return;
+        }
+        deadlines.put(taskId, deadline);
+        queue.add(new TaskDeadline(taskId, deadline));
+        compact();
+    }
+
+    /**
+     * Stops tracking the task, which was closed or deleted. Its entry stays in the queue until it
+     * comes up and is skipped.
+     */
+    public synchronized void cancel(Long taskId) {
+        deadlines.remove(taskId);
+    }
+
+    public synchronized int scheduled() {
+        return deadlines.size();
+    }
+
+    /**
+     * Closes the tasks due by now.
+     *
+     * @return the number of closed tasks.
+     */
+    int closeDue() {
+        LocalDateTime now = LocalDateTime.now(clock);
+        List<TaskDeadline> due = takeDue(now);
+        int closed = 0;
+        for (int from = 0; from < due.size(); from += batchSize) {
+            List<TaskDeadline> batch = due.subList(from, Math.min(from + batchSize, due.size()));
+            try {
+                closed += close(batch.stream().map(TaskDeadline::taskId).toList(), now);
+            } catch (RuntimeException e) {
+                // put the rest back, to be retried on the next tick
+                due.subList(from, due.size()).forEach(this::reschedule);
+                closedTasks.add(closed);
+                throw e;
+            }
+        }
+        closedTasks.add(closed);
+        return closed;
+    }
+
+    /**
+     * Closes every overdue open task, including those this instance doesn't know of, if this
+     * instance holds the lease.
+     *
+     * @return the number of closed tasks, or -1 if another instance holds the lease.
+     */
+    int sweep() {
+        if (!claimLease()) {
+            return -1;
+        }
+        LocalDateTime now = LocalDateTime.now(clock);
+        List<Long> due = taskRepository.findDueOpenIds(now);
+        int closed = 0;
+        try {
+            for (int from = 0; from < due.size(); from += batchSize) {
+                closed += close(due.subList(from, Math.min(from + batchSize, due.size())), now);
+            }
+        } finally {
+            closedTasks.add(closed);
+        }
+        return closed;
+    }
+
+    /**
+     * Closes those of {@code taskIds} that are still open and due, and publishes the ones that are
+     * closed now. A failure to publish is logged rather than undoing the close.
+     *
+     * @return the number of closed tasks.
+     */
+    private int close(List<Long> taskIds, LocalDateTime now) {
+        int closed = taskRepository.closeDue(taskIds, now);
+        if (closed > 0) {
+            try {
+                taskRepository.findByIdIn(taskIds).stream()
+                        .filter(task -> task.getStatus() == TaskStatus.CLOSED)
+                        .map(TaskMapper::toTaskDto)
+                        .forEach(timelineEventPublisher::taskChanged);
+            } catch (RuntimeException e) {
+                log.warn("Failed to publish {} closed tasks to the student timelines: {}", closed, e.getMessage());
+            }
+        }
+        return closed;
+    }
+
+    private boolean claimLease() {
+        if (!schedulerLeaseRepository.existsById(LEASE)) {
+            SchedulerLease lease = new SchedulerLease();
+            lease.setName(LEASE);
+            lease.setExpiresAt(Instant.EPOCH);
+            try {
+                schedulerLeaseRepository.save(lease);
+            } catch (DataIntegrityViolationException e) {
+                // created by another instance at the same time
+            }
+        }
+        Instant now = clock.instant();
+        return schedulerLeaseRepository.claim(LEASE, owner, now, now.plus(leaseTtl)) == 1;
+    }
+
+    private synchronized List<TaskDeadline> takeDue(LocalDateTime now) {
+        List<TaskDeadline> due = new ArrayList<>();
+        while (!queue.isEmpty() && !queue.peek().deadline().isAfter(now)) {
+            TaskDeadline next = queue.poll();
+            // skip entries of cancelled tasks and deadlines that were moved since
+            if (next.deadline().equals(deadlines.get(next.taskId()))) {
+                deadlines.remove(next.taskId());
+                due.add(next);
+            }
+        }
+        return due;
+    }
+
+    private synchronized void reschedule(TaskDeadline deadline) {
+        if (!deadlines.containsKey(deadline.taskId())) {
+            schedule(deadline.taskId(), deadline.deadline());
+        }
+    }
+
+    /**
+     * Drops the skipped entries once they outnumber the live ones, so a task whose deadline keeps
+     * moving doesn't grow the queue.
+     */
+    private void compact() {
+        if (queue.size() > 2 * deadlines.size() + 1024) {
+            queue.clear();
+            deadlines.forEach((taskId, deadline) -> queue.add(new TaskDeadline(taskId, deadline)));
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("task.deadlines.scheduled", this, TaskDeadlineScheduler::scheduled).register(registry);
+        FunctionCounter.builder("task.deadlines.closed", closedTasks, LongAdder::sum).register(registry);
+    }
+}
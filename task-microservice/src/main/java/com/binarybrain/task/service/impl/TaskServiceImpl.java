@@ -3,31 +3,55 @@ package com.binarybrain.task.service.impl;
 import com.binarybrain.exception.ResourceNotFoundException;
 import com.binarybrain.exception.UserHasNotPermissionException;
 import com.binarybrain.exception.global.GlobalExceptionHandler;
+import com.binarybrain.support.lookup.BatchLookup;
+import com.binarybrain.support.lookup.ChunkedIdLookup;
+import com.binarybrain.support.lookup.CursorPage;
 import com.binarybrain.task.dto.*;
 import com.binarybrain.task.mapper.TaskMapper;
 import com.binarybrain.task.model.Task;
 import com.binarybrain.task.model.TaskStatus;
 import com.binarybrain.task.repository.TaskRepository;
+import com.binarybrain.task.repository.TaskSpecifications;
 import com.binarybrain.task.service.TaskService;
 import com.binarybrain.task.service.UserService;
+import jakarta.persistence.EntityManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
 public class TaskServiceImpl implements TaskService {
 
     private static final String ADMIN = "ADMIN";
     private static final String TEACHER = "TEACHER";
+    @Value("${pagination.max-page-size:1000}")
+    private int maxPageSize = 1000;
+
     private final TaskRepository taskRepository;
     private final UserService userService;
+    private final ChunkedIdLookup chunkedIdLookup;
+    private final TaskDeadlineScheduler taskDeadlineScheduler;
+    private final TimelineEventPublisher timelineEventPublisher;
+    private final EntityManager entityManager;
 
 
-    public TaskServiceImpl(TaskRepository taskRepository, UserService userService) {
+    public TaskServiceImpl(TaskRepository taskRepository, UserService userService, ChunkedIdLookup chunkedIdLookup,
+                           TaskDeadlineScheduler taskDeadlineScheduler, TimelineEventPublisher timelineEventPublisher,
+                           EntityManager entityManager) {
         this.taskRepository = taskRepository;
         this.userService = userService;
+        this.chunkedIdLookup = chunkedIdLookup;
+        this.taskDeadlineScheduler = taskDeadlineScheduler;
+        this.timelineEventPublisher = timelineEventPublisher;
+        this.entityManager = entityManager;
     }
     private boolean validateRole(UserDto userDto, List<String> targetRoles) {
         return userDto.getRoles()
@@ -54,6 +78,7 @@ public class TaskServiceImpl implements TaskService {
         task.setCreatedAt(LocalDateTime.now());
         task.setDeadline(taskDto.getDeadline());
         taskRepository.save(task);
+        taskDeadlineScheduler.schedule(task.getId(), task.getDeadline());
         return TaskMapper.toTaskDto(task);
     }
     @Override
@@ -62,34 +87,83 @@ public class TaskServiceImpl implements TaskService {
         Task task = taskRepository.findById(id).orElseThrow(() -> new ResourceNotFoundException("Classroom not found with id: " + id));
         return TaskMapper.toTaskDto(task);
     }
+    /**
+     * Returns the tasks with an id above {@code after}, in id order, at most {@code size} and never
+     * more than {@code pagination.max-page-size}.
+     */
+    @Override
+    public CursorPage<TaskDto> getAllTask(TaskStatus status, Long after, Integer size, String username) {
+        int pageSize = pageSize(size);
+        List<Task> taskList = status == null
+                ? taskRepository.findByIdGreaterThanOrderByIdAsc(afterId(after), Limit.of(pageSize + 1))
+                : taskRepository.findByStatusAndIdGreaterThanOrderByIdAsc(status, afterId(after), Limit.of(pageSize + 1));
+        return CursorPage.of(taskList, pageSize, Task::getId, TaskMapper::toTaskDto);
+    }
+    /**
+     * Returns the tasks with a deadline matching {@code query}, ordered by deadline and id, after
+     * the position {@code after} if given, at most {@code size} and never more than
+     * {@code pagination.max-page-size}.
+     */
+    @Override
+    public KeysetPage<TaskDto> searchTasks(TaskQuery query, String after, Integer size, String username) {
+        int pageSize = pageSize(size);
+        Specification<Task> specification = TaskSpecifications.matching(query);
+        if (after != null) {
+            specification = specification.and(TaskSpecifications.after(TaskCursor.parse(after)));
+        }
+        List<Task> taskList = taskRepository.findBy(specification,
+                tasks -> tasks.sortBy(TaskSpecifications.BY_DEADLINE).limit(pageSize + 1).all());
+        return KeysetPage.of(taskList, pageSize, task -> new TaskCursor(task.getDeadline(), task.getId()), TaskMapper::toTaskDto);
+    }
+    /**
+     * Counts the tasks {@link #searchTasks} pages through, with one count over the same index and
+     * without reading any task.
+     */
     @Override
-    public List<TaskDto> getAllTask(TaskStatus status, String username) {
-        List<Task> taskList;
-        taskList = status==null?taskRepository.findAll():taskRepository.findByStatus(status);
-        return taskList.stream()
-                .map(TaskMapper::toTaskDto)
-                .toList();
+    public long countTasks(TaskQuery query, String username) {
+        return taskRepository.count(TaskSpecifications.matching(query));
     }
     @Override
-    public List<TaskDto> getAllTaskByTeacherId(Long id, String username) {
+    public void validateExportPermission(String username) {
+        UserDto userDto = userService.getUserProfile(username);
+        GlobalExceptionHandler.Thrower.throwIf(
+                !validateRole(userDto, List.of(ADMIN)),
+                new UserHasNotPermissionException("Only ADMIN can export all tasks!"));
+    }
+    /**
+     * Hands every task, or every task with {@code status}, to {@code sink} in id order as it is
+     * read from the database. Each task is detached once handed over, so memory use doesn't grow
+     * with the number of tasks.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public void exportAllTask(TaskStatus status, String username, Consumer<TaskDto> sink) {
+        validateExportPermission(username);
+
+        try (Stream<Task> tasks = status == null ? taskRepository.streamAllByOrderByIdAsc() : taskRepository.streamByStatusOrderByIdAsc(status)) {
+            tasks.forEach(task -> {
+                sink.accept(TaskMapper.toTaskDto(task));
+                entityManager.detach(task);
+            });
+        }
+    }
+    @Override
+    public CursorPage<TaskDto> getAllTaskByTeacherId(Long id, Long after, Integer size, String username) {
         UserDto userDto = userService.getUserProfile(username);
         boolean isAdmin = validateRole(userDto, List.of(ADMIN));
         GlobalExceptionHandler.Thrower.throwIf(
                 (!isAdmin && !userDto.getId().equals(id)),
                 new UserHasNotPermissionException("You do not have permission to search another teacher's assignment!"));
-        List<Task> taskList = taskRepository.findByTeacherId(id);
-        return taskList.stream()
-                .map(TaskMapper::toTaskDto)
-                .toList();
+        int pageSize = pageSize(size);
+        List<Task> taskList = taskRepository.findByTeacherIdAndIdGreaterThanOrderByIdAsc(id, afterId(after), Limit.of(pageSize + 1));
+        return CursorPage.of(taskList, pageSize, Task::getId, TaskMapper::toTaskDto);
     }
     @Override
-    public List<TaskDto> getTasksbyIds(List<Long> taskIds, String username) {
+    public BatchLookup<TaskDto> getTasksbyIds(List<Long> taskIds, String username) {
         userService.getUserProfile(username);
-        List<Task> taskList = taskRepository.findByIdIn(taskIds);
 
-        return taskList.stream()
-                .map(TaskMapper::toTaskDto)
-                .toList();
+        return chunkedIdLookup.find(taskIds, taskRepository::findByIdIn, Task::getId)
+                .map(TaskMapper::toTaskDto);
     }
     @Override
     public TaskDto closeTask(Long taskId, String username) {
@@ -99,7 +173,10 @@ public class TaskServiceImpl implements TaskService {
         Task task = taskRepository.findById(taskId).orElseThrow(() -> new ResourceNotFoundException("Task not found with id: " + taskId));
         task.setStatus(TaskStatus.CLOSED);
         taskRepository.save(task);
-        return TaskMapper.toTaskDto(task);
+        taskDeadlineScheduler.cancel(taskId);
+        TaskDto closedTaskDto = TaskMapper.toTaskDto(task);
+        timelineEventPublisher.taskChanged(closedTaskDto);
+        return closedTaskDto;
     }
     @Override
     public TaskDto updateTask(Long taskId, TaskDto updatedTaskDto, String username) {
@@ -118,7 +195,14 @@ public class TaskServiceImpl implements TaskService {
 
         Task existingTask = TaskMapper.toTask(existingTaskDto);
         taskRepository.save(existingTask);
-        return TaskMapper.toTaskDto(existingTask);
+        if (existingTask.getStatus() == TaskStatus.OPEN) {
+            taskDeadlineScheduler.schedule(taskId, existingTask.getDeadline());
+        } else {
+            taskDeadlineScheduler.cancel(taskId);
+        }
+        TaskDto savedTaskDto = TaskMapper.toTaskDto(existingTask);
+        timelineEventPublisher.taskChanged(savedTaskDto);
+        return savedTaskDto;
     }
     @Override
     public void deleteTaskById(Long id, String username) {
@@ -126,6 +210,14 @@ public class TaskServiceImpl implements TaskService {
         validateTaskModificationPermission(taskDto, username);
 
         taskRepository.deleteById(id);
+        taskDeadlineScheduler.cancel(id);
+        timelineEventPublisher.taskDeleted(id);
+    }
+    private int pageSize(Integer size) {
+        return size == null ? maxPageSize : Math.clamp(size, 1, maxPageSize);
+    }
+    private static long afterId(Long after) {
+        return after == null ? 0L : after;
     }
     private void validateTaskModificationPermission(TaskDto taskDto, String username) {
         UserDto userDto = userService.getUserProfile(username);
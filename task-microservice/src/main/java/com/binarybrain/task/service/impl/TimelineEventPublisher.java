@@ -0,0 +1,46 @@
+package com.binarybrain.task.service.impl;
+
+import com.binarybrain.support.event.SerialEventPublisher;
+import com.binarybrain.task.dto.TaskDto;
+import com.binarybrain.task.service.ClassroomService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Tells the classroom service about changed and deleted tasks, so the deadline timelines of the
+ * students they were given to stay current. Events are posted one at a time in the order they
+ * were published, off the request thread; one that can't be posted is logged and dropped rather
+ * than failing the change to the task.
+ */
+@Component
+public class TimelineEventPublisher {
+    @Value("${timeline-events.queue-capacity:10000}")
+    private int queueCapacity = 10000;
+
+    private final ClassroomService classroomService;
+    private SerialEventPublisher events;
+
+    public TimelineEventPublisher(ClassroomService classroomService) {
+        this.classroomService = classroomService;
+    }
+
+    @PostConstruct
+    void start() {
+        events = new SerialEventPublisher("classroom service", queueCapacity);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        events.shutdown();
+    }
+
+    public void taskChanged(TaskDto taskDto) {
+        events.publish("change of task " + taskDto.getId(), () -> classroomService.taskChanged(taskDto));
+    }
+
+    public void taskDeleted(Long taskId) {
+        events.publish("deletion of task " + taskId, () -> classroomService.taskDeleted(taskId));
+    }
+}
@@ -1,10 +1,12 @@
 package com.binarybrain.task.controller;
 
+import com.binarybrain.support.lookup.CursorPage;
 import com.binarybrain.task.dto.RoleDto;
 import com.binarybrain.task.dto.UserDto;
 import com.binarybrain.task.model.Task;
 import com.binarybrain.task.model.TaskStatus;
 import com.binarybrain.task.repository.TaskRepository;
+import com.binarybrain.task.service.ClassroomService;
 import com.binarybrain.task.service.UserService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
@@ -13,6 +15,8 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
@@ -21,10 +25,19 @@ import org.springframework.test.web.servlet.MockMvc;
 import java.time.LocalDateTime;
 import java.util.HashSet;
 import java.util.List;
-
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @ActiveProfiles("test")
@@ -44,6 +57,9 @@ class TaskControllerTest {
     @MockitoBean
     private TaskRepository taskRepository;
 
+    @MockitoBean
+    private ClassroomService classroomService;
+
     private final ObjectMapper objectMapper = new ObjectMapper();
 
     @BeforeEach
@@ -85,21 +101,108 @@ class TaskControllerTest {
                 createTask(1L, "Task 1", "Task 1 description", 1L, TaskStatus.OPEN),
                 createTask(2L, "Task 2", "Task 2 description", 1L, TaskStatus.OPEN)
         );
-        when(taskRepository.findAll()).thenReturn(tasks);
+        when(taskRepository.findByIdGreaterThanOrderByIdAsc(eq(0L), any())).thenReturn(tasks);
 
         mockMvc.perform(get(BASE_URL)
                         .header("X-User-Username", USERNAME))
                 .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(CursorPage.NEXT_CURSOR_HEADER))
                 .andExpect(content().json(expectedTasksJson(tasks)));
     }
 
+    @Test
+    void getAllTasks_WithPageSize() throws Exception {
+        List<Task> tasks = List.of(
+                createTask(3L, "Task 3", "Task 3 description", 1L, TaskStatus.OPEN),
+                createTask(4L, "Task 4", "Task 4 description", 1L, TaskStatus.OPEN)
+        );
+        when(taskRepository.findByIdGreaterThanOrderByIdAsc(2L, Limit.of(2))).thenReturn(tasks);
+
+        mockMvc.perform(get(BASE_URL)
+                        .param("after", "2")
+                        .param("size", "1")
+                        .header("X-User-Username", USERNAME))
+                .andExpect(status().isOk())
+                .andExpect(header().string(CursorPage.NEXT_CURSOR_HEADER, "3"))
+                .andExpect(content().json(expectedTasksJson(tasks.subList(0, 1))));
+    }
+
+    @Test
+    void searchTasks() throws Exception {
+        List<Task> tasks = List.of(
+                createTask(1L, "Task 1", "Task 1 description", 1L, TaskStatus.OPEN),
+                createTask(2L, "Task 2", "Task 2 description", 1L, TaskStatus.OPEN)
+        );
+        when(taskRepository.findBy(any(Specification.class), any())).thenReturn(tasks);
+
+        mockMvc.perform(get(BASE_URL + "/search")
+                        .param("status", "OPEN")
+                        .param("teacherId", "1")
+                        .param("deadlineFrom", "2025-01-01T00:00:00")
+                        .param("size", "1")
+                        .header("X-User-Username", USERNAME))
+                .andExpect(status().isOk())
+                .andExpect(header().string(CursorPage.NEXT_CURSOR_HEADER, tasks.getFirst().getDeadline() + "_1"))
+                .andExpect(content().json(expectedTasksJson(tasks.subList(0, 1))));
+    }
+
+    @Test
+    void searchTasks_WithMalformedCursor_IsABadRequest() throws Exception {
+        mockMvc.perform(get(BASE_URL + "/search")
+                        .param("after", "not-a-cursor")
+                        .header("X-User-Username", USERNAME))
+                .andExpect(status().isBadRequest());
+
+        verify(taskRepository, never()).findBy(any(Specification.class), any());
+    }
+
+    @Test
+    void countTasks() throws Exception {
+        when(taskRepository.count(any(Specification.class))).thenReturn(2L);
+
+        mockMvc.perform(get(BASE_URL + "/search/count")
+                        .param("titlePrefix", "Task")
+                        .header("X-User-Username", USERNAME))
+                .andExpect(status().isOk())
+                .andExpect(content().string("2"));
+    }
+
+    @Test
+    void exportAllTasks() throws Exception {
+        when(taskRepository.streamAllByOrderByIdAsc()).thenReturn(Stream.of(
+                createTask(1L, "Task 1", "Task 1 description", 1L, TaskStatus.OPEN),
+                createTask(2L, "Task 2", "Task 2 description", 1L, TaskStatus.OPEN)));
+
+        String body = mockMvc.perform(get(BASE_URL + "/export")
+                        .header("X-User-Username", USERNAME))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andReturn().getResponse().getContentAsString();
+
+        List<String> lines = body.lines().toList();
+        assertEquals(2, lines.size());
+        assertEquals(2L, objectMapper.readTree(lines.get(1)).get("id").asLong());
+    }
+
+    @Test
+    void exportAllTasks_ForbiddenBeforeTheResponseIsStarted() throws Exception {
+        when(userService.getUserProfile("student")).thenReturn(createUserDto(2L, "Student", "Student", "student", "std@std.com",
+                List.of(createRoleDto(3L, "STUDENT"))));
+
+        mockMvc.perform(get(BASE_URL + "/export")
+                        .header("X-User-Username", "student"))
+                .andExpect(status().isForbidden())
+                .andExpect(result -> assertNull(result.getResponse().getContentType()));
+        verify(taskRepository, never()).streamAllByOrderByIdAsc();
+    }
+
     @Test
     void getAllTasksByTeacherId() throws Exception {
         List<Task> tasks = List.of(
                 createTask(1L, "Task 1", "Task 1 description", 1L, TaskStatus.OPEN),
                 createTask(2L, "Task 2", "Task 2 description", 1L, TaskStatus.OPEN)
         );
-        when(taskRepository.findByTeacherId(1L)).thenReturn(tasks);
+        when(taskRepository.findByTeacherIdAndIdGreaterThanOrderByIdAsc(eq(1L), eq(0L), any())).thenReturn(tasks);
 
         mockMvc.perform(get(BASE_URL + "/teacher/1")
                         .header("X-User-Username", USERNAME))
@@ -122,6 +225,24 @@ class TaskControllerTest {
                 .andExpect(content().json(expectedTasksJson(tasks)));
     }
 
+    @Test
+    void getTasksInBatch() throws Exception {
+        List<Task> tasks = List.of(
+                createTask(1L, "Task 1", "Task 1 description", 1L, TaskStatus.OPEN),
+                createTask(2L, "Task 2", "Task 2 description", 1L, TaskStatus.OPEN)
+        );
+        when(taskRepository.findByIdIn(List.of(2L, 3L, 1L))).thenReturn(tasks);
+
+        mockMvc.perform(post(BASE_URL + "/batch")
+                        .header("X-User-Username", USERNAME)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[2,3,1]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].id").value(2))
+                .andExpect(jsonPath("$.items[1].id").value(1))
+                .andExpect(jsonPath("$.missingIds[0]").value(3));
+    }
+
     @Test
     void closeTask() throws Exception {
         Task task = createTask(1L, "Task 1", "Task 1 description", 1L, TaskStatus.OPEN);
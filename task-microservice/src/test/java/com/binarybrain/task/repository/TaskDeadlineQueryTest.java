@@ -0,0 +1,113 @@
+package com.binarybrain.task.repository;
+
+import com.binarybrain.task.dto.TaskDeadline;
+import com.binarybrain.task.model.SchedulerLease;
+import com.binarybrain.task.model.Task;
+import com.binarybrain.task.model.TaskStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the deadline and lease statements against an in-memory H2 database, to check that a close
+ * only touches open tasks that are due and that only one owner at a time can hold the lease.
+ */
+@DataJpaTest
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class TaskDeadlineQueryTest {
+    private static final LocalDateTime NOW = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+
+    @Configuration
+    @EntityScan(basePackageClasses = Task.class)
+    @EnableJpaRepositories(basePackageClasses = TaskRepository.class)
+    static class JpaConfig {
+    }
+
+    @Autowired
+    private TaskRepository taskRepository;
+    @Autowired
+    private SchedulerLeaseRepository schedulerLeaseRepository;
+
+    @AfterEach
+    void tearDown() {
+        taskRepository.deleteAll();
+        schedulerLeaseRepository.deleteAll();
+    }
+
+    private Long saveTask(TaskStatus status, LocalDateTime deadline) {
+        Task task = new Task();
+        task.setTitle("Task");
+        task.setStatus(status);
+        task.setDeadline(deadline);
+        return taskRepository.save(task).getId();
+    }
+
+    private TaskStatus statusOf(Long id) {
+        return taskRepository.findById(id).orElseThrow().getStatus();
+    }
+
+    @Test
+    void findOpenDeadlines_ReturnsOpenTasksWithDeadline() {
+        Long open = saveTask(TaskStatus.OPEN, NOW.plusDays(1));
+        saveTask(TaskStatus.CLOSED, NOW.plusDays(1));
+        saveTask(TaskStatus.OPEN, null);
+
+        assertEquals(List.of(new TaskDeadline(open, NOW.plusDays(1))), taskRepository.findOpenDeadlines());
+    }
+
+    @Test
+    void closeDue_OnlyClosesOpenTasksThatAreDue() {
+        Long due = saveTask(TaskStatus.OPEN, NOW.minusMinutes(1));
+        Long moved = saveTask(TaskStatus.OPEN, NOW.plusDays(1));
+        Long done = saveTask(TaskStatus.DONE, NOW.minusMinutes(1));
+
+        assertEquals(1, taskRepository.closeDue(List.of(due, moved, done), NOW));
+
+        assertEquals(TaskStatus.CLOSED, statusOf(due));
+        assertEquals(TaskStatus.OPEN, statusOf(moved));
+        assertEquals(TaskStatus.DONE, statusOf(done));
+    }
+
+    @Test
+    void findDueOpenIds_ReturnsEveryOverdueOpenTaskByDeadline() {
+        Long second = saveTask(TaskStatus.OPEN, NOW);
+        Long first = saveTask(TaskStatus.OPEN, NOW.minusDays(2));
+        saveTask(TaskStatus.OPEN, NOW.plusSeconds(1));
+        saveTask(TaskStatus.CLOSED, NOW.minusDays(1));
+        saveTask(TaskStatus.OPEN, null);
+
+        assertEquals(List.of(first, second), taskRepository.findDueOpenIds(NOW));
+    }
+
+    @Test
+    void claim_GivesLeaseToOneOwnerUntilItExpires() {
+        SchedulerLease lease = new SchedulerLease();
+        lease.setName("job");
+        lease.setExpiresAt(Instant.EPOCH);
+        schedulerLeaseRepository.save(lease);
+        Instant now = Instant.now();
+
+        assertEquals(1, schedulerLeaseRepository.claim("job", "a", now, now.plusSeconds(60)));
+        assertEquals(0, schedulerLeaseRepository.claim("job", "b", now.plusSeconds(30), now.plusSeconds(90)));
+        assertEquals(1, schedulerLeaseRepository.claim("job", "a", now.plusSeconds(30), now.plusSeconds(90)));
+        assertEquals(1, schedulerLeaseRepository.claim("job", "b", now.plusSeconds(91), now.plusSeconds(151)));
+        assertEquals("b", schedulerLeaseRepository.findById("job").orElseThrow().getOwner());
+    }
+}
@@ -0,0 +1,185 @@
+package com.binarybrain.task.repository;
+
+import com.binarybrain.exception.BadRequestException;
+import com.binarybrain.support.lookup.ChunkedIdLookup;
+import com.binarybrain.task.dto.KeysetPage;
+import com.binarybrain.task.dto.TaskDto;
+import com.binarybrain.task.dto.TaskQuery;
+import com.binarybrain.task.model.Task;
+import com.binarybrain.task.model.TaskStatus;
+import com.binarybrain.task.service.UserService;
+import com.binarybrain.task.service.impl.TaskDeadlineScheduler;
+import com.binarybrain.task.service.impl.TaskServiceImpl;
+import com.binarybrain.task.service.impl.TimelineEventPublisher;
+import jakarta.persistence.EntityManager;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Runs the task search against an in-memory H2 database, to check that it filters and pages by
+ * deadline and id, and that the statements it sends for every supported filter combination are
+ * answered from an index. Values are inlined into the statements so the plans can be asked for
+ * with {@code EXPLAIN}.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.criteria.value_handling_mode=inline",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=com.binarybrain.task.repository.TaskSearchQueryTest$CapturingInspector"
+})
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class TaskSearchQueryTest {
+    private static final LocalDateTime NOW = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+    private static final TaskQuery ALL = new TaskQuery(null, null, null, null, null, null, null);
+
+    @Configuration
+    @EntityScan(basePackageClasses = Task.class)
+    @EnableJpaRepositories(basePackageClasses = TaskRepository.class)
+    static class JpaConfig {
+    }
+
+    public static class CapturingInspector implements StatementInspector {
+        static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql);
+            return sql;
+        }
+    }
+
+    @Autowired
+    private TaskRepository taskRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private TaskServiceImpl taskService;
+
+    @BeforeEach
+    void setUp() {
+        taskService = new TaskServiceImpl(taskRepository, mock(UserService.class), mock(ChunkedIdLookup.class),
+                mock(TaskDeadlineScheduler.class), mock(TimelineEventPublisher.class), mock(EntityManager.class));
+    }
+
+    @AfterEach
+    void tearDown() {
+        taskRepository.deleteAllInBatch();
+    }
+
+    private Long saveTask(String title, TaskStatus status, Long teacherId, LocalDateTime deadline, LocalDateTime createdAt) {
+        Task task = new Task();
+        task.setTitle(title);
+        task.setStatus(status);
+        task.setTeacherId(teacherId);
+        task.setDeadline(deadline);
+        task.setCreatedAt(createdAt);
+        return taskRepository.save(task).getId();
+    }
+
+    private List<Long> ids(KeysetPage<TaskDto> page) {
+        return page.items().stream().map(TaskDto::getId).toList();
+    }
+
+    @Test
+    void searchTasks_PagesByDeadlineThenIdAcrossEqualDeadlines() {
+        Long third = saveTask("C", TaskStatus.OPEN, 1L, NOW.plusDays(2), NOW);
+        Long first = saveTask("A", TaskStatus.OPEN, 1L, NOW.plusDays(1), NOW);
+        Long second = saveTask("B", TaskStatus.OPEN, 1L, NOW.plusDays(1), NOW);
+        Long fourth = saveTask("D", TaskStatus.OPEN, 1L, NOW.plusDays(2), NOW);
+        saveTask("No deadline", TaskStatus.OPEN, 1L, null, NOW);
+
+        KeysetPage<TaskDto> page = taskService.searchTasks(ALL, null, 3, "user");
+        assertEquals(List.of(first, second, third), ids(page));
+        assertEquals(NOW.plusDays(2) + "_" + third, page.nextCursor());
+
+        KeysetPage<TaskDto> last = taskService.searchTasks(ALL, page.nextCursor(), 3, "user");
+        assertEquals(List.of(fourth), ids(last));
+        assertNull(last.nextCursor());
+        assertEquals(4, taskService.countTasks(ALL, "user"));
+    }
+
+    @Test
+    void searchTasks_AppliesEveryFilter() {
+        Long match = saveTask("Lab 1_a", TaskStatus.OPEN, 1L, NOW.plusDays(1), NOW.minusDays(1));
+        saveTask("Lab 1_a", TaskStatus.CLOSED, 1L, NOW.plusDays(1), NOW.minusDays(1));
+        saveTask("Lab 1_a", TaskStatus.OPEN, 2L, NOW.plusDays(1), NOW.minusDays(1));
+        saveTask("Lab 1_a", TaskStatus.OPEN, 1L, NOW.plusDays(5), NOW.minusDays(1));
+        saveTask("Lab 1_a", TaskStatus.OPEN, 1L, NOW.plusDays(1), NOW.minusDays(5));
+        saveTask("Lab 1xa", TaskStatus.OPEN, 1L, NOW.plusDays(1), NOW.minusDays(1));
+        TaskQuery query = new TaskQuery(TaskStatus.OPEN, 1L, NOW, NOW.plusDays(2), NOW.minusDays(2), NOW, "Lab 1_");
+
+        assertEquals(List.of(match), ids(taskService.searchTasks(query, null, null, "user")));
+        assertEquals(1, taskService.countTasks(query, "user"));
+    }
+
+    @Test
+    void searchTasks_RejectsMalformedCursor() {
+        assertThrows(BadRequestException.class, () -> taskService.searchTasks(ALL, "42", null, "user"));
+        assertThrows(BadRequestException.class, () -> taskService.searchTasks(ALL, "tomorrow_42", null, "user"));
+    }
+
+    @Test
+    void searchTasks_AnswersEveryFilterCombinationFromAnIndex() {
+        List<Object[]> rows = new ArrayList<>();
+        TaskStatus[] statuses = TaskStatus.values();
+        for (int i = 0; i < 2000; i++) {
+            rows.add(new Object[]{String.format("Task %04d", i), statuses[i % statuses.length].name(),
+                    (long) (i % 50), NOW.plusMinutes(i), NOW.minusMinutes(i)});
+        }
+        jdbcTemplate.batchUpdate("insert into task (title, status, teacher_id, deadline, created_at) values (?, ?, ?, ?, ?)", rows);
+        jdbcTemplate.execute("analyze");
+
+        Map<String, TaskQuery> combinations = Map.of(
+                "status", new TaskQuery(TaskStatus.OPEN, null, null, null, null, null, null),
+                "teacher", new TaskQuery(null, 7L, null, null, null, null, null),
+                "deadline", new TaskQuery(null, null, NOW.plusMinutes(100), NOW.plusMinutes(200), null, null, null),
+                "created", new TaskQuery(null, null, null, null, NOW.minusMinutes(200), NOW.minusMinutes(100), null),
+                "title", new TaskQuery(null, null, null, null, null, null, "Task 01"),
+                "status and teacher", new TaskQuery(TaskStatus.OPEN, 7L, null, null, null, null, null),
+                "status and deadline", new TaskQuery(TaskStatus.OPEN, null, NOW.plusMinutes(100), NOW.plusMinutes(200), null, null, null),
+                "teacher and deadline", new TaskQuery(null, 7L, NOW.plusMinutes(100), NOW.plusMinutes(200), null, null, null),
+                "status, teacher and deadline", new TaskQuery(TaskStatus.OPEN, 7L, NOW.plusMinutes(100), NOW.plusMinutes(200), null, null, null),
+                "every filter", new TaskQuery(TaskStatus.OPEN, 7L, NOW, NOW.plusMinutes(500), NOW.minusMinutes(500), NOW, "Task 0"));
+
+        combinations.forEach((name, query) -> {
+            assertUsesIndex(name + " page", () -> taskService.searchTasks(query, null, 10, "user"));
+            assertUsesIndex(name + " count", () -> taskService.countTasks(query, "user"));
+        });
+        String cursor = NOW.plusMinutes(1500) + "_0";
+        assertUsesIndex("next page", () -> taskService.searchTasks(ALL, cursor, 10, "user"));
+        assertUsesIndex("next page of teacher", () -> taskService.searchTasks(combinations.get("teacher"), cursor, 10, "user"));
+    }
+
+    private void assertUsesIndex(String name, Supplier<?> search) {
+        CapturingInspector.STATEMENTS.clear();
+        search.get();
+        assertEquals(1, CapturingInspector.STATEMENTS.size(), name);
+        // the page size is the only value still bound
+        String sql = CapturingInspector.STATEMENTS.getFirst().replace("?", "11");
+        String plan = jdbcTemplate.queryForObject("explain " + sql, String.class);
+        assertTrue(plan.contains("/* PUBLIC.IDX_TASK_"), name + " isn't answered from an index: " + plan);
+    }
+}
@@ -1,23 +1,35 @@
 package com.binarybrain.task.service;
 
 import com.binarybrain.exception.*;
+import com.binarybrain.support.lookup.BatchLookup;
+import com.binarybrain.support.lookup.ChunkedIdLookup;
+import com.binarybrain.support.lookup.CursorPage;
+import com.binarybrain.task.dto.KeysetPage;
 import com.binarybrain.task.dto.RoleDto;
 import com.binarybrain.task.dto.TaskDto;
+import com.binarybrain.task.dto.TaskQuery;
 import com.binarybrain.task.dto.UserDto;
 import com.binarybrain.task.model.Task;
 import com.binarybrain.task.model.TaskStatus;
 import com.binarybrain.task.repository.TaskRepository;
+import com.binarybrain.task.service.impl.TaskDeadlineScheduler;
 import com.binarybrain.task.service.impl.TaskServiceImpl;
+import com.binarybrain.task.service.impl.TimelineEventPublisher;
+import jakarta.persistence.EntityManager;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.test.context.ActiveProfiles;
 
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -32,6 +44,18 @@ class TaskServiceImplTest {
     @Mock
     private UserService userService;
 
+    @Spy
+    private ChunkedIdLookup chunkedIdLookup = new ChunkedIdLookup();
+
+    @Mock
+    private TaskDeadlineScheduler taskDeadlineScheduler;
+
+    @Mock
+    private TimelineEventPublisher timelineEventPublisher;
+
+    @Mock
+    private EntityManager entityManager;
+
     @InjectMocks
     private TaskServiceImpl taskService;
 
@@ -90,6 +114,7 @@ class TaskServiceImplTest {
         assertEquals("Test Task", result.getTitle());
         assertEquals(TaskStatus.OPEN, result.getStatus());
         verify(taskRepository).save(any(Task.class));
+        verify(taskDeadlineScheduler).schedule(1L, taskDto.getDeadline());
     }
 
     @Test
@@ -130,48 +155,131 @@ class TaskServiceImplTest {
 
     @Test
     void getAllTask_WithoutStatus_ShouldReturnAllTasks() {
-        when(taskRepository.findAll()).thenReturn(List.of(task));
+        when(taskRepository.findByIdGreaterThanOrderByIdAsc(0L, Limit.of(1001))).thenReturn(List.of(task));
 
-        List<TaskDto> result = taskService.getAllTask(null, "teacher");
+        List<TaskDto> result = taskService.getAllTask(null, null, null, "teacher").items();
 
         assertFalse(result.isEmpty());
         assertEquals(1, result.size());
     }
 
+    @Test
+    void getAllTask_WhenMoreTasksFollow_ShouldReturnNextCursor() {
+        Task next = new Task();
+        next.setId(2L);
+        when(taskRepository.findByIdGreaterThanOrderByIdAsc(0L, Limit.of(2))).thenReturn(List.of(task, next));
+
+        CursorPage<TaskDto> result = taskService.getAllTask(null, null, 1, "teacher");
+
+        assertEquals(1, result.items().size());
+        assertEquals(1L, result.nextCursor());
+    }
+
+    @Test
+    void getAllTask_ShouldCapPageSize() {
+        when(taskRepository.findByIdGreaterThanOrderByIdAsc(1L, Limit.of(1001))).thenReturn(List.of());
+
+        CursorPage<TaskDto> result = taskService.getAllTask(null, 1L, Integer.MAX_VALUE, "teacher");
+
+        assertTrue(result.items().isEmpty());
+        assertNull(result.nextCursor());
+    }
+
     @Test
     void getAllTask_WithStatus_ShouldReturnFilteredTasks() {
-        when(taskRepository.findByStatus(TaskStatus.OPEN)).thenReturn(List.of(task));
+        when(taskRepository.findByStatusAndIdGreaterThanOrderByIdAsc(TaskStatus.OPEN, 0L, Limit.of(1001))).thenReturn(List.of(task));
 
-        List<TaskDto> result = taskService.getAllTask(TaskStatus.OPEN, "teacher");
+        List<TaskDto> result = taskService.getAllTask(TaskStatus.OPEN, null, null, "teacher").items();
 
         assertFalse(result.isEmpty());
         assertEquals(1, result.size());
         assertEquals(TaskStatus.OPEN, result.getFirst().getStatus());
     }
 
+    @Test
+    void searchTasks_WhenMoreTasksFollow_ShouldReturnDeadlineAndIdCursor() {
+        Task next = new Task();
+        next.setId(2L);
+        next.setDeadline(task.getDeadline());
+        when(taskRepository.findBy(any(Specification.class), any())).thenReturn(List.of(task, next));
+
+        KeysetPage<TaskDto> result = taskService.searchTasks(new TaskQuery(TaskStatus.OPEN, 1L, null, null, null, null, null), null, 1, "teacher");
+
+        assertEquals(1, result.items().size());
+        assertEquals(task.getDeadline() + "_1", result.nextCursor());
+    }
+
+    @Test
+    void searchTasks_WhenCursorIsMalformed_ShouldThrowException() {
+        TaskQuery query = new TaskQuery(null, null, null, null, null, null, null);
+
+        assertThrows(BadRequestException.class, () -> taskService.searchTasks(query, "not-a-cursor", null, "teacher"));
+        verifyNoInteractions(taskRepository);
+    }
+
+    @Test
+    void countTasks_ShouldCountMatchingTasks() {
+        when(taskRepository.count(any(Specification.class))).thenReturn(3L);
+
+        assertEquals(3L, taskService.countTasks(new TaskQuery(null, 1L, null, null, null, null, null), "teacher"));
+    }
+
     @Test
     void getAllTaskByTeacherId_ShouldReturnTasks() {
         when(userService.getUserProfile("teacher")).thenReturn(teacher);
-        when(taskRepository.findByTeacherId(1L)).thenReturn(List.of(task));
+        when(taskRepository.findByTeacherIdAndIdGreaterThanOrderByIdAsc(1L, 0L, Limit.of(1001))).thenReturn(List.of(task));
 
-        List<TaskDto> result = taskService.getAllTaskByTeacherId(1L, "teacher");
+        List<TaskDto> result = taskService.getAllTaskByTeacherId(1L, null, null, "teacher").items();
 
         assertFalse(result.isEmpty());
         assertEquals(1, result.size());
         assertEquals(1L, result.getFirst().getTeacherId());
     }
 
+    @Test
+    void exportAllTask_WhenUserIsAdmin_ShouldStreamAndDetachEveryTask() {
+        when(userService.getUserProfile("admin")).thenReturn(createUserDto(4L, "admin", "ADMIN"));
+        when(taskRepository.streamByStatusOrderByIdAsc(TaskStatus.OPEN)).thenReturn(Stream.of(task));
+        List<TaskDto> exported = new ArrayList<>();
+
+        taskService.exportAllTask(TaskStatus.OPEN, "admin", exported::add);
+
+        assertEquals(1, exported.size());
+        verify(entityManager).detach(task);
+    }
+
+    @Test
+    void exportAllTask_WhenUserIsNotAdmin_ShouldThrowException() {
+        when(userService.getUserProfile("teacher")).thenReturn(teacher);
+
+        assertThrows(UserHasNotPermissionException.class, () -> taskService.exportAllTask(null, "teacher", taskDto -> { }));
+        verifyNoInteractions(taskRepository);
+    }
+
     @Test
     void getTasksByIds_ShouldReturnTasks() {
         when(userService.getUserProfile("teacher")).thenReturn(teacher);
         when(taskRepository.findByIdIn(List.of(1L))).thenReturn(List.of(task));
 
-        List<TaskDto> result = taskService.getTasksbyIds(List.of(1L), "teacher");
+        List<TaskDto> result = taskService.getTasksbyIds(List.of(1L), "teacher").items();
 
         assertFalse(result.isEmpty());
         assertEquals(1, result.size());
     }
 
+    @Test
+    void getTasksByIds_ShouldKeepRequestedOrderAndReportMissingIds() {
+        Task second = new Task();
+        second.setId(2L);
+        when(userService.getUserProfile("teacher")).thenReturn(teacher);
+        when(taskRepository.findByIdIn(List.of(2L, 9L, 1L))).thenReturn(List.of(task, second));
+
+        BatchLookup<TaskDto> result = taskService.getTasksbyIds(List.of(2L, 9L, 1L, 2L), "teacher");
+
+        assertEquals(List.of(2L, 1L, 2L), result.items().stream().map(TaskDto::getId).toList());
+        assertEquals(List.of(9L), result.missingIds());
+    }
+
     @Test
     void closeTask_WhenUserIsOwner_ShouldCloseTask() {
         when(userService.getUserProfile("teacher")).thenReturn(teacher);
@@ -182,6 +290,8 @@ class TaskServiceImplTest {
 
         assertNotNull(result);
         assertEquals(TaskStatus.CLOSED, result.getStatus());
+        verify(taskDeadlineScheduler).cancel(1L);
+        verify(timelineEventPublisher).taskChanged(result);
     }
 
     @Test
@@ -221,6 +331,20 @@ class TaskServiceImplTest {
         assertEquals("Updated Description", result.getDescription());
         assertEquals(TaskStatus.CLOSED, result.getStatus());
         assertEquals("http://example.com/new.pdf", result.getAttachmentUrl());
+        verify(taskDeadlineScheduler).cancel(1L);
+        verify(timelineEventPublisher).taskChanged(result);
+    }
+
+    @Test
+    void updateTask_WhenDeadlineMoves_ShouldRescheduleTask() {
+        when(userService.getUserProfile("teacher")).thenReturn(teacher);
+        when(taskRepository.findById(1L)).thenReturn(Optional.of(task));
+
+        TaskDto updatedDto = new TaskDto();
+        updatedDto.setDeadline(LocalDateTime.now().plusDays(3));
+        taskService.updateTask(1L, updatedDto, "teacher");
+
+        verify(taskDeadlineScheduler).schedule(1L, updatedDto.getDeadline());
     }
 
     @Test
@@ -242,6 +366,7 @@ class TaskServiceImplTest {
 
         assertThrows(UserHasNotPermissionException.class,
                 () -> taskService.updateTask(1L, taskDto, "otherTeacher"));
+        verifyNoInteractions(timelineEventPublisher);
     }
 
     @Test
@@ -252,6 +377,8 @@ class TaskServiceImplTest {
         taskService.deleteTaskById(1L, "teacher");
 
         verify(taskRepository).deleteById(1L);
+        verify(taskDeadlineScheduler).cancel(1L);
+        verify(timelineEventPublisher).taskDeleted(1L);
     }
 
     @Test
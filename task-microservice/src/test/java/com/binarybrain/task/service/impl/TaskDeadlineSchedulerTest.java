@@ -0,0 +1,171 @@
+package com.binarybrain.task.service.impl;
+
+import com.binarybrain.task.dto.TaskDeadline;
+import com.binarybrain.task.dto.TaskDto;
+import com.binarybrain.task.model.SchedulerLease;
+import com.binarybrain.task.model.Task;
+import com.binarybrain.task.model.TaskStatus;
+import com.binarybrain.task.repository.SchedulerLeaseRepository;
+import com.binarybrain.task.repository.TaskRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.*;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class TaskDeadlineSchedulerTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2025, 1, 10, 12, 0);
+
+    private final TaskRepository taskRepository = mock(TaskRepository.class);
+    private final SchedulerLeaseRepository schedulerLeaseRepository = mock(SchedulerLeaseRepository.class);
+    private final TimelineEventPublisher timelineEventPublisher = mock(TimelineEventPublisher.class);
+    private TaskDeadlineScheduler scheduler;
+
+    @BeforeEach
+    void setUp() {
+        scheduler = new TaskDeadlineScheduler(taskRepository, schedulerLeaseRepository, timelineEventPublisher);
+        ReflectionTestUtils.setField(scheduler, "batchSize", 2);
+        ReflectionTestUtils.setField(scheduler, "clock", Clock.fixed(NOW.toInstant(ZoneOffset.UTC), ZoneOffset.UTC));
+        when(taskRepository.closeDue(anyList(), any())).thenAnswer(invocation -> invocation.<List<Long>>getArgument(0).size());
+        when(taskRepository.findByIdIn(anyList())).thenAnswer(invocation -> invocation.<List<Long>>getArgument(0).stream()
+                .map(id -> task(id, TaskStatus.CLOSED))
+                .toList());
+    }
+
+    private static Task task(Long id, TaskStatus status) {
+        Task task = new Task();
+        task.setId(id);
+        task.setStatus(status);
+        return task;
+    }
+
+    private static TaskDto taskWithId(Long id) {
+        return argThat(task -> task.getId().equals(id) && task.getStatus() == TaskStatus.CLOSED);
+    }
+
+    @Test
+    void closeDue_ClosesDueTasksInBatchesInDeadlineOrder() {
+        scheduler.schedule(3L, NOW.minusMinutes(1));
+        scheduler.schedule(1L, NOW.minusMinutes(3));
+        scheduler.schedule(4L, NOW);
+        scheduler.schedule(2L, NOW.minusMinutes(2));
+        scheduler.schedule(5L, NOW.plusSeconds(1));
+
+        assertEquals(4, scheduler.closeDue());
+
+        verify(taskRepository).closeDue(List.of(1L, 2L), NOW);
+        verify(taskRepository).closeDue(List.of(3L, 4L), NOW);
+        verify(taskRepository).findByIdIn(List.of(1L, 2L));
+        verify(taskRepository).findByIdIn(List.of(3L, 4L));
+        verifyNoMoreInteractions(taskRepository);
+        verify(timelineEventPublisher, times(4)).taskChanged(any());
+        assertEquals(1, scheduler.scheduled());
+        assertEquals(0, scheduler.closeDue());
+    }
+
+    @Test
+    void closeDue_PublishesOnlyTheTasksItClosed() {
+        scheduler.schedule(1L, NOW.minusMinutes(2));
+        scheduler.schedule(2L, NOW.minusMinutes(1));
+        when(taskRepository.closeDue(List.of(1L, 2L), NOW)).thenReturn(1);
+        when(taskRepository.findByIdIn(List.of(1L, 2L))).thenReturn(List.of(task(1L, TaskStatus.CLOSED), task(2L, TaskStatus.OPEN)));
+
+        assertEquals(1, scheduler.closeDue());
+
+        verify(timelineEventPublisher).taskChanged(taskWithId(1L));
+        verifyNoMoreInteractions(timelineEventPublisher);
+    }
+
+    @Test
+    void closeDue_WhenNothingWasClosed_PublishesNothing() {
+        scheduler.schedule(1L, NOW.minusMinutes(1));
+        when(taskRepository.closeDue(List.of(1L), NOW)).thenReturn(0);
+
+        assertEquals(0, scheduler.closeDue());
+
+        verify(taskRepository, never()).findByIdIn(anyList());
+        verifyNoInteractions(timelineEventPublisher);
+    }
+
+    @Test
+    void closeDue_WhenPublishingFails_KeepsTheClose() {
+        scheduler.schedule(1L, NOW.minusMinutes(1));
+        when(taskRepository.findByIdIn(List.of(1L))).thenThrow(new IllegalStateException("down"));
+
+        assertEquals(1, scheduler.closeDue());
+        assertEquals(0, scheduler.scheduled());
+        verifyNoInteractions(timelineEventPublisher);
+    }
+
+    @Test
+    void closeDue_SkipsCancelledAndMovedDeadlines() {
+        scheduler.schedule(1L, NOW.minusMinutes(1));
+        scheduler.schedule(1L, NOW.plusDays(1));
+        scheduler.schedule(2L, NOW.minusMinutes(1));
+        scheduler.cancel(2L);
+        scheduler.schedule(3L, NOW.minusMinutes(1));
+        scheduler.schedule(3L, null);
+        scheduler.schedule(null, NOW.minusMinutes(1));
+
+        assertEquals(0, scheduler.closeDue());
+
+        verify(taskRepository, never()).closeDue(anyList(), any());
+        assertEquals(1, scheduler.scheduled());
+    }
+
+    @Test
+    void closeDue_WhenUpdateFails_RetriesOnNextTick() {
+        scheduler.schedule(1L, NOW.minusMinutes(1));
+        when(taskRepository.closeDue(List.of(1L), NOW)).thenThrow(new IllegalStateException("down")).thenReturn(1);
+
+        assertThrows(IllegalStateException.class, scheduler::closeDue);
+        assertEquals(1, scheduler.scheduled());
+        assertEquals(1, scheduler.closeDue());
+        assertEquals(0, scheduler.scheduled());
+    }
+
+    @Test
+    void load_SchedulesOpenTasks() {
+        when(taskRepository.findOpenDeadlines()).thenReturn(List.of(
+                new TaskDeadline(1L, NOW.minusDays(1)),
+                new TaskDeadline(2L, NOW.plusDays(1))));
+
+        scheduler.load();
+
+        assertEquals(2, scheduler.scheduled());
+        assertEquals(1, scheduler.closeDue());
+        verify(taskRepository).closeDue(List.of(1L), NOW);
+    }
+
+    @Test
+    void sweep_WhenLeaseIsHeldElsewhere_DoesNothing() {
+        when(schedulerLeaseRepository.existsById(TaskDeadlineScheduler.LEASE)).thenReturn(true);
+        when(schedulerLeaseRepository.claim(eq(TaskDeadlineScheduler.LEASE), anyString(), any(), any())).thenReturn(0);
+
+        assertEquals(-1, scheduler.sweep());
+
+        verify(taskRepository, never()).findDueOpenIds(any());
+    }
+
+    @Test
+    void sweep_WhenLeaseIsClaimed_ClosesAndPublishesEveryOverdueTask() {
+        when(schedulerLeaseRepository.existsById(TaskDeadlineScheduler.LEASE)).thenReturn(false);
+        when(schedulerLeaseRepository.claim(eq(TaskDeadlineScheduler.LEASE), anyString(), any(), any())).thenReturn(1);
+        when(taskRepository.findDueOpenIds(NOW)).thenReturn(List.of(5L, 6L, 7L));
+
+        assertEquals(3, scheduler.sweep());
+
+        verify(schedulerLeaseRepository).save(argThat((SchedulerLease lease) -> lease.getName().equals(TaskDeadlineScheduler.LEASE)));
+        verify(taskRepository).closeDue(List.of(5L, 6L), NOW);
+        verify(taskRepository).closeDue(List.of(7L), NOW);
+        verify(timelineEventPublisher).taskChanged(taskWithId(5L));
+        verify(timelineEventPublisher).taskChanged(taskWithId(6L));
+        verify(timelineEventPublisher).taskChanged(taskWithId(7L));
+    }
+}
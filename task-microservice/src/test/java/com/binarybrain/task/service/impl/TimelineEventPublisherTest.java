@@ -0,0 +1,46 @@
+package com.binarybrain.task.service.impl;
+
+import com.binarybrain.task.dto.TaskDto;
+import com.binarybrain.task.service.ClassroomService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+
+import static org.mockito.Mockito.*;
+
+class TimelineEventPublisherTest {
+
+    private final ClassroomService classroomService = mock(ClassroomService.class);
+    private TimelineEventPublisher publisher;
+
+    @BeforeEach
+    void setUp() {
+        publisher = new TimelineEventPublisher(classroomService);
+        publisher.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        publisher.shutdown();
+    }
+
+    @Test
+    void events_ArePostedInOrderAndFailuresDontStopLaterOnes() {
+        TaskDto first = new TaskDto();
+        first.setId(1L);
+        TaskDto second = new TaskDto();
+        second.setId(2L);
+        doThrow(new IllegalStateException("down")).when(classroomService).taskChanged(first);
+
+        publisher.taskChanged(first);
+        publisher.taskChanged(second);
+        publisher.taskDeleted(2L);
+
+        verify(classroomService, timeout(1000)).taskDeleted(2L);
+        InOrder inOrder = inOrder(classroomService);
+        inOrder.verify(classroomService).taskChanged(first);
+        inOrder.verify(classroomService).taskChanged(second);
+        inOrder.verify(classroomService).taskDeleted(2L);
+    }
+}
@@ -2,34 +2,50 @@ package com.binarybrain.submission.controller;
 
 import com.binarybrain.exception.ErrorDetails;
 import com.binarybrain.submission.dto.SubmissionDto;
+import com.binarybrain.submission.dto.TaskSubmissionState;
 import com.binarybrain.submission.model.Submission;
 import com.binarybrain.submission.model.SubmissionStatus;
 import com.binarybrain.submission.service.FileHandlerService;
 import com.binarybrain.submission.service.SubmissionService;
+import com.binarybrain.support.web.FileDownload;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
-import org.springframework.http.HttpHeaders;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/v1/private/submission")
 public class SubmissionController {
+    private static final String NDJSON = "application/x-ndjson";
+
     private final SubmissionService submissionService;
     private final FileHandlerService fileHandlerService;
+    private final ObjectMapper objectMapper;
 
-    public SubmissionController(SubmissionService submissionService, FileHandlerService fileHandlerService) {
+    public SubmissionController(SubmissionService submissionService, FileHandlerService fileHandlerService, ObjectMapper objectMapper) {
         this.submissionService = submissionService;
         this.fileHandlerService = fileHandlerService;
+        this.objectMapper = objectMapper;
     }
 
     @Operation(
@@ -82,7 +98,7 @@ public class SubmissionController {
     @Operation(
             summary = "Get all submissions for a task",
             tags = {"02 - Search Submission"},
-            description = "This will response a list of submission which are submitted in a task",
+            description = "This will response a list of submission which are submitted in a task, ordered by id one page at a time. Pass the X-Next-Cursor response header as 'after' to get the next page.",
             responses = {
                     @ApiResponse(responseCode = "200", description = "Successfully retrieved submissions from a task",
                             content = @Content(mediaType = "application/json", schema = @Schema(implementation = Submission.class))),
@@ -92,9 +108,79 @@ public class SubmissionController {
             security = @SecurityRequirement(name = "bearerToken")
     )
     @GetMapping("/{taskId}/from-task")
-    public ResponseEntity<List<SubmissionDto>> getAllSubmissionFromTask(@PathVariable Long taskId){
-        List<SubmissionDto> submissionDtoList = submissionService.getAllSubmissionFromTask(taskId);
-        return new ResponseEntity<>(submissionDtoList, HttpStatus.OK);
+    public ResponseEntity<List<SubmissionDto>> getAllSubmissionFromTask(@PathVariable Long taskId,
+                                                                        @Parameter(description = "Id of the last submission of the previous page") @RequestParam(required = false) Long after,
+                                                                        @Parameter(description = "Page size, capped by the server") @RequestParam(required = false) Integer size){
+        return submissionService.getAllSubmissionFromTask(taskId, after, size).toResponseEntity();
+    }
+
+    @Operation(
+            summary = "Count the submissions of several tasks",
+            tags = {"02 - Search Submission"},
+            description = "Returns the number of submissions of each requested task, 0 for a task without any. Takes the ids in the body, so any number of them can be sent.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Successfully counted submissions",
+                            content = @Content(mediaType = "application/json")),
+                    @ApiResponse(responseCode = "401", description = "Unauthorized: Invalid or Expired JWT token.",
+                            content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorDetails.class)))
+            },
+            security = @SecurityRequirement(name = "bearerToken")
+    )
+    @PostMapping("/counts")
+    public ResponseEntity<Map<Long, Long>> countSubmissionsByTaskIds(@RequestBody List<Long> taskIds){
+        return new ResponseEntity<>(submissionService.countSubmissionsByTaskIds(taskIds), HttpStatus.OK);
+    }
+
+    @Operation(
+            summary = "Retrieve the submission states of several tasks",
+            tags = {"02 - Search Submission"},
+            description = "Returns the student, status and time of every submission of the requested tasks. Takes the ids in the body, so any number of them can be sent. Only TEACHER and ADMIN have permission to do this.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Successfully retrieved submission states",
+                            content = @Content(mediaType = "application/json", array = @ArraySchema(schema = @Schema(implementation = TaskSubmissionState.class)))),
+                    @ApiResponse(responseCode = "401", description = "Unauthorized: Invalid or Expired JWT token.",
+                            content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorDetails.class))),
+                    @ApiResponse(responseCode = "403", description = "Only TEACHER and ADMIN can see the submissions of every student.",
+                            content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorDetails.class)))
+            },
+            security = @SecurityRequirement(name = "bearerToken")
+    )
+    @PostMapping("/states")
+    public ResponseEntity<List<TaskSubmissionState>> getSubmissionStatesByTaskIds(@RequestBody List<Long> taskIds,
+                                                                                  @Parameter(hidden = true) @RequestHeader("X-User-Username") String username){
+        return new ResponseEntity<>(submissionService.getSubmissionStatesByTaskIds(taskIds, username), HttpStatus.OK);
+    }
+
+    @Operation(
+            summary = "Export all submissions, optionally of one task",
+            tags = {"02 - Search Submission"},
+            description = "Streams every submission as newline-delimited JSON, one submission per line. Only ADMIN have permission to do this.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Successfully exported submissions",
+                            content = @Content(mediaType = NDJSON, schema = @Schema(implementation = SubmissionDto.class))),
+                    @ApiResponse(responseCode = "401", description = "Unauthorized: Invalid or Expired JWT token.",
+                            content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorDetails.class))),
+                    @ApiResponse(responseCode = "403", description = "Only ADMIN have the permission to export submissions.",
+                            content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorDetails.class)))
+            },
+            security = @SecurityRequirement(name = "bearerToken")
+    )
+    @GetMapping("/export")
+    public void exportAllSubmission(@RequestParam(required = false) Long taskId,
+                                    @Parameter(hidden = true) @RequestHeader("X-User-Username") String username,
+                                    HttpServletResponse response) throws IOException {
+        // checked before the response is touched, so a refusal still gets its status and error body
+        submissionService.validateExportPermission(username);
+        response.setContentType(NDJSON);
+        OutputStream out = response.getOutputStream();
+        submissionService.exportAllSubmission(taskId, username, submissionDto -> {
+            try {
+                out.write(objectMapper.writeValueAsBytes(submissionDto));
+                out.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
     }
 
     @Operation(
@@ -119,10 +205,13 @@ public class SubmissionController {
     @Operation(
             summary = "Download submitted file",
             tags = {"03 - Manage File"},
-            description = "Download a file submitted by the user by its file name",
+            description = "Download a file submitted by the user by its file name. Supports a single `Range` for partial downloads, and `If-None-Match` with the ETag, the SHA-256 of the file, to revalidate a cached copy.",
             responses = {
                     @ApiResponse(responseCode = "200", description = "Successfully retrieved specific user's submission for a specific task",
                             content = @Content(mediaType = "application/json", schema = @Schema(implementation = Submission.class))),
+                    @ApiResponse(responseCode = "206", description = "The requested range of the file"),
+                    @ApiResponse(responseCode = "304", description = "The cached copy of the file is current"),
+                    @ApiResponse(responseCode = "416", description = "The requested range is outside of the file"),
                     @ApiResponse(responseCode = "401", description = "Unauthorized: Invalid or Expired JWT token.",
                             content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorDetails.class))),
                     @ApiResponse(responseCode = "404", description = "File not found with given name.",
@@ -131,13 +220,15 @@ public class SubmissionController {
             security = @SecurityRequirement(name = "bearerToken")
     )
     @GetMapping("/file/{fileName}")
-    public ResponseEntity<byte[]> downloadFile(@PathVariable String fileName){
-        byte[] fileData = fileHandlerService.downloadFile(fileName);
-
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(determineMediaType(fileName));
-        headers.setContentDispositionFormData("attachment", fileName);
-        return new ResponseEntity<>(fileData, headers, HttpStatus.OK);
+    public void downloadFile(@PathVariable String fileName,
+                             HttpServletRequest request,
+                             HttpServletResponse response) throws IOException {
+        Path file = fileHandlerService.getFilePath(fileName);
+        String sha256 = submissionService.getFileSha256(fileName).orElse(null);
+        // files are private to the course, and have to be checked with the server before reuse
+        FileDownload.write(file, sha256 == null ? null : "\"" + sha256 + "\"", determineMediaType(fileName),
+                ContentDisposition.formData().name("attachment").filename(fileName).build(),
+                CacheControl.noCache().cachePrivate(), request, response);
     }
 
     @Operation(
@@ -0,0 +1,8 @@
+package com.binarybrain.submission.dto;
+
+/**
+ * An uploaded file as it was written to the upload directory, with its size in bytes and the
+ * hex SHA-256 of its content.
+ */
+public record StoredFile(String fileName, long size, String sha256) {
+}
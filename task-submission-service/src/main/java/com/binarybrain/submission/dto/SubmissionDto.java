@@ -20,6 +20,8 @@ public class SubmissionDto {
     @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
     private LocalDateTime submissionTime;
     private String fileUrl;
+    private Long fileSize;
+    private String fileSha256;
     private String githubLink;
     private SubmissionStatus submissionStatus;
     private SubmissionType submissionType;
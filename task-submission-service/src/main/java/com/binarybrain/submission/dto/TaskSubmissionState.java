@@ -0,0 +1,12 @@
+package com.binarybrain.submission.dto;
+
+import com.binarybrain.submission.model.SubmissionStatus;
+
+import java.time.LocalDateTime;
+
+/**
+ * The state of a student's submission of a task, as the classroom service keeps it on the
+ * student's deadline timeline.
+ */
+public record TaskSubmissionState(Long taskId, Long studentId, SubmissionStatus state, LocalDateTime submittedAt) {
+}
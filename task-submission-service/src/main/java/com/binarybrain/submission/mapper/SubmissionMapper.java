@@ -16,6 +16,8 @@ public class SubmissionMapper {
         submissionDto.setStudentId(submission.getStudentId());
         submissionDto.setSubmittedBy(submission.getSubmittedBy());
         submissionDto.setFileUrl(submission.getFileUrl());
+        submissionDto.setFileSize(submission.getFileSize());
+        submissionDto.setFileSha256(submission.getFileSha256());
         submissionDto.setGithubLink(submission.getGithubLink());
         submissionDto.setSubmissionTime(submission.getSubmissionTime());
         submissionDto.setSubmissionStatus(submission.getSubmissionStatus());
@@ -30,6 +32,8 @@ public class SubmissionMapper {
         submission.setStudentId(submissionDto.getStudentId());
         submission.setSubmittedBy(submissionDto.getSubmittedBy());
         submission.setFileUrl(submissionDto.getFileUrl());
+        submission.setFileSize(submissionDto.getFileSize());
+        submission.setFileSha256(submissionDto.getFileSha256());
         submission.setGithubLink(submissionDto.getGithubLink());
         submission.setSubmissionTime(submissionDto.getSubmissionTime());
         submission.setSubmissionStatus(submissionDto.getSubmissionStatus());
@@ -6,6 +6,10 @@ import java.time.LocalDateTime;
 
 @Entity
 @Data
+@Table(indexes = {
+        @Index(name = "idx_submission_task_id", columnList = "task_id, id"),
+        @Index(name = "idx_submission_file_url", columnList = "file_url")
+})
 public class Submission {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -15,6 +19,9 @@ public class Submission {
     private String submittedBy;
     private LocalDateTime submissionTime;
     private String fileUrl;
+    private Long fileSize;
+    @Column(length = 64)
+    private String fileSha256;
     private String githubLink;
     @Enumerated(EnumType.STRING)
     private SubmissionStatus submissionStatus;
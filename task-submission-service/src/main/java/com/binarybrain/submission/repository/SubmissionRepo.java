@@ -1,15 +1,62 @@
 package com.binarybrain.submission.repository;
 
+import com.binarybrain.submission.dto.TaskSubmissionState;
 import com.binarybrain.submission.model.Submission;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
 
 @Repository
 public interface SubmissionRepo extends JpaRepository<Submission, Long> {
-    List<Submission> findByTaskId(Long taskId);
+    List<Submission> findByTaskIdAndIdGreaterThanOrderByIdAsc(Long taskId, Long afterId, Limit limit);
     Optional<Submission> findByTaskIdAndSubmittedBy(Long taskId, String username);
 
+    /**
+     * The number of submissions of a task, as counted for several tasks at once.
+     */
+    interface TaskSubmissionCount {
+        Long getTaskId();
+        long getSubmissions();
+    }
+
+    /**
+     * Counts from the {@code (task_id, id)} index, one row per task with at least one submission.
+     */
+    @Query("select s.taskId as taskId, count(s) as submissions from Submission s where s.taskId in :taskIds group by s.taskId")
+    List<TaskSubmissionCount> countByTaskIds(@Param("taskIds") Collection<Long> taskIds);
+
+    /**
+     * The SHA-256 of an uploaded file, read from the {@code file_url} index. Empty for files
+     * uploaded before checksums were stored.
+     */
+    @Query("select s.fileSha256 from Submission s where s.fileUrl = :fileUrl")
+    Optional<String> findFileSha256ByFileUrl(@Param("fileUrl") String fileUrl);
+
+    /**
+     * The state of every submission of the tasks, read from the {@code (task_id, id)} index.
+     */
+    @Query("select new com.binarybrain.submission.dto.TaskSubmissionState(s.taskId, s.studentId, s.submissionStatus, s.submissionTime) " +
+            "from Submission s where s.taskId in :taskIds")
+    List<TaskSubmissionState> findStatesByTaskIds(@Param("taskIds") Collection<Long> taskIds);
+
+    /**
+     * Every submission in id order, read from the database as the stream is consumed. Has to be
+     * consumed and closed inside a transaction.
+     */
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    Stream<Submission> streamAllByOrderByIdAsc();
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    Stream<Submission> streamByTaskIdOrderByIdAsc(Long taskId);
 }
@@ -0,0 +1,12 @@
+package com.binarybrain.submission.service;
+
+import com.binarybrain.submission.dto.TaskSubmissionState;
+import org.springframework.cloud.openfeign.FeignClient;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+
+@FeignClient(name = "CLASSROOM-MICROSERVICE")
+public interface ClassroomService {
+    @PostMapping("/api/v1/internal/classroom/events/submission")
+    void submissionChanged(@RequestBody TaskSubmissionState submission);
+}
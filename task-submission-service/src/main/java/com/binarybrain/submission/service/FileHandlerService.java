@@ -1,10 +1,13 @@
 package com.binarybrain.submission.service;
 
+import com.binarybrain.submission.dto.StoredFile;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.nio.file.Path;
+
 public interface FileHandlerService {
-    String uploadFile(MultipartFile file);
-    byte[] downloadFile(String filename);
+    StoredFile uploadFile(MultipartFile file);
+    Path getFilePath(String filename);
 
     void deleteFile(String fileName);
 }
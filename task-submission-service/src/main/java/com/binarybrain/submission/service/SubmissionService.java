@@ -1,10 +1,15 @@
 package com.binarybrain.submission.service;
 
 import com.binarybrain.submission.dto.SubmissionDto;
+import com.binarybrain.submission.dto.TaskSubmissionState;
 import com.binarybrain.submission.model.SubmissionStatus;
+import com.binarybrain.support.lookup.CursorPage;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface SubmissionService {
     /**
@@ -22,7 +27,41 @@ public interface SubmissionService {
      * @return SubmissionDto containing the submission details
      */
     SubmissionDto getSubmissionById(Long submissionId);
-    List<SubmissionDto> getAllSubmissionFromTask(Long taskId);
+    /**
+     * Retrieve one page of the submissions of a task, ordered by id
+     * @param taskId The ID of the task
+     * @param after The ID of the last submission of the previous page (null for the first page)
+     * @param size The page size (null for the largest), capped by {@code pagination.max-page-size}
+     * @return CursorPage containing the submissions and the cursor of the next page
+     */
+    CursorPage<SubmissionDto> getAllSubmissionFromTask(Long taskId, Long after, Integer size);
+    /**
+     * Hand every submission, or every submission of a task, to a sink as it is read from the database
+     * @param taskId The ID of the task (null for all submissions)
+     * @param username The username of the requester, who must be an ADMIN
+     * @param sink Receives the submissions in id order
+     */
+    void validateExportPermission(String username);
+    void exportAllSubmission(Long taskId, String username, Consumer<SubmissionDto> sink);
+    /**
+     * Count the submissions of several tasks at once
+     * @param taskIds The IDs of the tasks
+     * @return Map from every requested task ID to its number of submissions, 0 for a task without any
+     */
+    Map<Long, Long> countSubmissionsByTaskIds(List<Long> taskIds);
+    /**
+     * Look the checksum of an uploaded file up, to identify its content to caches
+     * @param fileName The name the file was stored under
+     * @return The hex SHA-256 of the file, empty if it was uploaded before checksums were stored
+     */
+    Optional<String> getFileSha256(String fileName);
+    /**
+     * Retrieve the state of every submission of several tasks at once. Only TEACHER and ADMIN can see them.
+     * @param taskIds The IDs of the tasks
+     * @param username The username of the user requesting the states
+     * @return TaskSubmissionState of every submission of the tasks, none for a student who hasn't submitted
+     */
+    List<TaskSubmissionState> getSubmissionStatesByTaskIds(List<Long> taskIds, String username);
     /**
      * Find a submission by task for with specific user
      * @param taskId The ID of the task
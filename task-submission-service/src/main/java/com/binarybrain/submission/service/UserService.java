@@ -3,10 +3,19 @@ package com.binarybrain.submission.service;
 import com.binarybrain.submission.dto.UserDto;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestHeader;
 
-@FeignClient(name = "USER-MICROSERVICE")
+import java.util.Collection;
+import java.util.List;
+
+@FeignClient(name = "USER-MICROSERVICE", qualifiers = "userServiceClient", primary = false)
 public interface UserService {
     @GetMapping("/api/user/profile")
     UserDto getUserProfile(@RequestHeader("X-User-Username") String username);
+
+    @PostMapping("/api/user/profiles")
+    List<UserDto> getUserProfilesByIds(@RequestBody Collection<Long> ids,
+                                       @RequestHeader("X-User-Username") String username);
 }
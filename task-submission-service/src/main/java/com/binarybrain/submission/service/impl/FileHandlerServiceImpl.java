@@ -3,59 +3,93 @@ package com.binarybrain.submission.service.impl;
 import com.binarybrain.exception.ResourceNotFoundException;
 import com.binarybrain.exception.UnsupportedFileTypeException;
 import com.binarybrain.exception.global.GlobalExceptionHandler;
+import com.binarybrain.submission.dto.StoredFile;
 import com.binarybrain.submission.service.FileHandlerService;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.PushbackInputStream;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.Arrays;
-import java.util.List;
-import java.util.Optional;
-import java.util.UUID;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
 
 @Service
 public class FileHandlerServiceImpl implements FileHandlerService {
 
     @Value("${file.upload-dir}")
     private String fileDirectory;
+
+    /**
+     * Streams the upload into a temporary file next to its final place and moves it there once it
+     * is complete, so a failed or partial upload is never seen under its name. The SHA-256 and
+     * size are taken as the bytes pass and the type is told from the first bytes of the content,
+     * so the upload is never held in memory whatever its size.
+     */
     @Override
-    public String uploadFile(MultipartFile file) {
+    public StoredFile uploadFile(MultipartFile file) {
+        Path tempFile = null;
         try{
-            GlobalExceptionHandler.Thrower.throwIf(
-                    !isValidFileType(file),
-                    new UnsupportedFileTypeException("Unsupported file type: " + file.getContentType() + "\n (Supported file: PDF, JPG, JPEG, PNG)"));
-
             String fileName = UUID.randomUUID() + "_" + file.getOriginalFilename();
             Path targetDirectory = Paths.get(fileDirectory).normalize();
             Path path = targetDirectory.resolve(fileName).normalize();
 
             GlobalExceptionHandler.Thrower.throwIf(!path.startsWith(targetDirectory), new IOException("Entry is outside of the target directory"));
 
-            Files.createDirectories(targetDirectory);
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            try (PushbackInputStream in = new PushbackInputStream(new DigestInputStream(file.getInputStream(), sha256), SIGNATURE_LENGTH)) {
+                byte[] header = in.readNBytes(SIGNATURE_LENGTH);
+                GlobalExceptionHandler.Thrower.throwIf(
+                        !isValidFileType(header),
+                        new UnsupportedFileTypeException("Unsupported file type: " + file.getOriginalFilename() + "\n (Supported file: PDF, JPG, JPEG, PNG)"));
+                // the header was digested once already, reading it back from the pushback buffer doesn't digest it again
+                in.unread(header);
 
-            Files.write(path, file.getBytes());
-            return fileName;
-        }catch (IOException ex){
+                Files.createDirectories(targetDirectory);
+                tempFile = Files.createTempFile(targetDirectory, ".upload-", ".tmp");
+                long size = Files.copy(in, tempFile, StandardCopyOption.REPLACE_EXISTING);
+                Files.move(tempFile, path, StandardCopyOption.ATOMIC_MOVE);
+                return new StoredFile(fileName, size, HexFormat.of().formatHex(sha256.digest()));
+            }
+        }catch (IOException | NoSuchAlgorithmException ex){
             throw new UnsupportedFileTypeException("File upload failed: "+ file.getOriginalFilename() + "\n" + ex);
+        }finally {
+            deleteTempFile(tempFile);
+        }
+    }
+
+    private static void deleteTempFile(Path tempFile) {
+        if (tempFile != null) {
+            try {
+                Files.deleteIfExists(tempFile);
+            } catch (IOException ex) {
+                // the upload failed already, a stray temporary file is not worth another error
+            }
         }
     }
 
+    /**
+     * The path of an uploaded file, for it to be streamed from disk rather than read into memory.
+     */
     @Override
-    public byte[] downloadFile(String filename) {
+    public Path getFilePath(String filename) {
         GlobalExceptionHandler.Thrower.throwIf(filename.contains("..") || filename.contains("/") || filename.contains("\\"),new IllegalArgumentException("Invalid filename"));
         try{
             Path targetDirectory = Paths.get(fileDirectory).normalize();
             Path filePath = targetDirectory.resolve(filename).normalize();
             GlobalExceptionHandler.Thrower.throwIf(!filePath.startsWith(targetDirectory),new IOException("Entry is outside of the target directory"));
             GlobalExceptionHandler.Thrower.throwIf(
-                    !Files.exists(filePath),
+                    !Files.isRegularFile(filePath),
                     new ResourceNotFoundException("FILE NOT FOUND: " + filename));
 
-            return Files.readAllBytes(filePath);
+            return filePath;
         } catch (IOException ex){
             throw new UnsupportedFileTypeException("File download failed: "+ filename + "\n" + ex);
         }
@@ -74,14 +108,20 @@ public class FileHandlerServiceImpl implements FileHandlerService {
         });
     }
 
-    private static final List<String> ALLOWED_FILE_TYPES = Arrays.asList(
-            "application/pdf",
-            "image/png",
-            "image/jpeg",
-            "image/jpg"
+    private static final int SIGNATURE_LENGTH = 8;
+    private static final List<byte[]> ALLOWED_FILE_SIGNATURES = List.of(
+            "%PDF-".getBytes(StandardCharsets.US_ASCII),
+            new byte[]{(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'},
+            new byte[]{(byte) 0xFF, (byte) 0xD8, (byte) 0xFF}
     );
-    public boolean isValidFileType(MultipartFile file) {
-        return ALLOWED_FILE_TYPES.contains(file.getContentType());
+
+    /**
+     * Whether the content starting with {@code header} is a PDF, PNG or JPEG, going by its magic
+     * bytes rather than the content type the client sent.
+     */
+    public boolean isValidFileType(byte[] header) {
+        return ALLOWED_FILE_SIGNATURES.stream().anyMatch(signature -> header.length >= signature.length
+                && Arrays.equals(header, 0, signature.length, signature, 0, signature.length));
     }
 
 }
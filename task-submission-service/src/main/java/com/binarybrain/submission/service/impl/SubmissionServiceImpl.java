@@ -10,24 +10,44 @@ import com.binarybrain.submission.service.FileHandlerService;
 import com.binarybrain.submission.service.SubmissionService;
 import com.binarybrain.submission.service.TaskService;
 import com.binarybrain.submission.service.UserService;
+import com.binarybrain.support.lookup.ChunkedIdLookup;
+import com.binarybrain.support.lookup.CursorPage;
+import jakarta.persistence.EntityManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 import java.time.LocalDateTime;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
 public class SubmissionServiceImpl implements SubmissionService {
+    @Value("${pagination.max-page-size:1000}")
+    private int maxPageSize = 1000;
+
     private final SubmissionRepo submissionRepo;
     private final TaskService taskService;
     private final UserService userService;
     private final FileHandlerService fileHandlerService;
+    private final TimelineEventPublisher timelineEventPublisher;
+    private final ChunkedIdLookup chunkedIdLookup;
+    private final EntityManager entityManager;
 
-    public SubmissionServiceImpl(SubmissionRepo submissionRepo, TaskService taskService, UserService userService, FileHandlerService fileHandlerService) {
+    public SubmissionServiceImpl(SubmissionRepo submissionRepo, TaskService taskService, UserService userService, FileHandlerService fileHandlerService,
+                                 TimelineEventPublisher timelineEventPublisher, ChunkedIdLookup chunkedIdLookup, EntityManager entityManager) {
         this.submissionRepo = submissionRepo;
         this.taskService = taskService;
         this.userService = userService;
         this.fileHandlerService = fileHandlerService;
+        this.timelineEventPublisher = timelineEventPublisher;
+        this.chunkedIdLookup = chunkedIdLookup;
+        this.entityManager = entityManager;
     }
     private boolean validateRole(UserDto userDto, List<String> targetRoles) {
         return userDto.getRoles()
@@ -48,13 +68,13 @@ public class SubmissionServiceImpl implements SubmissionService {
                 submissionRepo.findByTaskIdAndSubmittedBy(taskId, username).isPresent(),
                 new AlreadyExistsException("You have already submitted this task. Multiple submissions are not allowed!"));
 
-        String fileName = fileHandlerService.uploadFile(file);
+        StoredFile storedFile = fileHandlerService.uploadFile(file);
 
         Submission submission = new Submission();
         submission.setTaskId(taskId);
         submission.setStudentId(userDto.getId());
         submission.setSubmittedBy(username);
-        submission.setFileUrl(fileName);
+        setFile(submission, storedFile);
         submission.setGithubLink(githubLink);
 
         if(taskDto.getDeadline().isAfter(LocalDateTime.now()))
@@ -65,6 +85,7 @@ public class SubmissionServiceImpl implements SubmissionService {
         submission.setSubmissionTime(LocalDateTime.now());
 
         submissionRepo.save(submission);
+        publishState(submission);
         return SubmissionMapper.toSubmissionDto(submission);
     }
     @Override
@@ -74,11 +95,35 @@ public class SubmissionServiceImpl implements SubmissionService {
     }
 
     @Override
-    public List<SubmissionDto> getAllSubmissionFromTask(Long taskId) {
-        List<Submission> submissionList = submissionRepo.findByTaskId(taskId);
-        return submissionList.stream()
-                .map(SubmissionMapper::toSubmissionDto)
-                .toList();
+    public CursorPage<SubmissionDto> getAllSubmissionFromTask(Long taskId, Long after, Integer size) {
+        int pageSize = size == null ? maxPageSize : Math.clamp(size, 1, maxPageSize);
+        List<Submission> submissionList = submissionRepo.findByTaskIdAndIdGreaterThanOrderByIdAsc(taskId, after == null ? 0L : after, Limit.of(pageSize + 1));
+        return CursorPage.of(submissionList, pageSize, Submission::getId, SubmissionMapper::toSubmissionDto);
+    }
+
+    @Override
+    public void validateExportPermission(String username) {
+        UserDto userDto = userService.getUserProfile(username);
+        GlobalExceptionHandler.Thrower.throwIf(
+                !validateRole(userDto, List.of("ADMIN")),
+                new UserHasNotPermissionException("Only ADMIN can export all submissions!"));
+    }
+
+    /**
+     * Each submission is detached once handed over, so memory use doesn't grow with the number of
+     * submissions.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public void exportAllSubmission(Long taskId, String username, Consumer<SubmissionDto> sink) {
+        validateExportPermission(username);
+
+        try (Stream<Submission> submissions = taskId == null ? submissionRepo.streamAllByOrderByIdAsc() : submissionRepo.streamByTaskIdOrderByIdAsc(taskId)) {
+            submissions.forEach(submission -> {
+                sink.accept(SubmissionMapper.toSubmissionDto(submission));
+                entityManager.detach(submission);
+            });
+        }
     }
 
     @Override
@@ -88,6 +133,42 @@ public class SubmissionServiceImpl implements SubmissionService {
 
         return SubmissionMapper.toSubmissionDto(submission);
     }
+
+    @Override
+    public Map<Long, Long> countSubmissionsByTaskIds(List<Long> taskIds) {
+        Map<Long, Long> counts = new HashMap<>();
+        taskIds.forEach(taskId -> counts.put(taskId, 0L));
+        chunkedIdLookup.find(taskIds, submissionRepo::countByTaskIds, SubmissionRepo.TaskSubmissionCount::getTaskId).items()
+                .forEach(count -> counts.put(count.getTaskId(), count.getSubmissions()));
+        return counts;
+    }
+
+    @Override
+    public List<TaskSubmissionState> getSubmissionStatesByTaskIds(List<Long> taskIds, String username) {
+        UserDto userDto = userService.getUserProfile(username);
+        GlobalExceptionHandler.Thrower.throwIf(
+                !validateRole(userDto, List.of("TEACHER", "ADMIN")),
+                new UserHasNotPermissionException("Only TEACHER and ADMIN can see the submissions of every student!"));
+
+        return chunkedIdLookup.findAll(taskIds, submissionRepo::findStatesByTaskIds);
+    }
+
+    @Override
+    public Optional<String> getFileSha256(String fileName) {
+        return submissionRepo.findFileSha256ByFileUrl(fileName);
+    }
+
+    private static void setFile(Submission submission, StoredFile storedFile) {
+        submission.setFileUrl(storedFile == null ? null : storedFile.fileName());
+        submission.setFileSize(storedFile == null ? null : storedFile.size());
+        submission.setFileSha256(storedFile == null ? null : storedFile.sha256());
+    }
+
+    private void publishState(Submission submission) {
+        timelineEventPublisher.submissionChanged(new TaskSubmissionState(submission.getTaskId(), submission.getStudentId(),
+                submission.getSubmissionStatus(), submission.getSubmissionTime()));
+    }
+
     @Override
     public SubmissionDto acceptOrRejectSubmission(Long submissionId, SubmissionStatus status, String username){
         Submission submission = submissionRepo.findById(submissionId)
@@ -101,6 +182,7 @@ public class SubmissionServiceImpl implements SubmissionService {
 
         submission.setSubmissionStatus(status);
         submissionRepo.save(submission);
+        publishState(submission);
 
         return SubmissionMapper.toSubmissionDto(submission);
     }
@@ -109,9 +191,9 @@ public class SubmissionServiceImpl implements SubmissionService {
         Submission submission = SubmissionMapper.toSubmission(getSubmissionByTaskIdAndUsername(taskId, username));
 
         deleteFileByTaskId(taskId, username);
-        String fileName = fileHandlerService.uploadFile(file);
+        StoredFile storedFile = fileHandlerService.uploadFile(file);
 
-        submission.setFileUrl(fileName);
+        setFile(submission, storedFile);
         Optional.ofNullable(githubLink).ifPresent(submission::setGithubLink);
         submissionRepo.save(submission);
 
@@ -127,7 +209,7 @@ public class SubmissionServiceImpl implements SubmissionService {
 
         String fileName = submission.getFileUrl();
         fileHandlerService.deleteFile(fileName);
-        submission.setFileUrl(null);
+        setFile(submission, null);
         submissionRepo.save(submission);
         return SubmissionMapper.toSubmissionDto(submission);
     }
@@ -0,0 +1,43 @@
+package com.binarybrain.submission.service.impl;
+
+import com.binarybrain.submission.dto.TaskSubmissionState;
+import com.binarybrain.submission.service.ClassroomService;
+import com.binarybrain.support.event.SerialEventPublisher;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Tells the classroom service when a task is submitted or a submission reviewed, so the
+ * student's deadline timeline shows it. Events are posted one at a time in the order they were
+ * published, off the request thread; one that can't be posted is logged and dropped rather than
+ * failing the submission.
+ */
+@Component
+public class TimelineEventPublisher {
+    @Value("${timeline-events.queue-capacity:10000}")
+    private int queueCapacity = 10000;
+
+    private final ClassroomService classroomService;
+    private SerialEventPublisher events;
+
+    public TimelineEventPublisher(ClassroomService classroomService) {
+        this.classroomService = classroomService;
+    }
+
+    @PostConstruct
+    void start() {
+        events = new SerialEventPublisher("classroom service", queueCapacity);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        events.shutdown();
+    }
+
+    public void submissionChanged(TaskSubmissionState submission) {
+        events.publish("submission of task " + submission.taskId() + " by student " + submission.studentId(),
+                () -> classroomService.submissionChanged(submission));
+    }
+}
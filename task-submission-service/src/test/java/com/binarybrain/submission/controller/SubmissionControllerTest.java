@@ -1,16 +1,21 @@
 package com.binarybrain.submission.controller;
 
 import com.binarybrain.submission.dto.RoleDto;
+import com.binarybrain.submission.dto.StoredFile;
 import com.binarybrain.submission.dto.TaskDto;
+import com.binarybrain.submission.dto.TaskSubmissionState;
 import com.binarybrain.submission.dto.UserDto;
 import com.binarybrain.submission.model.Submission;
 import com.binarybrain.submission.model.SubmissionStatus;
 import com.binarybrain.submission.repository.SubmissionRepo;
+import com.binarybrain.submission.service.ClassroomService;
 import com.binarybrain.submission.service.FileHandlerService;
 import com.binarybrain.submission.service.TaskService;
 import com.binarybrain.submission.service.UserService;
+import com.binarybrain.support.lookup.CursorPage;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
@@ -21,12 +26,22 @@ import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.LocalDateTime;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
+import static org.hamcrest.Matchers.matchesPattern;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -55,8 +70,26 @@ class SubmissionControllerTest {
 
     @MockitoBean
     private FileHandlerService fileHandlerService;
+
+    @MockitoBean
+    private ClassroomService classroomService;
+
+    @TempDir
+    Path uploadDir;
     private UserDto userDto;
 
+    /**
+     * Writes a file into the upload directory and makes the file handler find it there.
+     *
+     * @param fileName the name the file is stored under
+     * @param content  the content of the file
+     * @throws IOException if the file can't be written
+     */
+    private void storeFile(String fileName, byte[] content) throws IOException {
+        Path file = Files.write(uploadDir.resolve(fileName), content);
+        when(fileHandlerService.getFilePath(fileName)).thenReturn(file);
+    }
+
     /**
      * Creates a Submission object with specified parameters.
      *
@@ -134,6 +167,7 @@ class SubmissionControllerTest {
                 MediaType.APPLICATION_PDF_VALUE, "Test content".getBytes());
 
         when(taskService.getTaskById(2L, "moinul")).thenReturn(createTask());
+        when(fileHandlerService.uploadFile(any())).thenReturn(new StoredFile("test.pdf", 12L, "ab12"));
 
         mockMvc.perform(multipart("/api/v1/private/submission/2/submit")
                         .file(file)
@@ -189,15 +223,143 @@ class SubmissionControllerTest {
     @Test
     void testGetAllSubmissionsFromTask() throws Exception {
         Submission submission = createSubmission(1L, 1L, "https://iishanto.com", "moinul", SubmissionStatus.PENDING, 1L);
-        when(submissionRepo.findByTaskId(1L)).thenReturn(java.util.List.of(submission));
+        when(submissionRepo.findByTaskIdAndIdGreaterThanOrderByIdAsc(eq(1L), eq(0L), any())).thenReturn(java.util.List.of(submission));
 
         mockMvc.perform(get("/api/v1/private/submission/1/from-task"))
                 .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(CursorPage.NEXT_CURSOR_HEADER))
                 .andExpect(jsonPath("$[0].id").value(1L))
                 .andExpect(jsonPath("$[0].taskId").value(1L))
                 .andExpect(jsonPath("$[0].submissionStatus").value("PENDING"));
     }
 
+    /**
+     * Tests that a page of submissions followed by more carries the cursor of the next page.
+     *
+     * @throws Exception if the test execution fails
+     */
+    @Test
+    void testGetAllSubmissionsFromTaskWithPageSize() throws Exception {
+        Submission first = createSubmission(1L, 1L, "https://iishanto.com", "moinul", SubmissionStatus.PENDING, 1L);
+        Submission second = createSubmission(2L, 1L, "https://iishanto.com", "sadia", SubmissionStatus.PENDING, 2L);
+        when(submissionRepo.findByTaskIdAndIdGreaterThanOrderByIdAsc(eq(1L), eq(0L), any())).thenReturn(java.util.List.of(first, second));
+
+        mockMvc.perform(get("/api/v1/private/submission/1/from-task").param("size", "1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(CursorPage.NEXT_CURSOR_HEADER, "1"))
+                .andExpect(jsonPath("$.length()").value(1));
+    }
+
+    /**
+     * Tests counting the submissions of several tasks.
+     *
+     * @throws Exception if the test execution fails
+     */
+    @Test
+    void testCountSubmissionsByTaskIds() throws Exception {
+        SubmissionRepo.TaskSubmissionCount count = new SubmissionRepo.TaskSubmissionCount() {
+            @Override
+            public Long getTaskId() {
+                return 1L;
+            }
+
+            @Override
+            public long getSubmissions() {
+                return 2L;
+            }
+        };
+        when(submissionRepo.countByTaskIds(any())).thenReturn(java.util.List.of(count));
+
+        mockMvc.perform(post("/api/v1/private/submission/counts")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[1, 2]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.1").value(2))
+                .andExpect(jsonPath("$.2").value(0));
+    }
+
+    /**
+     * Tests that the submission states of the given tasks are returned for the student timelines.
+     *
+     * @throws Exception if the test execution fails
+     */
+    @Test
+    void testGetSubmissionStatesByTaskIds() throws Exception {
+        when(submissionRepo.findStatesByTaskIds(any())).thenReturn(java.util.List.of(
+                new TaskSubmissionState(1L, 7L, SubmissionStatus.ACCEPTED, LocalDateTime.of(2025, 1, 1, 10, 0))));
+
+        mockMvc.perform(post("/api/v1/private/submission/states")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[1, 2]")
+                        .header("X-User-Username", "moinul"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].taskId").value(1))
+                .andExpect(jsonPath("$[0].studentId").value(7))
+                .andExpect(jsonPath("$[0].state").value("ACCEPTED"));
+    }
+
+    /**
+     * Tests that a student can't see the submission states of the other students.
+     *
+     * @throws Exception if the test execution fails
+     */
+    @Test
+    void testGetSubmissionStatesByTaskIds_ForbiddenForStudents() throws Exception {
+        UserDto student = new UserDto();
+        student.setId(2L);
+        student.setUsername("sadia");
+        RoleDto studentRole = new RoleDto();
+        studentRole.setName("STUDENT");
+        student.setRoles(new HashSet<>(List.of(studentRole)));
+        when(userService.getUserProfile("sadia")).thenReturn(student);
+
+        mockMvc.perform(post("/api/v1/private/submission/states")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[1, 2]")
+                        .header("X-User-Username", "sadia"))
+                .andExpect(status().isForbidden());
+        verify(submissionRepo, never()).findStatesByTaskIds(any());
+    }
+
+    /**
+     * Tests the export of all submissions as newline-delimited JSON.
+     *
+     * @throws Exception if the test execution fails
+     */
+    @Test
+    void testExportAllSubmissions() throws Exception {
+        when(submissionRepo.streamAllByOrderByIdAsc()).thenAnswer(invocation -> Stream.of(
+                createSubmission(1L, 1L, "https://iishanto.com", "moinul", SubmissionStatus.PENDING, 1L),
+                createSubmission(2L, 1L, "https://iishanto.com", "sadia", SubmissionStatus.PENDING, 2L)));
+
+        mockMvc.perform(get("/api/v1/private/submission/export").header("X-User-Username", "moinul"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andExpect(content().string(matchesPattern("\\{\"id\":1,[^\\n]*}\\n\\{\"id\":2,[^\\n]*}\\n")));
+    }
+
+    /**
+     * Tests that a non-admin export is refused before the response is started, so the refusal
+     * keeps its status.
+     *
+     * @throws Exception if the test execution fails
+     */
+    @Test
+    void testExportAllSubmissions_ForbiddenForStudents() throws Exception {
+        UserDto student = new UserDto();
+        student.setId(2L);
+        student.setUsername("sadia");
+        RoleDto studentRole = new RoleDto();
+        studentRole.setName("STUDENT");
+        student.setRoles(new HashSet<>(List.of(studentRole)));
+        when(userService.getUserProfile("sadia")).thenReturn(student);
+
+        mockMvc.perform(get("/api/v1/private/submission/export").header("X-User-Username", "sadia"))
+                .andExpect(status().isForbidden())
+                .andExpect(result -> assertNull(result.getResponse().getContentType()));
+        verify(submissionRepo, never()).streamAllByOrderByIdAsc();
+    }
+
     /**
      * Tests retrieval of a submission by task ID and username.
      *
@@ -223,9 +385,7 @@ class SubmissionControllerTest {
      */
     @Test
     void testDownloadFile() throws Exception {
-        MockMultipartFile file = new MockMultipartFile("file", "test.pdf",
-                MediaType.APPLICATION_PDF_VALUE, "Test content".getBytes());
-        when(fileHandlerService.downloadFile("test.pdf")).thenReturn(file.getBytes());
+        storeFile("test.pdf", "Test content".getBytes());
 
         mockMvc.perform(get("/api/v1/private/submission/file/test.pdf"))
                 .andExpect(status().isOk())
@@ -235,7 +395,7 @@ class SubmissionControllerTest {
     @Test
     void testDownloadPdfFile() throws Exception {
         byte[] fileContent = "PDF content".getBytes();
-        when(fileHandlerService.downloadFile("test.pdf")).thenReturn(fileContent);
+        storeFile("test.pdf", fileContent);
 
         mockMvc.perform(get("/api/v1/private/submission/file/test.pdf"))
                 .andExpect(status().isOk())
@@ -247,7 +407,7 @@ class SubmissionControllerTest {
     @Test
     void testDownloadPngFile() throws Exception {
         byte[] fileContent = "PNG content".getBytes();
-        when(fileHandlerService.downloadFile("test.png")).thenReturn(fileContent);
+        storeFile("test.png", fileContent);
 
         mockMvc.perform(get("/api/v1/private/submission/file/test.png"))
                 .andExpect(status().isOk())
@@ -259,7 +419,7 @@ class SubmissionControllerTest {
     @Test
     void testDownloadJpgFile() throws Exception {
         byte[] fileContent = "JPG content".getBytes();
-        when(fileHandlerService.downloadFile("test.jpg")).thenReturn(fileContent);
+        storeFile("test.jpg", fileContent);
 
         mockMvc.perform(get("/api/v1/private/submission/file/test.jpg"))
                 .andExpect(status().isOk())
@@ -271,7 +431,7 @@ class SubmissionControllerTest {
     @Test
     void testDownloadJpegFile() throws Exception {
         byte[] fileContent = "JPEG content".getBytes();
-        when(fileHandlerService.downloadFile("test.jpeg")).thenReturn(fileContent);
+        storeFile("test.jpeg", fileContent);
 
         mockMvc.perform(get("/api/v1/private/submission/file/test.jpeg"))
                 .andExpect(status().isOk())
@@ -283,7 +443,7 @@ class SubmissionControllerTest {
     @Test
     void testDownloadUnknownFileType() throws Exception {
         byte[] fileContent = "Unknown content".getBytes();
-        when(fileHandlerService.downloadFile("test.unknown")).thenReturn(fileContent);
+        storeFile("test.unknown", fileContent);
 
         mockMvc.perform(get("/api/v1/private/submission/file/test.unknown"))
                 .andExpect(status().isOk())
@@ -292,6 +452,66 @@ class SubmissionControllerTest {
                 .andExpect(content().bytes(fileContent));
     }
 
+    @Test
+    void testDownloadFileWithChecksum_ShouldSendEtagAndAnswerConditionalRequestWith304() throws Exception {
+        byte[] fileContent = "%PDF-1.7 content".getBytes();
+        storeFile("test.pdf", fileContent);
+        when(submissionRepo.findFileSha256ByFileUrl("test.pdf")).thenReturn(Optional.of("ab12"));
+
+        mockMvc.perform(get("/api/v1/private/submission/file/test.pdf"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"ab12\""))
+                .andExpect(header().string(HttpHeaders.ACCEPT_RANGES, "bytes"))
+                .andExpect(header().exists(HttpHeaders.LAST_MODIFIED))
+                .andExpect(content().bytes(fileContent));
+
+        mockMvc.perform(get("/api/v1/private/submission/file/test.pdf")
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"ab12\""))
+                .andExpect(status().isNotModified())
+                .andExpect(content().bytes(new byte[0]));
+    }
+
+    @Test
+    void testDownloadFileRange_ShouldReturnPartialContent() throws Exception {
+        storeFile("test.pdf", "0123456789".getBytes());
+
+        mockMvc.perform(get("/api/v1/private/submission/file/test.pdf")
+                        .header(HttpHeaders.RANGE, "bytes=2-5"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 2-5/10"))
+                .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, 4))
+                .andExpect(content().bytes("2345".getBytes()));
+
+        mockMvc.perform(get("/api/v1/private/submission/file/test.pdf")
+                        .header(HttpHeaders.RANGE, "bytes=-3"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 7-9/10"))
+                .andExpect(content().bytes("789".getBytes()));
+    }
+
+    @Test
+    void testDownloadFileRangeOutsideOfFile_ShouldReturn416() throws Exception {
+        storeFile("test.pdf", "0123456789".getBytes());
+
+        mockMvc.perform(get("/api/v1/private/submission/file/test.pdf")
+                        .header(HttpHeaders.RANGE, "bytes=10-20"))
+                .andExpect(status().isRequestedRangeNotSatisfiable())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes */10"));
+    }
+
+    @Test
+    void testDownloadFileRangeWithStaleIfRange_ShouldReturnWholeFile() throws Exception {
+        byte[] fileContent = "0123456789".getBytes();
+        storeFile("test.pdf", fileContent);
+        when(submissionRepo.findFileSha256ByFileUrl("test.pdf")).thenReturn(Optional.of("ab12"));
+
+        mockMvc.perform(get("/api/v1/private/submission/file/test.pdf")
+                        .header(HttpHeaders.RANGE, "bytes=2-5")
+                        .header(HttpHeaders.IF_RANGE, "\"cd34\""))
+                .andExpect(status().isOk())
+                .andExpect(content().bytes(fileContent));
+    }
+
     /**
      * Tests accepting or rejecting a submission.
      *
@@ -323,7 +543,7 @@ class SubmissionControllerTest {
         when(userService.getUserProfile("moinul")).thenReturn(userDto);
         MockMultipartFile file = new MockMultipartFile("file", "test.pdf",
                 MediaType.APPLICATION_PDF_VALUE, "Test content".getBytes());
-        when(fileHandlerService.uploadFile(file)).thenReturn("test.pdf");
+        when(fileHandlerService.uploadFile(file)).thenReturn(new StoredFile("test.pdf", 12L, "ab12"));
         when(submissionRepo.save(any())).thenReturn(submission);
 
         mockMvc.perform(multipart("/api/v1/private/submission/1")
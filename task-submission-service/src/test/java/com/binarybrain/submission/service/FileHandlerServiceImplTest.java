@@ -1,6 +1,7 @@
 package com.binarybrain.submission.service;
 
 import com.binarybrain.exception.*;
+import com.binarybrain.submission.dto.StoredFile;
 import com.binarybrain.submission.service.impl.FileHandlerServiceImpl;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
@@ -15,11 +16,16 @@ import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.util.FileSystemUtils;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.security.MessageDigest;
 import java.util.*;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -35,6 +41,7 @@ class FileHandlerServiceImplTest {
     private final String testUploadDir = "test-uploads";
     private final String testFileName = "test-file.pdf";
     private final String testFileContentType = "application/pdf";
+    private static final byte[] PDF_CONTENT = "%PDF-1.7 test content".getBytes();
 
     @BeforeEach
     void setUp() throws IOException {
@@ -61,30 +68,70 @@ class FileHandlerServiceImplTest {
     }
 
     @Test
-    void uploadFile_WithValidFile_ShouldUploadSuccessfully() throws IOException {
+    void uploadFile_WithValidFile_ShouldUploadSuccessfully() throws Exception {
         when(multipartFile.getOriginalFilename()).thenReturn(testFileName);
-        when(multipartFile.getContentType()).thenReturn(testFileContentType);
-        when(multipartFile.getBytes()).thenReturn("test content".getBytes());
+        when(multipartFile.getInputStream()).thenReturn(new ByteArrayInputStream(PDF_CONTENT));
 
-        String result = fileHandlerService.uploadFile(multipartFile);
+        StoredFile result = fileHandlerService.uploadFile(multipartFile);
 
         assertNotNull(result);
-        assertTrue(Files.exists(Paths.get(testUploadDir).resolve(result)));
+        assertArrayEquals(PDF_CONTENT, Files.readAllBytes(Paths.get(testUploadDir).resolve(result.fileName())));
+        assertEquals(PDF_CONTENT.length, result.size());
+        assertEquals(HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(PDF_CONTENT)), result.sha256());
     }
 
     @Test
-    void uploadFile_WithInvalidFileType_ShouldThrowException() {
-        when(multipartFile.getContentType()).thenReturn("application/exe");
+    void uploadFile_WithPngSentAsAnyContentType_ShouldUploadSuccessfully() throws IOException {
+        byte[] png = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n', 0, 0, 0, 13};
+        when(multipartFile.getOriginalFilename()).thenReturn("image.png");
+        when(multipartFile.getInputStream()).thenReturn(new ByteArrayInputStream(png));
+
+        StoredFile result = fileHandlerService.uploadFile(multipartFile);
+
+        assertEquals(png.length, result.size());
+        verify(multipartFile, never()).getContentType();
+        verify(multipartFile, never()).getBytes();
+    }
+
+    @Test
+    void uploadFile_WithInvalidFileType_ShouldThrowException() throws IOException {
+        when(multipartFile.getInputStream()).thenReturn(new ByteArrayInputStream("MZ executable".getBytes()));
+
+        assertThrows(UnsupportedFileTypeException.class,
+                () -> fileHandlerService.uploadFile(multipartFile));
+        assertEquals(List.of(testFileName), filesInUploadDir());
+    }
+
+    @Test
+    void uploadFile_WithPdfContentTypeButOtherContent_ShouldThrowException() throws IOException {
+        lenient().when(multipartFile.getContentType()).thenReturn(testFileContentType);
+        when(multipartFile.getOriginalFilename()).thenReturn(testFileName);
+        when(multipartFile.getInputStream()).thenReturn(new ByteArrayInputStream("plain text".getBytes()));
 
         assertThrows(UnsupportedFileTypeException.class,
                 () -> fileHandlerService.uploadFile(multipartFile));
     }
 
+    @Test
+    void uploadFile_WhenStreamFails_ShouldLeaveNoFileBehind() throws IOException {
+        InputStream failing = new SequenceInputStream(new ByteArrayInputStream(PDF_CONTENT), new InputStream() {
+            @Override
+            public int read() throws IOException {
+                throw new IOException("connection reset");
+            }
+        });
+        when(multipartFile.getOriginalFilename()).thenReturn(testFileName);
+        when(multipartFile.getInputStream()).thenReturn(failing);
+
+        assertThrows(UnsupportedFileTypeException.class,
+                () -> fileHandlerService.uploadFile(multipartFile));
+        assertEquals(List.of(testFileName), filesInUploadDir());
+    }
+
     @Test
     void uploadFile_WithDirectoryTraversal_ShouldThrowException() throws IOException {
         when(multipartFile.getOriginalFilename()).thenReturn("../malicious-file.pdf");
-        when(multipartFile.getContentType()).thenReturn(testFileContentType);
-        when(multipartFile.getBytes()).thenReturn("malicious content".getBytes());
+        lenient().when(multipartFile.getInputStream()).thenReturn(new ByteArrayInputStream(PDF_CONTENT));
 
         assertThrows(UnsupportedFileTypeException.class,
                 () -> fileHandlerService.uploadFile(multipartFile));
@@ -94,43 +141,48 @@ class FileHandlerServiceImplTest {
     void uploadFile_WhenDirectoryDoesNotExist_ShouldCreateDirectory() throws IOException {
         FileSystemUtils.deleteRecursively(Paths.get(testUploadDir));
         when(multipartFile.getOriginalFilename()).thenReturn(testFileName);
-        when(multipartFile.getContentType()).thenReturn(testFileContentType);
-        when(multipartFile.getBytes()).thenReturn("test content".getBytes());
+        when(multipartFile.getInputStream()).thenReturn(new ByteArrayInputStream(PDF_CONTENT));
 
         fileHandlerService.uploadFile(multipartFile);
 
         assertTrue(Files.exists(Paths.get(testUploadDir)));
     }
 
+    private List<String> filesInUploadDir() throws IOException {
+        try (Stream<Path> files = Files.list(Paths.get(testUploadDir))) {
+            return files.map(file -> file.getFileName().toString()).toList();
+        }
+    }
+
 
     @Test
-    void downloadFile_WithValidFilename_ShouldReturnFileContent() {
-        byte[] result = fileHandlerService.downloadFile(testFileName);
+    void getFilePath_WithValidFilename_ShouldReturnPathOfFile() throws IOException {
+        Path result = fileHandlerService.getFilePath(testFileName);
 
-        assertArrayEquals("test content".getBytes(), result);
+        assertArrayEquals("test content".getBytes(), Files.readAllBytes(result));
     }
 
     @Test
-    void downloadFile_WithInvalidFilename_ShouldThrowException() {
+    void getFilePath_WithInvalidFilename_ShouldThrowException() {
         assertThrows(IllegalArgumentException.class,
-                () -> fileHandlerService.downloadFile("../invalid-file.pdf"));
+                () -> fileHandlerService.getFilePath("../invalid-file.pdf"));
     }
 
     @Test
-    void downloadFile_WithInvalidFilenameSlash_ShouldThrowException() {
+    void getFilePath_WithInvalidFilenameSlash_ShouldThrowException() {
         assertThrows(IllegalArgumentException.class,
-                () -> fileHandlerService.downloadFile("invalid-/\\file.pdf"));
+                () -> fileHandlerService.getFilePath("invalid-/\\file.pdf"));
     }
 
     @Test
-    void downloadFile_WithPerfectName_NotFound() {
-        assertThrows(ResourceNotFoundException.class,() -> fileHandlerService.downloadFile("file.pdf"));
+    void getFilePath_WithPerfectName_NotFound() {
+        assertThrows(ResourceNotFoundException.class,() -> fileHandlerService.getFilePath("file.pdf"));
     }
 
     @Test
-    void downloadFile_WithNonexistentFile_ShouldThrowException() {
+    void getFilePath_WithNonexistentFile_ShouldThrowException() {
         assertThrows(ResourceNotFoundException.class,
-                () -> fileHandlerService.downloadFile("nonexistent-file.pdf"));
+                () -> fileHandlerService.getFilePath("nonexistent-file.pdf"));
     }
 
     @Test
@@ -165,23 +217,17 @@ class FileHandlerServiceImplTest {
     }
 
     @Test
-    void isValidFileType_WithAllowedTypes_ShouldReturnTrue() {
-        assertTrue(fileHandlerService.isValidFileType(createMockFile("application/pdf")));
-        assertTrue(fileHandlerService.isValidFileType(createMockFile("image/png")));
-        assertTrue(fileHandlerService.isValidFileType(createMockFile("image/jpeg")));
-        assertTrue(fileHandlerService.isValidFileType(createMockFile("image/jpg")));
+    void isValidFileType_WithAllowedSignatures_ShouldReturnTrue() {
+        assertTrue(fileHandlerService.isValidFileType("%PDF-1.4".getBytes()));
+        assertTrue(fileHandlerService.isValidFileType(new byte[]{(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'}));
+        assertTrue(fileHandlerService.isValidFileType(new byte[]{(byte) 0xFF, (byte) 0xD8, (byte) 0xFF, (byte) 0xE0}));
     }
 
     @Test
-    void isValidFileType_WithDisallowedTypes_ShouldReturnFalse() {
-        assertFalse(fileHandlerService.isValidFileType(createMockFile("application/exe")));
-        assertFalse(fileHandlerService.isValidFileType(createMockFile("text/plain")));
-        assertFalse(fileHandlerService.isValidFileType(createMockFile("image/gif")));
-    }
-
-    private MultipartFile createMockFile(String contentType) {
-        MultipartFile file = mock(MultipartFile.class);
-        when(file.getContentType()).thenReturn(contentType);
-        return file;
+    void isValidFileType_WithOtherSignatures_ShouldReturnFalse() {
+        assertFalse(fileHandlerService.isValidFileType("MZ\u0090\u0000".getBytes()));
+        assertFalse(fileHandlerService.isValidFileType("GIF89a".getBytes()));
+        assertFalse(fileHandlerService.isValidFileType("%PD".getBytes()));
+        assertFalse(fileHandlerService.isValidFileType(new byte[0]));
     }
 }
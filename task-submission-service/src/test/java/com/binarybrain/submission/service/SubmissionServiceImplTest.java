@@ -6,20 +6,27 @@ import com.binarybrain.submission.mapper.SubmissionMapper;
 import com.binarybrain.submission.model.*;
 import com.binarybrain.submission.repository.SubmissionRepo;
 import com.binarybrain.submission.service.impl.SubmissionServiceImpl;
+import com.binarybrain.submission.service.impl.TimelineEventPublisher;
+import com.binarybrain.support.lookup.ChunkedIdLookup;
+import com.binarybrain.support.lookup.CursorPage;
+import jakarta.persistence.EntityManager;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 @ActiveProfiles("test")
 @ExtendWith(MockitoExtension.class)
@@ -37,6 +44,15 @@ class SubmissionServiceImplTest {
     @Mock
     private FileHandlerService fileHandlerService;
 
+    @Mock
+    private TimelineEventPublisher timelineEventPublisher;
+
+    @Spy
+    private ChunkedIdLookup chunkedIdLookup = new ChunkedIdLookup();
+
+    @Mock
+    private EntityManager entityManager;
+
     @InjectMocks
     private SubmissionServiceImpl submissionService;
 
@@ -88,7 +104,7 @@ class SubmissionServiceImplTest {
         when(taskService.getTaskById(1L, "student")).thenReturn(task);
         when(userService.getUserProfile("student")).thenReturn(student);
         when(submissionRepo.findByTaskIdAndSubmittedBy(1L, "student")).thenReturn(Optional.empty());
-        when(fileHandlerService.uploadFile(file)).thenReturn("uploaded-file.pdf");
+        when(fileHandlerService.uploadFile(file)).thenReturn(new StoredFile("uploaded-file.pdf", 12L, "ab12"));
         when(submissionRepo.save(any(Submission.class))).thenReturn(submission);
 
         SubmissionDto result = submissionService.submitTask(1L, file, "https://github.com/test", "student");
@@ -96,7 +112,11 @@ class SubmissionServiceImplTest {
         assertNotNull(result);
         assertEquals(1L, result.getTaskId());
         assertEquals("student", result.getSubmittedBy());
+        assertEquals("uploaded-file.pdf", result.getFileUrl());
+        assertEquals(12L, result.getFileSize());
+        assertEquals("ab12", result.getFileSha256());
         verify(submissionRepo).save(any(Submission.class));
+        verify(timelineEventPublisher).submissionChanged(any(TaskSubmissionState.class));
     }
 
     @Test
@@ -133,7 +153,7 @@ class SubmissionServiceImplTest {
         when(taskService.getTaskById(1L, "student")).thenReturn(task);
         when(userService.getUserProfile("student")).thenReturn(student);
         when(submissionRepo.findByTaskIdAndSubmittedBy(1L, "student")).thenReturn(Optional.empty());
-        when(fileHandlerService.uploadFile(file)).thenReturn("uploaded-file.pdf");
+        when(fileHandlerService.uploadFile(file)).thenReturn(new StoredFile("uploaded-file.pdf", 12L, "ab12"));
         when(submissionRepo.save(any(Submission.class))).thenReturn(submission);
 
         SubmissionDto result = submissionService.submitTask(1L, file, "https://github.com/test", "student");
@@ -161,12 +181,94 @@ class SubmissionServiceImplTest {
 
     @Test
     void getAllSubmissionFromTask_ShouldReturnSubmissions() {
-        when(submissionRepo.findByTaskId(1L)).thenReturn(List.of(submission));
+        when(submissionRepo.findByTaskIdAndIdGreaterThanOrderByIdAsc(eq(1L), eq(0L), any())).thenReturn(List.of(submission));
+
+        CursorPage<SubmissionDto> result = submissionService.getAllSubmissionFromTask(1L, null, null);
+
+        assertEquals(1, result.items().size());
+        assertNull(result.nextCursor());
+    }
+
+    @Test
+    void getAllSubmissionFromTask_WhenMoreSubmissionsFollow_ShouldReturnNextCursor() {
+        Submission second = new Submission();
+        second.setId(4L);
+        when(submissionRepo.findByTaskIdAndIdGreaterThanOrderByIdAsc(eq(1L), eq(0L), any())).thenReturn(List.of(submission, second));
+
+        CursorPage<SubmissionDto> result = submissionService.getAllSubmissionFromTask(1L, null, 1);
+
+        assertEquals(List.of(1L), result.items().stream().map(SubmissionDto::getId).toList());
+        assertEquals(1L, result.nextCursor());
+    }
+
+    @Test
+    void exportAllSubmission_WhenUserIsAdmin_ShouldStreamAndDetachEverySubmission() {
+        when(userService.getUserProfile("admin")).thenReturn(createUserDto(3L, "admin", "ADMIN"));
+        when(submissionRepo.streamByTaskIdOrderByIdAsc(1L)).thenReturn(Stream.of(submission));
+        List<SubmissionDto> exported = new ArrayList<>();
+
+        submissionService.exportAllSubmission(1L, "admin", exported::add);
+
+        assertEquals(List.of(1L), exported.stream().map(SubmissionDto::getId).toList());
+        verify(entityManager).detach(submission);
+    }
 
-        List<SubmissionDto> result = submissionService.getAllSubmissionFromTask(1L);
+    @Test
+    void exportAllSubmission_WhenUserIsNotAdmin_ShouldThrowException() {
+        when(userService.getUserProfile("teacher")).thenReturn(teacher);
+
+        assertThrows(UserHasNotPermissionException.class, () -> submissionService.exportAllSubmission(null, "teacher", submissionDto -> { }));
+        verify(submissionRepo, never()).streamAllByOrderByIdAsc();
+    }
+
+    @Test
+    void countSubmissionsByTaskIds_ShouldReturnZeroForTasksWithoutSubmissions() {
+        SubmissionRepo.TaskSubmissionCount count = mock(SubmissionRepo.TaskSubmissionCount.class);
+        when(count.getTaskId()).thenReturn(1L);
+        when(count.getSubmissions()).thenReturn(3L);
+        when(submissionRepo.countByTaskIds(List.of(1L, 2L))).thenReturn(List.of(count));
+
+        Map<Long, Long> result = submissionService.countSubmissionsByTaskIds(List.of(1L, 2L));
+
+        assertEquals(Map.of(1L, 3L, 2L, 0L), result);
+    }
+
+    @Test
+    void countSubmissionsByTaskIds_WhenNoTasks_ShouldNotQuery() {
+        assertTrue(submissionService.countSubmissionsByTaskIds(List.of()).isEmpty());
+        verifyNoInteractions(submissionRepo);
+    }
+
+    @Test
+    void getSubmissionStatesByTaskIds_ShouldReturnStatesFromRepo() {
+        List<TaskSubmissionState> states = List.of(new TaskSubmissionState(1L, 1L, SubmissionStatus.PENDING, LocalDateTime.now()));
+        when(userService.getUserProfile("teacher")).thenReturn(teacher);
+        when(submissionRepo.findStatesByTaskIds(List.of(1L, 2L))).thenReturn(states);
+
+        assertEquals(states, submissionService.getSubmissionStatesByTaskIds(List.of(1L, 2L), "teacher"));
+    }
+
+    @Test
+    void getSubmissionStatesByTaskIds_WhenStudent_ShouldThrowPermissionException() {
+        when(userService.getUserProfile("student")).thenReturn(student);
+
+        assertThrows(UserHasNotPermissionException.class, () -> submissionService.getSubmissionStatesByTaskIds(List.of(1L), "student"));
+        verifyNoInteractions(submissionRepo);
+    }
+
+    @Test
+    void getFileSha256_ShouldReturnStoredChecksum() {
+        when(submissionRepo.findFileSha256ByFileUrl("uploaded-file.pdf")).thenReturn(Optional.of("ab12"));
+
+        assertEquals(Optional.of("ab12"), submissionService.getFileSha256("uploaded-file.pdf"));
+    }
+
+    @Test
+    void getSubmissionStatesByTaskIds_WhenNoTasks_ShouldNotQuery() {
+        when(userService.getUserProfile("teacher")).thenReturn(teacher);
 
-        assertFalse(result.isEmpty());
-        assertEquals(1, result.size());
+        assertTrue(submissionService.getSubmissionStatesByTaskIds(List.of(), "teacher").isEmpty());
+        verifyNoInteractions(submissionRepo);
     }
 
     @Test
@@ -197,6 +299,8 @@ class SubmissionServiceImplTest {
 
         assertEquals(SubmissionStatus.ACCEPTED, result.getSubmissionStatus());
         verify(submissionRepo).save(any(Submission.class));
+        verify(timelineEventPublisher).submissionChanged(
+                new TaskSubmissionState(submission.getTaskId(), submission.getStudentId(), SubmissionStatus.ACCEPTED, submission.getSubmissionTime()));
     }
 
     @Test
@@ -212,12 +316,13 @@ class SubmissionServiceImplTest {
     void updateSubmissionByTaskId_ShouldUpdateSubmission() {
         when(userService.getUserProfile("student")).thenReturn(student);
         when(submissionRepo.findByTaskIdAndSubmittedBy(1L, "student")).thenReturn(Optional.of(submission));
-        when(fileHandlerService.uploadFile(file)).thenReturn("new-file.pdf");
+        when(fileHandlerService.uploadFile(file)).thenReturn(new StoredFile("new-file.pdf", 12L, "cd34"));
         when(submissionRepo.save(any(Submission.class))).thenReturn(submission);
 
         SubmissionDto result = submissionService.updateSubmissionByTaskId(1L, file, "new-github-link", "student");
 
         assertEquals("new-file.pdf", result.getFileUrl());
+        assertEquals("cd34", result.getFileSha256());
         assertEquals("new-github-link", result.getGithubLink());
         verify(fileHandlerService).deleteFile("test-file.pdf");
     }
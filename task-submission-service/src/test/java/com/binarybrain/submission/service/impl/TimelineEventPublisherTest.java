@@ -0,0 +1,49 @@
+package com.binarybrain.submission.service.impl;
+
+import com.binarybrain.submission.dto.TaskSubmissionState;
+import com.binarybrain.submission.model.SubmissionStatus;
+import com.binarybrain.submission.service.ClassroomService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+
+import java.time.LocalDateTime;
+
+import static org.mockito.Mockito.*;
+
+class TimelineEventPublisherTest {
+
+    private final ClassroomService classroomService = mock(ClassroomService.class);
+    private TimelineEventPublisher publisher;
+
+    @BeforeEach
+    void setUp() {
+        publisher = new TimelineEventPublisher(classroomService);
+        publisher.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        publisher.shutdown();
+    }
+
+    @Test
+    void events_ArePostedInOrderAndFailuresDontStopLaterOnes() {
+        LocalDateTime submittedAt = LocalDateTime.of(2025, 1, 1, 10, 0);
+        TaskSubmissionState submitted = new TaskSubmissionState(1L, 7L, SubmissionStatus.PENDING, submittedAt);
+        TaskSubmissionState accepted = new TaskSubmissionState(1L, 7L, SubmissionStatus.ACCEPTED, submittedAt);
+        TaskSubmissionState other = new TaskSubmissionState(2L, 7L, SubmissionStatus.PENDING, submittedAt);
+        doThrow(new IllegalStateException("down")).when(classroomService).submissionChanged(submitted);
+
+        publisher.submissionChanged(submitted);
+        publisher.submissionChanged(accepted);
+        publisher.submissionChanged(other);
+
+        verify(classroomService, timeout(1000)).submissionChanged(other);
+        InOrder inOrder = inOrder(classroomService);
+        inOrder.verify(classroomService).submissionChanged(submitted);
+        inOrder.verify(classroomService).submissionChanged(accepted);
+        inOrder.verify(classroomService).submissionChanged(other);
+    }
+}
@@ -0,0 +1,134 @@
+package com.binarybrain.submission.service.impl;
+
+import com.binarybrain.submission.dto.RoleDto;
+import com.binarybrain.submission.dto.UserDto;
+import com.binarybrain.submission.service.UserService;
+import com.binarybrain.support.cache.NearCacheFactory;
+import com.github.benmanes.caffeine.cache.Ticker;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UserProfileResolverTest {
+
+    @Mock
+    private UserService userServiceClient;
+
+    private UserProfileResolver userProfileResolver;
+
+    private MockHttpServletRequest request;
+
+    @BeforeEach
+    void setUp() {
+        userProfileResolver = new UserProfileResolver(userServiceClient, newCaches());
+        request = new MockHttpServletRequest();
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+    }
+
+    private static NearCacheFactory newCaches() {
+        return new NearCacheFactory(Duration.ofMinutes(1), Duration.ofMinutes(10), 100, Runnable::run, Ticker.systemTicker(), null);
+    }
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void getUserProfile_ResolvesFromGatewayHeaders() {
+        request.addHeader(UserProfileResolver.USERNAME_HEADER, "teacher");
+        request.addHeader(UserProfileResolver.USER_ID_HEADER, "1");
+        request.addHeader(UserProfileResolver.USER_ROLES_HEADER, "TEACHER,ADMIN");
+
+        UserDto userDto = userProfileResolver.getUserProfile("teacher");
+
+        assertEquals(1L, userDto.getId());
+        assertEquals("teacher", userDto.getUsername());
+        assertEquals(Set.of("TEACHER", "ADMIN"), userDto.getRoles().stream().map(RoleDto::getName).collect(Collectors.toSet()));
+        verifyNoInteractions(userServiceClient);
+    }
+
+    @Test
+    void getUserProfile_FallsBackToClient_WhenHeadersMissing() {
+        request.addHeader(UserProfileResolver.USERNAME_HEADER, "teacher");
+        UserDto remote = new UserDto();
+        when(userServiceClient.getUserProfile("teacher")).thenReturn(remote);
+
+        assertSame(remote, userProfileResolver.getUserProfile("teacher"));
+    }
+
+    @Test
+    void getUserProfile_FallsBackToClient_WhenHeadersBelongToAnotherUser() {
+        request.addHeader(UserProfileResolver.USERNAME_HEADER, "teacher");
+        request.addHeader(UserProfileResolver.USER_ID_HEADER, "1");
+        request.addHeader(UserProfileResolver.USER_ROLES_HEADER, "TEACHER");
+        UserDto remote = new UserDto();
+        when(userServiceClient.getUserProfile("student")).thenReturn(remote);
+
+        assertSame(remote, userProfileResolver.getUserProfile("student"));
+    }
+
+    @Test
+    void getUserProfile_FallsBackToClient_WhenUserIdMalformed() {
+        request.addHeader(UserProfileResolver.USERNAME_HEADER, "teacher");
+        request.addHeader(UserProfileResolver.USER_ID_HEADER, "not-a-number");
+        request.addHeader(UserProfileResolver.USER_ROLES_HEADER, "TEACHER");
+        UserDto remote = new UserDto();
+        when(userServiceClient.getUserProfile("teacher")).thenReturn(remote);
+
+        assertSame(remote, userProfileResolver.getUserProfile("teacher"));
+    }
+
+    @Test
+    void getUserProfile_FallsBackToClient_OutsideRequest() {
+        RequestContextHolder.resetRequestAttributes();
+        UserDto remote = new UserDto();
+        when(userServiceClient.getUserProfile("teacher")).thenReturn(remote);
+
+        assertSame(remote, userProfileResolver.getUserProfile("teacher"));
+    }
+
+    @Test
+    void getUserProfile_CachesClientResult() {
+        UserDto remote = new UserDto();
+        when(userServiceClient.getUserProfile("teacher")).thenReturn(remote);
+
+        userProfileResolver.getUserProfile("teacher");
+        assertSame(remote, userProfileResolver.getUserProfile("teacher"));
+
+        verify(userServiceClient, times(1)).getUserProfile("teacher");
+    }
+
+    @Test
+    void getUserProfilesByIds_FetchesOnlyUncachedIds() {
+        UserDto first = new UserDto();
+        first.setId(3L);
+        UserDto second = new UserDto();
+        second.setId(4L);
+        when(userServiceClient.getUserProfilesByIds(Set.of(3L), "teacher")).thenReturn(List.of(first));
+        when(userServiceClient.getUserProfilesByIds(Set.of(4L), "teacher")).thenReturn(List.of(second));
+
+        userProfileResolver.getUserProfilesByIds(List.of(3L), "teacher");
+        List<UserDto> result = userProfileResolver.getUserProfilesByIds(List.of(4L, 3L), "teacher");
+
+        assertEquals(List.of(second, first), result);
+        verify(userServiceClient, times(2)).getUserProfilesByIds(any(), eq("teacher"));
+    }
+}